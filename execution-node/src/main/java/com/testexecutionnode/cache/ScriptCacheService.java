@@ -0,0 +1,329 @@
+package com.testexecutionnode.cache;
+
+import com.testexecutionnode.client.ContentEncoding;
+import com.testexecutionnode.client.PlatformClient;
+import com.testexecutionnode.client.PlatformEndpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 节点本地脚本缓存
+ * 脚本按内容SHA-256摘要存放在blobs目录下，index.properties记录filePath到摘要的映射；
+ * 下载时携带If-None-Match，平台返回304时直接使用本地内容。总大小超过上限时按最近使用时间淘汰
+ */
+@Component
+public class ScriptCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(ScriptCacheService.class);
+    private static final String INDEX_FILE = "index.properties";
+
+    @Autowired
+    private PlatformClient platformClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${project.root.dir}")
+    private String projectRootDir;
+
+    @Value("${script.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${script.cache.directory:script-cache}")
+    private String cacheDirectory;
+
+    // 缓存总大小上限（字节）
+    @Value("${script.cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    private Path blobDir;
+    private Path indexFile;
+
+    // filePath -> 内容摘要
+    private final Properties index = new Properties();
+
+    // 内容摘要 -> 文件大小，按访问顺序排列，最久未使用的在最前
+    private final LinkedHashMap<String, Long> blobs = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            logger.info("Script cache is disabled");
+            return;
+        }
+        Path cacheRoot = Paths.get(projectRootDir).resolve(cacheDirectory);
+        blobDir = cacheRoot.resolve("blobs");
+        indexFile = cacheRoot.resolve(INDEX_FILE);
+        Files.createDirectories(blobDir);
+        if (Files.exists(indexFile)) {
+            try (InputStream in = Files.newInputStream(indexFile)) {
+                index.load(in);
+            }
+        }
+        // 按修改时间恢复使用顺序，每次命中都会刷新修改时间
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(blobDir)) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(this::lastModified));
+        for (Path file : files) {
+            long size = Files.size(file);
+            blobs.put(file.getFileName().toString(), size);
+            totalBytes += size;
+        }
+        index.values().removeIf(hash -> !blobs.containsKey(hash));
+        logger.info("Loaded script cache with {} entries, {} bytes", blobs.size(), totalBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取脚本内容在缓存中的文件，内容未变化时不重新下载
+     * @param filePath 脚本在平台上的文件路径
+     * @return 缓存文件路径，只读使用
+     */
+    public Path getScript(String filePath) throws IOException {
+        String cachedHash = getCachedHash(filePath);
+        Path blob = platformClient.execute(PlatformEndpoint.SCRIPT_DOWNLOAD, "/api/scripts/download?filePath=" + filePath, HttpMethod.GET,
+                request -> {
+                    ContentEncoding.acceptGzip(request);
+                    if (cachedHash != null) {
+                        request.getHeaders().set(HttpHeaders.IF_NONE_MATCH, "\"" + cachedHash + "\"");
+                    }
+                },
+                response -> {
+                    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cachedHash != null) {
+                        return touch(cachedHash);
+                    }
+                    return store(filePath, ContentEncoding.decodedBody(response));
+                });
+        if (blob == null || !Files.exists(blob)) {
+            // 304后缓存文件恰好被淘汰，去掉条件重新下载
+            synchronized (this) {
+                index.remove(filePath);
+            }
+            return getScript(filePath);
+        }
+        return blob;
+    }
+
+    /**
+     * 一次请求下载测试计划的全部脚本（只包含本地缺失或内容已变化的脚本）并写入缓存
+     * @param planId 计划ID
+     * @param filePaths 计划中脚本的文件路径
+     * @return filePath到缓存文件的映射，平台未返回且本地也没有的脚本不在其中
+     */
+    public Map<String, Path> prefetchPlanBundle(Long planId, Collection<String> filePaths) throws IOException {
+        Map<String, String> knownHashes = new HashMap<>();
+        for (String filePath : filePaths) {
+            String hash = getCachedHash(filePath);
+            if (hash != null) {
+                knownHashes.put(filePath, hash);
+            }
+        }
+        Map<String, Path> received = platformClient.execute(PlatformEndpoint.PLAN_BUNDLE, "/api/plans/" + planId + "/bundle", HttpMethod.POST,
+                request -> {
+                    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    objectMapper.writeValue(request.getBody(), knownHashes);
+                },
+                response -> {
+                    Map<String, Path> stored = new HashMap<>();
+                    ZipInputStream zip = new ZipInputStream(response.getBody());
+                    ZipEntry entry;
+                    while ((entry = zip.getNextEntry()) != null) {
+                        stored.put(entry.getName(), store(entry.getName(), zip));
+                        zip.closeEntry();
+                    }
+                    return stored;
+                });
+
+        // 平台未打包的已知脚本即为内容未变化
+        Map<String, Path> scripts = new HashMap<>();
+        for (Map.Entry<String, String> known : knownHashes.entrySet()) {
+            Path blob = touch(known.getValue());
+            if (blob != null) {
+                scripts.put(known.getKey(), blob);
+            }
+        }
+        if (received != null) {
+            scripts.putAll(received);
+        }
+        logger.info("Prefetched plan {} bundle: {} scripts received, {} already cached",
+                planId, received != null ? received.size() : 0, knownHashes.size());
+        return scripts;
+    }
+
+    /**
+     * 获取脚本在缓存中的内容摘要，未缓存时返回null
+     */
+    public synchronized String getCachedHash(String filePath) {
+        String hash = index.getProperty(filePath);
+        return hash != null && blobs.containsKey(hash) ? hash : null;
+    }
+
+    /**
+     * 获取摘要对应的缓存文件并刷新使用时间，不存在时返回null
+     */
+    public synchronized Path touch(String hash) {
+        if (blobs.get(hash) == null) {
+            return null;
+        }
+        Path blob = blobDir.resolve(hash);
+        try {
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Failed to touch cached script {}: {}", hash, e.getMessage());
+        }
+        return blob;
+    }
+
+    /**
+     * 将脚本内容写入缓存并记录filePath映射
+     * @param filePath 脚本在平台上的文件路径
+     * @param content 脚本内容，由调用方关闭
+     * @return 缓存文件路径
+     */
+    public Path store(String filePath, InputStream content) throws IOException {
+        MessageDigest digest = newDigest();
+        Path tempFile = blobDir.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            InputStream in = new DigestInputStream(content, digest);
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            String hash = toHex(digest.digest());
+            Path blob = blobDir.resolve(hash);
+            synchronized (this) {
+                if (!blobs.containsKey(hash)) {
+                    moveIntoPlace(tempFile, blob);
+                    long size = Files.size(blob);
+                    blobs.put(hash, size);
+                    totalBytes += size;
+                } else {
+                    // 内容已缓存，只刷新使用顺序
+                    blobs.get(hash);
+                }
+                index.setProperty(filePath, hash);
+                evict(hash);
+                saveIndex();
+            }
+            logger.info("Cached script {} as {}", filePath, hash);
+            return blob;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // 淘汰最久未使用的脚本直到总大小不超过上限，刚写入的脚本不淘汰
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Long>> iterator = blobs.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(blobDir.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                logger.warn("Failed to evict cached script {}: {}", eldest.getKey(), e.getMessage());
+                continue;
+            }
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            index.values().remove(eldest.getKey());
+            logger.info("Evicted cached script {}", eldest.getKey());
+        }
+    }
+
+    private void saveIndex() {
+        Path tempIndex = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tempIndex)) {
+                index.store(out, "script filePath -> content sha256");
+            }
+            moveIntoPlace(tempIndex, indexFile);
+        } catch (IOException e) {
+            logger.warn("Failed to save script cache index: {}", e.getMessage());
+        }
+    }
+
+    private void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException | FileAlreadyExistsException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
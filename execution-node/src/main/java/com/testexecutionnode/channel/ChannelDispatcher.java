@@ -0,0 +1,56 @@
+package com.testexecutionnode.channel;
+
+import com.testexecutionnode.service.AdmissionQueue;
+import com.testexecutionnode.service.TestExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 执行平台通过长连接下发的计划和任务，执行结束后归还下发额度
+ * 与HTTP下发的计划/任务一起进入准入队列，共用节点的执行位
+ */
+@Component
+public class ChannelDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ChannelDispatcher.class);
+
+    @Autowired
+    private PlatformChannel platformChannel;
+
+    @Autowired
+    private TestExecutionService testExecutionService;
+
+    @Autowired
+    private AdmissionQueue admissionQueue;
+
+    @EventListener
+    public void onDispatch(DispatchCommand command) {
+        boolean admitted;
+        if (DispatchCommand.PLAN.equals(command.getType())) {
+            logger.info("Received test plan {} (execution {}) over platform channel", command.getPlanId(), command.getExecutionId());
+            admitted = admissionQueue.submitPlan(command.getExecutionId(), "test plan " + command.getPlanId() + " (execution "
+                    + command.getExecutionId() + (command.getShardId() != null ? ", shard " + command.getShardId() : "") + ")", true,
+                    () -> run(command, () -> testExecutionService.executeTestPlan(command.getPlanId(), command.getExecutionId(), command.getShardId())));
+        } else {
+            logger.info("Received test task {} over platform channel", command.getTaskId());
+            admitted = admissionQueue.submitTask(command.getTaskId(), "test task " + command.getTaskId(), true,
+                    () -> run(command, () -> testExecutionService.executeTestTask(command.getTaskId())));
+        }
+        if (!admitted) {
+            // 节点正在关闭
+            platformChannel.returnCredit();
+        }
+    }
+
+    private void run(DispatchCommand command, Runnable work) {
+        try {
+            work.run();
+        } catch (Exception e) {
+            logger.error("Error executing dispatched {}: {}", command.getType(), e.getMessage());
+        } finally {
+            platformChannel.returnCredit();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.testexecutionnode.channel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+/**
+ * 平台对长连接请求的回复，状态码含义与HTTP接口一致
+ */
+public class ChannelResponse {
+    private final int status;
+    private final JsonNode payload;
+
+    public ChannelResponse(int status, JsonNode payload) {
+        this.status = status;
+        this.payload = payload != null ? payload : MissingNode.getInstance();
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public JsonNode getPayload() {
+        return payload;
+    }
+
+    public boolean isSuccess() {
+        return status >= 200 && status < 300;
+    }
+
+    public boolean isClientError() {
+        return status >= 400 && status < 500;
+    }
+}
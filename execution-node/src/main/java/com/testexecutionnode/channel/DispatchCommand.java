@@ -0,0 +1,46 @@
+package com.testexecutionnode.channel;
+
+/**
+ * 平台通过长连接下发的执行命令，以Spring事件发布
+ */
+public class DispatchCommand {
+    public static final String PLAN = "PLAN";
+    public static final String TASK = "TASK";
+
+    private final String type;
+    private final Long planId;
+    private final Long executionId;
+    private final Long shardId;
+    private final Long taskId;
+
+    public DispatchCommand(String type, Long planId, Long executionId, Long shardId, Long taskId) {
+        this.type = type;
+        this.planId = planId;
+        this.executionId = executionId;
+        this.shardId = shardId;
+        this.taskId = taskId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getPlanId() {
+        return planId;
+    }
+
+    public Long getExecutionId() {
+        return executionId;
+    }
+
+    /**
+     * 计划执行分片ID，为空时执行计划的全部脚本
+     */
+    public Long getShardId() {
+        return shardId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+}
@@ -0,0 +1,380 @@
+package com.testexecutionnode.channel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testexecutionnode.client.ReconnectBackoff;
+import com.testexecutionnode.client.dto.NodeRegistrationDto;
+import com.testexecutionnode.config.NodeConfig;
+import com.testexecutionnode.service.ExecutionCancellationService;
+import com.testexecutionnode.service.NodeLoadMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.ContainerProvider;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+import javax.websocket.WebSocketContainer;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 与平台之间的长连接（WebSocket，平台端点/ws/node）
+ * 心跳、状态、执行事件和日志分片复用同一条连接，平台也通过它下发执行命令。
+ * 流量控制：未收到回复的请求数不超过平台握手时返回的窗口，超出时发送方等待；
+ * 节点在握手时声明可接收的下发额度，执行结束后通过CREDIT归还。未连接时调用方改用HTTP接口
+ */
+@Component
+public class PlatformChannel {
+    private static final Logger logger = LoggerFactory.getLogger(PlatformChannel.class);
+
+    @Autowired
+    private NodeConfig nodeConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NodeLoadMonitor nodeLoadMonitor;
+
+    @Autowired
+    private ExecutionCancellationService executionCancellationService;
+
+    @Value("${platform.channel.enabled:false}")
+    private boolean enabled;
+
+    @Value("${platform.channel.path:/ws/node}")
+    private String path;
+
+    // 等待平台回复的最长时间
+    @Value("${platform.channel.request-timeout-ms:15000}")
+    private long requestTimeoutMillis;
+
+    // 断线后的初始重连等待时间，连续失败时翻倍，实际等待时间带随机抖动
+    @Value("${platform.channel.reconnect-backoff-ms:1000}")
+    private long reconnectBackoffMillis;
+
+    @Value("${platform.channel.max-reconnect-backoff-ms:30000}")
+    private long maxReconnectBackoffMillis;
+
+    // 可同时接收的下发命令数
+    @Value("${platform.channel.dispatch-credits:2}")
+    private int dispatchCredits;
+
+    // 单条消息的最大字节数，需不大于平台的node.channel.max-message-bytes
+    @Value("${platform.channel.max-message-bytes:2097152}")
+    private int maxMessageBytes;
+
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final Map<Long, CompletableFuture<ChannelResponse>> pendingRequests = new ConcurrentHashMap<>();
+    private final Object sendLock = new Object();
+    private AtomicInteger availableCredits;
+
+    private volatile Session session;
+    private volatile Semaphore window = new Semaphore(0);
+    private volatile boolean connected;
+    private volatile boolean running;
+    private volatile CountDownLatch closed;
+    private Thread connectThread;
+    private ScheduledThreadPoolExecutor timeoutExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        availableCredits = new AtomicInteger(Math.max(dispatchCredits, 0));
+        timeoutExecutor = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("platform-channel-timeout-"));
+        // 请求收到回复后取消的超时任务立即移出队列
+        timeoutExecutor.setRemoveOnCancelPolicy(true);
+        running = true;
+        connectThread = new Thread(this::connectLoop, "platform-channel");
+        connectThread.setDaemon(true);
+        connectThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        connectThread.interrupt();
+        Session current = session;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close platform channel: {}", e.getMessage());
+            }
+        }
+        timeoutExecutor.shutdownNow();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * 发送请求并等待平台回复
+     * @param data 日志分片等二进制内容，为空时以文本帧发送
+     * @throws IOException 未连接、发送失败或等待回复超时
+     */
+    public ChannelResponse call(String type, Object payload, byte[] data) throws IOException {
+        return await(type, request(type, payload, data));
+    }
+
+    private ChannelResponse await(String type, CompletableFuture<ChannelResponse> request) throws IOException {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for platform reply to " + type, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * 异步发送请求，窗口已满时在调用线程等待
+     */
+    public CompletableFuture<ChannelResponse> request(String type, Object payload, byte[] data) {
+        if (!connected) {
+            CompletableFuture<ChannelResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(new IOException("Platform channel is not connected"));
+            return future;
+        }
+        return request(type, payload, data, window);
+    }
+
+    private CompletableFuture<ChannelResponse> request(String type, Object payload, byte[] data, Semaphore currentWindow) {
+        CompletableFuture<ChannelResponse> future = new CompletableFuture<>();
+        try {
+            if (!currentWindow.tryAcquire(requestTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                future.completeExceptionally(new IOException("Platform channel window is full"));
+                return future;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new IOException("Interrupted while waiting for platform channel window", e));
+            return future;
+        }
+        long id = nextRequestId.incrementAndGet();
+        pendingRequests.put(id, future);
+        ScheduledFuture<?> timeout = timeoutExecutor.schedule(
+                () -> future.completeExceptionally(new IOException(new TimeoutException("No platform reply to " + type))),
+                requestTimeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((response, e) -> {
+            timeout.cancel(false);
+            pendingRequests.remove(id);
+            currentWindow.release();
+        });
+        try {
+            send(type, id, payload, data);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 归还一个下发额度（下发的计划或任务执行结束）
+     */
+    public void returnCredit() {
+        availableCredits.incrementAndGet();
+        if (!connected) {
+            // 重连时握手消息会带上当前额度
+            return;
+        }
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("credits", 1);
+        try {
+            send("CREDIT", null, payload, null);
+        } catch (IOException e) {
+            logger.warn("Failed to return dispatch credit to platform: {}", e.getMessage());
+        }
+    }
+
+    private void connectLoop() {
+        ReconnectBackoff backoff = new ReconnectBackoff(reconnectBackoffMillis, maxReconnectBackoffMillis);
+        while (running) {
+            try {
+                connect();
+                backoff.reset();
+                closed.await();
+                closeQuietly();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.warn("Failed to connect platform channel: {}", e.getMessage());
+                closeQuietly();
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(backoff.nextDelayMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void connect() throws Exception {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(maxMessageBytes);
+        container.setDefaultMaxBinaryMessageBufferSize(maxMessageBytes);
+        String platformUrl = nodeConfig.getPlatformServerUrl();
+        URI uri = URI.create(platformUrl.replaceFirst("^http", "ws").replaceAll("/$", "") + path);
+        closed = new CountDownLatch(1);
+        session = container.connectToServer(new ChannelEndpoint(), ClientEndpointConfig.Builder.create().build(), uri);
+
+        // 握手：注册节点（附带执行情况）并声明下发额度，平台返回请求窗口大小；握手完成前其他请求仍走HTTP
+        NodeRegistrationDto registration = NodeRegistrationDto.fromConfig(nodeConfig);
+        registration.setInFlight(nodeLoadMonitor.inFlightReport());
+        ObjectNode hello = objectMapper.valueToTree(registration);
+        hello.put("credits", availableCredits.get());
+        ChannelResponse response = await("HELLO", request("HELLO", hello, null, new Semaphore(1)));
+        if (!response.isSuccess()) {
+            throw new IOException("Platform rejected channel handshake with status " + response.getStatus());
+        }
+        window = new Semaphore(Math.max(response.getPayload().path("window").asInt(1), 1));
+        connected = true;
+        logger.info("Platform channel connected to {}", uri);
+    }
+
+    private void send(String type, Long id, Object payload, byte[] data) throws IOException {
+        Session current = session;
+        if (current == null || !current.isOpen()) {
+            throw new IOException("Platform channel is not connected");
+        }
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", type);
+        if (id != null) {
+            message.put("id", id);
+        }
+        if (payload != null) {
+            message.set("payload", objectMapper.valueToTree(payload));
+        }
+        byte[] header = objectMapper.writeValueAsBytes(message);
+        // 远端同一时间只能有一个发送操作
+        synchronized (sendLock) {
+            if (data == null) {
+                current.getBasicRemote().sendText(new String(header, StandardCharsets.UTF_8));
+            } else {
+                ByteBuffer frame = ByteBuffer.allocate(4 + header.length + data.length);
+                frame.putInt(header.length).put(header).put(data).flip();
+                current.getBasicRemote().sendBinary(frame);
+            }
+        }
+    }
+
+    private void onText(String text) {
+        try {
+            JsonNode message = objectMapper.readTree(text);
+            String type = message.path("type").asText();
+            JsonNode payload = message.path("payload");
+            switch (type) {
+                case "RESPONSE":
+                    CompletableFuture<ChannelResponse> future = pendingRequests.get(message.path("replyTo").asLong());
+                    if (future != null) {
+                        future.complete(new ChannelResponse(message.path("status").asInt(), payload));
+                    }
+                    break;
+                case "DISPATCH_PLAN":
+                    availableCredits.decrementAndGet();
+                    eventPublisher.publishEvent(new DispatchCommand(DispatchCommand.PLAN, payload.path("planId").asLong(),
+                            payload.path("executionId").asLong(), payload.hasNonNull("shardId") ? payload.get("shardId").asLong() : null, null));
+                    break;
+                case "DISPATCH_TASK":
+                    availableCredits.decrementAndGet();
+                    eventPublisher.publishEvent(new DispatchCommand(DispatchCommand.TASK, null, null, null, payload.path("taskId").asLong()));
+                    break;
+                case "CANCEL_PLAN":
+                    executionCancellationService.cancelPlan(payload.path("executionId").asLong());
+                    break;
+                case "CANCEL_TASK":
+                    executionCancellationService.cancelTask(payload.path("taskId").asLong());
+                    break;
+                default:
+                    logger.warn("Unknown platform channel message type: {}", type);
+            }
+        } catch (Exception e) {
+            logger.error("Error handling platform channel message: {}", e.getMessage());
+        }
+    }
+
+    private void onClosed(String reason) {
+        if (connected) {
+            logger.warn("Platform channel closed: {}", reason);
+        }
+        connected = false;
+        for (CompletableFuture<ChannelResponse> future : pendingRequests.values()) {
+            future.completeExceptionally(new IOException("Platform channel closed"));
+        }
+        CountDownLatch latch = closed;
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    private void closeQuietly() {
+        connected = false;
+        Session current = session;
+        if (current != null && current.isOpen()) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close platform channel: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * WebSocket客户端端点
+     */
+    private class ChannelEndpoint extends Endpoint {
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            session.addMessageHandler(String.class, PlatformChannel.this::onText);
+        }
+
+        @Override
+        public void onClose(Session session, CloseReason closeReason) {
+            onClosed(closeReason.getReasonPhrase());
+        }
+
+        @Override
+        public void onError(Session session, Throwable throwable) {
+            onClosed(throwable.getMessage());
+        }
+    }
+}
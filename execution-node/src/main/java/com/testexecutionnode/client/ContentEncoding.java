@@ -0,0 +1,62 @@
+package com.testexecutionnode.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 与平台之间的gzip传输
+ * 下载时声明接受gzip并按响应的Content-Encoding解压；上传日志时先把文件压缩到临时文件，
+ * 压缩级别可配置，默认使用压缩速度最快的级别
+ */
+public final class ContentEncoding {
+    public static final String GZIP = "gzip";
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * 声明接受gzip压缩的响应
+     */
+    public static void acceptGzip(ClientHttpRequest request) {
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+    }
+
+    /**
+     * 响应体，平台压缩传输时返回解压后的内容
+     */
+    public static InputStream decodedBody(ClientHttpResponse response) throws IOException {
+        String encoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && GZIP.equalsIgnoreCase(encoding.trim())) {
+            return new GZIPInputStream(response.getBody(), 8192);
+        }
+        return response.getBody();
+    }
+
+    /**
+     * 将文件压缩为同目录下的.gz临时文件，由调用方负责删除
+     */
+    public static Path compressToTempFile(Path source, int level) throws IOException {
+        Path target = Files.createTempFile(source.toAbsolutePath().getParent(), source.getFileName().toString() + ".", ".gz");
+        try (OutputStream out = Files.newOutputStream(target);
+             GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+                 {
+                     def.setLevel(level);
+                 }
+             }) {
+            Files.copy(source, gzip);
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+}
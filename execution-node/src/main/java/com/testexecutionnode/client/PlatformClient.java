@@ -0,0 +1,298 @@
+package com.testexecutionnode.client;
+
+import com.testexecutionnode.client.dto.ExecutionLogDto;
+import com.testexecutionnode.client.dto.ExecutionShardDto;
+import com.testexecutionnode.client.dto.NodeLoadDto;
+import com.testexecutionnode.client.dto.NodeRegistrationDto;
+import com.testexecutionnode.client.dto.TestPlanDto;
+import com.testexecutionnode.client.dto.TestTaskDto;
+import com.testexecutionnode.client.dto.WorkUnitDto;
+import com.testexecutionnode.config.NodeConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * 平台接口客户端
+ * 所有平台调用共用长连接池和Spring的ObjectMapper，按接口使用各自的读取超时，
+ * 平台连续失败时熔断，并按接口记录调用耗时（platform.client.requests）
+ * 结果发件箱的投递（RESULT）使用单独的熔断器，某条结果持续失败不影响获取计划、心跳等其他调用
+ */
+@Component
+public class PlatformClient {
+    private static final Logger logger = LoggerFactory.getLogger(PlatformClient.class);
+
+    @Autowired
+    private NodeConfig nodeConfig;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    // 每个平台地址保持的最大空闲长连接数
+    @Value("${platform.client.max-connections:20}")
+    private int maxConnections;
+
+    @Value("${platform.client.connect-timeout-ms:3000}")
+    private int connectTimeoutMillis;
+
+    // 执行异步调用（注册、心跳等）的线程数
+    @Value("${platform.client.async-threads:4}")
+    private int asyncThreads;
+
+    // 连续失败多少次后熔断
+    @Value("${platform.client.circuit.failure-threshold:5}")
+    private int circuitFailureThreshold;
+
+    // 熔断持续时间，之后放行一个探测请求
+    @Value("${platform.client.circuit.open-ms:30000}")
+    private long circuitOpenMillis;
+
+    private final Map<PlatformEndpoint, RestTemplate> restTemplates = new EnumMap<>(PlatformEndpoint.class);
+    private CircuitBreaker circuitBreaker;
+    private CircuitBreaker resultCircuitBreaker;
+    private ExecutorService asyncExecutor;
+    private String baseUrl;
+
+    @PostConstruct
+    public void init() {
+        // HttpURLConnection的长连接池大小，需在第一次请求前设置
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(maxConnections));
+        }
+        String platformUrl = nodeConfig.getPlatformServerUrl();
+        baseUrl = platformUrl.endsWith("/") ? platformUrl.substring(0, platformUrl.length() - 1) : platformUrl;
+        for (PlatformEndpoint endpoint : PlatformEndpoint.values()) {
+            int readTimeout = environment.getProperty("platform.client.read-timeout-ms." + endpoint.getKey(), Integer.class,
+                    endpoint.getDefaultReadTimeoutMillis());
+            restTemplates.put(endpoint, restTemplateBuilder.requestFactory(() -> {
+                // 关闭请求体缓冲，上传日志文件时以流的方式发送，避免整个文件读入内存
+                SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+                requestFactory.setBufferRequestBody(false);
+                requestFactory.setConnectTimeout(connectTimeoutMillis);
+                requestFactory.setReadTimeout(readTimeout);
+                return requestFactory;
+            }).build());
+        }
+        circuitBreaker = new CircuitBreaker(circuitFailureThreshold, circuitOpenMillis);
+        resultCircuitBreaker = new CircuitBreaker(circuitFailureThreshold, circuitOpenMillis);
+        asyncExecutor = Executors.newFixedThreadPool(Math.max(asyncThreads, 1), new CustomizableThreadFactory("platform-client-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        asyncExecutor.shutdownNow();
+    }
+
+    /**
+     * 熔断器当前状态
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * 获取测试计划（包含脚本列表）
+     */
+    public TestPlanDto getPlan(Long planId) {
+        return exchange(PlatformEndpoint.GET_PLAN, "/api/plans/" + planId, HttpMethod.GET, null, TestPlanDto.class).getBody();
+    }
+
+    /**
+     * 获取计划执行分片
+     */
+    public ExecutionShardDto getShard(Long shardId) {
+        return exchange(PlatformEndpoint.GET_SHARD, "/api/plan-executions/shards/" + shardId, HttpMethod.GET, null, ExecutionShardDto.class).getBody();
+    }
+
+    /**
+     * 获取计划中脚本的执行顺序（脚本ID列表）
+     */
+    public List<Long> getScriptOrder(Long planId) {
+        Long[] scriptIds = exchange(PlatformEndpoint.GET_SCRIPT_ORDER, "/api/plans/" + planId + "/script-order", HttpMethod.GET, null, Long[].class).getBody();
+        return scriptIds != null ? Arrays.asList(scriptIds) : null;
+    }
+
+    /**
+     * 获取测试任务
+     */
+    public TestTaskDto getTask(Long taskId) {
+        return exchange(PlatformEndpoint.GET_TASK, "/api/test-tasks/" + taskId, HttpMethod.GET, null, TestTaskDto.class).getBody();
+    }
+
+    /**
+     * 创建执行日志
+     * @return 日志ID，平台未返回时为null
+     */
+    public Long createExecutionLog(Long executionId, Long scriptId) {
+        Map<String, Object> logData = new HashMap<>();
+        // execution和testScript对象只需要id字段
+        Map<String, Object> execution = new HashMap<>();
+        execution.put("id", executionId);
+        logData.put("execution", execution);
+        Map<String, Object> testScript = new HashMap<>();
+        testScript.put("id", scriptId);
+        logData.put("testScript", testScript);
+        logData.put("status", "EXECUTING");
+        ExecutionLogDto log = exchange(PlatformEndpoint.CREATE_LOG, "/api/plan-executions/logs", HttpMethod.POST,
+                jsonEntity(logData), ExecutionLogDto.class).getBody();
+        return log != null ? log.getId() : null;
+    }
+
+    /**
+     * 以表单上传脚本的完整日志
+     */
+    public void uploadLogContent(MultiValueMap<String, Object> formData) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        exchange(PlatformEndpoint.LOG_UPLOAD, "/api/plan-executions/logs/upload", HttpMethod.POST, new HttpEntity<>(formData, headers), String.class);
+    }
+
+    /**
+     * 异步注册节点
+     */
+    public CompletableFuture<Void> registerAsync(NodeRegistrationDto registration) {
+        return runAsync(() -> exchange(PlatformEndpoint.REGISTER, "/api/execution-nodes/register", HttpMethod.POST,
+                jsonEntity(registration), Void.class));
+    }
+
+    /**
+     * 异步发送心跳，同时上报节点负载
+     */
+    public CompletableFuture<Void> heartbeatAsync(String nodeId, NodeLoadDto load) {
+        return runAsync(() -> exchange(PlatformEndpoint.HEARTBEAT, "/api/execution-nodes/" + nodeId + "/heartbeat", HttpMethod.POST,
+                jsonEntity(load), Void.class));
+    }
+
+    /**
+     * 异步更新节点状态
+     */
+    public CompletableFuture<Void> updateStatusAsync(String nodeId, String status) {
+        Map<String, String> statusMap = new HashMap<>();
+        statusMap.put("status", status);
+        return runAsync(() -> exchange(PlatformEndpoint.NODE_STATUS, "/api/execution-nodes/" + nodeId + "/status", HttpMethod.PUT,
+                jsonEntity(statusMap), Void.class));
+    }
+
+    /**
+     * 长轮询领取工作单元，平台暂时没有工作时等待waitMillis后返回空列表
+     */
+    public List<WorkUnitDto> pollLeases(String nodeId, int maxUnits, long waitMillis) {
+        WorkUnitDto[] units = exchange(PlatformEndpoint.LEASE_POLL, "/api/execution-nodes/" + nodeId + "/leases?max=" + maxUnits + "&waitMs=" + waitMillis,
+                HttpMethod.GET, null, WorkUnitDto[].class).getBody();
+        return units != null ? Arrays.asList(units) : Collections.<WorkUnitDto>emptyList();
+    }
+
+    /**
+     * 续租
+     * @return 仍由本节点持有的单元ID
+     */
+    public List<Long> renewLeases(String nodeId, Collection<Long> unitIds) {
+        Long[] held = exchange(PlatformEndpoint.LEASE_RENEW, "/api/execution-nodes/" + nodeId + "/leases/renew", HttpMethod.POST,
+                jsonEntity(unitIds), Long[].class).getBody();
+        return held != null ? Arrays.asList(held) : Collections.<Long>emptyList();
+    }
+
+    /**
+     * 调用平台接口
+     * @param endpoint 接口，决定超时时间和指标标签
+     * @param path 以/开头的接口路径（可含查询参数）
+     * @throws PlatformUnavailableException 熔断期间
+     * @throws RestClientException 请求失败或平台返回错误状态
+     */
+    public <T> ResponseEntity<T> exchange(PlatformEndpoint endpoint, String path, HttpMethod method, HttpEntity<?> entity, Class<T> responseType) {
+        return call(endpoint, () -> restTemplates.get(endpoint).exchange(baseUrl + path, method, entity, responseType));
+    }
+
+    /**
+     * 以流的方式调用平台接口（下载脚本、脚本包等）
+     */
+    public <T> T execute(PlatformEndpoint endpoint, String path, HttpMethod method, RequestCallback requestCallback,
+                         ResponseExtractor<T> responseExtractor) {
+        return call(endpoint, () -> restTemplates.get(endpoint).execute(baseUrl + path, method, requestCallback, responseExtractor));
+    }
+
+    // 客户端错误（4xx）说明平台可用，不计入熔断
+    private <T> T call(PlatformEndpoint endpoint, Supplier<T> request) {
+        CircuitBreaker circuitBreaker = endpoint == PlatformEndpoint.RESULT ? resultCircuitBreaker : this.circuitBreaker;
+        if (!circuitBreaker.tryAcquire()) {
+            record(endpoint, "REJECTED", 0);
+            throw new PlatformUnavailableException("Platform circuit is open, skipping " + endpoint.getKey() + " request");
+        }
+        long startTime = System.nanoTime();
+        try {
+            T result = request.get();
+            circuitBreaker.onSuccess();
+            record(endpoint, "SUCCESS", System.nanoTime() - startTime);
+            return result;
+        } catch (HttpClientErrorException e) {
+            circuitBreaker.onSuccess();
+            record(endpoint, "CLIENT_ERROR", System.nanoTime() - startTime);
+            throw e;
+        } catch (RestClientException e) {
+            if (circuitBreaker.onFailure()) {
+                logger.warn("Platform circuit opened after {} request failed: {}", endpoint.getKey(), e.getMessage());
+            }
+            record(endpoint, "ERROR", System.nanoTime() - startTime);
+            throw e;
+        }
+    }
+
+    private void record(PlatformEndpoint endpoint, String outcome, long durationNanos) {
+        Timer.builder("platform.client.requests")
+                .description("Latency of requests from the node to the platform")
+                .tag("endpoint", endpoint.getKey())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, java.util.concurrent.TimeUnit.NANOSECONDS);
+    }
+
+    private CompletableFuture<Void> runAsync(Runnable request) {
+        return CompletableFuture.runAsync(request, asyncExecutor);
+    }
+
+    private HttpEntity<Object> jsonEntity(Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,40 @@
+package com.testexecutionnode.client;
+
+/**
+ * 节点调用的平台接口，每个接口单独配置读取超时并单独记录耗时
+ * 读取超时可通过 platform.client.read-timeout-ms.{key} 覆盖默认值
+ */
+public enum PlatformEndpoint {
+    REGISTER("register", 10000),
+    HEARTBEAT("heartbeat", 5000),
+    NODE_STATUS("node-status", 5000),
+    GET_PLAN("get-plan", 15000),
+    GET_TASK("get-task", 15000),
+    GET_SHARD("get-shard", 15000),
+    GET_SCRIPT_ORDER("get-script-order", 15000),
+    SCRIPT_DOWNLOAD("script-download", 60000),
+    PLAN_BUNDLE("plan-bundle", 120000),
+    CREATE_LOG("create-log", 10000),
+    LOG_APPEND("log-append", 10000),
+    LOG_UPLOAD("log-upload", 300000),
+    RESULT("result", 15000),
+    // 长轮询领取工作单元，需大于execution.lease.wait-ms
+    LEASE_POLL("lease-poll", 45000),
+    LEASE_RENEW("lease-renew", 10000);
+
+    private final String key;
+    private final int defaultReadTimeoutMillis;
+
+    PlatformEndpoint(String key, int defaultReadTimeoutMillis) {
+        this.key = key;
+        this.defaultReadTimeoutMillis = defaultReadTimeoutMillis;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultReadTimeoutMillis() {
+        return defaultReadTimeoutMillis;
+    }
+}
@@ -0,0 +1,12 @@
+package com.testexecutionnode.client;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 平台连续失败后熔断期间的调用直接失败，不再发出请求
+ */
+public class PlatformUnavailableException extends RestClientException {
+    public PlatformUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package com.testexecutionnode.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带随机抖动的指数退避
+ * 等待时间在当前上限的一半到上限之间随机取值，上限每次翻倍直至最大值；
+ * 平台重启后各节点的重连时间因此分散开，不会同时涌向平台
+ */
+public class ReconnectBackoff {
+
+    private final long initialMillis;
+    private final long maxMillis;
+    private int attempts;
+
+    public ReconnectBackoff(long initialMillis, long maxMillis) {
+        this.initialMillis = Math.max(initialMillis, 1);
+        this.maxMillis = Math.max(maxMillis, this.initialMillis);
+    }
+
+    /**
+     * 下一次重试前的等待时间
+     */
+    public synchronized long nextDelayMillis() {
+        long ceiling = Math.min(initialMillis << Math.min(attempts, 20), maxMillis);
+        attempts++;
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+    public synchronized void reset() {
+        attempts = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.testexecutionnode.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * 平台创建执行日志后返回的日志记录，节点只使用日志ID
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExecutionLogDto {
+    private Long id;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,39 @@
+package com.testexecutionnode.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * 计划执行分片，节点只执行其中分配的脚本
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExecutionShardDto {
+    private Long id;
+    private Integer shardIndex;
+    private List<Long> scriptIdList;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(Integer shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public List<Long> getScriptIdList() {
+        return scriptIdList;
+    }
+
+    public void setScriptIdList(List<Long> scriptIdList) {
+        this.scriptIdList = scriptIdList;
+    }
+}
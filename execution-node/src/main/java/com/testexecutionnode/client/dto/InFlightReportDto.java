@@ -0,0 +1,46 @@
+package com.testexecutionnode.client.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 注册时上报的执行情况：正在执行的计划执行和任务，以及结果仍在发件箱中等待送达的计划执行和任务
+ */
+public class InFlightReportDto {
+    private List<Long> runningExecutionIds = new ArrayList<>();
+    private List<Long> runningTaskIds = new ArrayList<>();
+    private List<Long> unacknowledgedExecutionIds = new ArrayList<>();
+    private List<Long> unacknowledgedTaskIds = new ArrayList<>();
+
+    public List<Long> getRunningExecutionIds() {
+        return runningExecutionIds;
+    }
+
+    public void setRunningExecutionIds(List<Long> runningExecutionIds) {
+        this.runningExecutionIds = runningExecutionIds;
+    }
+
+    public List<Long> getRunningTaskIds() {
+        return runningTaskIds;
+    }
+
+    public void setRunningTaskIds(List<Long> runningTaskIds) {
+        this.runningTaskIds = runningTaskIds;
+    }
+
+    public List<Long> getUnacknowledgedExecutionIds() {
+        return unacknowledgedExecutionIds;
+    }
+
+    public void setUnacknowledgedExecutionIds(List<Long> unacknowledgedExecutionIds) {
+        this.unacknowledgedExecutionIds = unacknowledgedExecutionIds;
+    }
+
+    public List<Long> getUnacknowledgedTaskIds() {
+        return unacknowledgedTaskIds;
+    }
+
+    public void setUnacknowledgedTaskIds(List<Long> unacknowledgedTaskIds) {
+        this.unacknowledgedTaskIds = unacknowledgedTaskIds;
+    }
+}
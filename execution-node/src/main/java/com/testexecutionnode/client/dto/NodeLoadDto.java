@@ -0,0 +1,98 @@
+package com.testexecutionnode.client.dto;
+
+/**
+ * 随心跳上报的节点负载
+ */
+public class NodeLoadDto {
+    private int runningScripts;
+    private int maxSlots;
+    private int freeSlots;
+    private int queueDepth;
+    private int activeUnits;
+    private double loadAverage;
+    private long freeMemoryBytes;
+    private long freeDiskBytes;
+    // 准入队列中等待执行的计划/任务数，以及新提交的计划/任务预计等待时间
+    private int admissionQueued;
+    private long estimatedWaitMillis;
+
+    public int getRunningScripts() {
+        return runningScripts;
+    }
+
+    public void setRunningScripts(int runningScripts) {
+        this.runningScripts = runningScripts;
+    }
+
+    public int getMaxSlots() {
+        return maxSlots;
+    }
+
+    public void setMaxSlots(int maxSlots) {
+        this.maxSlots = maxSlots;
+    }
+
+    public int getFreeSlots() {
+        return freeSlots;
+    }
+
+    public void setFreeSlots(int freeSlots) {
+        this.freeSlots = freeSlots;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getActiveUnits() {
+        return activeUnits;
+    }
+
+    public void setActiveUnits(int activeUnits) {
+        this.activeUnits = activeUnits;
+    }
+
+    public double getLoadAverage() {
+        return loadAverage;
+    }
+
+    public void setLoadAverage(double loadAverage) {
+        this.loadAverage = loadAverage;
+    }
+
+    public long getFreeMemoryBytes() {
+        return freeMemoryBytes;
+    }
+
+    public void setFreeMemoryBytes(long freeMemoryBytes) {
+        this.freeMemoryBytes = freeMemoryBytes;
+    }
+
+    public long getFreeDiskBytes() {
+        return freeDiskBytes;
+    }
+
+    public void setFreeDiskBytes(long freeDiskBytes) {
+        this.freeDiskBytes = freeDiskBytes;
+    }
+
+    public int getAdmissionQueued() {
+        return admissionQueued;
+    }
+
+    public void setAdmissionQueued(int admissionQueued) {
+        this.admissionQueued = admissionQueued;
+    }
+
+    public long getEstimatedWaitMillis() {
+        return estimatedWaitMillis;
+    }
+
+    public void setEstimatedWaitMillis(long estimatedWaitMillis) {
+        this.estimatedWaitMillis = estimatedWaitMillis;
+    }
+}
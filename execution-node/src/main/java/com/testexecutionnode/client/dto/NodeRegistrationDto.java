@@ -0,0 +1,107 @@
+package com.testexecutionnode.client.dto;
+
+import com.testexecutionnode.config.NodeConfig;
+
+/**
+ * 节点注册信息
+ */
+public class NodeRegistrationDto {
+    private String nodeId;
+    private String name;
+    private String host;
+    private int port;
+    private String osInfo;
+    private String cpuInfo;
+    private String memoryInfo;
+    private String endpointType;
+    // 正在执行和结果待送达的执行，平台据此核对执行状态
+    private InFlightReportDto inFlight;
+
+    /**
+     * 按节点配置和当前运行环境生成注册信息
+     */
+    public static NodeRegistrationDto fromConfig(NodeConfig nodeConfig) {
+        NodeRegistrationDto registration = new NodeRegistrationDto();
+        registration.setNodeId(nodeConfig.getNodeId());
+        registration.setName(nodeConfig.getNodeName());
+        registration.setHost(nodeConfig.getNodeHost());
+        registration.setPort(nodeConfig.getNodePort());
+        registration.setOsInfo(System.getProperty("os.name") + " " + System.getProperty("os.version"));
+        registration.setCpuInfo(Runtime.getRuntime().availableProcessors() + " cores");
+        registration.setMemoryInfo((Runtime.getRuntime().maxMemory() / 1024 / 1024) + " MB");
+        registration.setEndpointType(nodeConfig.getEndpointType());
+        return registration;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public String getOsInfo() {
+        return osInfo;
+    }
+
+    public void setOsInfo(String osInfo) {
+        this.osInfo = osInfo;
+    }
+
+    public String getCpuInfo() {
+        return cpuInfo;
+    }
+
+    public void setCpuInfo(String cpuInfo) {
+        this.cpuInfo = cpuInfo;
+    }
+
+    public String getMemoryInfo() {
+        return memoryInfo;
+    }
+
+    public void setMemoryInfo(String memoryInfo) {
+        this.memoryInfo = memoryInfo;
+    }
+
+    public String getEndpointType() {
+        return endpointType;
+    }
+
+    public void setEndpointType(String endpointType) {
+        this.endpointType = endpointType;
+    }
+
+    public InFlightReportDto getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(InFlightReportDto inFlight) {
+        this.inFlight = inFlight;
+    }
+}
@@ -0,0 +1,49 @@
+package com.testexecutionnode.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 平台返回的测试计划（包含脚本列表）
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TestPlanDto {
+    private Long id;
+    private String name;
+    private String executionEndpointType;
+    private List<TestScriptDto> scripts = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getExecutionEndpointType() {
+        return executionEndpointType;
+    }
+
+    public void setExecutionEndpointType(String executionEndpointType) {
+        this.executionEndpointType = executionEndpointType;
+    }
+
+    public List<TestScriptDto> getScripts() {
+        return scripts;
+    }
+
+    public void setScripts(List<TestScriptDto> scripts) {
+        this.scripts = scripts != null ? scripts : new ArrayList<>();
+    }
+}
@@ -0,0 +1,76 @@
+package com.testexecutionnode.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * 平台返回的测试脚本
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TestScriptDto {
+    private Long id;
+    private String name;
+    @JsonAlias("type")
+    private String scriptType;
+    @JsonAlias("content")
+    private String scriptContent;
+    private String filePath;
+    private Integer timeout;
+    private Integer retryCount;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getScriptType() {
+        return scriptType;
+    }
+
+    public void setScriptType(String scriptType) {
+        this.scriptType = scriptType;
+    }
+
+    public String getScriptContent() {
+        return scriptContent;
+    }
+
+    public void setScriptContent(String scriptContent) {
+        this.scriptContent = scriptContent;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Integer timeout) {
+        this.timeout = timeout;
+    }
+
+    public Integer getRetryCount() {
+        return retryCount;
+    }
+
+    public void setRetryCount(Integer retryCount) {
+        this.retryCount = retryCount;
+    }
+}
@@ -0,0 +1,37 @@
+package com.testexecutionnode.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * 平台返回的测试任务
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TestTaskDto {
+    private Long id;
+    private TestScriptDto script;
+    private TestPlanDto testPlan;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public TestScriptDto getScript() {
+        return script;
+    }
+
+    public void setScript(TestScriptDto script) {
+        this.script = script;
+    }
+
+    public TestPlanDto getTestPlan() {
+        return testPlan;
+    }
+
+    public void setTestPlan(TestPlanDto testPlan) {
+        this.testPlan = testPlan;
+    }
+}
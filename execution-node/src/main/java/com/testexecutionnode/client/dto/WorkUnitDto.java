@@ -0,0 +1,68 @@
+package com.testexecutionnode.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * 从平台租用的工作单元：PLAN为一次测试计划执行，TASK为一个测试任务
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WorkUnitDto {
+    public static final String TYPE_PLAN = "PLAN";
+    public static final String TYPE_TASK = "TASK";
+
+    private Long id;
+    private String unitType;
+    private Long executionId;
+    private Long planId;
+    // 计划执行分片ID，为空时执行计划的全部脚本
+    private Long shardId;
+    private Long taskId;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUnitType() {
+        return unitType;
+    }
+
+    public void setUnitType(String unitType) {
+        this.unitType = unitType;
+    }
+
+    public Long getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(Long executionId) {
+        this.executionId = executionId;
+    }
+
+    public Long getPlanId() {
+        return planId;
+    }
+
+    public void setPlanId(Long planId) {
+        this.planId = planId;
+    }
+
+    public Long getShardId() {
+        return shardId;
+    }
+
+    public void setShardId(Long shardId) {
+        this.shardId = shardId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+}
@@ -30,6 +30,10 @@ public class NodeConfig {
     @Value("${node.endpoint-type:Web}")
     private String endpointType;
 
+    // 单个测试计划内并发执行脚本的最大数量，小于等于0时使用CPU核数
+    @Value("${node.max-concurrency:0}")
+    private int maxConcurrency;
+
     public String getPlatformServerUrl() {
         return platformServerUrl;
     }
@@ -61,4 +65,8 @@ public class NodeConfig {
     public String getEndpointType() {
         return endpointType;
     }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency > 0 ? maxConcurrency : Runtime.getRuntime().availableProcessors();
+    }
 }
\ No newline at end of file
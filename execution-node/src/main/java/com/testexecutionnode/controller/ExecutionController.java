@@ -1,9 +1,15 @@
 package com.testexecutionnode.controller;
 
+import com.testexecutionnode.client.dto.NodeLoadDto;
+import com.testexecutionnode.service.AdmissionQueue;
+import com.testexecutionnode.service.ExecutionCancellationService;
+import com.testexecutionnode.service.NodeLoadMonitor;
 import com.testexecutionnode.service.TestExecutionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,14 +25,22 @@ public class ExecutionController {
     @Autowired
     private TestExecutionService testExecutionService;
 
+    @Autowired
+    private ExecutionCancellationService executionCancellationService;
+
+    @Autowired
+    private AdmissionQueue admissionQueue;
+
+    @Autowired
+    private NodeLoadMonitor nodeLoadMonitor;
+
     @PostMapping("/execute-task")
-    public ResponseEntity<String> executeTask(@RequestParam Long taskId) {
+    public ResponseEntity<?> executeTask(@RequestParam Long taskId) {
         try {
-            // 异步执行测试任务
-            Thread thread = new Thread(() -> {
-                testExecutionService.executeTestTask(taskId);
-            });
-            thread.start();
+            // 进入准入队列异步执行，队列已满时返回503
+            if (!admissionQueue.submitTask(taskId, "test task " + taskId, false, () -> testExecutionService.executeTestTask(taskId))) {
+                return busy();
+            }
 
             return ResponseEntity.ok("Test task execution started successfully");
         } catch (Exception e) {
@@ -36,16 +50,18 @@ public class ExecutionController {
     }
     
     @PostMapping("/execute-plan")
-    public ResponseEntity<String> executePlan(@RequestBody Map<String, Object> params) {
+    public ResponseEntity<?> executePlan(@RequestBody Map<String, Object> params) {
         try {
             Long planId = ((Number) params.get("planId")).longValue();
             Long executionId = ((Number) params.get("executionId")).longValue();
+            // 分片执行时只执行分片中的脚本
+            Long shardId = params.get("shardId") != null ? ((Number) params.get("shardId")).longValue() : null;
             
-            // 异步执行测试计划
-            Thread thread = new Thread(() -> {
-                testExecutionService.executeTestPlan(planId, executionId);
-            });
-            thread.start();
+            // 进入准入队列异步执行，队列已满时返回503
+            if (!admissionQueue.submitPlan(executionId, "test plan " + planId + " (execution " + executionId + (shardId != null ? ", shard " + shardId : "") + ")", false,
+                    () -> testExecutionService.executeTestPlan(planId, executionId, shardId))) {
+                return busy();
+            }
 
             return ResponseEntity.ok("Test plan execution started successfully");
         } catch (Exception e) {
@@ -53,7 +69,46 @@ public class ExecutionController {
                     .body("Failed to start test plan execution: " + e.getMessage());
         }
     }
+
+    /**
+     * 准入队列状态：执行中和排队的数量、预计等待时间
+     */
+    @GetMapping("/queue")
+    public ResponseEntity<Map<String, Object>> getQueueStatus() {
+        return ResponseEntity.ok(admissionQueue.status());
+    }
     
+    /**
+     * 取消测试任务或计划执行：结束正在运行的脚本进程树，计划中剩余的脚本不再执行，结果以CANCELLED上报
+     * 请求体包含taskId或executionId；在准入队列中排队的同样可以取消，轮到时不再执行；不在本节点时返回404
+     */
+    @PostMapping("/cancel")
+    public ResponseEntity<String> cancel(@RequestBody Map<String, Object> params) {
+        Object taskId = params.get("taskId");
+        Object executionId = params.get("executionId");
+        boolean cancelled;
+        if (executionId instanceof Number) {
+            cancelled = executionCancellationService.cancelPlan(((Number) executionId).longValue());
+        } else if (taskId instanceof Number) {
+            cancelled = executionCancellationService.cancelTask(((Number) taskId).longValue());
+        } else {
+            return ResponseEntity.badRequest().body("taskId or executionId is required");
+        }
+        if (!cancelled) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Not running on this node");
+        }
+        return ResponseEntity.ok("Cancellation requested");
+    }
+
+    // 节点繁忙：返回当前负载（平台据此改派其他节点）和按预计等待时间计算的Retry-After
+    private ResponseEntity<NodeLoadDto> busy() {
+        NodeLoadDto load = nodeLoadMonitor.snapshot();
+        long retryAfterSeconds = Math.max(1, (load.getEstimatedWaitMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(load);
+    }
+
     @PostMapping("/test-script-download")
     public ResponseEntity<String> testScriptDownload(@RequestBody Map<String, Object> params) {
         try {
@@ -0,0 +1,500 @@
+package com.testexecutionnode.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testexecutionnode.client.PlatformClient;
+import com.testexecutionnode.client.PlatformEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 结果发件箱
+ * 发往平台的执行结果先追加写入本地日志文件（每天一个文件，多个写入合并一次fsync）再返回，
+ * 由后台线程按写入顺序发送，失败时按指数退避重试；已送达的记录写入对应的确认文件，
+ * 节点重启时重放所有未确认的记录。某天的记录全部确认后删除该天的文件。
+ * 平台对同一条记录连续返回5xx达到上限时，将其写入死信文件（{day}.dead，不自动删除）并确认，避免阻塞后续结果
+ */
+@Component
+public class ResultOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(ResultOutbox.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String ACK_SUFFIX = ".ack";
+    private static final String DEAD_LETTER_SUFFIX = ".dead";
+
+    @Autowired
+    private PlatformClient platformClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${project.root.dir}")
+    private String projectRootDir;
+
+    @Value("${outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.directory:result-outbox}")
+    private String directory;
+
+    // 发送失败后的初始等待时间，连续失败时翻倍
+    @Value("${outbox.retry.backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    @Value("${outbox.retry.max-backoff-ms:60000}")
+    private long retryMaxBackoffMillis;
+
+    // 同一条记录平台返回5xx的最大次数，超过后转入死信文件；网络异常和熔断不计入，0表示不限制
+    @Value("${outbox.retry.max-attempts:10}")
+    private int retryMaxAttempts;
+
+    private Path journalDir;
+
+    // 写入当天日志文件，writeLock保护文件切换和序号
+    private final Object writeLock = new Object();
+    private String currentDay;
+    private FileChannel journalChannel;
+    private long nextSeq;
+    private long appendedTicket;
+
+    // 合并fsync：持有syncLock的线程一次刷盘覆盖此前所有已写入的记录
+    private final Object syncLock = new Object();
+    private volatile long syncedTicket;
+
+    // 待发送记录按写入顺序排列，只发送已刷盘的记录
+    private final Deque<Record> pending = new ArrayDeque<>();
+    private final Map<String, Integer> pendingCounts = new HashMap<>();
+    private volatile boolean running;
+    private Thread senderThread;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            logger.info("Result outbox is disabled, results are sent to the platform directly");
+            return;
+        }
+        journalDir = Paths.get(projectRootDir).resolve(directory);
+        Files.createDirectories(journalDir);
+        replay();
+        running = true;
+        senderThread = new CustomizableThreadFactory("result-outbox-").newThread(this::sendLoop);
+        senderThread.setDaemon(true);
+        senderThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (senderThread != null) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+            try {
+                senderThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            closeJournal();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 待发送的记录数
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * 待发送记录的接口路径，按写入顺序
+     */
+    public List<String> getPendingPaths() {
+        List<String> paths = new ArrayList<>();
+        synchronized (pending) {
+            for (Record record : pending) {
+                paths.add(record.path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 是否还有发往该接口路径的记录未送达
+     */
+    public boolean hasPending(String path) {
+        synchronized (pending) {
+            for (Record record : pending) {
+                if (record.path.equals(path)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 提交一个发往平台的请求：写入日志文件并刷盘后返回，由后台线程发送
+     * 未启用时直接发送
+     * @param method 请求方法
+     * @param path 平台接口路径
+     * @param body 请求体，序列化为JSON
+     * @return 是否已持久化（未启用时为是否已送达或被平台拒绝），返回false时调用方应稍后重试
+     */
+    public boolean submit(HttpMethod method, String path, Object body) {
+        String json;
+        try {
+            json = body instanceof String ? (String) body : objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            logger.error("Failed to serialize request to {}: {}", path, e.getMessage());
+            return true;
+        }
+        if (!enabled) {
+            return deliver(new Record(null, 0, method.name(), path, json));
+        }
+        try {
+            append(method.name(), path, json);
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to write result to outbox journal: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void append(String method, String path, String body) throws IOException {
+        long ticket;
+        synchronized (writeLock) {
+            rollJournalIfNeeded();
+            Record record = new Record(currentDay, nextSeq++, method, path, body);
+            ObjectNode line = objectMapper.createObjectNode();
+            line.put("seq", record.seq);
+            line.put("method", method);
+            line.put("path", path);
+            line.put("body", body);
+            ByteBuffer buffer = ByteBuffer.wrap((objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                journalChannel.write(buffer);
+            }
+            ticket = ++appendedTicket;
+            record.ticket = ticket;
+            synchronized (pending) {
+                pending.addLast(record);
+                pendingCounts.merge(record.day, 1, Integer::sum);
+            }
+        }
+        sync(ticket);
+    }
+
+    // 等待记录刷盘，其他线程已刷盘时直接返回
+    private void sync(long ticket) throws IOException {
+        synchronized (syncLock) {
+            if (syncedTicket >= ticket) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            synchronized (writeLock) {
+                target = appendedTicket;
+                channel = journalChannel;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // 期间切换了文件，旧文件关闭前已刷盘，新文件的记录由后续刷盘覆盖
+                synchronized (writeLock) {
+                    target = appendedTicket;
+                    journalChannel.force(false);
+                }
+            }
+            syncedTicket = target;
+        }
+        synchronized (pending) {
+            pending.notifyAll();
+        }
+    }
+
+    // 日期变化时切换到新的日志文件，旧文件刷盘后关闭
+    private void rollJournalIfNeeded() throws IOException {
+        String today = LocalDate.now().format(DATE_FORMATTER);
+        if (today.equals(currentDay) && journalChannel != null) {
+            return;
+        }
+        String previousDay = currentDay;
+        closeJournal();
+        Path journalFile = journalDir.resolve(today + JOURNAL_SUFFIX);
+        nextSeq = 1;
+        if (Files.exists(journalFile)) {
+            // 重启后继续写入当天的文件，序号接着已有记录
+            for (Record record : readRecords(journalFile)) {
+                nextSeq = Math.max(nextSeq, record.seq + 1);
+            }
+        }
+        journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentDay = today;
+        if (previousDay != null) {
+            deleteIfDrained(previousDay);
+        }
+    }
+
+    private void closeJournal() {
+        if (journalChannel == null) {
+            return;
+        }
+        try {
+            journalChannel.force(false);
+            journalChannel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close outbox journal: {}", e.getMessage());
+        }
+        journalChannel = null;
+    }
+
+    // 启动时按日期顺序加载所有未确认的记录
+    private void replay() throws IOException {
+        List<Path> journals = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(journalDir, "*" + JOURNAL_SUFFIX)) {
+            for (Path journal : stream) {
+                journals.add(journal);
+            }
+        }
+        Collections.sort(journals);
+        int replayed = 0;
+        for (Path journal : journals) {
+            String day = journal.getFileName().toString().replace(JOURNAL_SUFFIX, "");
+            Set<Long> acked = readAcks(day);
+            for (Record record : readRecords(journal)) {
+                if (!acked.contains(record.seq)) {
+                    pending.addLast(record);
+                    pendingCounts.merge(day, 1, Integer::sum);
+                    replayed++;
+                }
+            }
+            deleteIfDrained(day);
+        }
+        if (replayed > 0) {
+            logger.info("Replaying {} unsent results from outbox journal", replayed);
+        }
+    }
+
+    private List<Record> readRecords(Path journal) throws IOException {
+        String day = journal.getFileName().toString().replace(JOURNAL_SUFFIX, "");
+        List<Record> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    records.add(new Record(day, node.get("seq").asLong(), node.get("method").asText(), node.get("path").asText(), node.get("body").asText()));
+                } catch (Exception e) {
+                    // 写入过程中崩溃留下的不完整记录，调用方未收到成功返回
+                    logger.warn("Skipping incomplete record in outbox journal {}", journal.getFileName());
+                }
+            }
+        }
+        return records;
+    }
+
+    private Set<Long> readAcks(String day) throws IOException {
+        Set<Long> acked = new HashSet<>();
+        Path ackFile = journalDir.resolve(day + ACK_SUFFIX);
+        if (!Files.exists(ackFile)) {
+            return acked;
+        }
+        for (String line : Files.readAllLines(ackFile, StandardCharsets.UTF_8)) {
+            try {
+                acked.add(Long.parseLong(line.trim()));
+            } catch (NumberFormatException ignored) {
+                // 不完整的确认记录，重新发送一次
+            }
+        }
+        return acked;
+    }
+
+    // 确认记录已送达；确认文件不单独刷盘，丢失时记录会在重启后重复发送一次
+    private void ack(Record record) {
+        try {
+            Files.write(journalDir.resolve(record.day + ACK_SUFFIX), (record.seq + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("Failed to write outbox ack for record {}-{}: {}", record.day, record.seq, e.getMessage());
+        }
+        synchronized (pending) {
+            pendingCounts.merge(record.day, -1, Integer::sum);
+        }
+        synchronized (writeLock) {
+            if (!record.day.equals(currentDay)) {
+                deleteIfDrained(record.day);
+            }
+        }
+    }
+
+    // 非当天且记录全部确认的日志文件连同确认文件一起删除
+    private void deleteIfDrained(String day) {
+        if (day.equals(currentDay) || day.equals(LocalDate.now().format(DATE_FORMATTER))) {
+            return;
+        }
+        synchronized (pending) {
+            Integer count = pendingCounts.get(day);
+            if (count != null && count > 0) {
+                return;
+            }
+            pendingCounts.remove(day);
+        }
+        try {
+            Files.deleteIfExists(journalDir.resolve(day + JOURNAL_SUFFIX));
+            Files.deleteIfExists(journalDir.resolve(day + ACK_SUFFIX));
+            logger.info("Deleted drained outbox journal {}", day);
+        } catch (IOException e) {
+            logger.warn("Failed to delete outbox journal {}: {}", day, e.getMessage());
+        }
+    }
+
+    // 按写入顺序逐条发送，队首发送失败时退避后重试，保证同一执行的结果按顺序到达
+    private void sendLoop() {
+        int failures = 0;
+        while (running) {
+            Record head;
+            synchronized (pending) {
+                while (running && (pending.isEmpty() || pending.peekFirst().ticket > syncedTicket)) {
+                    try {
+                        pending.wait(1000);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                head = pending.peekFirst();
+            }
+            if (deliver(head) || (retryMaxAttempts > 0 && head.serverErrors >= retryMaxAttempts && deadLetter(head))) {
+                synchronized (pending) {
+                    pending.pollFirst();
+                }
+                ack(head);
+                failures = 0;
+                continue;
+            }
+            failures++;
+            long backoff = Math.min(retryBackoffMillis << Math.min(failures - 1, 20), retryMaxBackoffMillis);
+            synchronized (pending) {
+                try {
+                    pending.wait(backoff);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // 发送一个请求，返回false表示需要重试；平台拒绝的请求（4xx）记录后丢弃，平台返回5xx时累计该记录的失败次数
+    private boolean deliver(Record record) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            platformClient.exchange(PlatformEndpoint.RESULT, record.path, HttpMethod.valueOf(record.method),
+                    new HttpEntity<>(record.body, headers), String.class);
+            return true;
+        } catch (HttpClientErrorException e) {
+            logger.error("Platform rejected {} {}: {} {}", record.method, record.path, e.getStatusCode(), e.getResponseBodyAsString());
+            return true;
+        } catch (HttpServerErrorException e) {
+            record.serverErrors++;
+            logger.warn("Platform failed {} {} ({} times), will retry: {}", record.method, record.path, record.serverErrors, e.getStatusCode());
+            return false;
+        } catch (Exception e) {
+            logger.warn("Failed to send {} {}, will retry: {}", record.method, record.path, e.getMessage());
+            return false;
+        }
+    }
+
+    // 将持续失败的记录追加到当天的死信文件，写入失败时返回false，记录继续留在队首重试
+    private boolean deadLetter(Record record) {
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("day", record.day);
+        line.put("seq", record.seq);
+        line.put("method", record.method);
+        line.put("path", record.path);
+        line.put("body", record.body);
+        line.put("attempts", record.serverErrors);
+        try {
+            Files.write(journalDir.resolve(record.day + DEAD_LETTER_SUFFIX),
+                    (objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            logger.error("Failed to write outbox dead letter for record {}-{}: {}", record.day, record.seq, e.getMessage());
+            return false;
+        }
+        logger.error("Moved {} {} to outbox dead letters after {} server errors", record.method, record.path, record.serverErrors);
+        return true;
+    }
+
+    /**
+     * 日志文件中的一条记录
+     */
+    private static class Record {
+        private final String day;
+        private final long seq;
+        private final String method;
+        private final String path;
+        private final String body;
+        // 写入时的刷盘序号，重放的记录为0（已在磁盘上）
+        private long ticket;
+        // 平台返回5xx的次数，只由发送线程访问
+        private int serverErrors;
+
+        Record(String day, long seq, String method, String path, String body) {
+            this.day = day;
+            this.seq = seq;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.testexecutionnode.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Java脚本编译缓存
+ * 使用进程内的编译器API编译脚本，class文件按源码SHA-256摘要缓存，源码未变化时直接复用，不再启动javac
+ */
+@Component
+public class JavaCompileCache {
+    private static final Logger logger = LoggerFactory.getLogger(JavaCompileCache.class);
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final Pattern PUBLIC_CLASS_PATTERN = Pattern.compile("public\\s+(?:final\\s+|abstract\\s+)*(?:class|interface|enum)\\s+(\\w+)");
+    private static final Pattern CLASS_PATTERN = Pattern.compile("\\bclass\\s+(\\w+)");
+    // 编译完成标记，同时以其修改时间记录最近使用时间
+    private static final String COMPLETE_MARKER = ".complete";
+
+    @Value("${project.root.dir}")
+    private String projectRootDir;
+
+    @Value("${java.compile-cache.directory:java-class-cache}")
+    private String cacheDirectory;
+
+    // 编译和运行脚本时附加的classpath，多个路径用系统路径分隔符分隔
+    @Value("${java.compile-cache.classpath:}")
+    private String extraClasspath;
+
+    // 超过该天数未使用的编译结果会被清理
+    @Value("${java.compile-cache.max-age-days:30}")
+    private int maxAgeDays;
+
+    private Path cacheRoot;
+    private JavaCompiler compiler;
+    // 运行脚本使用的java可执行文件，启动时确定一次
+    private String javaExecutable;
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheRoot = Paths.get(projectRootDir).resolve(cacheDirectory);
+        Files.createDirectories(cacheRoot);
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            logger.warn("No system Java compiler available (running on a JRE?), Java scripts cannot be compiled");
+        }
+        String executable = System.getProperty("os.name").toLowerCase().contains("win") ? "java.exe" : "java";
+        Path javaHomeExecutable = Paths.get(System.getProperty("java.home"), "bin", executable);
+        javaExecutable = Files.isExecutable(javaHomeExecutable) ? javaHomeExecutable.toString() : "java";
+    }
+
+    /**
+     * 编译脚本，源码未变化时直接返回缓存的编译结果
+     * @param sourceFile 脚本源码文件（文件扩展名不限）
+     * @return 编译结果
+     * @throws CompilationException 编译失败，异常信息为编译器诊断输出
+     */
+    public CompiledScript compile(Path sourceFile) throws IOException, CompilationException {
+        String source = new String(Files.readAllBytes(sourceFile), StandardCharsets.UTF_8);
+        String className = resolveClassName(source, sourceFile);
+        String hash = sha256(className + "\n" + extraClasspath + "\n" + System.getProperty("java.specification.version") + "\n" + source);
+        Path classesDir = cacheRoot.resolve(hash);
+        Path marker = classesDir.resolve(COMPLETE_MARKER);
+        if (Files.exists(marker)) {
+            Files.setLastModifiedTime(marker, FileTime.fromMillis(System.currentTimeMillis()));
+            logger.info("Using cached classes for {} ({})", className, hash);
+            return new CompiledScript(classesDir, className);
+        }
+        if (compiler == null) {
+            throw new CompilationException("No Java compiler available on this node");
+        }
+
+        // 编译到临时目录后整体移入缓存，避免并发编译时读到不完整的结果
+        Path workDir = cacheRoot.resolve(hash + "." + UUID.randomUUID() + ".tmp");
+        Files.createDirectories(workDir);
+        try {
+            long startTime = System.currentTimeMillis();
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.getDefault(), StandardCharsets.UTF_8)) {
+                fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(workDir.toFile()));
+                List<String> options = new ArrayList<>();
+                if (!extraClasspath.isEmpty()) {
+                    options.add("-classpath");
+                    options.add(extraClasspath);
+                }
+                JavaFileObject sourceObject = new StringSource(className, source);
+                boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, Collections.singletonList(sourceObject)).call();
+                if (!success) {
+                    throw new CompilationException(formatDiagnostics(diagnostics));
+                }
+            }
+            Files.createFile(workDir.resolve(COMPLETE_MARKER));
+            try {
+                Files.move(workDir, classesDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // 其他线程已编译出相同结果
+                if (!Files.exists(marker)) {
+                    throw e;
+                }
+            }
+            logger.info("Compiled {} in {} ms ({})", className, System.currentTimeMillis() - startTime, hash);
+            return new CompiledScript(classesDir, className);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * 清理长时间未使用的编译结果
+     */
+    public void evictUnused() {
+        long threshold = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays);
+        int evicted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheRoot)) {
+            for (Path dir : stream) {
+                Path marker = dir.resolve(COMPLETE_MARKER);
+                long lastUsed = Files.exists(marker) ? Files.getLastModifiedTime(marker).toMillis() : Files.getLastModifiedTime(dir).toMillis();
+                if (lastUsed < threshold) {
+                    deleteRecursively(dir);
+                    evicted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error cleaning Java compile cache: {}", e.getMessage());
+        }
+        logger.info("Evicted {} unused entries from Java compile cache", evicted);
+    }
+
+    // 优先使用public类名（编译器要求与文件名一致），否则使用第一个类名或文件名
+    private String resolveClassName(String source, Path sourceFile) {
+        Matcher matcher = PUBLIC_CLASS_PATTERN.matcher(source);
+        if (!matcher.find()) {
+            matcher = CLASS_PATTERN.matcher(source);
+            if (!matcher.find()) {
+                String fileName = sourceFile.getFileName().toString();
+                return fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+            }
+        }
+        String simpleName = matcher.group(1);
+        Matcher packageMatcher = PACKAGE_PATTERN.matcher(source);
+        return packageMatcher.find() ? packageMatcher.group(1) + "." + simpleName : simpleName;
+    }
+
+    private String formatDiagnostics(DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder message = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            message.append(diagnostic.getKind()).append(": line ").append(diagnostic.getLineNumber())
+                    .append(": ").append(diagnostic.getMessage(Locale.getDefault())).append('\n');
+        }
+        return message.toString();
+    }
+
+    private static String sha256(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 编译结果：class文件目录和主类名
+     */
+    public class CompiledScript {
+        private final Path classesDir;
+        private final String className;
+
+        CompiledScript(Path classesDir, String className) {
+            this.classesDir = classesDir;
+            this.className = className;
+        }
+
+        /**
+         * 运行脚本的命令：java -cp {classesDir} {className}
+         */
+        public List<String> buildCommand() {
+            List<String> command = new ArrayList<>();
+            command.add(javaExecutable);
+            command.add("-cp");
+            command.add(extraClasspath.isEmpty() ? classesDir.toString() : classesDir + File.pathSeparator + extraClasspath);
+            command.add(className);
+            return command;
+        }
+
+        public Path getClassesDir() {
+            return classesDir;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+    }
+
+    /**
+     * 编译失败
+     */
+    public static class CompilationException extends Exception {
+        public CompilationException(String message) {
+            super(message);
+        }
+    }
+
+    // 以内存中的源码作为编译输入，文件名与类名一致
+    private static class StringSource extends SimpleJavaFileObject {
+        private final String source;
+
+        StringSource(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
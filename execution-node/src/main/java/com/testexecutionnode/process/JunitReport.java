@@ -0,0 +1,174 @@
+package com.testexecutionnode.process;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * pytest junit XML报告解析
+ * 一次pytest会话执行多个脚本时，按测试用例所在文件（test_{scriptId}.py）将结果归属到各个脚本
+ */
+public class JunitReport {
+    private static final Pattern SCRIPT_FILE_PATTERN = Pattern.compile("(?:^|[./\\\\:])test_(\\d+)(?=$|[./\\\\:])");
+
+    private final Map<Long, ScriptResult> results = new HashMap<>();
+
+    private JunitReport() {
+    }
+
+    /**
+     * 解析报告文件
+     * @param reportFile junit XML报告（需使用junit_family=xunit1以包含file属性）
+     * @param scriptIds 本次会话包含的脚本ID
+     */
+    public static JunitReport parse(Path reportFile, Set<Long> scriptIds) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        Document document = factory.newDocumentBuilder().parse(reportFile.toFile());
+
+        JunitReport report = new JunitReport();
+        NodeList testCases = document.getElementsByTagName("testcase");
+        for (int i = 0; i < testCases.getLength(); i++) {
+            Element testCase = (Element) testCases.item(i);
+            Long scriptId = findScriptId(scriptIds, testCase.getAttribute("file"), testCase.getAttribute("classname"), testCase.getAttribute("name"));
+            if (scriptId == null) {
+                continue;
+            }
+            ScriptResult result = report.results.computeIfAbsent(scriptId, id -> new ScriptResult());
+            result.addTestCase(testCase);
+        }
+        return report;
+    }
+
+    // 从文件路径、类名或用例名中找出脚本ID，只接受本次会话中的脚本
+    private static Long findScriptId(Set<Long> scriptIds, String... locations) {
+        for (String location : locations) {
+            Matcher matcher = SCRIPT_FILE_PATTERN.matcher(location);
+            while (matcher.find()) {
+                try {
+                    Long scriptId = Long.valueOf(matcher.group(1));
+                    if (scriptIds.contains(scriptId)) {
+                        return scriptId;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // 不是脚本ID
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取脚本的执行结果，报告中没有该脚本的用例时返回null
+     */
+    public ScriptResult getResult(Long scriptId) {
+        return results.get(scriptId);
+    }
+
+    /**
+     * 单个脚本中所有测试用例的汇总结果
+     */
+    public static class ScriptResult {
+        private int tests;
+        private int failures;
+        private int skipped;
+        private double durationSeconds;
+        private final StringBuilder output = new StringBuilder();
+        private final StringBuilder error = new StringBuilder();
+
+        private void addTestCase(Element testCase) {
+            tests++;
+            String time = testCase.getAttribute("time");
+            if (!time.isEmpty()) {
+                try {
+                    durationSeconds += Double.parseDouble(time);
+                } catch (NumberFormatException ignored) {
+                    // 忽略无效的耗时
+                }
+            }
+            String testName = testCase.getAttribute("classname") + "::" + testCase.getAttribute("name");
+            boolean failed = false;
+            boolean skip = false;
+            StringBuilder testOutput = new StringBuilder();
+            NodeList children = testCase.getChildNodes();
+            for (int i = 0; i < children.getLength(); i++) {
+                Node child = children.item(i);
+                if (!(child instanceof Element)) {
+                    continue;
+                }
+                Element element = (Element) child;
+                switch (element.getTagName()) {
+                    case "failure":
+                    case "error":
+                        failed = true;
+                        error.append(testName).append(" ").append(element.getTagName().toUpperCase())
+                                .append(": ").append(element.getAttribute("message")).append('\n')
+                                .append(element.getTextContent()).append('\n');
+                        break;
+                    case "skipped":
+                        skip = true;
+                        break;
+                    case "system-out":
+                        testOutput.append(element.getTextContent());
+                        break;
+                    case "system-err":
+                        error.append(element.getTextContent());
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (failed) {
+                failures++;
+            } else if (skip) {
+                skipped++;
+            }
+            output.append(testName).append(failed ? " FAILED" : skip ? " SKIPPED" : " PASSED").append('\n');
+            if (testOutput.length() > 0) {
+                output.append(testOutput);
+                if (testOutput.charAt(testOutput.length() - 1) != '\n') {
+                    output.append('\n');
+                }
+            }
+        }
+
+        public boolean isSuccess() {
+            return failures == 0;
+        }
+
+        public int getTests() {
+            return tests;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public long getDurationMillis() {
+            return Math.round(durationSeconds * 1000);
+        }
+
+        public String getOutput() {
+            return output.toString();
+        }
+
+        public String getError() {
+            return error.toString();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.testexecutionnode.process;
+
+import com.testexecutionnode.config.NodeConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 脚本进程输出采集服务
+ * 同时读取stdout和stderr，避免任一管道写满导致子进程阻塞；完整输出落盘，内存中只保留有界摘要
+ */
+@Component
+public class OutputCaptureService {
+    private static final Logger logger = LoggerFactory.getLogger(OutputCaptureService.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private NodeConfig nodeConfig;
+
+    @Value("${project.root.dir}")
+    private String projectRootDir;
+
+    @Value("${capture.head-bytes:65536}")
+    private int headBytes;
+
+    @Value("${capture.tail-bytes:65536}")
+    private int tailBytes;
+
+    @Value("${capture.drain-timeout-ms:10000}")
+    private long drainTimeoutMillis;
+
+    // 每个进程占用两个读取线程，线程随进程结束而归还
+    private final ExecutorService readerExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("output-capture-"));
+
+    /**
+     * 开始采集进程输出
+     * @param process 已启动的进程
+     * @param planId 计划id，可为空
+     * @param baseName 溢出文件名前缀
+     * @return 采集结果
+     */
+    public ProcessOutputCapture start(Process process, Long planId, String baseName) throws IOException {
+        Path spillDir = resolveSpillDirectory(planId);
+        StreamCapture stdout = new StreamCapture(process.getInputStream(), spillDir.resolve(baseName + ".stdout.log"), headBytes, tailBytes);
+        StreamCapture stderr = new StreamCapture(process.getErrorStream(), spillDir.resolve(baseName + ".stderr.log"), headBytes, tailBytes);
+        Future<?> stdoutFuture = readerExecutor.submit(stdout);
+        Future<?> stderrFuture = readerExecutor.submit(stderr);
+        return new ProcessOutputCapture(stdout, stderr, stdoutFuture, stderrFuture);
+    }
+
+    /**
+     * 进程退出后等待输出读取完毕
+     */
+    public void awaitCompletion(ProcessOutputCapture capture) throws InterruptedException {
+        capture.awaitCompletion(drainTimeoutMillis);
+    }
+
+    // 输出文件与临时脚本放在同一日期目录下，由TempFileCleanupScheduler统一清理
+    private Path resolveSpillDirectory(Long planId) throws IOException {
+        String dateStr = LocalDate.now().format(DATE_FORMATTER);
+        Path spillDir = Paths.get(projectRootDir).resolve(nodeConfig.getTempScriptDirectory()).resolve(dateStr);
+        if (planId != null) {
+            spillDir = spillDir.resolve(String.valueOf(planId));
+        }
+        spillDir = spillDir.resolve("output");
+        Files.createDirectories(spillDir);
+        return spillDir;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down output capture readers");
+        readerExecutor.shutdownNow();
+    }
+}
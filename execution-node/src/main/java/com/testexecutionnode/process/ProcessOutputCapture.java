@@ -0,0 +1,56 @@
+package com.testexecutionnode.process;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一个进程的标准输出和标准错误采集结果，两个流由独立线程同时读取
+ */
+public class ProcessOutputCapture {
+    private final StreamCapture stdout;
+    private final StreamCapture stderr;
+    private final Future<?> stdoutFuture;
+    private final Future<?> stderrFuture;
+
+    ProcessOutputCapture(StreamCapture stdout, StreamCapture stderr, Future<?> stdoutFuture, Future<?> stderrFuture) {
+        this.stdout = stdout;
+        this.stderr = stderr;
+        this.stdoutFuture = stdoutFuture;
+        this.stderrFuture = stderrFuture;
+    }
+
+    /**
+     * 等待两个流读取完毕。进程退出后若仍有子进程占用管道，超时后强制关闭流
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void awaitCompletion(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        if (!await(stdoutFuture, deadline) | !await(stderrFuture, deadline)) {
+            stdout.closeInput();
+            stderr.closeInput();
+            await(stdoutFuture, System.currentTimeMillis() + 1000);
+            await(stderrFuture, System.currentTimeMillis() + 1000);
+        }
+    }
+
+    private boolean await(Future<?> future, long deadline) throws InterruptedException {
+        try {
+            future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    public StreamCapture getStdout() {
+        return stdout;
+    }
+
+    public StreamCapture getStderr() {
+        return stderr;
+    }
+}
@@ -0,0 +1,130 @@
+package com.testexecutionnode.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程树终止工具
+ * 脚本通过bash -c启动时，只结束shell进程并不能结束其派生的python/pytest/浏览器等子进程，
+ * 这里先冻结整棵进程树再统一发送SIGKILL，避免子进程在收集过程中继续派生
+ */
+public final class ProcessTreeKiller {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessTreeKiller.class);
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+    private static final long COMMAND_TIMEOUT_SECONDS = 5;
+
+    private ProcessTreeKiller() {
+    }
+
+    /**
+     * 结束进程及其所有子孙进程
+     * @param process 进程
+     */
+    public static void killTree(Process process) {
+        long pid = getPid(process);
+        if (pid > 0) {
+            killTree(pid);
+        }
+        // 无论是否拿到pid，都确保根进程被结束
+        process.destroyForcibly();
+    }
+
+    /**
+     * 结束指定pid的进程及其所有子孙进程
+     * @param pid 进程id
+     */
+    public static void killTree(long pid) {
+        try {
+            if (WINDOWS) {
+                runCommand("taskkill", "/F", "/T", "/PID", String.valueOf(pid));
+                return;
+            }
+            // 广度优先冻结并收集进程树，冻结后的进程无法再派生新的子进程
+            Set<Long> tree = new LinkedHashSet<>();
+            List<Long> pending = new ArrayList<>();
+            pending.add(pid);
+            while (!pending.isEmpty()) {
+                Long current = pending.remove(0);
+                if (!tree.add(current)) {
+                    continue;
+                }
+                runCommand("kill", "-STOP", String.valueOf(current));
+                pending.addAll(findChildren(current));
+            }
+            List<String> killCommand = new ArrayList<>();
+            killCommand.add("kill");
+            killCommand.add("-KILL");
+            for (Long treePid : tree) {
+                killCommand.add(String.valueOf(treePid));
+            }
+            runCommand(killCommand.toArray(new String[0]));
+            logger.info("Killed process tree rooted at {}: {}", pid, tree);
+        } catch (Exception e) {
+            logger.error("Failed to kill process tree rooted at {}: {}", pid, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取进程pid，无法获取时返回-1
+     */
+    public static long getPid(Process process) {
+        try {
+            // Java 9+
+            Method pidMethod = Process.class.getMethod("pid");
+            return (Long) pidMethod.invoke(process);
+        } catch (NoSuchMethodException e) {
+            // Java 8 的 UNIXProcess
+            try {
+                Field pidField = process.getClass().getDeclaredField("pid");
+                pidField.setAccessible(true);
+                return pidField.getLong(process);
+            } catch (Exception fieldException) {
+                logger.warn("Unable to determine pid of process {}", process.getClass().getName());
+                return -1;
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to determine pid of process: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private static List<Long> findChildren(long pid) throws IOException, InterruptedException {
+        List<Long> children = new ArrayList<>();
+        Process pgrep = new ProcessBuilder("pgrep", "-P", String.valueOf(pid)).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(pgrep.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    try {
+                        children.add(Long.parseLong(line));
+                    } catch (NumberFormatException e) {
+                        logger.debug("Ignoring unexpected pgrep output: {}", line);
+                    }
+                }
+            }
+        }
+        pgrep.waitFor(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return children;
+    }
+
+    private static void runCommand(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+        if (!process.waitFor(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
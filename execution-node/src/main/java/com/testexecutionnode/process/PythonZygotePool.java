@@ -0,0 +1,345 @@
+package com.testexecutionnode.process;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Python预热进程池（可选）
+ * 预热进程启动时预先导入常用模块，每个Python脚本在从预热进程fork出的新子进程中执行，
+ * 省去bash、解释器启动和重复导入重量级模块的开销。子进程的标准输出和标准错误通过命名管道交给节点采集，
+ * 退出码与直接执行python3一致。仅支持类Unix系统
+ */
+@Component
+public class PythonZygotePool {
+    private static final Logger logger = LoggerFactory.getLogger(PythonZygotePool.class);
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+    // 预热进程异常退出时仍在运行的脚本使用的退出码
+    private static final int ZYGOTE_LOST_EXIT_CODE = 255;
+
+    @Value("${python.zygote.enabled:false}")
+    private boolean enabled;
+
+    @Value("${python.zygote.pool-size:1}")
+    private int poolSize;
+
+    @Value("${python.zygote.python-command:python3}")
+    private String pythonCommand;
+
+    // 预热进程启动时导入的模块，逗号分隔
+    @Value("${python.zygote.preload-modules:}")
+    private String preloadModules;
+
+    // 单次启动脚本的握手超时时间（毫秒）
+    @Value("${python.zygote.start-timeout-ms:10000}")
+    private long startTimeoutMillis;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final AtomicInteger nextZygote = new AtomicInteger();
+    private final ExecutorService ioExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("python-zygote-"));
+    private final List<Zygote> zygotes = new ArrayList<>();
+
+    private Path workDirectory;
+    private Path zygoteScript;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (WINDOWS) {
+            logger.warn("Python zygote pool is not supported on Windows, falling back to direct execution");
+            enabled = false;
+            return;
+        }
+        try {
+            workDirectory = Files.createTempDirectory("python-zygote");
+            zygoteScript = workDirectory.resolve("zygote.py");
+            try (InputStream in = new ClassPathResource("python/zygote.py").getInputStream()) {
+                Files.copy(in, zygoteScript, StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (zygotes) {
+                for (int i = 0; i < Math.max(poolSize, 1); i++) {
+                    zygotes.add(startZygote());
+                }
+            }
+            logger.info("Started {} python zygote(s) with preloaded modules [{}]", zygotes.size(), preloadModules);
+        } catch (IOException e) {
+            logger.error("Failed to start python zygote pool, falling back to direct execution: {}", e.getMessage());
+            enabled = false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (zygotes) {
+            for (Zygote zygote : zygotes) {
+                zygote.process.destroyForcibly();
+            }
+            zygotes.clear();
+        }
+        ioExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 在预热进程中启动Python脚本
+     * @param scriptPath 脚本路径
+     * @param workingDirectory 工作目录
+     * @param pytest 是否以python -m pytest script -vs方式执行
+     * @return 脚本进程
+     */
+    public Process start(Path scriptPath, Path workingDirectory, boolean pytest) throws IOException {
+        Map<String, Object> request = new HashMap<>();
+        request.put("op", "run");
+        request.put("cwd", workingDirectory.toAbsolutePath().toString());
+        String script = scriptPath.toAbsolutePath().toString();
+        if (pytest) {
+            List<String> args = new ArrayList<>();
+            args.add(script);
+            args.add("-vs");
+            request.put("module", "pytest");
+            request.put("args", args);
+        } else {
+            request.put("script", script);
+            request.put("args", Collections.emptyList());
+        }
+        return acquire().start(request);
+    }
+
+    // 轮询选择预热进程，已退出的预热进程重新启动
+    private Zygote acquire() throws IOException {
+        synchronized (zygotes) {
+            if (zygotes.isEmpty()) {
+                throw new IOException("Python zygote pool is shut down");
+            }
+            int index = Math.floorMod(nextZygote.getAndIncrement(), zygotes.size());
+            Zygote zygote = zygotes.get(index);
+            if (!zygote.isAlive()) {
+                logger.warn("Python zygote {} exited, restarting", index);
+                zygote = startZygote();
+                zygotes.set(index, zygote);
+            }
+            return zygote;
+        }
+    }
+
+    private Zygote startZygote() throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(pythonCommand, zygoteScript.toString(), preloadModules);
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Zygote zygote = new Zygote(processBuilder.start());
+        ioExecutor.submit(zygote::readEvents);
+        return zygote;
+    }
+
+    /**
+     * 单个预热进程，控制通道为其标准输入/输出
+     */
+    class Zygote {
+        private final Process process;
+        private final Writer control;
+        private final Object startLock = new Object();
+        private final Map<Long, ZygoteProcess> processes = new ConcurrentHashMap<>();
+        private final Map<Long, CompletableFuture<Map<String, Object>>> handshakes = new ConcurrentHashMap<>();
+        private volatile boolean alive = true;
+
+        Zygote(Process process) {
+            this.process = process;
+            this.control = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        }
+
+        boolean isAlive() {
+            return alive && process.isAlive();
+        }
+
+        // 启动握手需要串行执行：预热进程在节点打开命名管道前会阻塞
+        ZygoteProcess start(Map<String, Object> request) throws IOException {
+            long requestId = requestIds.incrementAndGet();
+            Path stdoutFifo = workDirectory.resolve(requestId + ".out");
+            Path stderrFifo = workDirectory.resolve(requestId + ".err");
+            request.put("id", requestId);
+            request.put("stdout", stdoutFifo.toString());
+            request.put("stderr", stderrFifo.toString());
+
+            ZygoteProcess zygoteProcess = new ZygoteProcess(this, requestId);
+            synchronized (startLock) {
+                InputStream stdout = null;
+                InputStream stderr = null;
+                // 先登记进程，脚本很快结束时退出事件可能早于启动流程返回
+                processes.put(requestId, zygoteProcess);
+                try {
+                    CompletableFuture<Map<String, Object>> ready = expect(requestId);
+                    send(request);
+                    awaitEvent(ready, "ready");
+
+                    CompletableFuture<Map<String, Object>> started = expect(requestId);
+                    stdout = openFifo(stdoutFifo);
+                    stderr = openFifo(stderrFifo);
+                    Map<String, Object> event = awaitEvent(started, "started");
+                    zygoteProcess.started(((Number) event.get("pid")).longValue(), stdout, stderr);
+                    return zygoteProcess;
+                } catch (IOException e) {
+                    processes.remove(requestId);
+                    closeQuietly(stdout);
+                    closeQuietly(stderr);
+                    throw e;
+                } finally {
+                    handshakes.remove(requestId);
+                }
+            }
+        }
+
+        void kill(long requestId) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("id", requestId);
+            request.put("op", "kill");
+            try {
+                send(request);
+            } catch (IOException e) {
+                logger.warn("Failed to send kill request to python zygote: {}", e.getMessage());
+            }
+        }
+
+        private CompletableFuture<Map<String, Object>> expect(long requestId) {
+            CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+            handshakes.put(requestId, future);
+            return future;
+        }
+
+        private Map<String, Object> awaitEvent(CompletableFuture<Map<String, Object>> future, String expected) throws IOException {
+            Map<String, Object> event;
+            try {
+                event = future.get(startTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while starting script in python zygote");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                throw new IOException("Timed out waiting for python zygote");
+            }
+            if (!expected.equals(event.get("event"))) {
+                throw new IOException("Python zygote failed to start script: " + event.get("message"));
+            }
+            return event;
+        }
+
+        // 打开命名管道读端会阻塞到写端打开为止；超时后由节点自己打开写端解除阻塞
+        private InputStream openFifo(Path fifo) throws IOException {
+            Future<FileInputStream> opening = ioExecutor.submit(() -> new FileInputStream(fifo.toFile()));
+            try {
+                return opening.get(startTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                try (OutputStream ignored = new FileOutputStream(fifo.toFile())) {
+                    // 仅用于解除读端阻塞
+                }
+                try {
+                    closeQuietly(opening.get(1, TimeUnit.SECONDS));
+                } catch (Exception ignored) {
+                    // 读端已无法使用
+                }
+                throw new IOException("Timed out opening output pipe " + fifo);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while opening output pipe " + fifo);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to open output pipe " + fifo + ": " + e.getCause().getMessage());
+            }
+        }
+
+        private void send(Map<String, Object> request) throws IOException {
+            synchronized (control) {
+                control.write(objectMapper.writeValueAsString(request));
+                control.write("\n");
+                control.flush();
+            }
+        }
+
+        // 读取预热进程的事件并分发给对应的握手或脚本进程
+        void readEvents() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Map<String, Object> event = objectMapper.readValue(line, Map.class);
+                    Object id = event.get("id");
+                    if (!(id instanceof Number)) {
+                        continue;
+                    }
+                    long requestId = ((Number) id).longValue();
+                    if ("exit".equals(event.get("event"))) {
+                        ZygoteProcess zygoteProcess = processes.remove(requestId);
+                        if (zygoteProcess != null) {
+                            zygoteProcess.exited(((Number) event.get("code")).intValue());
+                        }
+                    } else {
+                        CompletableFuture<Map<String, Object>> handshake = handshakes.get(requestId);
+                        if (handshake != null) {
+                            handshake.complete(event);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Error reading python zygote events: {}", e.getMessage());
+            } finally {
+                alive = false;
+                logger.warn("Python zygote exited, {} running script(s) lost", processes.size());
+                for (CompletableFuture<Map<String, Object>> handshake : handshakes.values()) {
+                    handshake.completeExceptionally(new IOException("Python zygote exited"));
+                }
+                for (ZygoteProcess zygoteProcess : processes.values()) {
+                    zygoteProcess.exited(ZYGOTE_LOST_EXIT_CODE);
+                }
+                processes.clear();
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // 忽略关闭异常
+            }
+        }
+    }
+}
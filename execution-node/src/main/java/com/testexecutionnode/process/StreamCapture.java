@@ -0,0 +1,140 @@
+package com.testexecutionnode.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 单个输出流的采集器
+ * 将输入流完整落盘到溢出文件，同时在内存中只保留固定大小的头部和尾部（环形缓冲区）
+ */
+public class StreamCapture implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(StreamCapture.class);
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+    private final Path spillFile;
+    private final byte[] head;
+    private final byte[] tail;
+
+    private int headLength;
+    private int tailPosition;
+    private int tailLength;
+    private long totalBytes;
+    private volatile boolean finished;
+
+    public StreamCapture(InputStream inputStream, Path spillFile, int headBytes, int tailBytes) {
+        this.inputStream = inputStream;
+        this.spillFile = spillFile;
+        this.head = new byte[Math.max(headBytes, 0)];
+        this.tail = new byte[Math.max(tailBytes, 0)];
+    }
+
+    @Override
+    public void run() {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (InputStream in = inputStream;
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(spillFile))) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                append(buffer, read);
+                // 暂无更多输出时刷新到文件，便于实时推送读取
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // 进程被强制结束或流被关闭时会出现读取异常，已读取的内容仍然有效
+            logger.warn("Stream capture to {} stopped: {}", spillFile, e.getMessage());
+        } finally {
+            finished = true;
+        }
+    }
+
+    private synchronized void append(byte[] buffer, int length) {
+        int offset = 0;
+        if (headLength < head.length) {
+            int toHead = Math.min(head.length - headLength, length);
+            System.arraycopy(buffer, 0, head, headLength, toHead);
+            headLength += toHead;
+        }
+        totalBytes += length;
+
+        if (tail.length == 0) {
+            return;
+        }
+        // 只有最后tail.length个字节会留在环形缓冲区中
+        if (length > tail.length) {
+            offset = length - tail.length;
+        }
+        for (int i = offset; i < length; ) {
+            int chunk = Math.min(length - i, tail.length - tailPosition);
+            System.arraycopy(buffer, i, tail, tailPosition, chunk);
+            tailPosition = (tailPosition + chunk) % tail.length;
+            i += chunk;
+        }
+        tailLength = (int) Math.min(tail.length, tailLength + (long) (length - offset));
+    }
+
+    /**
+     * 获取输出摘要：内容未超过头尾缓冲区时返回完整内容，否则返回头部+截断说明+尾部
+     */
+    public synchronized String getExcerpt() {
+        if (totalBytes <= headLength) {
+            return new String(head, 0, headLength, StandardCharsets.UTF_8);
+        }
+        long remaining = totalBytes - headLength;
+        if (remaining <= tailLength) {
+            byte[] rest = lastTailBytes((int) remaining);
+            return new String(head, 0, headLength, StandardCharsets.UTF_8) + new String(rest, StandardCharsets.UTF_8);
+        }
+        long truncated = remaining - tailLength;
+        return new String(head, 0, headLength, StandardCharsets.UTF_8)
+                + "\n... [" + truncated + " bytes truncated, full output: " + spillFile.toAbsolutePath() + "] ...\n"
+                + new String(lastTailBytes(tailLength), StandardCharsets.UTF_8);
+    }
+
+    private byte[] lastTailBytes(int count) {
+        byte[] result = new byte[count];
+        if (count == 0) {
+            return result;
+        }
+        int start = (tailPosition - count + tail.length) % tail.length;
+        for (int i = 0; i < count; i++) {
+            result[i] = tail[(start + i) % tail.length];
+        }
+        return result;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized boolean isTruncated() {
+        return totalBytes > (long) headLength + tailLength;
+    }
+
+    public Path getSpillFile() {
+        return spillFile;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    void closeInput() {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close captured stream: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.testexecutionnode.process;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 由Python预热进程fork出的脚本进程
+ * 实现Process接口，输出采集、超时等待和进程树终止逻辑与普通进程一致
+ */
+public class ZygoteProcess extends Process {
+    private final PythonZygotePool.Zygote zygote;
+    private final long requestId;
+    private final CountDownLatch exited = new CountDownLatch(1);
+
+    // 字段名与Java 8的UNIXProcess一致，ProcessTreeKiller通过反射读取
+    private volatile long pid = -1;
+    private volatile int exitCode;
+    private InputStream inputStream;
+    private InputStream errorStream;
+
+    ZygoteProcess(PythonZygotePool.Zygote zygote, long requestId) {
+        this.zygote = zygote;
+        this.requestId = requestId;
+    }
+
+    long getRequestId() {
+        return requestId;
+    }
+
+    void started(long pid, InputStream inputStream, InputStream errorStream) {
+        this.pid = pid;
+        this.inputStream = inputStream;
+        this.errorStream = errorStream;
+    }
+
+    void exited(int exitCode) {
+        this.exitCode = exitCode;
+        exited.countDown();
+    }
+
+    public long pid() {
+        return pid;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        // 子进程的标准输入为/dev/null
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Standard input of a zygote process is closed");
+            }
+        };
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        return errorStream;
+    }
+
+    @Override
+    public int waitFor() throws InterruptedException {
+        exited.await();
+        return exitCode;
+    }
+
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        return exited.await(timeout, unit);
+    }
+
+    @Override
+    public int exitValue() {
+        if (exited.getCount() > 0) {
+            throw new IllegalThreadStateException("process hasn't exited");
+        }
+        return exitCode;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return exited.getCount() > 0;
+    }
+
+    @Override
+    public void destroy() {
+        if (isAlive()) {
+            zygote.kill(requestId);
+        }
+    }
+
+    @Override
+    public Process destroyForcibly() {
+        destroy();
+        return this;
+    }
+}
@@ -0,0 +1,95 @@
+package com.testexecutionnode.runner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 解释器路径解析，节点启动时在PATH中查找一次，之后每次启动脚本直接使用绝对路径
+ */
+@Component
+public class InterpreterResolver {
+    private static final Logger logger = LoggerFactory.getLogger(InterpreterResolver.class);
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+
+    // 配置为空时按操作系统默认值查找
+    @Value("${runner.python.command:}")
+    private String pythonCommand;
+
+    @Value("${runner.bash.command:}")
+    private String bashCommand;
+
+    @Value("${runner.node.command:}")
+    private String nodeCommand;
+
+    private String python;
+    private String bash;
+    private String node;
+
+    @PostConstruct
+    public void init() {
+        python = resolve("python", pythonCommand, WINDOWS ? new String[]{"python"} : new String[]{"python3", "python"});
+        bash = resolve("bash", bashCommand, new String[]{"bash"});
+        node = resolve("node", nodeCommand, new String[]{"node"});
+    }
+
+    public boolean isWindows() {
+        return WINDOWS;
+    }
+
+    public String getPython() {
+        return python;
+    }
+
+    public String getBash() {
+        return bash;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    // 找不到时保留命令名，由操作系统在启动时查找，启动失败的错误与之前一致
+    private String resolve(String name, String configured, String[] candidates) {
+        if (configured != null && !configured.isEmpty()) {
+            logger.info("Using configured {} interpreter: {}", name, configured);
+            return configured;
+        }
+        for (String candidate : candidates) {
+            Path found = findOnPath(candidate);
+            if (found != null) {
+                logger.info("Resolved {} interpreter: {}", name, found);
+                return found.toString();
+            }
+        }
+        logger.warn("Could not find {} interpreter on PATH, using '{}'", name, candidates[0]);
+        return candidates[0];
+    }
+
+    private Path findOnPath(String command) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return null;
+        }
+        String[] extensions = WINDOWS ? new String[]{".exe", ".cmd", ".bat", ""} : new String[]{""};
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            for (String extension : extensions) {
+                Path candidate = Paths.get(dir, command + extension);
+                if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                    return candidate.toAbsolutePath();
+                }
+            }
+        }
+        return null;
+    }
+}
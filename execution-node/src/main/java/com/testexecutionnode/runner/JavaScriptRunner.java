@@ -0,0 +1,42 @@
+package com.testexecutionnode.runner;
+
+import com.testexecutionnode.process.JavaCompileCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Java脚本：进程内编译（源码未变化时复用缓存的class文件）后以java -cp运行
+ */
+@Component
+@Order(50)
+public class JavaScriptRunner implements ScriptRunner {
+
+    @Autowired
+    private JavaCompileCache javaCompileCache;
+
+    @Override
+    public String getName() {
+        return "java";
+    }
+
+    @Override
+    public boolean supports(String scriptType, String executionEndpointType) {
+        return "java".equalsIgnoreCase(scriptType);
+    }
+
+    @Override
+    public List<String> buildCommand(Path scriptPath, String executionEndpointType) throws ScriptLaunchException {
+        try {
+            return javaCompileCache.compile(scriptPath).buildCommand();
+        } catch (JavaCompileCache.CompilationException e) {
+            throw new ScriptLaunchException("Compilation failed:\n" + e.getMessage());
+        } catch (IOException e) {
+            throw new ScriptLaunchException("Failed to read Java script: " + e.getMessage());
+        }
+    }
+}
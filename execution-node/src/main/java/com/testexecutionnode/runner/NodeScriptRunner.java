@@ -0,0 +1,38 @@
+package com.testexecutionnode.runner;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JavaScript脚本：node script.js
+ */
+@Component
+@Order(40)
+public class NodeScriptRunner implements ScriptRunner {
+
+    @Autowired
+    private InterpreterResolver interpreterResolver;
+
+    @Override
+    public String getName() {
+        return "js";
+    }
+
+    @Override
+    public boolean supports(String scriptType, String executionEndpointType) {
+        return "js".equalsIgnoreCase(scriptType);
+    }
+
+    @Override
+    public List<String> buildCommand(Path scriptPath, String executionEndpointType) {
+        List<String> command = new ArrayList<>();
+        command.add(interpreterResolver.getNode());
+        command.add(scriptPath.toAbsolutePath().toString());
+        return command;
+    }
+}
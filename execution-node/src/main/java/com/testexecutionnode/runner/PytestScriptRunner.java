@@ -0,0 +1,42 @@
+package com.testexecutionnode.runner;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MiniApp计划的Python脚本：python3 -m pytest script.py -vs
+ */
+@Component
+@Order(10)
+public class PytestScriptRunner extends PythonScriptRunner {
+
+    @Override
+    public String getName() {
+        return "pytest";
+    }
+
+    @Override
+    public boolean supports(String scriptType, String executionEndpointType) {
+        return isPython(scriptType) && "MiniApp".equals(executionEndpointType);
+    }
+
+    @Override
+    public List<String> buildCommand(Path scriptPath, String executionEndpointType) {
+        List<String> command = new ArrayList<>();
+        command.add(interpreterResolver.getPython());
+        command.add("-m");
+        command.add("pytest");
+        command.add(scriptPath.toAbsolutePath().toString());
+        command.add("-vs");
+        return command;
+    }
+
+    @Override
+    public Process start(Path scriptPath, Path workingDirectory, String executionEndpointType) {
+        return startInZygote(scriptPath, workingDirectory, true);
+    }
+}
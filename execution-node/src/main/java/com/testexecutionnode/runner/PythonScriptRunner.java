@@ -0,0 +1,68 @@
+package com.testexecutionnode.runner;
+
+import com.testexecutionnode.process.PythonZygotePool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Python脚本：python3 script.py，启用预热进程池时在预热进程中执行
+ */
+@Component
+@Order(20)
+public class PythonScriptRunner implements ScriptRunner {
+    private static final Logger logger = LoggerFactory.getLogger(PythonScriptRunner.class);
+
+    @Autowired
+    protected InterpreterResolver interpreterResolver;
+
+    @Autowired
+    protected PythonZygotePool pythonZygotePool;
+
+    @Override
+    public String getName() {
+        return "python";
+    }
+
+    @Override
+    public boolean supports(String scriptType, String executionEndpointType) {
+        return isPython(scriptType);
+    }
+
+    @Override
+    public List<String> buildCommand(Path scriptPath, String executionEndpointType) {
+        List<String> command = new ArrayList<>();
+        command.add(interpreterResolver.getPython());
+        command.add(scriptPath.toAbsolutePath().toString());
+        return command;
+    }
+
+    @Override
+    public Process start(Path scriptPath, Path workingDirectory, String executionEndpointType) {
+        return startInZygote(scriptPath, workingDirectory, false);
+    }
+
+    // 在预热进程中启动，未启用或启动失败时返回null，退回直接执行
+    protected Process startInZygote(Path scriptPath, Path workingDirectory, boolean pytest) {
+        if (!pythonZygotePool.isEnabled() || workingDirectory == null) {
+            return null;
+        }
+        try {
+            return pythonZygotePool.start(scriptPath, workingDirectory, pytest);
+        } catch (IOException e) {
+            logger.warn("Failed to start script in python zygote, executing directly: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    static boolean isPython(String scriptType) {
+        return "py".equalsIgnoreCase(scriptType) || "python".equalsIgnoreCase(scriptType);
+    }
+}
@@ -0,0 +1,12 @@
+package com.testexecutionnode.runner;
+
+import java.io.IOException;
+
+/**
+ * 脚本在启动前失败（如编译失败），异常信息作为脚本的错误输出
+ */
+public class ScriptLaunchException extends IOException {
+    public ScriptLaunchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.testexecutionnode.runner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 脚本运行器，每种脚本类型一个实现
+ * 新增运行时只需增加一个实现并注册为Spring组件，按@Order顺序匹配第一个支持的运行器
+ */
+public interface ScriptRunner {
+
+    /**
+     * 运行器名称，用于日志和指标
+     */
+    String getName();
+
+    /**
+     * 是否支持该脚本类型和执行端点类型
+     */
+    boolean supports(String scriptType, String executionEndpointType);
+
+    /**
+     * 构建启动命令（argv），不经过shell
+     * @throws ScriptLaunchException 脚本无法运行（如编译失败）
+     */
+    List<String> buildCommand(Path scriptPath, String executionEndpointType) throws ScriptLaunchException;
+
+    /**
+     * 由运行器自行启动进程（如在预热进程中启动），返回null时按buildCommand的命令直接启动
+     */
+    default Process start(Path scriptPath, Path workingDirectory, String executionEndpointType) throws IOException {
+        return null;
+    }
+}
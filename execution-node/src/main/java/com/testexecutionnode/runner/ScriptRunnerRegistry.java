@@ -0,0 +1,77 @@
+package com.testexecutionnode.runner;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 脚本运行器注册表：按脚本类型选择运行器并启动进程，记录每次启动的耗时
+ */
+@Component
+public class ScriptRunnerRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(ScriptRunnerRegistry.class);
+
+    // 按@Order排序
+    @Autowired
+    private List<ScriptRunner> runners;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 获取支持该脚本类型的运行器
+     * @throws IllegalArgumentException 不支持的脚本类型
+     */
+    public ScriptRunner getRunner(String scriptType, String executionEndpointType) {
+        if (scriptType != null) {
+            for (ScriptRunner runner : runners) {
+                if (runner.supports(scriptType, executionEndpointType)) {
+                    return runner;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported script type: " + scriptType);
+    }
+
+    /**
+     * 启动脚本进程
+     * @param scriptType 脚本类型
+     * @param scriptPath 脚本路径
+     * @param workingDirectory 工作目录，为空时使用节点当前目录
+     * @param executionEndpointType 执行端点类型，可为空
+     * @return 脚本进程
+     */
+    public Process launch(String scriptType, Path scriptPath, Path workingDirectory, String executionEndpointType) throws IOException {
+        ScriptRunner runner = getRunner(scriptType, executionEndpointType);
+        long startTime = System.nanoTime();
+        Process process = runner.start(scriptPath, workingDirectory, executionEndpointType);
+        String mode = "zygote";
+        if (process == null) {
+            // 编译等准备工作不计入启动耗时
+            List<String> command = runner.buildCommand(scriptPath, executionEndpointType);
+            logger.info("Launching {} script: {}", runner.getName(), command);
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            if (workingDirectory != null) {
+                processBuilder.directory(workingDirectory.toFile());
+            }
+            startTime = System.nanoTime();
+            process = processBuilder.start();
+            mode = "direct";
+        }
+        Timer.builder("script.spawn.latency")
+                .description("Time taken to start a script process")
+                .tag("runner", runner.getName())
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return process;
+    }
+}
@@ -0,0 +1,38 @@
+package com.testexecutionnode.runner;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shell脚本：bash script.sh
+ */
+@Component
+@Order(30)
+public class ShellScriptRunner implements ScriptRunner {
+
+    @Autowired
+    private InterpreterResolver interpreterResolver;
+
+    @Override
+    public String getName() {
+        return "sh";
+    }
+
+    @Override
+    public boolean supports(String scriptType, String executionEndpointType) {
+        return "sh".equalsIgnoreCase(scriptType);
+    }
+
+    @Override
+    public List<String> buildCommand(Path scriptPath, String executionEndpointType) {
+        List<String> command = new ArrayList<>();
+        command.add(interpreterResolver.getBash());
+        command.add(scriptPath.toAbsolutePath().toString());
+        return command;
+    }
+}
@@ -1,6 +1,7 @@
 package com.testexecutionnode.scheduler;
 
 import com.testexecutionnode.config.NodeConfig;
+import com.testexecutionnode.process.JavaCompileCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,7 +18,11 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class TempFileCleanupScheduler {
@@ -27,6 +32,9 @@ public class TempFileCleanupScheduler {
     @Autowired
     private NodeConfig nodeConfig;
 
+    @Autowired
+    private JavaCompileCache javaCompileCache;
+
     @Value("${project.root.dir}")
     private String projectRootDir;
 
@@ -118,14 +126,8 @@ public class TempFileCleanupScheduler {
                             LocalDate dirDate = LocalDate.parse(dirName, DATE_FORMATTER);
                             
                             if (dirDate.isBefore(currentDate)) {
-                                try (DirectoryStream<Path> fileStream = Files.newDirectoryStream(dir)) {
-                                    for (Path file : fileStream) {
-                                        Files.deleteIfExists(file);
-                                        deletedFilesCount++;
-                                    }
-                                }
-                                
-                                Files.deleteIfExists(dir);
+                                // 日期目录下包含计划目录和输出文件目录，需要递归删除
+                                deletedFilesCount += deleteRecursively(dir);
                                 deletedDirsCount++;
                                 logger.info("Deleted expired date directory: {}", dir.toAbsolutePath());
                             }
@@ -161,6 +163,10 @@ public class TempFileCleanupScheduler {
 
             try (DirectoryStream<Path> stream = Files.newDirectoryStream(tempDir)) {
                 for (Path file : stream) {
+                    // 日期目录由每日清理任务递归删除，这里只处理散落的临时文件
+                    if (Files.isDirectory(file)) {
+                        continue;
+                    }
                     BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
                     long creationTime = attributes.creationTime().toMillis();
 
@@ -178,4 +184,33 @@ public class TempFileCleanupScheduler {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 定时任务：每天凌晨1点30分清理长时间未使用的Java脚本编译结果
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void cleanupJavaCompileCache() {
+        logger.info("Starting cleanup of Java compile cache");
+        javaCompileCache.evictUnused();
+    }
+
+    /**
+     * 递归删除目录
+     * @param dir 目录
+     * @return 删除的文件数量
+     * @throws IOException IO异常
+     */
+    private int deleteRecursively(Path dir) throws IOException {
+        int deletedFilesCount = 0;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            List<Path> sortedPaths = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path path : sortedPaths) {
+                if (!Files.isDirectory(path)) {
+                    deletedFilesCount++;
+                }
+                Files.deleteIfExists(path);
+            }
+        }
+        return deletedFilesCount;
+    }
+}
@@ -0,0 +1,204 @@
+package com.testexecutionnode.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 平台推送的计划/任务的准入队列，HTTP和长连接下发的计划/任务共用执行位
+ * 同时执行的数量和排队数量都有上限，队列已满时拒绝HTTP下发并给出预计等待时间，由平台稍后重试或改派其他节点；
+ * 长连接下发的数量已由下发额度限制，平台发出即视为送达，因此总是接受，但同样占用排队位置；
+ * 预计等待时间按最近执行耗时的滑动平均估算。进入队列时即登记取消标记，排队期间也可以取消，
+ * 被取消的计划/任务轮到执行时直接跳过；排队中的计划执行和任务计入节点的执行情况报告
+ */
+@Service
+public class AdmissionQueue {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionQueue.class);
+    // 执行耗时滑动平均中最新一次的权重
+    private static final double DURATION_SMOOTHING = 0.2;
+
+    // 同时执行的计划/任务数量
+    @Value("${execution.admission.max-concurrent:2}")
+    private int maxConcurrent;
+
+    // 排队等待执行的计划/任务数量上限
+    @Value("${execution.admission.queue-capacity:8}")
+    private int queueCapacity;
+
+    // 还没有执行记录时估算等待时间使用的单次执行耗时
+    @Value("${execution.admission.default-duration-ms:60000}")
+    private long defaultDurationMillis;
+
+    @Autowired
+    private ExecutionCancellationService executionCancellationService;
+
+    private ThreadPoolExecutor executor;
+    private volatile double averageDurationMillis;
+    // 已接受尚未结束（排队和执行中）的计划/任务数
+    private int admitted;
+    // 排队等待执行的计划执行和任务，值为同一ID的排队次数
+    private final Map<Long, Integer> queuedExecutions = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> queuedTasks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(maxConcurrent, 1);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("admission-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        averageDurationMillis = defaultDurationMillis;
+        logger.info("Admission queue accepts {} concurrent units with {} queued", threads, Math.max(queueCapacity, 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交计划执行
+     * @param label 日志中使用的描述
+     * @param credited 是否为长连接按下发额度下发的，是时不会被拒绝
+     * @return 队列已满时返回false
+     */
+    public boolean submitPlan(Long executionId, String label, boolean credited, Runnable work) {
+        executionCancellationService.registerPlan(executionId);
+        queuedExecutions.merge(executionId, 1, Integer::sum);
+        return submit(label, credited, work, () -> {
+            queuedExecutions.computeIfPresent(executionId, (id, count) -> count > 1 ? count - 1 : null);
+            executionCancellationService.unregisterPlan(executionId);
+        });
+    }
+
+    /**
+     * 提交测试任务
+     * @param label 日志中使用的描述
+     * @param credited 是否为长连接按下发额度下发的，是时不会被拒绝
+     * @return 队列已满时返回false
+     */
+    public boolean submitTask(Long taskId, String label, boolean credited, Runnable work) {
+        executionCancellationService.registerTask(taskId);
+        queuedTasks.merge(taskId, 1, Integer::sum);
+        return submit(label, credited, work, () -> {
+            queuedTasks.computeIfPresent(taskId, (id, count) -> count > 1 ? count - 1 : null);
+            executionCancellationService.unregisterTask(taskId);
+        });
+    }
+
+    // 执行结束或被拒绝后调用release，排队登记和取消标记保留到执行结束，开始执行时不会出现未登记的间隙
+    private boolean submit(String label, boolean credited, Runnable work, Runnable release) {
+        synchronized (this) {
+            if (!credited && admitted >= capacity()) {
+                release.run();
+                logger.warn("Admission queue is full, rejecting {}", label);
+                return false;
+            }
+            admitted++;
+        }
+        try {
+            executor.execute(() -> {
+                long startTime = System.currentTimeMillis();
+                try {
+                    work.run();
+                } catch (Exception e) {
+                    logger.error("Error executing {}: {}", label, e.getMessage());
+                } finally {
+                    finish(release);
+                    recordDuration(System.currentTimeMillis() - startTime);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // 节点正在关闭
+            finish(release);
+            logger.warn("Admission queue is shut down, rejecting {}", label);
+            return false;
+        }
+    }
+
+    private void finish(Runnable release) {
+        synchronized (this) {
+            admitted--;
+        }
+        release.run();
+    }
+
+    // 同时执行和排队的总数上限
+    private int capacity() {
+        return executor.getMaximumPoolSize() + Math.max(queueCapacity, 1);
+    }
+
+    /**
+     * 已进入队列尚未结束的计划执行ID（含执行中的）
+     */
+    public List<Long> getQueuedExecutionIds() {
+        return new ArrayList<>(queuedExecutions.keySet());
+    }
+
+    /**
+     * 已进入队列尚未结束的任务ID（含执行中的）
+     */
+    public List<Long> getQueuedTaskIds() {
+        return new ArrayList<>(queuedTasks.keySet());
+    }
+
+    /**
+     * 排队等待执行的数量
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getRunning() {
+        return executor.getActiveCount();
+    }
+
+    public synchronized boolean isFull() {
+        return admitted >= capacity();
+    }
+
+    /**
+     * 新提交的计划/任务预计需要等待的时间，有空闲执行位时为0
+     */
+    public long estimatedWaitMillis() {
+        int waiting = getQueueDepth() + getRunning() - executor.getMaximumPoolSize() + 1;
+        if (waiting <= 0) {
+            return 0;
+        }
+        // 排在前面的计划/任务按执行位分批完成
+        int rounds = (waiting + executor.getMaximumPoolSize() - 1) / executor.getMaximumPoolSize();
+        return (long) (rounds * averageDurationMillis);
+    }
+
+    /**
+     * 队列状态
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", getRunning());
+        status.put("maxConcurrent", executor.getMaximumPoolSize());
+        status.put("queueDepth", getQueueDepth());
+        status.put("queueCapacity", Math.max(queueCapacity, 1));
+        status.put("estimatedWaitMs", estimatedWaitMillis());
+        return status;
+    }
+
+    private synchronized void recordDuration(long durationMillis) {
+        averageDurationMillis = averageDurationMillis + DURATION_SMOOTHING * (durationMillis - averageDurationMillis);
+    }
+}
@@ -0,0 +1,60 @@
+package com.testexecutionnode.service;
+
+import com.testexecutionnode.process.ProcessTreeKiller;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次计划执行或任务的取消标记
+ * 记录执行期间启动的脚本进程，取消时结束这些进程树；取消之后才启动的进程在登记时立即结束
+ */
+public class CancellationToken {
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    // 同一个计划执行或任务在节点上同时执行的次数
+    private int references;
+
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * 取消并结束所有已登记的进程树
+     */
+    public void cancel() {
+        cancelled.countDown();
+        for (Process process : processes) {
+            ProcessTreeKiller.killTree(process);
+        }
+    }
+
+    public void attach(Process process) {
+        processes.add(process);
+        if (isCancelled()) {
+            ProcessTreeKiller.killTree(process);
+        }
+    }
+
+    public void detach(Process process) {
+        processes.remove(process);
+    }
+
+    /**
+     * 等待指定时间，期间被取消时提前返回
+     * @return 等待完整结束时返回true，被取消时返回false
+     */
+    public boolean sleep(long millis) throws InterruptedException {
+        return !cancelled.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    int retain() {
+        return ++references;
+    }
+
+    int release() {
+        return --references;
+    }
+}
@@ -0,0 +1,118 @@
+package com.testexecutionnode.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 执行中的计划执行和任务的取消标记
+ * 执行线程和脚本工作线程通过bind绑定当前的取消标记，启动的脚本进程据此登记，取消时统一结束
+ */
+@Service
+public class ExecutionCancellationService {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionCancellationService.class);
+
+    private final Map<String, CancellationToken> tokens = new HashMap<>();
+    private final ThreadLocal<CancellationToken> currentToken = new ThreadLocal<>();
+
+    public CancellationToken registerPlan(Long executionId) {
+        return register(planKey(executionId));
+    }
+
+    public void unregisterPlan(Long executionId) {
+        unregister(planKey(executionId));
+    }
+
+    public CancellationToken registerTask(Long taskId) {
+        return register(taskKey(taskId));
+    }
+
+    public void unregisterTask(Long taskId) {
+        unregister(taskKey(taskId));
+    }
+
+    /**
+     * 取消计划执行：结束正在运行的脚本进程，剩余脚本不再执行
+     * @return 计划执行不在本节点执行时返回false
+     */
+    public boolean cancelPlan(Long executionId) {
+        return cancel(planKey(executionId));
+    }
+
+    /**
+     * 取消测试任务
+     * @return 任务不在本节点执行时返回false
+     */
+    public boolean cancelTask(Long taskId) {
+        return cancel(taskKey(taskId));
+    }
+
+    /**
+     * 将取消标记绑定到当前线程，之后启动的脚本进程登记到该标记
+     */
+    public void bind(CancellationToken token) {
+        currentToken.set(token);
+    }
+
+    public void unbind() {
+        currentToken.remove();
+    }
+
+    /**
+     * 当前线程绑定的取消标记，未绑定时返回null
+     */
+    public CancellationToken current() {
+        return currentToken.get();
+    }
+
+    /**
+     * 包装为在脚本工作线程中绑定取消标记后执行
+     */
+    public Runnable wrap(CancellationToken token, Runnable runnable) {
+        return () -> {
+            bind(token);
+            try {
+                runnable.run();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    private synchronized CancellationToken register(String key) {
+        CancellationToken token = tokens.computeIfAbsent(key, k -> new CancellationToken());
+        token.retain();
+        return token;
+    }
+
+    private synchronized void unregister(String key) {
+        CancellationToken token = tokens.get(key);
+        if (token != null && token.release() <= 0) {
+            tokens.remove(key);
+        }
+    }
+
+    private boolean cancel(String key) {
+        CancellationToken token;
+        synchronized (this) {
+            token = tokens.get(key);
+        }
+        if (token == null) {
+            return false;
+        }
+        logger.info("Cancelling {}", key);
+        token.cancel();
+        return true;
+    }
+
+    private String planKey(Long executionId) {
+        return "execution " + executionId;
+    }
+
+    private String taskKey(Long taskId) {
+        return "task " + taskId;
+    }
+}
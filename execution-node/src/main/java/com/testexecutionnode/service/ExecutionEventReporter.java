@@ -0,0 +1,256 @@
+package com.testexecutionnode.service;
+
+import com.testexecutionnode.channel.ChannelResponse;
+import com.testexecutionnode.channel.PlatformChannel;
+import com.testexecutionnode.outbox.ResultOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行事件批量上报服务
+ * 脚本日志的创建、结束和计划进度先放入每个执行的队列，按间隔合并为一个请求发送到平台，由平台在一个事务中应用；
+ * 进度只保留最新的一次。批次写入结果发件箱后由其负责送达，写入失败的事件留在队列中下次重试，平台按clientKey去重
+ */
+@Service
+public class ExecutionEventReporter {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionEventReporter.class);
+    // 上报的脚本输出只用于平台日志列表的摘要，截断后发送
+    private static final int MAX_RESULT_LENGTH = 1024;
+
+    @Autowired
+    private ResultOutbox resultOutbox;
+
+    @Autowired
+    private PlatformChannel platformChannel;
+
+    @Value("${execution.events.enabled:true}")
+    private boolean enabled;
+
+    // 合并发送间隔（毫秒）
+    @Value("${execution.events.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    // 单批最大事件数，需不大于平台的execution.events.max-batch-size
+    @Value("${execution.events.max-batch-size:500}")
+    private int maxBatchSize;
+
+    private final Map<Long, EventQueue> queues = new ConcurrentHashMap<>();
+
+    // 使用独立线程发送，平台响应缓慢时不影响脚本执行
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("Batched execution event reporting is disabled");
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("execution-events-"));
+        flushExecutor.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        // 尽量送出剩余事件
+        for (Long executionId : queues.keySet()) {
+            flush(executionId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 脚本开始执行
+     * @return 日志标识，结束时通过logFinished上报
+     */
+    public String logCreated(Long executionId, Long scriptId) {
+        String clientKey = scriptId + "-" + UUID.randomUUID();
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "LOG_CREATED");
+        event.put("clientKey", clientKey);
+        event.put("scriptId", scriptId);
+        addEvent(executionId, event);
+        return clientKey;
+    }
+
+    /**
+     * 脚本执行结束
+     */
+    public void logFinished(Long executionId, String clientKey, Map<String, Object> result) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "LOG_FINISHED");
+        event.put("clientKey", clientKey);
+        event.put("status", result.get("status"));
+        String output = (String) result.get("output");
+        event.put("result", output != null && output.length() > MAX_RESULT_LENGTH ? output.substring(0, MAX_RESULT_LENGTH) : output);
+        event.put("errorMessage", result.get("error"));
+        event.put("executionTime", result.get("duration"));
+        event.put("attempts", result.get("attempts"));
+        addEvent(executionId, event);
+    }
+
+    /**
+     * 计划执行进度，未发送的旧进度直接被替换
+     * @param shardId 分片执行时为分片ID，进度只是该分片的统计
+     */
+    public void progress(Long executionId, Long shardId, String status, int totalScripts, int successCount, int failedCount) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "PROGRESS");
+        if (shardId != null) {
+            event.put("shardId", shardId);
+        }
+        event.put("status", status);
+        event.put("totalScripts", totalScripts);
+        event.put("successScripts", successCount);
+        event.put("failedScripts", failedCount);
+        queues.compute(executionId, (id, queue) -> {
+            EventQueue target = queue != null ? queue : new EventQueue();
+            target.setProgress(event);
+            return target;
+        });
+    }
+
+    /**
+     * 立即发送执行的全部待发送事件
+     * @return 是否全部送达
+     */
+    public boolean flush(Long executionId) {
+        EventQueue queue = queues.get(executionId);
+        if (queue == null) {
+            return true;
+        }
+        synchronized (queue.sendLock) {
+            while (true) {
+                List<Map<String, Object>> batch = queue.drain(maxBatchSize);
+                if (batch.isEmpty()) {
+                    // 与添加事件在同一个原子操作中判断，避免移除时丢失新事件
+                    queues.computeIfPresent(executionId, (id, current) -> current == queue && queue.isEmpty() ? null : current);
+                    return true;
+                }
+                if (!send(executionId, batch)) {
+                    queue.requeue(batch);
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void flushAll() {
+        for (Long executionId : queues.keySet()) {
+            try {
+                flush(executionId);
+            } catch (Exception e) {
+                logger.warn("Error sending events of execution {}: {}", executionId, e.getMessage());
+            }
+        }
+    }
+
+    private void addEvent(Long executionId, Map<String, Object> event) {
+        queues.compute(executionId, (id, queue) -> {
+            EventQueue target = queue != null ? queue : new EventQueue();
+            target.add(event);
+            return target;
+        });
+    }
+
+    // 长连接可用时直接发送，否则交给结果发件箱，返回false表示需要重试；
+    // 发件箱中还有该执行先前的批次未送达时同样交给发件箱，保证批次按顺序到达
+    private boolean send(Long executionId, List<Map<String, Object>> batch) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("events", batch);
+        String path = "/api/plan-executions/" + executionId + "/events";
+        if (platformChannel.isConnected() && !resultOutbox.hasPending(path)) {
+            Map<String, Object> payload = new HashMap<>(body);
+            payload.put("executionId", executionId);
+            try {
+                ChannelResponse response = platformChannel.call("EVENTS", payload, null);
+                if (response.isSuccess()) {
+                    return true;
+                }
+                if (response.isClientError()) {
+                    // 与发件箱一致，平台拒绝的批次不再重试
+                    logger.error("Platform rejected {} events of execution {}: {}", batch.size(), executionId, response.getStatus());
+                    return true;
+                }
+            } catch (Exception e) {
+                logger.debug("Failed to send events of execution {} over channel: {}", executionId, e.getMessage());
+            }
+        }
+        boolean accepted = resultOutbox.submit(HttpMethod.POST, path, body);
+        if (!accepted) {
+            logger.warn("Failed to send {} events of execution {}, will retry", batch.size(), executionId);
+        }
+        return accepted;
+    }
+
+    /**
+     * 单个执行的待发送事件，进度事件单独保存并放在批次末尾
+     */
+    private static class EventQueue {
+        private final Object sendLock = new Object();
+        private final LinkedList<Map<String, Object>> events = new LinkedList<>();
+        private Map<String, Object> progress;
+
+        synchronized void add(Map<String, Object> event) {
+            events.add(event);
+        }
+
+        synchronized void setProgress(Map<String, Object> event) {
+            progress = event;
+        }
+
+        synchronized boolean isEmpty() {
+            return events.isEmpty() && progress == null;
+        }
+
+        // 取出一批事件，日志事件全部取完时附上最新进度
+        synchronized List<Map<String, Object>> drain(int maxBatchSize) {
+            List<Map<String, Object>> batch = new ArrayList<>();
+            while (!events.isEmpty() && batch.size() < maxBatchSize) {
+                batch.add(events.removeFirst());
+            }
+            if (events.isEmpty() && progress != null && batch.size() < maxBatchSize) {
+                batch.add(progress);
+                progress = null;
+            }
+            return batch;
+        }
+
+        // 发送失败的批次放回队首，期间产生的新进度优先
+        synchronized void requeue(List<Map<String, Object>> batch) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                Map<String, Object> event = batch.get(i);
+                if ("PROGRESS".equals(event.get("type"))) {
+                    if (progress == null) {
+                        progress = event;
+                    }
+                } else {
+                    events.addFirst(event);
+                }
+            }
+        }
+    }
+}
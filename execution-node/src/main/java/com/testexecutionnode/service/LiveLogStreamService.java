@@ -0,0 +1,360 @@
+package com.testexecutionnode.service;
+
+import com.testexecutionnode.channel.ChannelResponse;
+import com.testexecutionnode.channel.PlatformChannel;
+import com.testexecutionnode.client.PlatformClient;
+import com.testexecutionnode.client.PlatformEndpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 脚本日志实时推送服务
+ * 脚本运行期间定时读取输出文件的新增内容，按字节偏移量分片追加到平台日志，
+ * 平台据此向前端实时推送；脚本结束后补齐剩余输出和错误输出，最终日志格式与整体上传一致
+ */
+@Service
+public class LiveLogStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(LiveLogStreamService.class);
+    private static final int FINAL_FLUSH_ATTEMPTS = 3;
+
+    @Autowired
+    private PlatformClient platformClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformChannel platformChannel;
+
+    @Value("${log.stream.enabled:true}")
+    private boolean enabled;
+
+    // 推送间隔（毫秒）
+    @Value("${log.stream.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    // 单个分片的最大字节数，需不大于平台的log.append.max-chunk-bytes
+    @Value("${log.stream.chunk-bytes:65536}")
+    private int chunkBytes;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // 使用独立线程推送，平台响应缓慢时不影响心跳等定时任务
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("Live log streaming is disabled");
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("live-log-"));
+        flushExecutor.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 为一个脚本执行开启日志推送会话，未启用时返回null
+     */
+    public Session open(Long planId, Long executionId, Long scriptId) {
+        if (!enabled) {
+            return null;
+        }
+        Session session = new Session(String.valueOf(planId), String.valueOf(executionId), String.valueOf(scriptId));
+        sessions.put(session.key(), session);
+        return session;
+    }
+
+    /**
+     * 结束会话：推送全部剩余内容后移除会话
+     * @return 日志是否已完整送达平台，返回false时调用方应改为整体上传
+     */
+    public boolean close(Session session) {
+        try {
+            synchronized (session) {
+                session.stopFollowing();
+                for (int i = 0; i < FINAL_FLUSH_ATTEMPTS; i++) {
+                    if (flush(session)) {
+                        return true;
+                    }
+                    session.wait(flushIntervalMillis);
+                }
+                logger.warn("Failed to stream remaining log of script {} in execution {}", session.scriptId, session.executionId);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            sessions.remove(session.key());
+        }
+    }
+
+    private void flushAll() {
+        for (Session session : sessions.values()) {
+            try {
+                synchronized (session) {
+                    flush(session);
+                }
+            } catch (Exception e) {
+                logger.warn("Error streaming log of script {}: {}", session.scriptId, e.getMessage());
+            }
+        }
+    }
+
+    // 依次推送待发送内容，推送失败时保留进度等待下次重试；全部送达时返回true
+    private boolean flush(Session session) {
+        while (!session.pending.isEmpty()) {
+            Segment segment = session.pending.peekFirst();
+            byte[] chunk;
+            try {
+                chunk = segment.read(chunkBytes);
+                if (chunk.length == 0) {
+                    if (segment.isExhausted()) {
+                        session.pending.pollFirst();
+                        continue;
+                    }
+                    // 当前输出文件暂无新内容
+                    return false;
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to read log segment {}: {}", segment.file, e.getMessage());
+                session.pending.pollFirst();
+                continue;
+            }
+            if (!append(session, chunk)) {
+                return false;
+            }
+            segment.position += chunk.length;
+        }
+        return true;
+    }
+
+    // 以会话当前偏移量追加一个分片，成功后以平台返回的大小作为新的偏移量
+    private boolean append(Session session, byte[] chunk) {
+        if (platformChannel.isConnected()) {
+            try {
+                return appendOverChannel(session, chunk);
+            } catch (IOException e) {
+                logger.debug("Failed to append log chunk over channel, using HTTP: {}", e.getMessage());
+            }
+        }
+        String path = "/api/plan-executions/logs/append?planId=" + session.planId
+                + "&executionId=" + session.executionId + "&scriptId=" + session.scriptId + "&offset=" + session.remoteOffset;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        try {
+            ResponseEntity<Map> response = platformClient.exchange(PlatformEndpoint.LOG_APPEND, path, HttpMethod.POST, new HttpEntity<>(chunk, headers), Map.class);
+            session.remoteOffset = ((Number) response.getBody().get("offset")).longValue();
+            return true;
+        } catch (HttpStatusCodeException e) {
+            if (e.getStatusCode() == HttpStatus.CONFLICT) {
+                // 平台日志比预期短（例如日志文件被清理），从平台当前位置继续追加
+                long committed = readOffset(e.getResponseBodyAsString());
+                logger.warn("Log offset mismatch for script {} in execution {}: expected {}, platform has {}",
+                        session.scriptId, session.executionId, session.remoteOffset, committed);
+                if (committed >= 0) {
+                    session.remoteOffset = committed;
+                }
+            } else {
+                logger.warn("Failed to append log chunk for script {}: {}", session.scriptId, e.getStatusCode());
+            }
+            return false;
+        } catch (Exception e) {
+            logger.warn("Failed to append log chunk for script {}: {}", session.scriptId, e.getMessage());
+            return false;
+        }
+    }
+
+    // 以二进制帧发送分片，响应语义与HTTP追加接口一致
+    private boolean appendOverChannel(Session session, byte[] chunk) throws IOException {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("planId", session.planId);
+        payload.put("executionId", session.executionId);
+        payload.put("scriptId", session.scriptId);
+        payload.put("offset", session.remoteOffset);
+        ChannelResponse response = platformChannel.call("LOG_APPEND", payload, chunk);
+        long committed = response.getPayload() != null ? response.getPayload().path("offset").asLong(-1) : -1;
+        if (response.isSuccess() && committed >= 0) {
+            session.remoteOffset = committed;
+            return true;
+        }
+        if (response.getStatus() == HttpStatus.CONFLICT.value()) {
+            logger.warn("Log offset mismatch for script {} in execution {}: expected {}, platform has {}",
+                    session.scriptId, session.executionId, session.remoteOffset, committed);
+            if (committed >= 0) {
+                session.remoteOffset = committed;
+            }
+        } else {
+            logger.warn("Failed to append log chunk for script {}: {}", session.scriptId, response.getStatus());
+        }
+        return false;
+    }
+
+    private long readOffset(String body) {
+        try {
+            return ((Number) objectMapper.readValue(body, Map.class).get("offset")).longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 一个脚本执行的日志推送会话，按顺序维护待推送的内容片段
+     */
+    public static class Session {
+        private final String planId;
+        private final String executionId;
+        private final String scriptId;
+        private final Deque<Segment> pending = new ArrayDeque<>();
+        private long remoteOffset;
+        private int attempts;
+
+        private Session(String planId, String executionId, String scriptId) {
+            this.planId = planId;
+            this.executionId = executionId;
+            this.scriptId = scriptId;
+        }
+
+        private String key() {
+            return executionId + "/" + scriptId;
+        }
+
+        /**
+         * 开始跟随一次执行的标准输出文件，重试时先写入分隔行
+         */
+        public synchronized void follow(Path stdoutFile) {
+            stopFollowing();
+            if (attempts > 0) {
+                pending.addLast(Segment.text("\n===== attempt " + (attempts + 1) + " =====\n"));
+            }
+            attempts++;
+            pending.addLast(Segment.file(stdoutFile, true));
+        }
+
+        /**
+         * 当前执行结束，追加其标准错误输出
+         */
+        public synchronized void finishAttempt(Path stderrFile) {
+            stopFollowing();
+            pending.addLast(Segment.text("\n\n"));
+            pending.addLast(Segment.file(stderrFile, false));
+        }
+
+        /**
+         * 追加一段文本
+         */
+        public synchronized void appendText(String text) {
+            pending.addLast(Segment.text(text));
+        }
+
+        /**
+         * 是否已经跟随过脚本输出
+         */
+        public synchronized boolean hasOutput() {
+            return attempts > 0;
+        }
+
+        private void stopFollowing() {
+            for (Segment segment : pending) {
+                segment.live = false;
+            }
+        }
+    }
+
+    // 待推送的内容片段：一段文本，或一个输出文件（运行中的文件会持续增长）
+    private static class Segment {
+        private Path file;
+        private byte[] bytes;
+        private long position;
+        private boolean live;
+
+        static Segment text(String text) {
+            Segment segment = new Segment();
+            segment.bytes = text.getBytes(StandardCharsets.UTF_8);
+            return segment;
+        }
+
+        static Segment file(Path file, boolean live) {
+            Segment segment = new Segment();
+            segment.file = file;
+            segment.live = live;
+            return segment;
+        }
+
+        byte[] read(int max) throws IOException {
+            if (bytes != null) {
+                return Arrays.copyOfRange(bytes, (int) position, (int) Math.min(bytes.length, position + max));
+            }
+            if (!Files.exists(file)) {
+                return new byte[0];
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(Math.min(channel.size() - position, max), 0));
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                    // 读满缓冲区
+                }
+                byte[] chunk = Arrays.copyOf(buffer.array(), buffer.position());
+                return live && chunk.length == max ? cutAtLastLine(chunk) : chunk;
+            }
+        }
+
+        // 运行中的输出尽量按整行推送，避免前端显示半行
+        private static byte[] cutAtLastLine(byte[] chunk) {
+            for (int i = chunk.length - 1; i >= 0; i--) {
+                if (chunk[i] == '\n') {
+                    return Arrays.copyOf(chunk, i + 1);
+                }
+            }
+            return chunk;
+        }
+
+        boolean isExhausted() throws IOException {
+            if (bytes != null) {
+                return position >= bytes.length;
+            }
+            return !live && (!Files.exists(file) || position >= Files.size(file));
+        }
+    }
+}
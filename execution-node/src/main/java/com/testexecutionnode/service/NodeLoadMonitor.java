@@ -0,0 +1,151 @@
+package com.testexecutionnode.service;
+
+import com.testexecutionnode.client.dto.InFlightReportDto;
+import com.testexecutionnode.client.dto.NodeLoadDto;
+import com.testexecutionnode.config.NodeConfig;
+import com.testexecutionnode.outbox.ResultOutbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 节点负载统计
+ * 记录正在执行的脚本进程和测试计划/任务，并在发送心跳时采集系统负载、可用内存和临时目录磁盘空间；
+ * 注册时据此生成执行情况报告，供平台核对执行状态
+ */
+@Component
+public class NodeLoadMonitor {
+    // 发件箱中计划执行状态、执行事件和任务结果的接口路径
+    private static final Pattern EXECUTION_RESULT_PATH = Pattern.compile("^/api/plan-executions/(\\d+)(/events)?$");
+    private static final Pattern TASK_RESULT_PATH = Pattern.compile("^/api/test-tasks/(\\d+)/result$");
+
+    @Autowired
+    private NodeConfig nodeConfig;
+
+    @Autowired
+    private ResultOutbox resultOutbox;
+
+    @Autowired
+    private AdmissionQueue admissionQueue;
+
+    private final AtomicInteger runningScripts = new AtomicInteger();
+    // 执行中的计划执行和任务，值为同一ID的执行次数
+    private final Map<Long, Integer> runningExecutions = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> runningTasks = new ConcurrentHashMap<>();
+    private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+
+    // 执行计划脚本的线程池，用于读取排队中的脚本数
+    private volatile ThreadPoolExecutor scriptPool;
+
+    public void scriptStarted() {
+        runningScripts.incrementAndGet();
+    }
+
+    public void scriptFinished() {
+        runningScripts.decrementAndGet();
+    }
+
+    public void planStarted(Long executionId) {
+        runningExecutions.merge(executionId, 1, Integer::sum);
+    }
+
+    public void planFinished(Long executionId) {
+        runningExecutions.computeIfPresent(executionId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public void taskStarted(Long taskId) {
+        runningTasks.merge(taskId, 1, Integer::sum);
+    }
+
+    public void taskFinished(Long taskId) {
+        runningTasks.computeIfPresent(taskId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public void watchScriptPool(ThreadPoolExecutor scriptPool) {
+        this.scriptPool = scriptPool;
+    }
+
+    public int getRunningScripts() {
+        return runningScripts.get();
+    }
+
+    /**
+     * 采集当前负载
+     */
+    public NodeLoadDto snapshot() {
+        NodeLoadDto load = new NodeLoadDto();
+        int running = runningScripts.get();
+        int maxSlots = nodeConfig.getMaxConcurrency();
+        load.setRunningScripts(running);
+        load.setMaxSlots(maxSlots);
+        load.setFreeSlots(Math.max(maxSlots - running, 0));
+        ThreadPoolExecutor pool = scriptPool;
+        load.setQueueDepth(pool != null ? pool.getQueue().size() : 0);
+        load.setActiveUnits(runningExecutions.size() + runningTasks.size());
+        load.setLoadAverage(osBean.getSystemLoadAverage());
+        load.setFreeMemoryBytes(freeMemoryBytes());
+        load.setFreeDiskBytes(freeDiskBytes());
+        load.setAdmissionQueued(admissionQueue.getQueueDepth());
+        load.setEstimatedWaitMillis(admissionQueue.estimatedWaitMillis());
+        return load;
+    }
+
+    /**
+     * 当前执行情况：正在执行和在准入队列中排队的计划执行和任务，以及结果仍在发件箱中的计划执行和任务
+     */
+    public InFlightReportDto inFlightReport() {
+        InFlightReportDto report = new InFlightReportDto();
+        Set<Long> executionIds = new LinkedHashSet<>(runningExecutions.keySet());
+        executionIds.addAll(admissionQueue.getQueuedExecutionIds());
+        Set<Long> taskIds = new LinkedHashSet<>(runningTasks.keySet());
+        taskIds.addAll(admissionQueue.getQueuedTaskIds());
+        report.setRunningExecutionIds(new ArrayList<>(executionIds));
+        report.setRunningTaskIds(new ArrayList<>(taskIds));
+        for (String path : resultOutbox.getPendingPaths()) {
+            addIfMatches(EXECUTION_RESULT_PATH, path, report.getUnacknowledgedExecutionIds());
+            addIfMatches(TASK_RESULT_PATH, path, report.getUnacknowledgedTaskIds());
+        }
+        return report;
+    }
+
+    private void addIfMatches(Pattern pattern, String path, List<Long> ids) {
+        Matcher matcher = pattern.matcher(path);
+        if (matcher.matches()) {
+            Long id = Long.valueOf(matcher.group(1));
+            if (!ids.contains(id)) {
+                ids.add(id);
+            }
+        }
+    }
+
+    // HotSpot/OpenJDK提供物理内存信息，其他JVM时退化为JVM堆的剩余空间
+    private long freeMemoryBytes() {
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getFreePhysicalMemorySize();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - runtime.totalMemory() + runtime.freeMemory();
+    }
+
+    // 临时目录尚未创建时取其最近的已存在上级目录
+    private long freeDiskBytes() {
+        File directory = new File(nodeConfig.getTempScriptDirectory()).getAbsoluteFile();
+        while (directory != null && !directory.exists()) {
+            directory = directory.getParentFile();
+        }
+        return directory != null ? directory.getUsableSpace() : 0;
+    }
+}
@@ -1,16 +1,34 @@
 package com.testexecutionnode.service;
 
+import com.testexecutionnode.channel.ChannelResponse;
+import com.testexecutionnode.channel.PlatformChannel;
+import com.testexecutionnode.client.PlatformClient;
+import com.testexecutionnode.client.ReconnectBackoff;
+import com.testexecutionnode.client.dto.NodeLoadDto;
+import com.testexecutionnode.client.dto.NodeRegistrationDto;
 import com.testexecutionnode.config.NodeConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * 节点注册与心跳
+ * 心跳失败后停止发送心跳，按带抖动的指数退避重新注册，避免平台重启时所有节点同时反复注册；
+ * 注册时上报正在执行和结果待送达的执行，由平台核对执行状态
+ */
 @Service
 public class RegistrationService {
     private static final Logger logger = LoggerFactory.getLogger(RegistrationService.class);
@@ -19,70 +37,129 @@ public class RegistrationService {
     private NodeConfig nodeConfig;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private PlatformClient platformClient;
+
+    @Autowired
+    private PlatformChannel platformChannel;
+
+    @Autowired
+    private NodeLoadMonitor nodeLoadMonitor;
+
+    // 重新注册的初始等待时间，连续失败时翻倍
+    @Value("${registration.retry.backoff-ms:2000}")
+    private long retryBackoffMillis;
+
+    @Value("${registration.retry.max-backoff-ms:60000}")
+    private long retryMaxBackoffMillis;
 
-    private String platformServerUrl;
     private String nodeId;
-    private String nodeName;
-    private String nodeHost;
-    private int nodePort;
+    private ReconnectBackoff backoff;
+    private ScheduledExecutorService retryExecutor;
+    private volatile boolean registered;
+    // 同一时间只保留一次待执行的重新注册
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
 
     @PostConstruct
     public void init() {
-        platformServerUrl = nodeConfig.getPlatformServerUrl();
         nodeId = nodeConfig.getNodeId();
-        nodeName = nodeConfig.getNodeName();
-        nodeHost = nodeConfig.getNodeHost();
-        nodePort = nodeConfig.getNodePort();
+        backoff = new ReconnectBackoff(retryBackoffMillis, retryMaxBackoffMillis);
+        retryExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("node-register-"));
 
         // 注册到平台
         registerToPlatform();
     }
 
-    public void registerToPlatform() {
-        try {
-            Map<String, Object> nodeInfo = new HashMap<>();
-            nodeInfo.put("nodeId", nodeId);
-            nodeInfo.put("name", nodeName);
-            nodeInfo.put("host", nodeHost);
-            nodeInfo.put("port", nodePort);
-            nodeInfo.put("osInfo", System.getProperty("os.name") + " " + System.getProperty("os.version"));
-            nodeInfo.put("cpuInfo", Runtime.getRuntime().availableProcessors() + " cores");
-            nodeInfo.put("memoryInfo", (Runtime.getRuntime().maxMemory() / 1024 / 1024) + " MB");
-            nodeInfo.put("endpointType", nodeConfig.getEndpointType());
-
-            String url = platformServerUrl + "/api/execution-nodes/register";
-            logger.info("Registering to platform at {} with nodeId: {}", url, nodeId);
-            restTemplate.postForEntity(url, nodeInfo, Void.class);
-
-            logger.info("Successfully registered to platform");
-        } catch (Exception e) {
-            logger.error("Failed to register to platform: " + e.getMessage());
+    @PreDestroy
+    public void shutdown() {
+        retryExecutor.shutdownNow();
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    /**
+     * 异步注册到平台，不阻塞调用线程；失败时按退避时间自动重试
+     */
+    public CompletableFuture<Void> registerToPlatform() {
+        NodeRegistrationDto registration = NodeRegistrationDto.fromConfig(nodeConfig);
+        registration.setInFlight(nodeLoadMonitor.inFlightReport());
+
+        logger.info("Registering to platform with nodeId: {}", nodeId);
+        return platformClient.registerAsync(registration).whenComplete((ignored, e) -> {
+            if (e == null) {
+                registered = true;
+                backoff.reset();
+                logger.info("Successfully registered to platform");
+            } else {
+                logger.error("Failed to register to platform: " + rootMessage(e));
+                scheduleRegistration();
+            }
+        });
+    }
+
+    private void scheduleRegistration() {
+        registered = false;
+        if (!retryScheduled.compareAndSet(false, true)) {
+            return;
         }
+        long delay = backoff.nextDelayMillis();
+        logger.info("Re-registering to platform in {} ms (attempt {})", delay, backoff.getAttempts());
+        retryExecutor.schedule(() -> {
+            retryScheduled.set(false);
+            registerToPlatform();
+        }, delay, TimeUnit.MILLISECONDS);
     }
 
     public void sendHeartbeat() {
-        try {
-            String url = platformServerUrl + "/api/execution-nodes/" + nodeId + "/heartbeat";
-            logger.info("Sending heartbeat to {} with nodeId: {}", url, nodeId);
-            restTemplate.postForEntity(url, null, Void.class);
-            logger.info("Heartbeat sent successfully");
-        } catch (Exception e) {
-            logger.error("Failed to send heartbeat: " + e.getMessage());
-            // 如果心跳失败，可能是节点已从平台中移除，尝试重新注册
-            registerToPlatform();
+        if (!registered) {
+            // 等待重新注册成功后再恢复心跳
+            logger.debug("Skipping heartbeat until the node is registered");
+            return;
         }
+        logger.info("Sending heartbeat with nodeId: {}", nodeId);
+        NodeLoadDto load = nodeLoadMonitor.snapshot();
+        // 长连接可用时通过长连接发送，失败时改用HTTP
+        overChannel("HEARTBEAT", load)
+                .exceptionally(e -> false)
+                .thenCompose(sent -> sent ? CompletableFuture.<Void>completedFuture(null) : platformClient.heartbeatAsync(nodeId, load))
+                .whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        logger.info("Heartbeat sent successfully");
+                        return;
+                    }
+                    logger.error("Failed to send heartbeat: " + rootMessage(e));
+                    // 如果心跳失败，可能是节点已从平台中移除或平台已重启，退避后重新注册
+                    scheduleRegistration();
+                });
     }
 
     public void updateStatus(String status) {
-        try {
-            String url = platformServerUrl + "/api/execution-nodes/" + nodeId + "/status";
-            Map<String, String> statusMap = new HashMap<>();
-            statusMap.put("status", status);
-            restTemplate.put(url, statusMap);
-            logger.info("Status updated to {}", status);
-        } catch (Exception e) {
-            logger.error("Failed to update status: " + e.getMessage());
+        Map<String, String> statusPayload = new HashMap<>();
+        statusPayload.put("status", status);
+        overChannel("STATUS", statusPayload)
+                .exceptionally(e -> false)
+                .thenCompose(sent -> sent ? CompletableFuture.<Void>completedFuture(null) : platformClient.updateStatusAsync(nodeId, status))
+                .whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        logger.info("Status updated to {}", status);
+                    } else {
+                        logger.error("Failed to update status: " + rootMessage(e));
+                    }
+                });
+    }
+
+    // 通过长连接发送，结果为false时表示需要改用HTTP
+    private CompletableFuture<Boolean> overChannel(String type, Object payload) {
+        if (!platformChannel.isConnected()) {
+            return CompletableFuture.completedFuture(false);
         }
+        return platformChannel.request(type, payload, null).thenApply(ChannelResponse::isSuccess);
+    }
+
+    // CompletableFuture将异常包装为CompletionException
+    private String rootMessage(Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,53 @@
 package com.testexecutionnode.service;
 
+import com.testexecutionnode.cache.ScriptCacheService;
+import com.testexecutionnode.client.ContentEncoding;
+import com.testexecutionnode.client.PlatformClient;
+import com.testexecutionnode.client.PlatformEndpoint;
+import com.testexecutionnode.client.dto.ExecutionShardDto;
+import com.testexecutionnode.client.dto.TestPlanDto;
+import com.testexecutionnode.client.dto.TestScriptDto;
+import com.testexecutionnode.client.dto.TestTaskDto;
 import com.testexecutionnode.config.NodeConfig;
+import com.testexecutionnode.outbox.ResultOutbox;
+import com.testexecutionnode.process.JunitReport;
+import com.testexecutionnode.process.OutputCaptureService;
+import com.testexecutionnode.process.ProcessOutputCapture;
+import com.testexecutionnode.process.ProcessTreeKiller;
+import com.testexecutionnode.process.StreamCapture;
+import com.testexecutionnode.runner.InterpreterResolver;
+import com.testexecutionnode.runner.ScriptLaunchException;
+import com.testexecutionnode.runner.ScriptRunnerRegistry;
 import com.testexecutionnode.scheduler.TempFileCleanupScheduler;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -37,71 +55,114 @@ public class TestExecutionService {
     private static final Logger logger = LoggerFactory.getLogger(TestExecutionService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long PROCESS_KILL_WAIT_SECONDS = 5;
 
     @Autowired
     private NodeConfig nodeConfig;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private PlatformClient platformClient;
 
     @Autowired
     private TempFileCleanupScheduler tempFileCleanupScheduler;
 
+    @Autowired
+    private OutputCaptureService outputCaptureService;
+
+    @Autowired
+    private LiveLogStreamService liveLogStreamService;
+
+    @Autowired
+    private ExecutionEventReporter executionEventReporter;
+
+    @Autowired
+    private ResultOutbox resultOutbox;
+
+    @Autowired
+    private ScriptCacheService scriptCacheService;
+
+    @Autowired
+    private ScriptRunnerRegistry scriptRunnerRegistry;
+
+    @Autowired
+    private InterpreterResolver interpreterResolver;
+
+    @Autowired
+    private NodeLoadMonitor nodeLoadMonitor;
+
+    @Autowired
+    private ExecutionCancellationService executionCancellationService;
+
     @Value("${project.root.dir}")
     private String projectRootDir;
 
-    // 根据操作系统类型获取命令行解释器和参数
-    private List<String> getCommandInterpreter() {
-        String osName = System.getProperty("os.name").toLowerCase();
-        List<String> interpreter = new ArrayList<>();
-        
-        if (osName.contains("win")) {
-            // Windows系统使用cmd.exe
-            interpreter.add("cmd.exe");
-            interpreter.add("/c");
-        } else {
-            // Linux/Mac系统使用bash
-            interpreter.add("bash");
-            interpreter.add("-c");
-        }
-        
-        logger.info("Using command interpreter for OS {}: {}", osName, interpreter);
-        return interpreter;
+    // 脚本未配置超时时间时使用的默认超时时间（秒）
+    @Value("${script.default-timeout-seconds:3600}")
+    private long defaultTimeoutSeconds;
+
+    // 重试退避的初始等待时间，每次重试翻倍
+    @Value("${script.retry.backoff-ms:2000}")
+    private long retryBackoffMillis;
+
+    @Value("${script.retry.max-backoff-ms:60000}")
+    private long retryMaxBackoffMillis;
+
+    // MiniApp计划的Python脚本是否按批在同一个pytest会话中执行
+    @Value("${pytest.batch.enabled:false}")
+    private boolean pytestBatchEnabled;
+
+    // 每个pytest会话包含的脚本数量
+    @Value("${pytest.batch.size:50}")
+    private int pytestBatchSize;
+
+    // 执行计划前是否通过计划脚本包一次下载全部脚本（需启用脚本缓存）
+    @Value("${script.bundle.enabled:true}")
+    private boolean scriptBundleEnabled;
+
+    // 上传完整日志时的压缩方式：gzip或none
+    @Value("${log.upload.compression:gzip}")
+    private String logUploadCompression;
+
+    // gzip压缩级别，1压缩最快，日志文本在该级别下已有较高压缩率
+    @Value("${log.upload.compression-level:1}")
+    private int logUploadCompressionLevel;
+
+    // 平台不支持压缩上传（返回415）后改为不压缩上传
+    private volatile boolean logUploadCompressionRejected;
+
+    // 执行测试计划脚本的工作线程池，大小由node.max-concurrency决定
+    private ExecutorService scriptExecutor;
+
+    @PostConstruct
+    public void initScriptExecutor() {
+        int maxConcurrency = nodeConfig.getMaxConcurrency();
+        scriptExecutor = Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory("script-worker-"));
+        nodeLoadMonitor.watchScriptPool((ThreadPoolExecutor) scriptExecutor);
+        logger.info("Initialized script worker pool with {} threads", maxConcurrency);
     }
-    
-    // 构建执行命令
-    private String buildCommand(String scriptType, String filePath, String executionEndpointType) {
-        String command = "";
-        switch (scriptType.toLowerCase()) {
-            case "py":
-            case "python":
-                // 根据操作系统类型选择Python命令
-                String pythonCmd = System.getProperty("os.name").toLowerCase().contains("win") ? "python" : "python3";
-                if ("MiniApp".equals(executionEndpointType)) {
-                    // 对于MiniApp类型，使用pytest命令格式
-                    command = pythonCmd + " -m pytest " + filePath + " -vs";
-                } else {
-                    // 其他类型使用普通python命令
-                    command = pythonCmd + " " + filePath;
-                }
-                break;
-            case "sh":
-                command = "bash " + filePath;
-                break;
-            case "js":
-                command = "node " + filePath;
-                break;
-            case "java":
-                // 编译并运行Java文件
-                String className = filePath.substring(filePath.lastIndexOf('/') + 1, filePath.lastIndexOf('.'));
-                String classPath = filePath.substring(0, filePath.lastIndexOf('/'));
-                command = "javac -cp " + classPath + " " + filePath + " && java -cp " + classPath + " " + className;
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported script type: " + scriptType);
+
+    @PreDestroy
+    public void shutdownScriptExecutor() {
+        scriptExecutor.shutdownNow();
+    }
+
+    // 将预先获取的缓存脚本复制到临时目录，缓存文件已被淘汰时返回null
+    private Path copyPrefetchedScript(Long planId, Long scriptId, Path cachedScript) throws IOException {
+        if (cachedScript == null || !Files.exists(cachedScript)) {
+            return null;
+        }
+        Path tempDir = Paths.get(projectRootDir).resolve(nodeConfig.getTempScriptDirectory()).resolve(LocalDate.now().format(DATE_FORMATTER));
+        if (planId != null) {
+            tempDir = tempDir.resolve(String.valueOf(planId));
+        }
+        Files.createDirectories(tempDir);
+        Path tempFilePath = tempDir.resolve("test_" + scriptId + ".py");
+        try {
+            Files.copy(cachedScript, tempFilePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            return null;
         }
-        logger.info("Built command for {} type with endpoint {}: {}", scriptType, executionEndpointType, command);
-        return command;
+        return tempFilePath;
     }
 
     // 下载文件并保存到临时目录
@@ -119,14 +180,24 @@ public class TestExecutionService {
         String fileName = "test_" + scriptId + ".py";
         Path tempFilePath = tempDir.resolve(fileName);        
         
-        String platformUrl = nodeConfig.getPlatformServerUrl();
-        String downloadUrl = platformUrl + (platformUrl.endsWith("/") ? "" : "/") + "api/scripts/download?filePath=" + fileUrl;
-        
-        URL url = new URL(downloadUrl);
-        try (InputStream in = url.openStream()) {
-            Files.copy(in, tempFilePath, StandardCopyOption.REPLACE_EXISTING);        
+        if (scriptCacheService.isEnabled()) {
+            // 内容未变化时平台返回304，只做本地复制
+            Path cachedScript = scriptCacheService.getScript(fileUrl);
+            try {
+                Files.copy(cachedScript, tempFilePath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException e) {
+                // 获取后复制前缓存文件被淘汰，重新获取一次
+                logger.debug("Cached script {} was evicted before copying, fetching again", fileUrl);
+                Files.copy(scriptCacheService.getScript(fileUrl), tempFilePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Copied cached script to: {}", tempFilePath.toAbsolutePath().toString());
+            return tempFilePath;
         }
         
+        platformClient.execute(PlatformEndpoint.SCRIPT_DOWNLOAD, "/api/scripts/download?filePath=" + fileUrl, HttpMethod.GET,
+                ContentEncoding::acceptGzip,
+                response -> Files.copy(ContentEncoding.decodedBody(response), tempFilePath, StandardCopyOption.REPLACE_EXISTING));
+        
         logger.info("Downloaded script to: {}", tempFilePath.toAbsolutePath().toString());        
         return tempFilePath;
     }
@@ -147,215 +218,152 @@ public class TestExecutionService {
         }
     }
 
-    // 推送测试结果到平台
+    // 推送测试结果到平台：先写入结果发件箱，由后台发送并在失败时重试
     private void pushTestResult(Long taskId, Long scriptId, Map<String, Object> result) {
-        try {
-            String url;
-            if (taskId != null) {
-                // 单个测试任务
-                url = nodeConfig.getPlatformServerUrl() + "/api/test-tasks/" + taskId + "/result";
-            } else if (scriptId != null) {
-                // 测试计划中的脚本
-                url = nodeConfig.getPlatformServerUrl() + "/api/test-tasks/" + scriptId + "/plan-result";
-            } else {
-                logger.error("Both taskId and scriptId are null, cannot push test result");
-                return;
-            }
-
-            logger.info("Pushing test result to: {}", url);
-
-            // 构建请求体
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonBody = mapper.writeValueAsString(result);
-            logger.debug("Result JSON: {}", jsonBody);
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> requestEntity = new HttpEntity<>(jsonBody, headers);
-
-            // 发送请求
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class
-            );
+        String path;
+        if (taskId != null) {
+            // 单个测试任务
+            path = "/api/test-tasks/" + taskId + "/result";
+        } else if (scriptId != null) {
+            // 测试计划中的脚本
+            path = "/api/test-tasks/" + scriptId + "/plan-result";
+        } else {
+            logger.error("Both taskId and scriptId are null, cannot push test result");
+            return;
+        }
 
-            if (response.getStatusCode() == HttpStatus.OK) {
-                logger.info("Successfully pushed test result");
-            } else {
-                logger.error("Failed to push test result: {}", response.getStatusCode());
-            }
-        } catch (Exception e) {
-            logger.error("Error pushing test result: {}", e.getMessage());
-            e.printStackTrace();
+        logger.info("Pushing test result to: {}", path);
+        if (!resultOutbox.submit(HttpMethod.POST, path, result)) {
+            logger.error("Failed to push test result to {}", path);
         }
     }
 
     // 更新测试计划状态
-    private void updateExecutionPlanStatus(Long executionId, String status, int totalScripts, int successCount, int failedCount) {
-        try {
-            String url = nodeConfig.getPlatformServerUrl() + "/api/plan-executions/" + executionId;
-            logger.info("Updating test plan execution status: {} (Execution ID: {})\n", status, executionId);
-            
-            // 构建请求体
-            Map<String, Object> statusData = new HashMap<>();
-            statusData.put("status", status);
-            statusData.put("totalScripts", totalScripts);
-            statusData.put("successScripts", successCount);
-            statusData.put("failedScripts", failedCount);
-            
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonBody = mapper.writeValueAsString(statusData);
-            logger.debug("Status update JSON: {}", jsonBody);
-            
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> requestEntity = new HttpEntity<>(jsonBody, headers);
-            
-            // 发送请求
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.PUT,
-                    requestEntity,
-                    String.class
-            );
-            
-            if (response.getStatusCode() == HttpStatus.OK) {
-                logger.info("Successfully updated test plan execution status");
-            } else {
-                logger.error("Failed to update test plan execution status: {}", response.getStatusCode());
-            }
-        } catch (Exception e) {
-            logger.error("Error updating test plan execution status: {}", e.getMessage());
-            e.printStackTrace();
+    private void updateExecutionPlanStatus(Long executionId, Long shardId, String status, int totalScripts, int successCount, int failedCount) {
+        logger.info("Updating test plan execution status: {} (Execution ID: {})", status, executionId);
+
+        // 构建请求体
+        Map<String, Object> statusData = new HashMap<>();
+        statusData.put("status", status);
+        statusData.put("totalScripts", totalScripts);
+        statusData.put("successScripts", successCount);
+        statusData.put("failedScripts", failedCount);
+        if (shardId != null) {
+            statusData.put("shardId", shardId);
+        }
+
+        if (!resultOutbox.submit(HttpMethod.PUT, "/api/plan-executions/" + executionId, statusData)) {
+            logger.error("Failed to update test plan execution status of execution {}", executionId);
         }
     }
 
     // 创建执行日志
-    private Long createExecutionLog(Long scriptId, Long executionId) {        
+    private Long createExecutionLog(Long scriptId, Long executionId) {
         try {
-            String url = nodeConfig.getPlatformServerUrl() + "/api/plan-executions/logs";
             logger.info("Creating execution log for scriptId: {}, executionId: {}", scriptId, executionId);
-
-            // 构建执行日志对象
-            Map<String, Object> logData = new HashMap<>();
-            
-            // 构建execution对象（只需要id字段）
-            Map<String, Object> execution = new HashMap<>();
-            execution.put("id", executionId);
-            logData.put("execution", execution);
-            
-            // 构建testScript对象（只需要id字段）
-            Map<String, Object> testScript = new HashMap<>();
-            testScript.put("id", scriptId);
-            logData.put("testScript", testScript);
-            
-            // 设置初始状态
-            logData.put("status", "EXECUTING");
-
-            // 构建请求
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonBody = mapper.writeValueAsString(logData);
-            logger.debug("Create log JSON: {}", jsonBody);
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> requestEntity = new HttpEntity<>(jsonBody, headers);
-
-            // 发送请求
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    requestEntity,
-                    Map.class
-            );
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Long logId = Long.parseLong(response.getBody().get("id").toString());
+            Long logId = platformClient.createExecutionLog(executionId, scriptId);
+            if (logId != null) {
                 logger.info("Successfully created execution log with ID: {}", logId);
-                return logId;
             } else {
-                logger.error("Failed to create execution log: {}", response.getStatusCode());
-                return null;
+                logger.error("Failed to create execution log: empty response");
             }
+            return logId;
         } catch (Exception e) {
             logger.error("Error creating execution log: {}", e.getMessage());
-            e.printStackTrace();
             return null;
         }
     }
 
     // 更新执行日志
     private void updateExecutionLog(Long logId, Map<String, Object> result) {
-        try {
-            String url = nodeConfig.getPlatformServerUrl() + "/api/plan-executions/logs/" + logId + "/status";
-            logger.info("Updating execution log with ID: {}", logId);
-
-            // 构建请求体
-            Map<String, Object> logData = new HashMap<>();
-            logData.put("status", result.get("status"));
-            logData.put("result", result.get("output"));
-            logData.put("errorMessage", result.get("error"));
-            logData.put("executionTime", result.get("duration"));
-
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonBody = mapper.writeValueAsString(logData);
-            logger.debug("Log update JSON: {}", jsonBody);
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> requestEntity = new HttpEntity<>(jsonBody, headers);
-
-            // 发送请求
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.PUT,
-                    requestEntity,
-                    String.class
-            );
-
-            if (response.getStatusCode() == HttpStatus.OK) {
-                logger.info("Successfully updated execution log");
-            } else {
-                logger.error("Failed to update execution log: {}", response.getStatusCode());
-            }
-        } catch (Exception e) {
-            logger.error("Error updating execution log: {}", e.getMessage());
-            e.printStackTrace();
+        logger.info("Updating execution log with ID: {}", logId);
+
+        // 构建请求体
+        Map<String, Object> logData = new HashMap<>();
+        logData.put("status", result.get("status"));
+        logData.put("result", result.get("output"));
+        logData.put("errorMessage", result.get("error"));
+        logData.put("executionTime", result.get("duration"));
+        logData.put("attempts", result.get("attempts"));
+
+        if (!resultOutbox.submit(HttpMethod.PUT, "/api/plan-executions/logs/" + logId + "/status", logData)) {
+            logger.error("Failed to update execution log {}", logId);
+        }
+    }
+
+    // 开始脚本执行日志：启用批量事件上报时返回节点生成的日志标识，否则立即创建并返回日志ID
+    private String openExecutionLog(Long scriptId, Long executionId) {
+        if (executionEventReporter.isEnabled()) {
+            return executionEventReporter.logCreated(executionId, scriptId);
+        }
+        Long logId = createExecutionLog(scriptId, executionId);
+        return logId != null ? String.valueOf(logId) : null;
+    }
+
+    // 结束脚本执行日志
+    private void finishExecutionLog(Long executionId, String logId, Map<String, Object> result) {
+        if (executionEventReporter.isEnabled()) {
+            executionEventReporter.logFinished(executionId, logId, result);
+        } else {
+            updateExecutionLog(Long.valueOf(logId), result);
+        }
+    }
+
+    // 上报计划执行状态：启用批量事件上报时合并到下一批，只发送最新的一次；分片执行时只是该分片的状态
+    private void reportPlanStatus(Long executionId, Long shardId, String status, int totalScripts, int successCount, int failedCount) {
+        if (executionEventReporter.isEnabled()) {
+            executionEventReporter.progress(executionId, shardId, status, totalScripts, successCount, failedCount);
+        } else {
+            updateExecutionPlanStatus(executionId, shardId, status, totalScripts, successCount, failedCount);
+        }
+    }
+
+    // 计划执行结束时立即发送剩余事件，未送达的由后台继续重试
+    private void flushPlanEvents(Long executionId) {
+        if (executionEventReporter.isEnabled() && !executionEventReporter.flush(executionId)) {
+            logger.warn("Some events of execution {} are not delivered yet, retrying in background", executionId);
         }
     }
 
     public void executeTestTask(Long taskId) {
+        CancellationToken cancellation = executionCancellationService.registerTask(taskId);
+        if (cancellation.isCancelled()) {
+            // 在准入队列中等待时已被取消
+            executionCancellationService.unregisterTask(taskId);
+            logger.info("Skipping test task {}, cancelled before it started", taskId);
+            return;
+        }
+        nodeLoadMonitor.taskStarted(taskId);
+        executionCancellationService.bind(cancellation);
+        try {
+            runTestTask(taskId);
+        } finally {
+            executionCancellationService.unbind();
+            executionCancellationService.unregisterTask(taskId);
+            nodeLoadMonitor.taskFinished(taskId);
+        }
+    }
+
+    private void runTestTask(Long taskId) {
         logger.info("Starting test task execution: {}", taskId);
         Path tempFilePath = null;
 
         try {
             // 从平台获取测试任务详情
-            String taskUrl = nodeConfig.getPlatformServerUrl() + "/api/test-tasks/" + taskId;
-            ResponseEntity<String> taskResponse = restTemplate.getForEntity(taskUrl, String.class);
-            if (taskResponse.getStatusCode() != HttpStatus.OK) {
-                logger.error("Failed to get test task: {}", taskResponse.getStatusCode());
+            TestTaskDto testTask = platformClient.getTask(taskId);
+            if (testTask == null || testTask.getScript() == null) {
+                logger.error("Failed to get test task: {}", taskId);
                 return;
             }
-
-            // 解析测试任务详情
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> testTask = mapper.readValue(taskResponse.getBody(), new TypeReference<Map<String, Object>>() {});
-            Map<String, Object> script = (Map<String, Object>) testTask.get("script");
+            TestScriptDto script = testTask.getScript();
 
             // 获取脚本信息
-            String scriptName = (String) script.get("name");
-            String scriptType = (String) script.get("type");
-            String scriptContent = (String) script.get("content");
-            Long scriptId = ((Number) script.get("id")).longValue();
+            String scriptName = script.getName();
+            String scriptType = script.getScriptType();
+            String scriptContent = script.getScriptContent();
+            Long scriptId = script.getId();
             // 获取计划ID（如果有）
-            Map<String, Object> testPlan = (Map<String, Object>) testTask.get("testPlan");
-            Long planId = testPlan != null ? ((Number) testPlan.get("id")).longValue() : null;
+            Long planId = testTask.getTestPlan() != null ? testTask.getTestPlan().getId() : null;
 
             logger.info("Executing script: {} (ID: {}, Type: {}, {})", scriptName, scriptId, scriptType, planId);
 
@@ -363,53 +371,14 @@ public class TestExecutionService {
             tempFilePath = saveScriptToTempFile(scriptContent, scriptType, scriptId, planId);
 
             // 执行脚本 - 任务执行暂时不支持MiniApp类型的特殊命令，使用默认命令
-            String command = buildCommand(scriptType, tempFilePath.toAbsolutePath().toString(), null);
-            logger.info("Executing command: {}", command);
-
-            ProcessBuilder processBuilder = new ProcessBuilder();
-            List<String> interpreter = getCommandInterpreter();
-            List<String> fullCommand = new ArrayList<>(interpreter);
-            fullCommand.add(command);
-            processBuilder.command(fullCommand);
-            logger.info("ProcessBuilder command: {}", processBuilder.command());
-            Process process = processBuilder.start();
-
-            // 读取输出
-            StringBuilder output = new StringBuilder();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-
-            // 读取错误
-            StringBuilder error = new StringBuilder();
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            while ((line = errorReader.readLine()) != null) {
-                error.append(line).append("\n");
-            }
-
-            // 记录执行开始时间
-            long startTime = System.currentTimeMillis();
-            
-            // 等待进程完成
-            int exitCode = process.waitFor();
-            
-            // 计算执行时间
-            long duration = System.currentTimeMillis() - startTime;
-
-            // 构建执行结果
-            Map<String, Object> executionResult = new HashMap<>();
-            executionResult.put("status", exitCode == 0 ? "SUCCESS" : "FAILURE");
-            executionResult.put("output", output.toString());
-            executionResult.put("error", error.toString());
-            executionResult.put("duration", duration);
+            Path taskScriptPath = tempFilePath;
+            ProcessStarter processStarter = () -> scriptRunnerRegistry.launch(scriptType, taskScriptPath, null, null);
 
-            logger.info("Script execution completed with exit code: {}", exitCode);
-            logger.info("Execution output: {}", output.toString());
-            if (exitCode != 0) {
-                logger.error("Execution error: {}", error.toString());
-            }
+            // 按脚本配置的超时时间和重试次数执行
+            long timeoutSeconds = resolveTimeoutSeconds(script.getTimeout());
+            int retryCount = resolveRetryCount(script.getRetryCount());
+            Map<String, Object> executionResult = executeWithRetry("task " + taskId, retryCount,
+                    attempt -> runTaskAttempt(processStarter, planId, spillBaseName("task_" + taskId, attempt), timeoutSeconds));
 
             // 推送测试结果到平台
             pushTestResult(taskId, scriptId, executionResult);
@@ -435,119 +404,469 @@ public class TestExecutionService {
         }
     }
 
-    public void executeTestPlan(Long planId, Long executionId) {
-        logger.info("Starting test plan execution: {}, execution ID: {}", planId, executionId);
+    // 执行一次测试任务，启动失败同样视为一次失败的尝试
+    private Map<String, Object> runTaskAttempt(ProcessStarter processStarter, Long planId, String spillBaseName, long timeoutSeconds) throws InterruptedException {
+        try {
+            return runProcess(processStarter, planId, spillBaseName, timeoutSeconds, "FAILURE", null);
+        } catch (IOException e) {
+            logger.error("Failed to start test task process: {}", e.getMessage());
+            Map<String, Object> executionResult = new HashMap<>();
+            executionResult.put("status", "FAILURE");
+            executionResult.put("output", "");
+            executionResult.put("error", e.getMessage());
+            executionResult.put("duration", 0);
+            return executionResult;
+        }
+    }
+
+    /**
+     * 执行测试计划
+     * @param shardId 计划执行分片ID，不为空时只执行分配到该分片的脚本
+     */
+    public void executeTestPlan(Long planId, Long executionId, Long shardId) {
+        CancellationToken cancellation = executionCancellationService.registerPlan(executionId);
+        if (cancellation.isCancelled()) {
+            // 在准入队列中等待时已被取消，平台取消时已更新执行状态
+            executionCancellationService.unregisterPlan(executionId);
+            logger.info("Skipping execution {} of test plan {}, cancelled before it started", executionId, planId);
+            return;
+        }
+        nodeLoadMonitor.planStarted(executionId);
+        try {
+            runTestPlan(planId, executionId, shardId, cancellation);
+        } finally {
+            executionCancellationService.unregisterPlan(executionId);
+            nodeLoadMonitor.planFinished(executionId);
+        }
+    }
+
+    private void runTestPlan(Long planId, Long executionId, Long shardId, CancellationToken cancellation) {
+        logger.info("Starting test plan execution: {}, execution ID: {}, shard ID: {}", planId, executionId, shardId);
         try {
             // 从平台获取测试计划详情（包含脚本列表）
-            String planUrl = nodeConfig.getPlatformServerUrl() + "/api/plans/" + planId;
-            ResponseEntity<String> planResponse = restTemplate.getForEntity(planUrl, String.class);
-            if (planResponse.getStatusCode() != HttpStatus.OK) {
-                logger.error("Failed to get test plan: {}", planResponse.getStatusCode());
+            TestPlanDto testPlan = platformClient.getPlan(planId);
+            if (testPlan == null) {
+                logger.error("Failed to get test plan: {}", planId);
                 // 更新状态为失败，但不设置totalScripts为0
-                updateExecutionPlanStatus(executionId, "FAILURE", 0, 0, 0);
+                reportPlanStatus(executionId, shardId, "FAILURE", 0, 0, 0);
+                flushPlanEvents(executionId);
                 return;
             }
 
-            // 解析测试计划和脚本列表
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> testPlan = mapper.readValue(planResponse.getBody(), new TypeReference<Map<String, Object>>() {});
-            List<Map<String, Object>> scripts = (List<Map<String, Object>>) testPlan.get("scripts");
+            List<TestScriptDto> scripts = testPlan.getScripts() != null ? testPlan.getScripts() : Collections.<TestScriptDto>emptyList();
+            // 分片的脚本已由平台排好顺序，其余按平台给出的顺序执行（默认近期耗时长的先执行）
+            scripts = shardId != null ? filterShardScripts(shardId, scripts) : orderPlanScripts(planId, scripts);
             logger.info("Found {} scripts in test plan", scripts.size());
 
+            // 获取执行端点类型
+            String executionEndpointType = testPlan.getExecutionEndpointType();
+            logger.info("Test plan execution endpoint type: {}", executionEndpointType);
+
             int totalScripts = scripts.size();
-            int successCount = 0;
-            int failedCount = 0;
+            PlanProgress progress = new PlanProgress(executionId, shardId, totalScripts);
 
             // 更新测试计划状态为RUNNING
-            updateExecutionPlanStatus(executionId, "EXECUTING", totalScripts, 0, 0);
-
-            // 执行每个测试脚本
-            for (Map<String, Object> script : scripts) {
-                long scriptId = ((Number) script.get("id")).longValue();
-                String scriptName = (String) script.get("name");
-                String scriptType = (String) script.get("scriptType");
-                String scriptContent = (String) script.get("content");
-                String filePath = (String) script.get("filePath");
-                Path tempFilePath = null;
-                Map<String, Object> executionResult = new HashMap<>();
-                Long logId = null;
-
-                try {
-                    // 创建执行日志
-                    logId = createExecutionLog(scriptId, executionId);
-                    logger.info("Created execution log with ID: {}", logId);
-
-                    // 检查是否有filePath
-                    if (filePath != null && !filePath.isEmpty()) {
-                        logger.info("Found file path for script {}: {}", scriptId, filePath);
-                        // 使用filePath下载脚本
-                        tempFilePath = downloadScriptFile(planId, scriptId, scriptName, scriptType, filePath);
-                        logger.info("Downloaded script to: {}", tempFilePath.toAbsolutePath());
+            reportPlanStatus(executionId, shardId, "EXECUTING", totalScripts, 0, 0);
+
+            // 执行前一次性获取全部脚本文件
+            Map<String, Path> prefetchedScripts = prefetchPlanScripts(planId, scripts);
+
+            // 将每个测试脚本提交到脚本工作线程池并发执行
+            List<Future<?>> futures = new ArrayList<>();
+            List<TestScriptDto> individualScripts = scripts;
+            if (pytestBatchEnabled && "MiniApp".equals(executionEndpointType)) {
+                // MiniApp计划的Python脚本按批在同一个pytest会话中执行，其余脚本单独执行
+                individualScripts = new ArrayList<>();
+                List<TestScriptDto> batchScripts = new ArrayList<>();
+                for (TestScriptDto script : scripts) {
+                    if (isPythonScript(script.getScriptType())) {
+                        batchScripts.add(script);
                     } else {
-                        logger.info("No file path found for script {}, using script content", scriptId);
-                        // 保存脚本到临时文件
-                        tempFilePath = saveScriptToTempFile(scriptContent, scriptType, scriptId, planId);
-                        logger.info("Saved script to temporary file: {}", tempFilePath.toAbsolutePath());
-                    }
-
-                    // 获取执行端点类型
-            String executionEndpointType = (String) testPlan.get("executionEndpointType");
-            logger.info("Test plan execution endpoint type: {}", executionEndpointType);
-            
-            // 执行脚本
-            executionResult = executeScript(tempFilePath, scriptType, scriptId, executionId, executionEndpointType);
-                    
-                    // 更新执行日志
-                    if (logId != null) {
-                        updateExecutionLog(logId, executionResult);
-                        // 将日志内容推送到平台
-                        pushLogContentToPlatform(String.valueOf(planId), String.valueOf(executionId), String.valueOf(logId), String.valueOf(scriptId), executionResult);
+                        individualScripts.add(script);
                     }
-
-                    // 更新测试计划状态
-                    if ("SUCCESS".equals(executionResult.get("status"))) {
-                        successCount++;
-                    } else {
-                        failedCount++;
-                    }
-                    updateExecutionPlanStatus(executionId, "EXECUTING", totalScripts, successCount, failedCount);
-                } catch (Exception e) {
-                    logger.error("Error executing script {}: {}", scriptId, e.getMessage());
-                    e.printStackTrace();
-                    failedCount++;
-                    updateExecutionPlanStatus(executionId, "EXECUTING", totalScripts, successCount, failedCount);
-                    
-                    // 构建错误结果
-                    executionResult.put("status", "FAILURE");
-                    executionResult.put("output", "");
-                    executionResult.put("error", e.getMessage());
-                    executionResult.put("duration", 0);
-                    
-                    // 更新执行日志
-                    if (logId != null) {
-                        updateExecutionLog(logId, executionResult);
-                        // 将日志内容推送到平台
-                        pushLogContentToPlatform(String.valueOf(planId), String.valueOf(executionId), String.valueOf(logId), String.valueOf(scriptId), executionResult);
-                    }
-                } finally {
-                    // 不再直接删除临时脚本，而是保留以便后续查看和调试
-                    // 临时文件将由TempFileCleanupScheduler定时清理
-                    if (tempFilePath != null) {
-                        logger.info("Temporary script file preserved: {}", tempFilePath.toAbsolutePath().toString());
+                }
+                int batchSize = Math.max(pytestBatchSize, 1);
+                for (int i = 0; i < batchScripts.size(); i += batchSize) {
+                    List<TestScriptDto> batch = batchScripts.subList(i, Math.min(i + batchSize, batchScripts.size()));
+                    futures.add(scriptExecutor.submit(executionCancellationService.wrap(cancellation,
+                            () -> executePytestBatch(planId, executionId, executionEndpointType, batch, progress, prefetchedScripts))));
+                }
+            }
+            for (TestScriptDto script : individualScripts) {
+                futures.add(scriptExecutor.submit(executionCancellationService.wrap(cancellation,
+                        () -> executePlanScript(planId, executionId, executionEndpointType, script, progress, prefetchedScripts))));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        logger.error("Unexpected error in script worker: {}", e.getCause().getMessage());
                     }
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+                throw e;
             }
 
             // 所有脚本执行完成后，更新测试计划状态
-            String finalStatus = failedCount == 0 ? "SUCCESS" : "FAILURE";
-            updateExecutionPlanStatus(executionId, finalStatus, totalScripts, successCount, failedCount);
-
-            logger.info("Test plan execution completed. Total: {}, Success: {}, Failed: {}", totalScripts, successCount, failedCount);
+            int successCount = progress.getSuccessCount();
+            int failedCount = progress.getFailedCount();
+            String finalStatus = cancellation.isCancelled() ? "CANCELLED" : failedCount == 0 ? "SUCCESS" : "FAILURE";
+            reportPlanStatus(executionId, shardId, finalStatus, totalScripts, successCount, failedCount);
+            flushPlanEvents(executionId);
+
+            logger.info("Test plan execution {}. Total: {}, Success: {}, Failed: {}", cancellation.isCancelled() ? "cancelled" : "completed",
+                    totalScripts, successCount, failedCount);
         } catch (Exception e) {
             logger.error("Error executing test plan: {}", e.getMessage());
             e.printStackTrace();
             // 更新测试计划状态为失败
-            updateExecutionPlanStatus(executionId, "FAILURE", 0, 0, 0);
+            reportPlanStatus(executionId, shardId, "FAILURE", 0, 0, 0);
+            flushPlanEvents(executionId);
+        }
+    }
+
+    // 只保留分配到分片的脚本，按分片中的顺序排列
+    private List<TestScriptDto> filterShardScripts(Long shardId, List<TestScriptDto> scripts) {
+        ExecutionShardDto shard = platformClient.getShard(shardId);
+        if (shard == null || shard.getScriptIdList() == null) {
+            throw new IllegalStateException("Failed to get shard " + shardId);
+        }
+        List<TestScriptDto> shardScripts = sortScripts(scripts, shard.getScriptIdList());
+        Set<Long> scriptIds = new HashSet<>(shard.getScriptIdList());
+        shardScripts.removeIf(script -> !scriptIds.contains(script.getId()));
+        logger.info("Shard {} runs {} of {} scripts in test plan", shard.getShardIndex(), shardScripts.size(), scripts.size());
+        return shardScripts;
+    }
+
+    // 按平台给出的顺序排列计划中的脚本，获取失败时保持计划中的顺序
+    private List<TestScriptDto> orderPlanScripts(Long planId, List<TestScriptDto> scripts) {
+        if (scripts.size() < 2) {
+            return scripts;
+        }
+        try {
+            List<Long> scriptOrder = platformClient.getScriptOrder(planId);
+            if (scriptOrder != null) {
+                return sortScripts(scripts, scriptOrder);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to get script order for plan {}, running scripts in plan order: {}", planId, e.getMessage());
+        }
+        return scripts;
+    }
+
+    // 按给定的脚本ID顺序排列，不在其中的脚本保持原顺序排在最后
+    private List<TestScriptDto> sortScripts(List<TestScriptDto> scripts, List<Long> scriptOrder) {
+        Map<Long, Integer> positions = new HashMap<>();
+        for (Long scriptId : scriptOrder) {
+            positions.putIfAbsent(scriptId, positions.size());
+        }
+        List<TestScriptDto> sorted = new ArrayList<>(scripts);
+        sorted.sort(Comparator.comparingInt(script -> positions.getOrDefault(script.getId(), Integer.MAX_VALUE)));
+        return sorted;
+    }
+
+    // 通过计划脚本包一次下载计划中的全部脚本文件，失败时返回空映射，由各脚本单独下载
+    private Map<String, Path> prefetchPlanScripts(Long planId, List<TestScriptDto> scripts) {
+        if (!scriptCacheService.isEnabled() || !scriptBundleEnabled) {
+            return Collections.emptyMap();
+        }
+        List<String> filePaths = new ArrayList<>();
+        for (TestScriptDto script : scripts) {
+            String filePath = script.getFilePath();
+            if (filePath != null && !filePath.isEmpty()) {
+                filePaths.add(filePath);
+            }
+        }
+        if (filePaths.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return scriptCacheService.prefetchPlanBundle(planId, filePaths);
+        } catch (Exception e) {
+            logger.warn("Failed to prefetch script bundle for plan {}, falling back to per-script download: {}", planId, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    // 在脚本工作线程中执行测试计划中的单个脚本
+    private void executePlanScript(Long planId, Long executionId, String executionEndpointType, TestScriptDto script, PlanProgress progress,
+                                   Map<String, Path> prefetchedScripts) {
+        long scriptId = script.getId();
+        String scriptType = script.getScriptType();
+        Path tempFilePath = null;
+        Map<String, Object> executionResult = new HashMap<>();
+        String logId = null;
+        LiveLogStreamService.Session liveLog = null;
+
+        if (isCancelled()) {
+            logger.info("Skipping script {} of cancelled execution {}", scriptId, executionId);
+            return;
+        }
+
+        try {
+            // 创建执行日志
+            logId = openExecutionLog(scriptId, executionId);
+            logger.info("Created execution log with ID: {}", logId);
+            if (logId != null) {
+                // 运行期间实时推送日志
+                liveLog = liveLogStreamService.open(planId, executionId, scriptId);
+            }
+
+            // 准备脚本文件
+            tempFilePath = prepareScriptFile(planId, script, prefetchedScripts);
+
+            // 执行脚本
+            executionResult = executeScript(tempFilePath, scriptType, scriptId, executionId, planId, executionEndpointType,
+                    script.getTimeout(), script.getRetryCount(), liveLog);
+
+            // 更新执行日志
+            if (logId != null) {
+                finishExecutionLog(executionId, logId, executionResult);
+                // 将剩余日志内容推送到平台
+                finishLogContent(String.valueOf(planId), String.valueOf(executionId), logId, String.valueOf(scriptId), executionResult, liveLog);
+            }
+
+            // 更新测试计划状态
+            recordScriptResult(progress, "SUCCESS".equals(executionResult.get("status")));
+        } catch (Exception e) {
+            logger.error("Error executing script {}: {}", scriptId, e.getMessage());
+            e.printStackTrace();
+            recordScriptResult(progress, false);
+
+            // 构建错误结果
+            executionResult.put("status", "FAILURE");
+            executionResult.put("output", "");
+            executionResult.put("error", e.getMessage());
+            executionResult.put("duration", 0);
+
+            // 更新执行日志
+            if (logId != null) {
+                finishExecutionLog(executionId, logId, executionResult);
+                try {
+                    // 将日志内容推送到平台
+                    finishLogContent(String.valueOf(planId), String.valueOf(executionId), logId, String.valueOf(scriptId), executionResult, liveLog);
+                } catch (Exception pushException) {
+                    logger.error("Error pushing log content for script {}: {}", scriptId, pushException.getMessage());
+                }
+            }
+        } finally {
+            // 不再直接删除临时脚本，而是保留以便后续查看和调试
+            // 临时文件将由TempFileCleanupScheduler定时清理
+            if (tempFilePath != null) {
+                logger.info("Temporary script file preserved: {}", tempFilePath.toAbsolutePath().toString());
+            }
+        }
+    }
+
+    // 将脚本文件准备到临时目录：优先使用计划脚本包中已获取的文件，其次按filePath下载，没有filePath时使用脚本内容
+    private Path prepareScriptFile(Long planId, TestScriptDto script, Map<String, Path> prefetchedScripts) throws IOException {
+        long scriptId = script.getId();
+        String scriptName = script.getName();
+        String scriptType = script.getScriptType();
+        String scriptContent = script.getScriptContent();
+        String filePath = script.getFilePath();
+        Path tempFilePath;
+        // 检查是否有filePath
+        if (filePath != null && !filePath.isEmpty()) {
+            logger.info("Found file path for script {}: {}", scriptId, filePath);
+            tempFilePath = copyPrefetchedScript(planId, scriptId, prefetchedScripts.get(filePath));
+            if (tempFilePath == null) {
+                tempFilePath = downloadScriptFile(planId, scriptId, scriptName, scriptType, filePath);
+            }
+            logger.info("Downloaded script to: {}", tempFilePath.toAbsolutePath());
+        } else {
+            logger.info("No file path found for script {}, using script content", scriptId);
+            // 保存脚本到临时文件
+            tempFilePath = saveScriptToTempFile(scriptContent, scriptType, scriptId, planId);
+            logger.info("Saved script to temporary file: {}", tempFilePath.toAbsolutePath());
+        }
+        return tempFilePath;
+    }
+
+    /**
+     * 在一个pytest会话中批量执行MiniApp计划的多个Python脚本
+     * 收集、插件加载和会话级fixture只执行一次，结果从junit XML报告按脚本文件拆分到各自的执行日志；
+     * 报告中失败且配置了重试的脚本再单独重试
+     */
+    private void executePytestBatch(Long planId, Long executionId, String executionEndpointType, List<TestScriptDto> batch,
+                                    PlanProgress progress, Map<String, Path> prefetchedScripts) {
+        if (isCancelled()) {
+            logger.info("Skipping pytest batch of {} scripts of cancelled execution {}", batch.size(), executionId);
+            return;
+        }
+        Map<Long, Path> scriptFiles = new LinkedHashMap<>();
+        Map<Long, String> logIds = new HashMap<>();
+        Map<Long, TestScriptDto> scriptsById = new HashMap<>();
+        long timeoutSeconds = 0;
+        for (TestScriptDto script : batch) {
+            long scriptId = script.getId();
+            String logId = null;
+            try {
+                logId = openExecutionLog(scriptId, executionId);
+                scriptFiles.put(scriptId, prepareScriptFile(planId, script, prefetchedScripts));
+                logIds.put(scriptId, logId);
+                scriptsById.put(scriptId, script);
+                timeoutSeconds += resolveTimeoutSeconds(script.getTimeout());
+            } catch (Exception e) {
+                logger.error("Error preparing script {} for pytest batch: {}", scriptId, e.getMessage());
+                Map<String, Object> executionResult = new HashMap<>();
+                executionResult.put("status", "FAILURE");
+                executionResult.put("output", "");
+                executionResult.put("error", e.getMessage());
+                executionResult.put("duration", 0);
+                reportPlanScriptResult(planId, executionId, scriptId, logId, executionResult, progress);
+            }
+        }
+        if (scriptFiles.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Map<String, Object>> results;
+        try {
+            results = runPytestBatch(planId, executionId, scriptFiles, timeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        for (Map.Entry<Long, Path> entry : scriptFiles.entrySet()) {
+            Long scriptId = entry.getKey();
+            TestScriptDto script = scriptsById.get(scriptId);
+            Map<String, Object> executionResult = results.get(scriptId);
+            int retryCount = resolveRetryCount(script.getRetryCount());
+            if (!"SUCCESS".equals(executionResult.get("status")) && retryCount > 0 && !Thread.currentThread().isInterrupted() && !isCancelled()) {
+                // 批量会话中的执行算作第一次尝试，剩余重试单独执行
+                logger.info("Script {} failed in pytest batch, retrying individually", scriptId);
+                Map<String, Object> retryResult = executeScript(entry.getValue(), script.getScriptType(), scriptId, executionId, planId,
+                        executionEndpointType, script.getTimeout(), retryCount - 1, null);
+                Object retryAttempts = retryResult.get("attempts");
+                retryResult.put("attempts", (retryAttempts instanceof Number ? ((Number) retryAttempts).intValue() : 0) + 1);
+                executionResult = retryResult;
+            }
+            reportPlanScriptResult(planId, executionId, scriptId, logIds.get(scriptId), executionResult, progress);
+        }
+    }
+
+    // 执行一次pytest会话并按脚本拆分结果；没有生成报告时所有脚本都记为失败
+    private Map<Long, Map<String, Object>> runPytestBatch(Long planId, Long executionId, Map<Long, Path> scriptFiles, long timeoutSeconds)
+            throws InterruptedException {
+        Long firstScriptId = scriptFiles.keySet().iterator().next();
+        String batchName = "pytest_batch_" + executionId + "_" + firstScriptId;
+        Path scriptsDir = Paths.get(projectRootDir).resolve("scripts");
+        Path reportFile = scriptFiles.get(firstScriptId).resolveSibling("output").resolve(batchName + ".xml");
+
+        // 不使用-s，由pytest按用例捕获输出并写入报告，便于拆分到各脚本的日志
+        List<String> command = new ArrayList<>();
+        command.add(interpreterResolver.getPython());
+        command.add("-m");
+        command.add("pytest");
+        for (Path scriptFile : scriptFiles.values()) {
+            command.add(scriptFile.toAbsolutePath().toString());
+        }
+        command.add("-v");
+        command.add("-p");
+        command.add("no:cacheprovider");
+        command.add("--junitxml=" + reportFile.toAbsolutePath());
+        command.add("-o");
+        command.add("junit_family=xunit1");
+        command.add("-o");
+        command.add("junit_logging=all");
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(scriptsDir.toFile());
+        logger.info("Running {} scripts in one pytest session: {}", scriptFiles.size(), batchName);
+
+        Map<String, Object> batchResult;
+        JunitReport report = null;
+        try {
+            Files.deleteIfExists(reportFile);
+            batchResult = runProcess(processBuilder::start, planId, batchName, timeoutSeconds, "FAILED", null);
+            if (Files.exists(reportFile)) {
+                report = JunitReport.parse(reportFile, scriptFiles.keySet());
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error running pytest batch {}: {}", batchName, e.getMessage());
+            batchResult = new HashMap<>();
+            batchResult.put("output", "");
+            batchResult.put("error", "Execution exception: " + e.getMessage());
+        }
+
+        Map<Long, Map<String, Object>> results = new HashMap<>();
+        for (Long scriptId : scriptFiles.keySet()) {
+            Map<String, Object> executionResult = new HashMap<>();
+            JunitReport.ScriptResult scriptResult = report != null ? report.getResult(scriptId) : null;
+            if (scriptResult != null && scriptResult.getTests() > 0) {
+                executionResult.put("status", scriptResult.isSuccess() ? "SUCCESS" : "FAILED");
+                executionResult.put("output", scriptResult.getOutput());
+                executionResult.put("error", scriptResult.getError());
+                executionResult.put("duration", scriptResult.getDurationMillis());
+            } else {
+                // 报告缺失（会话崩溃、超时或被取消）或脚本中没有收集到用例，附上会话输出便于排查
+                executionResult.put("status", "CANCELLED".equals(batchResult.get("status")) ? "CANCELLED" : "FAILED");
+                executionResult.put("output", batchResult.get("output") != null ? batchResult.get("output") : "");
+                executionResult.put("error", (report != null ? "No test results for this script in pytest batch " : "pytest batch produced no report ")
+                        + batchName + "\n" + (batchResult.get("error") != null ? batchResult.get("error") : ""));
+                executionResult.put("duration", batchResult.get("duration") != null ? batchResult.get("duration") : 0);
+            }
+            executionResult.put("attempts", 1);
+            results.put(scriptId, executionResult);
+        }
+        return results;
+    }
+
+    // 更新脚本执行日志、推送日志内容并累计计划进度
+    private void reportPlanScriptResult(Long planId, Long executionId, Long scriptId, String logId, Map<String, Object> executionResult, PlanProgress progress) {
+        if (logId != null) {
+            finishExecutionLog(executionId, logId, executionResult);
+            try {
+                finishLogContent(String.valueOf(planId), String.valueOf(executionId), logId, String.valueOf(scriptId), executionResult, null);
+            } catch (Exception e) {
+                logger.error("Error pushing log content for script {}: {}", scriptId, e.getMessage());
+            }
+        }
+        recordScriptResult(progress, "SUCCESS".equals(executionResult.get("status")));
+    }
+
+    // 累计脚本执行结果并上报进度。计数和上报在同一把锁内完成，保证并发执行时平台收到的进度单调递增
+    private void recordScriptResult(PlanProgress progress, boolean success) {
+        synchronized (progress) {
+            if (success) {
+                progress.successCount++;
+            } else {
+                progress.failedCount++;
+            }
+            reportPlanStatus(progress.executionId, progress.shardId, "EXECUTING", progress.totalScripts, progress.successCount, progress.failedCount);
+        }
+    }
+
+    /**
+     * 测试计划执行进度，由多个脚本工作线程共享
+     */
+    private static class PlanProgress {
+        private final Long executionId;
+        private final Long shardId;
+        private final int totalScripts;
+        private int successCount;
+        private int failedCount;
+
+        PlanProgress(Long executionId, Long shardId, int totalScripts) {
+            this.executionId = executionId;
+            this.shardId = shardId;
+            this.totalScripts = totalScripts;
+        }
+
+        synchronized int getSuccessCount() {
+            return successCount;
+        }
+
+        synchronized int getFailedCount() {
+            return failedCount;
         }
     }
 
@@ -585,71 +904,54 @@ public class TestExecutionService {
      * @param scriptType 脚本类型
      * @param scriptId 脚本ID
      * @param executionId 执行ID
+     * @param planId 计划ID
+     * @param timeout 脚本超时时间（秒），为空时使用节点默认值
+     * @param retryCount 失败后的重试次数
+     * @param liveLog 实时日志推送会话，为空时不推送
      * @return 执行结果
      */
-    public Map<String, Object> executeScript(Path scriptPath, String scriptType, Long scriptId, Long executionId, String executionEndpointType) {
-        logger.info("Executing script: {} (Type: {})", scriptPath.getFileName(), scriptType);
+    public Map<String, Object> executeScript(Path scriptPath, String scriptType, Long scriptId, Long executionId, Long planId, String executionEndpointType,
+                                             Object timeout, Object retryCount, LiveLogStreamService.Session liveLog) {
+        long timeoutSeconds = resolveTimeoutSeconds(timeout);
+        try {
+            return executeWithRetry("script " + scriptId, resolveRetryCount(retryCount),
+                    attempt -> executeScriptAttempt(scriptPath, scriptType, scriptId, executionId, planId, executionEndpointType, timeoutSeconds, attempt, liveLog));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Map<String, Object> executionResult = new HashMap<>();
+            executionResult.put("status", "FAILED");
+            executionResult.put("output", "");
+            executionResult.put("error", "Execution interrupted");
+            executionResult.put("duration", 0);
+            // 被中断的那次执行也算一次尝试，调用方按该值累计尝试次数
+            executionResult.put("attempts", 1);
+            return executionResult;
+        }
+    }
+
+    // 执行一次脚本，异常不向外抛出，统一转换为失败结果以便重试
+    private Map<String, Object> executeScriptAttempt(Path scriptPath, String scriptType, Long scriptId, Long executionId, Long planId,
+                                                     String executionEndpointType, long timeoutSeconds, int attempt,
+                                                     LiveLogStreamService.Session liveLog) throws InterruptedException {
+        logger.info("Executing script: {} (Type: {}, attempt {})", scriptPath.getFileName(), scriptType, attempt);
         Map<String, Object> executionResult = new HashMap<>();
         long startTime = System.currentTimeMillis();
-        // 移除重复的日志创建，由调用者负责创建日志
-        // Long logId = createExecutionLog(scriptId, executionId);
 
         try {
-            // 构建命令
-            String command = buildCommand(scriptType, scriptPath.toAbsolutePath().toString(), executionEndpointType);
-            logger.info("Executing command: {}", command);
-
             // 设置工作目录为scripts目录
-            Path projectRoot = Paths.get(projectRootDir);
-            Path scriptsDir = projectRoot.resolve("scripts");
-            
-            // 执行命令
-            ProcessBuilder processBuilder = new ProcessBuilder();
-            List<String> interpreter = getCommandInterpreter();
-            List<String> fullCommand = new ArrayList<>(interpreter);
-            fullCommand.add(command);
-            processBuilder.command(fullCommand);
-            processBuilder.directory(scriptsDir.toFile());
-            logger.info("ProcessBuilder command: {} with directory: {}", processBuilder.command(), scriptsDir.toAbsolutePath());
-            Process process = processBuilder.start();
-
-            // 读取输出
-            StringBuilder output = new StringBuilder();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-
-            // 读取错误
-            StringBuilder error = new StringBuilder();
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            while ((line = errorReader.readLine()) != null) {
-                error.append(line).append("\n");
-            }
-
-            // 等待进程完成
-            int exitCode = process.waitFor();
-            long endTime = System.currentTimeMillis();
-            long duration = endTime - startTime;
-
-            // 构建执行结果
-            executionResult.put("status", exitCode == 0 ? "SUCCESS" : "FAILED");
-            executionResult.put("output", output.toString());
-            executionResult.put("error", error.toString());
-            executionResult.put("duration", duration);
-
-            logger.info("Script execution completed with exit code: {}", exitCode);
-            logger.info("Execution output: {}", output.toString());
-            if (exitCode != 0) {
-                logger.error("Execution error: {}", error.toString());
-            }
-
-            // 日志更新由调用者负责，移除此处的更新逻辑
-            // if (logId != null) {
-            //     updateExecutionLog(logId, executionResult);
-            // }
-
+            Path scriptsDir = Paths.get(projectRootDir).resolve("scripts");
+            ProcessStarter processStarter = () -> scriptRunnerRegistry.launch(scriptType, scriptPath, scriptsDir, executionEndpointType);
+
+            executionResult = runProcess(processStarter, planId, spillBaseName("script_" + scriptId + "_" + executionId, attempt), timeoutSeconds, "FAILED", liveLog);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (ScriptLaunchException e) {
+            // 脚本无法运行（如Java编译失败），诊断信息作为错误输出
+            executionResult.put("status", "FAILED");
+            executionResult.put("output", "");
+            executionResult.put("error", e.getMessage());
+            executionResult.put("exitCode", 1);
+            executionResult.put("duration", System.currentTimeMillis() - startTime);
         } catch (Exception e) {
             long endTime = System.currentTimeMillis();
             long duration = endTime - startTime;
@@ -661,11 +963,6 @@ public class TestExecutionService {
 
             logger.error("Exception during script execution: {}", e.getMessage());
             e.printStackTrace();
-
-            // 日志更新由调用者负责，移除此处的更新逻辑
-            // if (logId != null) {
-            //     updateExecutionLog(logId, executionResult);
-            // }
         } finally {
             // 不再直接删除临时脚本，而是保留以便后续查看和调试
             // 临时文件将由TempFileCleanupScheduler定时清理
@@ -677,6 +974,183 @@ public class TestExecutionService {
         return executionResult;
     }
 
+    /**
+     * 启动进程并在超时时间内等待其结束，超时后结束整个进程树
+     * @param processStarter 进程启动方式
+     * @param planId 计划ID
+     * @param spillBaseName 输出文件名前缀
+     * @param timeoutSeconds 超时时间（秒），小于等于0表示不限制
+     * @param failureStatus 失败时使用的状态值
+     * @param liveLog 实时日志推送会话，为空时不推送
+     * @return 执行结果
+     */
+    private Map<String, Object> runProcess(ProcessStarter processStarter, Long planId, String spillBaseName, long timeoutSeconds, String failureStatus,
+                                           LiveLogStreamService.Session liveLog) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        Process process = processStarter.start();
+        // 登记到当前的取消标记，取消时结束进程树
+        CancellationToken cancellation = executionCancellationService.current();
+        if (cancellation != null) {
+            cancellation.attach(process);
+        }
+        nodeLoadMonitor.scriptStarted();
+        try {
+            return awaitProcess(process, startTime, planId, spillBaseName, timeoutSeconds, failureStatus, liveLog);
+        } finally {
+            nodeLoadMonitor.scriptFinished();
+            if (cancellation != null) {
+                cancellation.detach(process);
+            }
+        }
+    }
+
+    private Map<String, Object> awaitProcess(Process process, long startTime, Long planId, String spillBaseName, long timeoutSeconds,
+                                             String failureStatus, LiveLogStreamService.Session liveLog) throws IOException, InterruptedException {
+
+        // 同时采集输出和错误，完整内容落盘，结果中只保留摘要
+        ProcessOutputCapture capture = outputCaptureService.start(process, planId, spillBaseName);
+        if (liveLog != null) {
+            liveLog.follow(capture.getStdout().getSpillFile());
+        }
+
+        // 等待进程完成
+        boolean completed;
+        try {
+            if (timeoutSeconds > 0) {
+                completed = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            } else {
+                process.waitFor();
+                completed = true;
+            }
+        } catch (InterruptedException e) {
+            ProcessTreeKiller.killTree(process);
+            throw e;
+        }
+        if (!completed) {
+            logger.warn("Script exceeded timeout of {} seconds, killing process tree", timeoutSeconds);
+            ProcessTreeKiller.killTree(process);
+            process.waitFor(PROCESS_KILL_WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+        outputCaptureService.awaitCompletion(capture);
+        long duration = System.currentTimeMillis() - startTime;
+        boolean cancelled = isCancelled();
+        if (liveLog != null) {
+            liveLog.finishAttempt(capture.getStderr().getSpillFile());
+            if (cancelled) {
+                liveLog.appendText("\nScript execution cancelled\n");
+            } else if (!completed) {
+                liveLog.appendText("\nScript execution timed out after " + timeoutSeconds + " seconds\n");
+            }
+        }
+
+        // 构建执行结果
+        Map<String, Object> executionResult = new HashMap<>();
+        putCapturedOutput(executionResult, capture);
+        executionResult.put("duration", duration);
+        executionResult.put("timedOut", !completed);
+        if (cancelled) {
+            executionResult.put("status", "CANCELLED");
+            executionResult.put("error", "Script execution cancelled\n" + executionResult.get("error"));
+            logger.info("Script execution cancelled");
+        } else if (completed) {
+            int exitCode = process.exitValue();
+            executionResult.put("status", exitCode == 0 ? "SUCCESS" : failureStatus);
+            executionResult.put("exitCode", exitCode);
+            logger.info("Script execution completed with exit code: {}", exitCode);
+        } else {
+            executionResult.put("status", failureStatus);
+            executionResult.put("error", "Script execution timed out after " + timeoutSeconds + " seconds\n" + executionResult.get("error"));
+        }
+
+        logger.info("Execution output: {}", executionResult.get("output"));
+        if (!"SUCCESS".equals(executionResult.get("status")) && !cancelled) {
+            logger.error("Execution error: {}", executionResult.get("error"));
+        }
+        return executionResult;
+    }
+
+    /**
+     * 按重试次数执行，失败后以指数退避等待再重试，结果中记录实际尝试次数
+     * @param label 日志中使用的描述
+     * @param retryCount 重试次数
+     * @param scriptAttempt 单次执行逻辑
+     * @return 最后一次执行的结果
+     */
+    private Map<String, Object> executeWithRetry(String label, int retryCount, ScriptAttempt scriptAttempt) throws InterruptedException {
+        int maxAttempts = retryCount + 1;
+        Map<String, Object> executionResult = null;
+        CancellationToken cancellation = executionCancellationService.current();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            executionResult = scriptAttempt.run(attempt);
+            executionResult.put("attempts", attempt);
+            if ("SUCCESS".equals(executionResult.get("status")) || attempt == maxAttempts || isCancelled()) {
+                break;
+            }
+            long backoff = Math.min(retryBackoffMillis << Math.min(attempt - 1, 20), retryMaxBackoffMillis);
+            logger.warn("Attempt {}/{} of {} failed, retrying in {} ms", attempt, maxAttempts, label, backoff);
+            if (cancellation == null) {
+                Thread.sleep(backoff);
+            } else if (!cancellation.sleep(backoff)) {
+                // 等待重试期间被取消
+                executionResult.put("status", "CANCELLED");
+                break;
+            }
+        }
+        return executionResult;
+    }
+
+    // 单次执行逻辑
+    private interface ScriptAttempt {
+        Map<String, Object> run(int attempt) throws InterruptedException;
+    }
+
+    // 进程启动方式：由脚本运行器启动
+    private interface ProcessStarter {
+        Process start() throws IOException;
+    }
+
+    // 当前线程执行的计划执行或任务是否已被取消
+    private boolean isCancelled() {
+        CancellationToken cancellation = executionCancellationService.current();
+        return cancellation != null && cancellation.isCancelled();
+    }
+
+    private boolean isPythonScript(String scriptType) {
+        return "py".equalsIgnoreCase(scriptType) || "python".equalsIgnoreCase(scriptType);
+    }
+
+    // 脚本自身配置的超时时间优先，未配置时使用节点默认值
+    private long resolveTimeoutSeconds(Object timeout) {
+        if (timeout instanceof Number && ((Number) timeout).longValue() > 0) {
+            return ((Number) timeout).longValue();
+        }
+        return defaultTimeoutSeconds;
+    }
+
+    private int resolveRetryCount(Object retryCount) {
+        if (retryCount instanceof Number) {
+            return Math.max(((Number) retryCount).intValue(), 0);
+        }
+        return 0;
+    }
+
+    // 重试时为每次尝试使用独立的输出文件，保留失败现场
+    private String spillBaseName(String baseName, int attempt) {
+        return attempt > 1 ? baseName + "_attempt" + attempt : baseName;
+    }
+
+    // 将采集到的输出摘要和完整输出文件位置写入执行结果
+    private void putCapturedOutput(Map<String, Object> executionResult, ProcessOutputCapture capture) {
+        StreamCapture stdout = capture.getStdout();
+        StreamCapture stderr = capture.getStderr();
+        executionResult.put("output", stdout.getExcerpt());
+        executionResult.put("error", stderr.getExcerpt());
+        executionResult.put("outputFile", stdout.getSpillFile().toAbsolutePath().toString());
+        executionResult.put("errorFile", stderr.getSpillFile().toAbsolutePath().toString());
+        executionResult.put("outputBytes", stdout.getTotalBytes());
+        executionResult.put("errorBytes", stderr.getTotalBytes());
+    }
+
     /**
      * 更新执行日志并推送日志内容到平台
      */
@@ -692,13 +1166,30 @@ public class TestExecutionService {
         }
     }
 
+    /**
+     * 结束脚本日志推送：已实时推送的日志补齐剩余内容，未启用或推送失败时整体上传
+     */
+    private void finishLogContent(String planId, String executionId, String logId, String scriptId, Map<String, Object> executionResult,
+                                  LiveLogStreamService.Session liveLog) throws JsonProcessingException {
+        if (liveLog != null) {
+            if (!liveLog.hasOutput()) {
+                // 脚本未能启动，日志中只有错误信息
+                String error = executionResult.get("error") != null ? (String) executionResult.get("error") : "";
+                liveLog.appendText("\n\n" + error);
+            }
+            if (liveLogStreamService.close(liveLog)) {
+                logger.info("Streamed log content of script {} to platform", scriptId);
+                return;
+            }
+        }
+        pushLogContentToPlatform(planId, executionId, logId, scriptId, executionResult);
+    }
+
     /**
      * 将日志内容推送到平台
      */
     private void pushLogContentToPlatform(String planId, String executionId, String logId, String scriptId, Map<String, Object> executionResult) throws JsonProcessingException {
-        // 使用正确的API端点路径
-        String url = nodeConfig.getPlatformServerUrl() + "/api/plan-executions/logs/upload";
-        logger.info("Pushing log content to platform: {}", url);
+        logger.info("Pushing log content of script {} to platform", scriptId);
 
         // 构建表单参数
         MultiValueMap<String, Object> formData = new LinkedMultiValueMap<>();
@@ -707,30 +1198,66 @@ public class TestExecutionService {
         formData.add("executionId", executionId);
         formData.add("logId", logId);
         
-        // 获取日志内容（输出+错误）
-        String output = executionResult.get("output") != null ? (String) executionResult.get("output") : "";
-        String error = executionResult.get("error") != null ? (String) executionResult.get("error") : "";
-        String logContent = output + "\n\n" + error;
-        formData.add("logContent", logContent);
-
-        // 设置请求头
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(formData, headers);
-
-        // 发送请求
-        ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                requestEntity,
-                String.class
-        );
-
-        if (response.getStatusCode() == HttpStatus.OK) {
-            logger.info("Successfully pushed log content to platform");
+        // 获取日志内容（输出+错误）：优先以文件形式流式上传完整输出，避免在内存中拼接大日志
+        String outputFile = (String) executionResult.get("outputFile");
+        String errorFile = (String) executionResult.get("errorFile");
+        if (outputFile != null && errorFile != null) {
+            if (isLogUploadCompressed()) {
+                try {
+                    uploadCompressedLogFiles(formData, Paths.get(outputFile), Paths.get(errorFile));
+                    logger.info("Successfully pushed compressed log content to platform");
+                    return;
+                } catch (HttpClientErrorException e) {
+                    if (e.getStatusCode() != HttpStatus.UNSUPPORTED_MEDIA_TYPE) {
+                        throw e;
+                    }
+                    logger.warn("Platform does not accept compressed log uploads, uploading uncompressed");
+                    logUploadCompressionRejected = true;
+                } catch (IOException e) {
+                    logger.warn("Failed to compress log files of script {}, uploading uncompressed: {}", scriptId, e.getMessage());
+                }
+            }
+            formData.add("stdoutFile", new FileSystemResource(outputFile));
+            formData.add("stderrFile", new FileSystemResource(errorFile));
         } else {
-            logger.error("Failed to push log content to platform: {}", response.getStatusCode());
-            throw new RuntimeException("Failed to push log content to platform, status: " + response.getStatusCode());
+            String output = executionResult.get("output") != null ? (String) executionResult.get("output") : "";
+            String error = executionResult.get("error") != null ? (String) executionResult.get("error") : "";
+            String logContent = output + "\n\n" + error;
+            formData.add("logContent", logContent);
+        }
+
+        // 平台返回错误状态时抛出异常
+        platformClient.uploadLogContent(formData);
+        logger.info("Successfully pushed log content to platform");
+    }
+
+    private boolean isLogUploadCompressed() {
+        return ContentEncoding.GZIP.equalsIgnoreCase(logUploadCompression) && !logUploadCompressionRejected;
+    }
+
+    /**
+     * 压缩输出和错误文件后上传，同时上报原始长度；不修改传入的表单，失败时可直接用于不压缩上传
+     */
+    private void uploadCompressedLogFiles(MultiValueMap<String, Object> formData, Path outputFile, Path errorFile) throws IOException {
+        Path compressedOutput = null;
+        Path compressedError = null;
+        try {
+            compressedOutput = ContentEncoding.compressToTempFile(outputFile, logUploadCompressionLevel);
+            compressedError = ContentEncoding.compressToTempFile(errorFile, logUploadCompressionLevel);
+            MultiValueMap<String, Object> compressedForm = new LinkedMultiValueMap<>(formData);
+            compressedForm.add("contentEncoding", ContentEncoding.GZIP);
+            compressedForm.add("stdoutFile", new FileSystemResource(compressedOutput));
+            compressedForm.add("stderrFile", new FileSystemResource(compressedError));
+            compressedForm.add("stdoutLength", String.valueOf(Files.size(outputFile)));
+            compressedForm.add("stderrLength", String.valueOf(Files.size(errorFile)));
+            platformClient.uploadLogContent(compressedForm);
+        } finally {
+            if (compressedOutput != null) {
+                Files.deleteIfExists(compressedOutput);
+            }
+            if (compressedError != null) {
+                Files.deleteIfExists(compressedError);
+            }
         }
     }
-}
\ No newline at end of file
+}
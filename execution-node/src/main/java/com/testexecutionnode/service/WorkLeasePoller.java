@@ -0,0 +1,193 @@
+package com.testexecutionnode.service;
+
+import com.testexecutionnode.client.PlatformClient;
+import com.testexecutionnode.client.dto.WorkUnitDto;
+import com.testexecutionnode.config.NodeConfig;
+import com.testexecutionnode.outbox.ResultOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作单元拉取服务（execution.dispatch.mode=pull）
+ * 节点按空闲容量长轮询平台领取测试计划执行和测试任务，执行期间定时续租，执行结束后通过结果发件箱确认完成；
+ * 平台无需访问节点，节点位于NAT之后也可使用
+ */
+@Service
+public class WorkLeasePoller {
+    private static final Logger logger = LoggerFactory.getLogger(WorkLeasePoller.class);
+
+    @Autowired
+    private NodeConfig nodeConfig;
+
+    @Autowired
+    private PlatformClient platformClient;
+
+    @Autowired
+    private ResultOutbox resultOutbox;
+
+    @Autowired
+    private TestExecutionService testExecutionService;
+
+    // push：等待平台调用节点接口；pull：主动领取工作
+    @Value("${execution.dispatch.mode:push}")
+    private String dispatchMode;
+
+    // 同时执行的工作单元（测试计划或任务）数量
+    @Value("${execution.lease.max-units:1}")
+    private int maxUnits;
+
+    // 单次长轮询的等待时间，不大于平台的execution.lease.max-wait-ms
+    @Value("${execution.lease.wait-ms:30000}")
+    private long waitMillis;
+
+    // 续租间隔，需明显小于平台的execution.lease.duration-ms
+    @Value("${execution.lease.renew-interval-ms:20000}")
+    private long renewIntervalMillis;
+
+    // 领取失败（平台不可用等）后的等待时间
+    @Value("${execution.lease.retry-backoff-ms:5000}")
+    private long retryBackoffMillis;
+
+    // 执行中的工作单元
+    private final Map<Long, WorkUnitDto> activeUnits = new ConcurrentHashMap<>();
+
+    private Semaphore capacity;
+    private ExecutorService workExecutor;
+    private ScheduledExecutorService renewExecutor;
+    private Thread pollThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!"pull".equalsIgnoreCase(dispatchMode)) {
+            return;
+        }
+        int units = Math.max(maxUnits, 1);
+        capacity = new Semaphore(units);
+        workExecutor = Executors.newFixedThreadPool(units, new CustomizableThreadFactory("work-unit-"));
+        renewExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("work-lease-renew-"));
+        renewExecutor.scheduleWithFixedDelay(this::renewLeases, renewIntervalMillis, renewIntervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+        pollThread = new Thread(this::pollLoop, "work-lease-poller");
+        pollThread.setDaemon(true);
+        pollThread.start();
+        logger.info("Pulling work from platform with capacity {}", units);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        pollThread.interrupt();
+        renewExecutor.shutdownNow();
+        workExecutor.shutdownNow();
+    }
+
+    /**
+     * 执行中的工作单元数量
+     */
+    public int getActiveCount() {
+        return activeUnits.size();
+    }
+
+    private void pollLoop() {
+        while (running) {
+            int free = 0;
+            try {
+                // 至少有一个空闲位置才领取，并一次领取全部空闲容量
+                capacity.acquire();
+                free = 1 + capacity.drainPermits();
+                List<WorkUnitDto> units = platformClient.pollLeases(nodeConfig.getNodeId(), free, waitMillis);
+                for (WorkUnitDto unit : units) {
+                    activeUnits.put(unit.getId(), unit);
+                    workExecutor.submit(() -> runUnit(unit));
+                    free--;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Failed to lease work from platform, retrying in {} ms: {}", retryBackoffMillis, e.getMessage());
+                capacity.release(Math.max(free, 0));
+                free = 0;
+                if (!sleep(retryBackoffMillis)) {
+                    return;
+                }
+            } finally {
+                if (free > 0) {
+                    capacity.release(free);
+                }
+            }
+        }
+    }
+
+    private void runUnit(WorkUnitDto unit) {
+        try {
+            logger.info("Executing leased {} work unit {}", unit.getUnitType(), unit.getId());
+            if (WorkUnitDto.TYPE_PLAN.equals(unit.getUnitType())) {
+                testExecutionService.executeTestPlan(unit.getPlanId(), unit.getExecutionId(), unit.getShardId());
+            } else if (WorkUnitDto.TYPE_TASK.equals(unit.getUnitType())) {
+                testExecutionService.executeTestTask(unit.getTaskId());
+            } else {
+                logger.error("Unknown work unit type {} of unit {}", unit.getUnitType(), unit.getId());
+            }
+        } catch (Exception e) {
+            logger.error("Error executing work unit {}: {}", unit.getId(), e.getMessage());
+        } finally {
+            // 完成确认经发件箱可靠送达，避免确认丢失后租约过期被重复执行
+            resultOutbox.submit(HttpMethod.POST, "/api/execution-nodes/" + nodeConfig.getNodeId() + "/leases/" + unit.getId() + "/complete",
+                    Collections.emptyMap());
+            activeUnits.remove(unit.getId());
+            capacity.release();
+        }
+    }
+
+    private void renewLeases() {
+        if (activeUnits.isEmpty()) {
+            return;
+        }
+        List<Long> unitIds = new ArrayList<>(activeUnits.keySet());
+        try {
+            Set<Long> held = new HashSet<>(platformClient.renewLeases(nodeConfig.getNodeId(), unitIds));
+            for (Long unitId : unitIds) {
+                if (!held.contains(unitId) && activeUnits.containsKey(unitId)) {
+                    logger.warn("Lease of work unit {} was reclaimed by the platform while still executing", unitId);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to renew leases {}: {}", unitIds, e.getMessage());
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+# -*- coding: utf-8 -*-
+"""
+Python预热进程（fork server）
+启动时预先导入常用模块，之后每个脚本都从本进程fork出的子进程中执行，省去解释器启动和模块导入的开销。
+
+控制协议：标准输入/输出上每行一个JSON
+  请求 {"id": 1, "op": "run", "script": "/path/test.py", "cwd": "/path", "stdout": "/fifo/1.out", "stderr": "/fifo/1.err"}
+       {"id": 1, "op": "run", "module": "pytest", "args": ["/path/test.py", "-vs"], ...}
+       {"id": 1, "op": "kill"}
+  响应 {"id": 1, "event": "ready"}            管道已创建，节点开始打开读端
+       {"id": 1, "event": "started", "pid": 123}
+       {"id": 1, "event": "exit", "code": 0}
+       {"id": 1, "event": "error", "message": "..."}
+"""
+import importlib
+import json
+import os
+import select
+import signal
+import sys
+import traceback
+
+
+def preload(modules):
+    for name in modules:
+        name = name.strip()
+        if not name:
+            continue
+        try:
+            importlib.import_module(name)
+        except Exception as e:  # 预加载失败不影响执行，脚本运行时会自行导入
+            sys.stderr.write("zygote: failed to preload %s: %s\n" % (name, e))
+
+
+def print_script_traceback():
+    """打印异常堆栈，去掉预热进程和runpy自身的栈帧，与直接执行脚本时的输出一致"""
+    exc_type, exc_value, tb = sys.exc_info()
+    while tb is not None and (tb.tb_frame.f_code.co_filename == __file__
+                              or "runpy" in tb.tb_frame.f_code.co_filename):
+        tb = tb.tb_next
+    traceback.print_exception(exc_type, exc_value, tb)
+
+
+def run_child(request, out_fd, err_fd, ctrl_fd, wakeup_fds):
+    """在子进程中执行脚本，退出码语义与 python3 script.py / python3 -m module 一致"""
+    os.setsid()
+    signal.set_wakeup_fd(-1)
+    for fd in wakeup_fds:
+        os.close(fd)
+    signal.signal(signal.SIGCHLD, signal.SIG_DFL)
+    signal.signal(signal.SIGINT, signal.default_int_handler)
+    signal.signal(signal.SIGPIPE, signal.SIG_IGN)
+    os.close(ctrl_fd)
+    devnull = os.open(os.devnull, os.O_RDONLY)
+    os.dup2(devnull, 0)
+    os.close(devnull)
+    os.dup2(out_fd, 1)
+    os.dup2(err_fd, 2)
+    os.close(out_fd)
+    os.close(err_fd)
+    code = 0
+    try:
+        os.chdir(request.get("cwd") or os.getcwd())
+        import runpy
+        module = request.get("module")
+        if module:
+            sys.argv = [module] + list(request.get("args") or [])
+            sys.path[0] = os.getcwd()
+            runpy.run_module(module, run_name="__main__", alter_sys=True)
+        else:
+            script = request["script"]
+            sys.argv = [script] + list(request.get("args") or [])
+            sys.path[0] = os.path.dirname(os.path.abspath(script))
+            runpy.run_path(script, run_name="__main__")
+    except SystemExit as e:
+        if e.code is None:
+            code = 0
+        elif isinstance(e.code, int):
+            code = e.code & 0xFF
+        else:
+            sys.stderr.write("%s\n" % e.code)
+            code = 1
+    except BaseException:
+        print_script_traceback()
+        code = 1
+    try:
+        sys.stdout.flush()
+        sys.stderr.flush()
+    except Exception:
+        pass
+    os._exit(code)
+
+
+def main():
+    preload(sys.argv[1].split(",") if len(sys.argv) > 1 else [])
+
+    # 控制通道使用原标准输出的副本，标准输出改为指向标准错误，避免模块打印内容破坏协议
+    ctrl_fd = os.dup(1)
+    os.dup2(2, 1)
+    ctrl = os.fdopen(ctrl_fd, "w")
+
+    def send(message):
+        ctrl.write(json.dumps(message) + "\n")
+        ctrl.flush()
+
+    # 子进程退出时通过SIGCHLD唤醒select，及时上报退出码
+    wakeup_r, wakeup_w = os.pipe()
+    os.set_blocking(wakeup_r, False)
+    os.set_blocking(wakeup_w, False)
+    signal.set_wakeup_fd(wakeup_w)
+    signal.signal(signal.SIGCHLD, lambda signum, frame: None)
+
+    children = {}  # pid -> request id
+    running = {}   # request id -> pid
+    buffer = b""
+    send({"event": "alive", "pid": os.getpid()})
+
+    while True:
+        try:
+            readable, _, _ = select.select([0, wakeup_r], [], [], 1.0)
+        except InterruptedError:
+            readable = []
+        if wakeup_r in readable:
+            try:
+                while os.read(wakeup_r, 4096):
+                    pass
+            except BlockingIOError:
+                pass
+        if 0 in readable:
+            data = os.read(0, 65536)
+            if not data:
+                break
+            buffer += data
+            while b"\n" in buffer:
+                line, buffer = buffer.split(b"\n", 1)
+                if not line.strip():
+                    continue
+                request = json.loads(line.decode("utf-8"))
+                request_id = request.get("id")
+                if request.get("op") == "kill":
+                    pid = running.get(request_id)
+                    if pid:
+                        try:
+                            os.killpg(pid, signal.SIGKILL)
+                        except OSError:
+                            try:
+                                os.kill(pid, signal.SIGKILL)
+                            except OSError:
+                                pass
+                    continue
+                try:
+                    for path in (request["stdout"], request["stderr"]):
+                        os.mkfifo(path)
+                    send({"id": request_id, "event": "ready"})
+                    # 节点打开读端后这里才会返回
+                    out_fd = os.open(request["stdout"], os.O_WRONLY)
+                    err_fd = os.open(request["stderr"], os.O_WRONLY)
+                    sys.stdout.flush()
+                    sys.stderr.flush()
+                    pid = os.fork()
+                    if pid == 0:
+                        run_child(request, out_fd, err_fd, ctrl_fd, (wakeup_r, wakeup_w))
+                    os.close(out_fd)
+                    os.close(err_fd)
+                    children[pid] = request_id
+                    running[request_id] = pid
+                    send({"id": request_id, "event": "started", "pid": pid})
+                except Exception as e:
+                    send({"id": request_id, "event": "error", "message": str(e)})
+                finally:
+                    for path in (request.get("stdout"), request.get("stderr")):
+                        try:
+                            if path:
+                                os.unlink(path)
+                        except OSError:
+                            pass
+
+        # 回收已结束的子进程并上报退出码
+        while children:
+            try:
+                pid, status = os.waitpid(-1, os.WNOHANG)
+            except ChildProcessError:
+                break
+            if pid == 0:
+                break
+            request_id = children.pop(pid, None)
+            running.pop(request_id, None)
+            if os.WIFSIGNALED(status):
+                code = 128 + os.WTERMSIG(status)
+            else:
+                code = os.WEXITSTATUS(status)
+            send({"id": request_id, "event": "exit", "code": code})
+
+
+if __name__ == "__main__":
+    main()
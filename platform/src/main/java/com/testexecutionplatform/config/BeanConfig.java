@@ -1,14 +1,33 @@
 package com.testexecutionplatform.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class BeanConfig {
 
     @Bean
+    @Primary
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    /**
+     * 调用执行节点接口使用的RestTemplate，连接和读取都有超时，
+     * 失联或卡住的节点不会一直占用下发线程，超时后由下发管道重试
+     */
+    @Bean
+    public RestTemplate nodeRestTemplate(RestTemplateBuilder builder,
+                                         @Value("${execution.node.http.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                                         @Value("${execution.node.http.read-timeout-ms:10000}") long readTimeoutMillis) {
+        return builder.setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMillis))
+                .build();
+    }
 }
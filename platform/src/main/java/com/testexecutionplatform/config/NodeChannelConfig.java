@@ -0,0 +1,39 @@
+package com.testexecutionplatform.config;
+
+import com.testexecutionplatform.controller.NodeChannelHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * 执行节点长连接配置，与前端使用的STOMP端点（/ws）相互独立
+ */
+@Configuration
+@EnableWebSocket
+public class NodeChannelConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private NodeChannelHandler nodeChannelHandler;
+
+    // 单条消息的最大字节数，需大于日志分片上限
+    @Value("${node.channel.max-message-bytes:2097152}")
+    private int maxMessageBytes;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(nodeChannelHandler, "/ws/node").setAllowedOrigins("*");
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxMessageBytes);
+        container.setMaxBinaryMessageBufferSize(maxMessageBytes);
+        return container;
+    }
+}
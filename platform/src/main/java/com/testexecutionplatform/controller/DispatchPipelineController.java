@@ -0,0 +1,35 @@
+package com.testexecutionplatform.controller;
+
+import com.testexecutionplatform.service.DispatchPipeline;
+import com.testexecutionplatform.service.TaskQueueService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 下发管道的运行状态
+ */
+@RestController
+@RequestMapping("/api/dispatch")
+public class DispatchPipelineController {
+
+    @Autowired
+    private DispatchPipeline dispatchPipeline;
+
+    @Autowired
+    private TaskQueueService taskQueueService;
+
+    /**
+     * 队列深度、执行中的下发数、下发耗时以及排队中的任务数
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(dispatchPipeline.getStats());
+        stats.put("queuedTasks", taskQueueService.getQueuedTasks().size());
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+}
@@ -1,13 +1,18 @@
 package com.testexecutionplatform.controller;
 
+import com.testexecutionplatform.dto.NodeLoad;
+import com.testexecutionplatform.dto.NodeRegistrationRequest;
 import com.testexecutionplatform.model.ExecutionNode;
 import com.testexecutionplatform.service.ExecutionNodeService;
+import com.testexecutionplatform.service.NodeLoadRegistry;
+import com.testexecutionplatform.service.NodeReconciliationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/execution-nodes")
@@ -15,6 +20,12 @@ public class ExecutionNodeController {
     
     @Autowired
     private ExecutionNodeService executionNodeService;
+
+    @Autowired
+    private NodeLoadRegistry nodeLoadRegistry;
+
+    @Autowired
+    private NodeReconciliationService nodeReconciliationService;
     
     @GetMapping
     public ResponseEntity<List<ExecutionNode>> getAllExecutionNodes() {
@@ -30,14 +41,18 @@ public class ExecutionNodeController {
     }
     
     @PostMapping("/register")
-    public ResponseEntity<ExecutionNode> registerNode(@RequestBody ExecutionNode node) {
-        ExecutionNode registeredNode = executionNodeService.registerNode(node);
+    public ResponseEntity<ExecutionNode> registerNode(@RequestBody NodeRegistrationRequest request) {
+        ExecutionNode registeredNode = executionNodeService.registerNode(request.getNode());
+        if (request.getInFlight() != null) {
+            // 节点上报了执行情况时核对其执行记录（平台或节点重启后）
+            nodeReconciliationService.reconcile(registeredNode.getNodeId(), request.getInFlight());
+        }
         return new ResponseEntity<>(registeredNode, HttpStatus.CREATED);
     }
     
     @PostMapping("/{nodeId}/heartbeat")
-    public ResponseEntity<ExecutionNode> updateHeartbeat(@PathVariable String nodeId) {
-        ExecutionNode updatedNode = executionNodeService.updateHeartbeat(nodeId);
+    public ResponseEntity<ExecutionNode> updateHeartbeat(@PathVariable String nodeId, @RequestBody(required = false) NodeLoad load) {
+        ExecutionNode updatedNode = executionNodeService.updateHeartbeat(nodeId, load);
         if (updatedNode != null) {
             return new ResponseEntity<>(updatedNode, HttpStatus.OK);
         } else {
@@ -45,6 +60,22 @@ public class ExecutionNodeController {
         }
     }
     
+    // 各节点最近一次心跳上报的负载（仅包含未过期的记录）
+    @GetMapping("/load")
+    public ResponseEntity<Map<String, NodeLoad>> getNodeLoads() {
+        return new ResponseEntity<>(nodeLoadRegistry.getAllLoads(), HttpStatus.OK);
+    }
+
+    @GetMapping("/{nodeId}/load")
+    public ResponseEntity<NodeLoad> getNodeLoad(@PathVariable String nodeId) {
+        NodeLoad load = nodeLoadRegistry.getLoad(nodeId);
+        if (load != null) {
+            return new ResponseEntity<>(load, HttpStatus.OK);
+        } else {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+    
     @PutMapping("/{nodeId}/status")
     public ResponseEntity<ExecutionNode> updateNodeStatus(@PathVariable String nodeId, @RequestBody String status) {
         ExecutionNode updatedNode = executionNodeService.updateNodeStatus(nodeId, status);
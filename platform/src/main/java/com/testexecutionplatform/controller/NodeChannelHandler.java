@@ -0,0 +1,212 @@
+package com.testexecutionplatform.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testexecutionplatform.dto.ExecutionEventBatch;
+import com.testexecutionplatform.dto.NodeChannelMessage;
+import com.testexecutionplatform.dto.NodeLoad;
+import com.testexecutionplatform.dto.NodeRegistrationRequest;
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.service.ExecutionLogStorageService;
+import com.testexecutionplatform.service.ExecutionNodeService;
+import com.testexecutionplatform.service.NodeChannelService;
+import com.testexecutionplatform.service.NodeReconciliationService;
+import com.testexecutionplatform.service.TestPlanExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 执行节点长连接（/ws/node）
+ * 一个节点一条连接，复用于心跳、状态、执行事件、日志分片和任务下发；
+ * 节点未收到回复的请求数不超过握手时平台返回的窗口大小，平台按顺序处理同一连接上的消息
+ */
+@Component
+public class NodeChannelHandler extends AbstractWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(NodeChannelHandler.class);
+    private static final String CHANNEL_SESSION = "channelSession";
+
+    @Autowired
+    private NodeChannelService nodeChannelService;
+
+    @Autowired
+    private ExecutionNodeService executionNodeService;
+
+    @Autowired
+    private TestPlanExecutionService testPlanExecutionService;
+
+    @Autowired
+    private ExecutionLogStorageService executionLogStorageService;
+
+    @Autowired
+    private NodeReconciliationService nodeReconciliationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 节点可同时等待回复的请求数
+    @Value("${node.channel.window:64}")
+    private int window;
+
+    @Value("${log.append.max-chunk-bytes:1048576}")
+    private int maxLogChunkBytes;
+
+    @Value("${execution.events.max-batch-size:1000}")
+    private int maxEventBatchSize;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(CHANNEL_SESSION, nodeChannelService.open(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        nodeChannelService.close(session);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("Node channel {} transport error: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        NodeChannelMessage request = objectMapper.readValue(message.getPayload(), NodeChannelMessage.class);
+        handle(channelSession(session), request, null);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        ByteBuffer buffer = message.getPayload();
+        int headerLength = buffer.getInt();
+        byte[] header = new byte[headerLength];
+        buffer.get(header);
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        NodeChannelMessage request = objectMapper.readValue(new String(header, StandardCharsets.UTF_8), NodeChannelMessage.class);
+        handle(channelSession(session), request, data);
+    }
+
+    private WebSocketSession channelSession(WebSocketSession session) {
+        return (WebSocketSession) session.getAttributes().get(CHANNEL_SESSION);
+    }
+
+    private void handle(WebSocketSession session, NodeChannelMessage request, byte[] data) throws Exception {
+        String nodeId = (String) session.getAttributes().get("nodeId");
+        if (nodeId == null && !NodeChannelMessage.HELLO.equals(request.getType())) {
+            reply(session, request, 401, "Channel not initialized, send HELLO first");
+            return;
+        }
+        JsonNode payload = request.getPayload() != null ? request.getPayload() : objectMapper.createObjectNode();
+        try {
+            switch (request.getType()) {
+                case NodeChannelMessage.HELLO:
+                    hello(session, request, payload);
+                    break;
+                case NodeChannelMessage.HEARTBEAT:
+                    NodeLoad load = payload.size() > 0 ? objectMapper.treeToValue(payload, NodeLoad.class) : null;
+                    reply(session, request, executionNodeService.updateHeartbeat(nodeId, load) != null ? 200 : 404, null);
+                    break;
+                case NodeChannelMessage.STATUS:
+                    reply(session, request, executionNodeService.updateNodeStatus(nodeId, payload.path("status").asText()) != null ? 200 : 404, null);
+                    break;
+                case NodeChannelMessage.EVENTS:
+                    events(session, request, payload);
+                    break;
+                case NodeChannelMessage.LOG_APPEND:
+                    appendLog(session, request, payload, data != null ? data : new byte[0]);
+                    break;
+                case NodeChannelMessage.CREDIT:
+                    nodeChannelService.addCredits(session, payload.path("credits").asInt(0));
+                    break;
+                default:
+                    reply(session, request, 400, "Unknown message type: " + request.getType());
+            }
+        } catch (IllegalArgumentException e) {
+            reply(session, request, 400, e.getMessage());
+        } catch (NoSuchElementException e) {
+            reply(session, request, 404, e.getMessage());
+        } catch (Exception e) {
+            log.error("Error handling {} from node {}: {}", request.getType(), nodeId, e.getMessage());
+            reply(session, request, 500, e.getMessage());
+        }
+    }
+
+    // 握手：注册节点、核对执行状态并返回请求窗口大小
+    private void hello(WebSocketSession session, NodeChannelMessage request, JsonNode payload) throws Exception {
+        NodeRegistrationRequest registration = objectMapper.treeToValue(payload, NodeRegistrationRequest.class);
+        ExecutionNode node = registration.getNode();
+        if (node.getNodeId() == null) {
+            throw new IllegalArgumentException("nodeId is required");
+        }
+        executionNodeService.registerNode(node);
+        if (registration.getInFlight() != null) {
+            nodeReconciliationService.reconcile(node.getNodeId(), registration.getInFlight());
+        }
+        nodeChannelService.bind(node.getNodeId(), session, payload.path("credits").asInt(0));
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("window", window);
+        reply(session, request, 200, body);
+    }
+
+    private void events(WebSocketSession session, NodeChannelMessage request, JsonNode payload) throws Exception {
+        long executionId = payload.path("executionId").asLong();
+        ExecutionEventBatch batch = objectMapper.treeToValue(payload, ExecutionEventBatch.class);
+        if (batch.getEvents() == null || batch.getEvents().isEmpty()) {
+            throw new IllegalArgumentException("No events");
+        }
+        if (batch.getEvents().size() > maxEventBatchSize) {
+            reply(session, request, 413, "Event batch exceeds " + maxEventBatchSize + " events");
+            return;
+        }
+        Map<String, Long> logIds = testPlanExecutionService.applyExecutionEvents(executionId, batch.getEvents());
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("applied", batch.getEvents().size());
+        body.set("logIds", objectMapper.valueToTree(logIds));
+        reply(session, request, 200, body);
+    }
+
+    // 与HTTP追加接口一致：偏移量超出平台当前大小时返回409及平台大小
+    private void appendLog(WebSocketSession session, NodeChannelMessage request, JsonNode payload, byte[] data) throws Exception {
+        if (data.length > maxLogChunkBytes) {
+            reply(session, request, 413, "Log chunk exceeds " + maxLogChunkBytes + " bytes");
+            return;
+        }
+        long offset = payload.path("offset").asLong();
+        long committed = executionLogStorageService.appendLogChunk(payload.path("planId").asText(), payload.path("executionId").asText(),
+                payload.path("scriptId").asText(), offset, data);
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("offset", committed);
+        reply(session, request, committed < offset ? 409 : 200, body);
+    }
+
+    private void reply(WebSocketSession session, NodeChannelMessage request, int status, Object body) throws Exception {
+        if (request.getId() == null) {
+            return;
+        }
+        NodeChannelMessage response = new NodeChannelMessage();
+        response.setType(NodeChannelMessage.RESPONSE);
+        response.setReplyTo(request.getId());
+        response.setStatus(status);
+        if (body instanceof JsonNode) {
+            response.setPayload((JsonNode) body);
+        } else if (body != null) {
+            response.setPayload(objectMapper.createObjectNode().put("message", body.toString()));
+        }
+        nodeChannelService.send(session, response);
+    }
+}
@@ -1,6 +1,7 @@
 package com.testexecutionplatform.controller;
 
 import com.testexecutionplatform.model.TestExecutionTask;
+import com.testexecutionplatform.service.TaskQueueService;
 import com.testexecutionplatform.service.TestExecutionTaskService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -16,12 +17,23 @@ public class TestExecutionTaskController {
     @Autowired
     private TestExecutionTaskService testExecutionTaskService;
 
+    @Autowired
+    private TaskQueueService taskQueueService;
+
     @GetMapping
     public ResponseEntity<List<TestExecutionTask>> getAllTestExecutionTasks() {
         List<TestExecutionTask> tasks = testExecutionTaskService.getAllTestExecutionTasks();
         return new ResponseEntity<>(tasks, HttpStatus.OK);
     }
 
+    /**
+     * 排队等待下发的任务，按下发顺序排列
+     */
+    @GetMapping("/queue")
+    public ResponseEntity<List<TestExecutionTask>> getQueuedTasks() {
+        return new ResponseEntity<>(taskQueueService.getQueuedTasks(), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TestExecutionTask> getTestExecutionTaskById(@PathVariable Long id) {
         TestExecutionTask task = testExecutionTaskService.getTestExecutionTaskById(id);
@@ -58,7 +70,8 @@ public class TestExecutionTaskController {
     public ResponseEntity<TestExecutionTask> startTask(@PathVariable Long id) {
         TestExecutionTask task = testExecutionTaskService.startTask(id);
         if (task != null) {
-            return new ResponseEntity<>(task, HttpStatus.OK);
+            // 任务进入队列或已交给下发管道，执行结果由节点回报
+            return new ResponseEntity<>(task, HttpStatus.ACCEPTED);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -1,6 +1,9 @@
 package com.testexecutionplatform.controller;
 
 import com.testexecutionplatform.model.TestPlan;
+import com.testexecutionplatform.model.TestScript;
+import com.testexecutionplatform.service.ScriptFileService;
+import com.testexecutionplatform.service.ScriptOrderingService;
 import com.testexecutionplatform.service.TestPlanService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -8,10 +11,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +31,12 @@ public class TestPlanController {
     @Autowired
     private TestPlanService testPlanService;
 
+    @Autowired
+    private ScriptFileService scriptFileService;
+
+    @Autowired
+    private ScriptOrderingService scriptOrderingService;
+
     @GetMapping
     public ResponseEntity<Page<TestPlan>> getAllTestPlans(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
@@ -68,6 +80,49 @@ public class TestPlanController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * 将测试计划的全部脚本文件打包为一个zip下载，执行节点在执行前一次性解包
+     * 请求体为节点已缓存的filePath到内容摘要的映射，摘要一致的脚本不打包
+     */
+    @PostMapping(value = "/{id}/bundle", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> downloadPlanBundle(@PathVariable Long id,
+                                                                    @RequestBody(required = false) Map<String, String> knownHashes) {
+        TestPlan plan = testPlanService.getTestPlanById(id);
+        if (plan == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        List<String> filePaths = new ArrayList<>();
+        if (plan.getScripts() != null) {
+            for (TestScript script : plan.getScripts()) {
+                if (script.getFilePath() != null && !script.getFilePath().isEmpty()) {
+                    filePaths.add(script.getFilePath());
+                }
+            }
+        }
+        StreamingResponseBody body = out -> {
+            int count = scriptFileService.writeBundle(filePaths, knownHashes, out);
+            logger.info("Bundled " + count + " of " + filePaths.size() + " script files for plan " + id);
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/zip")).body(body);
+    }
+
+    /**
+     * 计划中脚本的执行顺序（脚本ID列表），mode不为空时覆盖计划配置的顺序
+     */
+    @GetMapping("/{id}/script-order")
+    public ResponseEntity<List<Long>> getScriptOrder(@PathVariable Long id, @RequestParam(required = false) String mode) {
+        TestPlan plan = testPlanService.getTestPlanById(id);
+        if (plan == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        List<TestScript> scripts = plan.getScripts() != null ? plan.getScripts() : new ArrayList<>();
+        List<Long> scriptIds = new ArrayList<>();
+        for (TestScript script : scriptOrderingService.orderScripts(scripts, mode != null ? mode : plan.getScriptOrder())) {
+            scriptIds.add(script.getId());
+        }
+        return new ResponseEntity<>(scriptIds, HttpStatus.OK);
+    }
+
     // 全局异常处理
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleException(Exception ex, WebRequest request) {
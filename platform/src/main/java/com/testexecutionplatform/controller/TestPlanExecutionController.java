@@ -1,8 +1,14 @@
 package com.testexecutionplatform.controller;
 
+import com.testexecutionplatform.dto.ExecutionEventBatch;
 import com.testexecutionplatform.model.TestPlanExecution;
 import com.testexecutionplatform.model.TestPlanExecutionLog;
+import com.testexecutionplatform.model.TestPlanExecutionShard;
+import com.testexecutionplatform.service.DispatchPipeline;
+import com.testexecutionplatform.service.ExecutionLogStorageService;
+import com.testexecutionplatform.service.TestPlanExecutionShardService;
 import com.testexecutionplatform.service.TestPlanExecutionService;
+import com.testexecutionplatform.util.GzipEncoding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,18 +22,20 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 import org.springframework.beans.factory.annotation.Value;
 
 @RestController
@@ -35,12 +43,29 @@ import org.springframework.beans.factory.annotation.Value;
 public class TestPlanExecutionController {
     
     private static final Logger log = LoggerFactory.getLogger(TestPlanExecutionController.class);
+
+    // 压缩上传时输出与错误之间的空行，作为一个独立的gzip成员
+    private static final byte[] GZIP_LOG_SEPARATOR = GzipEncoding.compress("\n\n".getBytes(), 1);
     
     @Autowired
     private TestPlanExecutionService testPlanExecutionService;
 
-    @Value("${project.root.dir}")
-    private String projectRootDir;
+    @Autowired
+    private ExecutionLogStorageService executionLogStorageService;
+
+    @Autowired
+    private TestPlanExecutionShardService testPlanExecutionShardService;
+
+    @Autowired
+    private DispatchPipeline dispatchPipeline;
+
+    // 单个日志分片的最大字节数
+    @Value("${log.append.max-chunk-bytes:1048576}")
+    private int maxLogChunkBytes;
+
+    // 单次批量上报的最大事件数
+    @Value("${execution.events.max-batch-size:1000}")
+    private int maxEventBatchSize;
     
     /**
      * 执行测试计划
@@ -52,9 +77,14 @@ public class TestPlanExecutionController {
             if (execution == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(execution);
+            // 下发在后台进行，通过执行记录查询进度
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(execution);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Invalid parameter: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(dispatchPipeline.getRetryAfterSeconds()))
+                    .body("Failed to execute test plan: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to execute test plan: " + e.getMessage());
         }
@@ -76,6 +106,50 @@ public class TestPlanExecutionController {
         }
     }
     
+    /**
+     * 取消执行中的计划执行：结束节点上正在运行的脚本进程，剩余脚本不再执行
+     */
+    @PostMapping("/{executionId}/cancel")
+    public ResponseEntity<?> cancelExecution(@PathVariable Long executionId) {
+        try {
+            TestPlanExecution execution = testPlanExecutionService.cancelExecution(executionId);
+            if (execution == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(execution);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to cancel execution: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取计划执行的分片，未分片执行时为空
+     */
+    @GetMapping("/{executionId}/shards")
+    public ResponseEntity<?> getExecutionShards(@PathVariable Long executionId) {
+        try {
+            return ResponseEntity.ok(testPlanExecutionShardService.getShards(executionId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to get shards: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取单个分片，执行节点据此确定需要执行的脚本
+     */
+    @GetMapping("/shards/{shardId}")
+    public ResponseEntity<?> getExecutionShard(@PathVariable Long shardId) {
+        try {
+            TestPlanExecutionShard shard = testPlanExecutionShardService.getShard(shardId);
+            if (shard == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(shard);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to get shard: " + e.getMessage());
+        }
+    }
+    
     /**
      * 根据测试计划ID获取执行记录列表
      */
@@ -117,7 +191,7 @@ public class TestPlanExecutionController {
     }
     
     /**
-     * 更新执行计划状态
+     * 更新执行计划状态，带shardId时只是该分片的状态，与其他分片汇总
      */
     @PutMapping("/{executionId}")
     public ResponseEntity<?> updateExecutionStatus(@PathVariable Long executionId, @RequestBody Map<String, Object> updateData) {
@@ -126,18 +200,19 @@ public class TestPlanExecutionController {
             Integer totalScripts = (Integer) updateData.get("totalScripts");
             Integer successScripts = (Integer) updateData.get("successScripts");
             Integer failedScripts = (Integer) updateData.get("failedScripts");
+            Long shardId = updateData.get("shardId") != null ? ((Number) updateData.get("shardId")).longValue() : null;
             
-            TestPlanExecution execution = testPlanExecutionService.getExecutionById(executionId);
-            if (execution != null) {
-                execution.setStatus(status);
-                if (totalScripts != null) execution.setTotalScripts(totalScripts);
-                if (successScripts != null) execution.setSuccessScripts(successScripts);
-                if (failedScripts != null) execution.setFailedScripts(failedScripts);
-                if ("SUCCESS".equals(status) || "FAILURE".equals(status)) {
-                    execution.setEndTime(LocalDateTime.now());
+            if (shardId != null) {
+                TestPlanExecutionShard shard = testPlanExecutionShardService.getShard(shardId);
+                if (shard == null || !shard.getExecution().getId().equals(executionId)) {
+                    return ResponseEntity.notFound().build();
                 }
-                TestPlanExecution updatedExecution = testPlanExecutionService.updateExecution(execution);
-                return ResponseEntity.ok(updatedExecution);
+                return ResponseEntity.ok(testPlanExecutionShardService.applyShardProgress(shardId, status, totalScripts, successScripts, failedScripts));
+            }
+            
+            TestPlanExecution execution = testPlanExecutionService.applyExecutionProgress(executionId, status, totalScripts, successScripts, failedScripts);
+            if (execution != null) {
+                return ResponseEntity.ok(execution);
             }
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -157,8 +232,9 @@ public class TestPlanExecutionController {
         String result = (String) updateData.get("result");
         String errorMessage = (String) updateData.get("errorMessage");
         Long executionTime = updateData.get("executionTime") != null ? ((Number) updateData.get("executionTime")).longValue() : null;
+        Integer attempts = updateData.get("attempts") != null ? ((Number) updateData.get("attempts")).intValue() : null;
         
-        testPlanExecutionService.updateExecutionLogStatus(logId, status, result, errorMessage, executionTime);
+        testPlanExecutionService.updateExecutionLogStatus(logId, status, result, errorMessage, executionTime, attempts);
         
         // 返回更新后的日志
         TestPlanExecutionLog updatedLog = testPlanExecutionService.getExecutionLogById(logId);
@@ -166,6 +242,34 @@ public class TestPlanExecutionController {
         return updatedLog != null ? ResponseEntity.ok(updatedLog) : ResponseEntity.notFound().build();
     }
     
+    /**
+     * 接收执行节点批量上报的执行事件（日志创建、日志结束、计划进度），在一个事务中应用
+     * 返回本批次涉及的clientKey到日志ID的映射
+     */
+    @PostMapping("/{executionId}/events")
+    public ResponseEntity<?> applyExecutionEvents(@PathVariable Long executionId, @RequestBody ExecutionEventBatch batch) {
+        if (batch.getEvents() == null || batch.getEvents().isEmpty()) {
+            return ResponseEntity.badRequest().body("No events");
+        }
+        if (batch.getEvents().size() > maxEventBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Event batch exceeds " + maxEventBatchSize + " events");
+        }
+        try {
+            Map<String, Long> logIds = testPlanExecutionService.applyExecutionEvents(executionId, batch.getEvents());
+            Map<String, Object> body = new HashMap<>();
+            body.put("applied", batch.getEvents().size());
+            body.put("logIds", logIds);
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid event: " + e.getMessage());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error applying events to execution {}: {}", executionId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to apply events: " + e.getMessage());
+        }
+    }
+    
     // 异常处理
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<?> handleMissingParams(MissingServletRequestParameterException ex) {
@@ -190,17 +294,36 @@ public class TestPlanExecutionController {
     public ResponseEntity<String> uploadLogContent(@RequestParam("planId") String planId, 
                                                  @RequestParam("scriptId") String scriptId,
                                                  @RequestParam("executionId") String executionId,
-                                                 @RequestParam("logId") String logId,
-                                                 @RequestParam("logContent") String logContent) {
+                                                 @RequestParam(value = "logId", required = false) String logId,
+                                                 @RequestParam(value = "logContent", required = false) String logContent,
+                                                 @RequestParam(value = "stdoutFile", required = false) MultipartFile stdoutFile,
+                                                 @RequestParam(value = "stderrFile", required = false) MultipartFile stderrFile,
+                                                 @RequestParam(value = "contentEncoding", required = false) String contentEncoding,
+                                                 @RequestParam(value = "stdoutLength", required = false) Long stdoutLength,
+                                                 @RequestParam(value = "stderrLength", required = false) Long stderrLength) {
+        if (contentEncoding != null && !GzipEncoding.GZIP.equalsIgnoreCase(contentEncoding)) {
+            // 节点据此改为不压缩上传
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .header(HttpHeaders.ACCEPT_ENCODING, GzipEncoding.GZIP)
+                    .body("Unsupported log content encoding: " + contentEncoding);
+        }
         try {
-            // 确保日志目录存在
-            String logDir = "logs/" + planId + "/" + executionId;
-            Path logDirPath = Paths.get(projectRootDir, logDir);
-            Files.createDirectories(logDirPath);
-            
-            // 保存日志内容到文件
-            String logFilePath = logDir + "/" + scriptId + ".log";
-            Files.write(Paths.get(projectRootDir,logFilePath), logContent.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            if (contentEncoding != null && logContent == null) {
+                // 节点上传的是gzip压缩的输出和错误文件，依次拼接为一个gzip日志保存，不在平台解压
+                long length = (stdoutLength != null ? stdoutLength : 0) + 2 + (stderrLength != null ? stderrLength : 0);
+                executionLogStorageService.writeCompressedLogContent(planId, executionId, scriptId, length,
+                        stdoutFile != null ? stdoutFile.getInputStream() : new ByteArrayInputStream(new byte[0]),
+                        new ByteArrayInputStream(GZIP_LOG_SEPARATOR),
+                        stderrFile != null ? stderrFile.getInputStream() : new ByteArrayInputStream(new byte[0]));
+            } else if (logContent != null) {
+                executionLogStorageService.writeLogContent(planId, executionId, scriptId, new ByteArrayInputStream(logContent.getBytes()));
+            } else {
+                // 节点以文件形式上传完整输出，按“输出+空行+错误”的格式流式写入，不在内存中拼接
+                executionLogStorageService.writeLogContent(planId, executionId, scriptId,
+                        stdoutFile != null ? stdoutFile.getInputStream() : new ByteArrayInputStream(new byte[0]),
+                        new ByteArrayInputStream("\n\n".getBytes()),
+                        stderrFile != null ? stderrFile.getInputStream() : new ByteArrayInputStream(new byte[0]));
+            }
             
             log.info("Log content saved successfully for plan {}, script {}, execution {}", planId, scriptId, executionId);
             return ResponseEntity.ok("Log content uploaded successfully");
@@ -210,29 +333,78 @@ public class TestPlanExecutionController {
         }
     }
     
+    /**
+     * 接收执行节点增量推送的日志分片，按字节偏移量追加到日志文件
+     * 偏移量与平台已有大小不一致时返回409及平台当前大小，节点据此调整后续分片
+     */
+    @PostMapping(value = "/logs/append", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> appendLogChunk(@RequestParam("planId") String planId,
+                                            @RequestParam("executionId") String executionId,
+                                            @RequestParam("scriptId") String scriptId,
+                                            @RequestParam("offset") long offset,
+                                            @RequestBody(required = false) byte[] chunk) {
+        try {
+            if (chunk != null && chunk.length > maxLogChunkBytes) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Log chunk exceeds " + maxLogChunkBytes + " bytes");
+            }
+            long committed = executionLogStorageService.appendLogChunk(planId, executionId, scriptId, offset, chunk != null ? chunk : new byte[0]);
+            Map<String, Object> body = new HashMap<>();
+            body.put("offset", committed);
+            if (committed < offset) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+            }
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            log.error("Error appending log chunk: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to append log chunk");
+        }
+    }
+    
+    /**
+     * 查询日志文件当前已写入的字节数，供节点断点续传
+     */
+    @GetMapping("/logs/offset")
+    public ResponseEntity<?> getLogOffset(@RequestParam("planId") String planId,
+                                          @RequestParam("executionId") String executionId,
+                                          @RequestParam("scriptId") String scriptId) {
+        try {
+            Map<String, Object> body = new HashMap<>();
+            body.put("offset", executionLogStorageService.getLogSize(planId, executionId, scriptId));
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            log.error("Error reading log offset: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to read log offset");
+        }
+    }
+    
     /**
      * 下载执行日志文件
+     * 日志以压缩形式保存且客户端接受gzip时直接发送压缩内容，否则流式解压后发送
      */
     @GetMapping("/logs/download")
     public ResponseEntity<Resource> downloadLogFile(@RequestParam("planId") String planId, 
                                                  @RequestParam("executionId") String executionId,
-                                                 @RequestParam("scriptId") String scriptId) {
+                                                 @RequestParam("scriptId") String scriptId,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            // 构建日志文件路径
-            String logFilePath = "logs/" + planId + "/" + executionId + "/" + scriptId + ".log";
-            Path path = Paths.get(projectRootDir, logFilePath);
-            Resource resource = new UrlResource(path.toUri());
-            
-            if (resource.exists() || resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + scriptId + ".log")
-                        .body(resource);
-            } else {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + scriptId + ".log")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .contentType(MediaType.TEXT_PLAIN);
+            if (GzipEncoding.accepts(acceptEncoding)) {
+                InputStream compressed = executionLogStorageService.openCompressedLogContent(planId, executionId, scriptId);
+                if (compressed != null) {
+                    return response.header(HttpHeaders.CONTENT_ENCODING, GzipEncoding.GZIP).body(new InputStreamResource(compressed));
+                }
+            }
+            InputStream content = executionLogStorageService.openLogContent(planId, executionId, scriptId);
+            if (content == null) {
                 return ResponseEntity.notFound().build();
             }
+            return response.body(new InputStreamResource(content));
         } catch (Exception e) {
             log.error("Error downloading log file: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+}
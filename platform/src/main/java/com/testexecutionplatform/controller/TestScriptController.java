@@ -1,11 +1,11 @@
 package com.testexecutionplatform.controller;
 
 import com.testexecutionplatform.model.TestScript;
+import com.testexecutionplatform.service.ScriptFileService;
 import com.testexecutionplatform.service.TestScriptService;
+import com.testexecutionplatform.util.GzipEncoding;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,8 +17,10 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.io.File;
 import java.util.Map;
@@ -30,8 +32,12 @@ public class TestScriptController {
     @Autowired
     private TestScriptService testScriptService;
 
-    @Value("${project.root.dir}")
-    private String projectRootDir;
+    @Autowired
+    private ScriptFileService scriptFileService;
+
+    // 小于该大小的脚本不压缩传输
+    @Value("${transfer.compression.min-bytes:2048}")
+    private long compressionMinBytes;
 
     @GetMapping
     public ResponseEntity<Page<TestScript>> getAllTestScripts(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
@@ -115,35 +121,44 @@ public class TestScriptController {
     }
 
     @GetMapping("/download")
-    public ResponseEntity<Resource> downloadScriptFile(@RequestParam String filePath) {
+    public ResponseEntity<StreamingResponseBody> downloadScriptFile(@RequestParam String filePath,
+                                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
             // 构建完整的文件路径
-            String scriptsDir = projectRootDir + File.separator + "scripts";
-            
-            // 安全检查：移除可能存在的scripts/前缀，避免路径重复
-            if (filePath.startsWith("scripts/")) {
-                filePath = filePath.substring("scripts/".length());
-            }
-            
-            String fullPath = scriptsDir + File.separator + filePath;
-            File file = new File(fullPath);
+            File file = scriptFileService.resolveScriptFile(filePath);
             
             // 检查文件是否存在
             if (!file.exists()) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
             
-            // 创建资源对象
-            Resource resource = new FileSystemResource(file);
+            // 以内容摘要作为ETag，节点已缓存相同内容时返回304，不再传输文件
+            String eTag = "\"" + scriptFileService.getContentHash(file) + "\"";
+            if (eTag.equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
             
             // 设置响应头
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.TEXT_PLAIN);
+            headers.setETag(eTag);
             headers.setContentDisposition(ContentDisposition.builder("attachment")
                     .filename(file.getName(), StandardCharsets.UTF_8)
                     .build());
             
-            return new ResponseEntity<>(resource, headers, HttpStatus.OK);
+            headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            
+            // 客户端接受gzip且文件不太小时压缩传输（带强ETag的响应不会被Tomcat压缩，这里自行处理）
+            if (GzipEncoding.accepts(acceptEncoding) && file.length() >= compressionMinBytes) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, GzipEncoding.GZIP);
+                StreamingResponseBody body = out -> scriptFileService.writeCompressed(file, out);
+                return new ResponseEntity<>(body, headers, HttpStatus.OK);
+            }
+            
+            headers.setContentLength(file.length());
+            StreamingResponseBody body = out -> Files.copy(file.toPath(), out);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -0,0 +1,64 @@
+package com.testexecutionplatform.controller;
+
+import com.testexecutionplatform.model.WorkUnit;
+import com.testexecutionplatform.service.ExecutionNodeService;
+import com.testexecutionplatform.service.WorkLeaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * 执行节点领取工作单元的接口（拉取模式）
+ */
+@RestController
+@RequestMapping("/api/execution-nodes/{nodeId}/leases")
+public class WorkLeaseController {
+
+    @Autowired
+    private WorkLeaseService workLeaseService;
+
+    @Autowired
+    private ExecutionNodeService executionNodeService;
+
+    // 长轮询的最长等待时间（毫秒）
+    @Value("${execution.lease.max-wait-ms:30000}")
+    private long maxWaitMillis;
+
+    /**
+     * 领取最多max个工作单元，暂时没有时最多等待waitMs毫秒，超时返回空列表
+     */
+    @GetMapping
+    public DeferredResult<List<WorkUnit>> pollLeases(@PathVariable String nodeId,
+                                                     @RequestParam(defaultValue = "1") int max,
+                                                     @RequestParam(required = false) Long waitMs) {
+        if (!executionNodeService.getExecutionNodeByNodeId(nodeId).isPresent()) {
+            DeferredResult<List<WorkUnit>> result = new DeferredResult<>();
+            result.setErrorResult(new ResponseStatusException(HttpStatus.NOT_FOUND, "Execution node not registered: " + nodeId));
+            return result;
+        }
+        long waitMillis = waitMs != null ? Math.min(Math.max(waitMs, 0), maxWaitMillis) : maxWaitMillis;
+        return workLeaseService.pollLeases(nodeId, Math.max(max, 0), waitMillis);
+    }
+
+    /**
+     * 续租，返回仍由该节点持有的单元ID，不在其中的租约已被回收
+     */
+    @PostMapping("/renew")
+    public ResponseEntity<List<Long>> renewLeases(@PathVariable String nodeId, @RequestBody List<Long> unitIds) {
+        return new ResponseEntity<>(workLeaseService.renewLeases(nodeId, unitIds), HttpStatus.OK);
+    }
+
+    @PostMapping("/{unitId}/complete")
+    public ResponseEntity<Void> completeLease(@PathVariable String nodeId, @PathVariable Long unitId) {
+        if (workLeaseService.completeLease(nodeId, unitId)) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,41 @@
+package com.testexecutionplatform.dto;
+
+import lombok.Data;
+
+/**
+ * 执行节点批量上报的执行事件
+ * LOG_CREATED：脚本开始执行，创建执行日志（clientKey、scriptId）
+ * LOG_FINISHED：脚本执行结束，更新执行日志（clientKey、status、result、errorMessage、executionTime、attempts）
+ * PROGRESS：计划执行进度（status、totalScripts、successScripts、failedScripts），分片执行时带shardId，只是该分片的进度
+ */
+@Data
+public class ExecutionEvent {
+    public static final String LOG_CREATED = "LOG_CREATED";
+    public static final String LOG_FINISHED = "LOG_FINISHED";
+    public static final String PROGRESS = "PROGRESS";
+
+    private String type;
+
+    // 节点生成的日志标识，同一执行内唯一，重复上报时按此去重
+    private String clientKey;
+
+    private Long scriptId;
+
+    private String status;
+
+    private String result;
+
+    private String errorMessage;
+
+    private Long executionTime;
+
+    private Integer attempts;
+
+    private Integer totalScripts;
+
+    private Integer successScripts;
+
+    private Integer failedScripts;
+
+    private Long shardId;
+}
@@ -0,0 +1,14 @@
+package com.testexecutionplatform.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次批量上报的执行事件，按节点产生的顺序排列
+ */
+@Data
+public class ExecutionEventBatch {
+    private List<ExecutionEvent> events = new ArrayList<>();
+}
@@ -0,0 +1,32 @@
+package com.testexecutionplatform.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+/**
+ * 执行节点长连接上的一条消息
+ * 节点发出的请求带id，平台以RESPONSE回复并在replyTo中带上请求id；日志分片使用二进制帧：
+ * 4字节消息头长度 + 消息头JSON + 分片内容
+ */
+@Data
+public class NodeChannelMessage {
+    // 节点 -> 平台
+    public static final String HELLO = "HELLO";
+    public static final String HEARTBEAT = "HEARTBEAT";
+    public static final String STATUS = "STATUS";
+    public static final String EVENTS = "EVENTS";
+    public static final String LOG_APPEND = "LOG_APPEND";
+    public static final String CREDIT = "CREDIT";
+    // 平台 -> 节点
+    public static final String RESPONSE = "RESPONSE";
+    public static final String DISPATCH_PLAN = "DISPATCH_PLAN";
+    public static final String DISPATCH_TASK = "DISPATCH_TASK";
+    public static final String CANCEL_PLAN = "CANCEL_PLAN";
+    public static final String CANCEL_TASK = "CANCEL_TASK";
+
+    private String type;
+    private Long id;
+    private Long replyTo;
+    private Integer status;
+    private JsonNode payload;
+}
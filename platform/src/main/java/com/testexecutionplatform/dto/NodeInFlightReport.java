@@ -0,0 +1,17 @@
+package com.testexecutionplatform.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 节点注册时上报的执行情况，平台据此核对分配给该节点的执行记录
+ */
+@Data
+public class NodeInFlightReport {
+    private List<Long> runningExecutionIds = new ArrayList<>(); // 正在执行的测试计划执行
+    private List<Long> runningTaskIds = new ArrayList<>();
+    private List<Long> unacknowledgedExecutionIds = new ArrayList<>(); // 已执行结束但结果尚在节点发件箱中等待送达
+    private List<Long> unacknowledgedTaskIds = new ArrayList<>();
+}
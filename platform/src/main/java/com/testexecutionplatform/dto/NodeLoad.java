@@ -0,0 +1,21 @@
+package com.testexecutionplatform.dto;
+
+import lombok.Data;
+
+/**
+ * 执行节点随心跳上报的负载信息
+ */
+@Data
+public class NodeLoad {
+    private Integer runningScripts; // 正在执行的脚本进程数
+    private Integer maxSlots; // 节点可同时执行的脚本数
+    private Integer freeSlots;
+    private Integer queueDepth; // 等待执行的脚本数
+    private Integer activeUnits; // 正在执行的测试计划/任务数
+    private Double loadAverage; // 系统1分钟平均负载，平台不支持时为负数
+    private Long freeMemoryBytes;
+    private Long freeDiskBytes; // 节点临时脚本目录所在磁盘的可用空间
+    private Integer admissionQueued; // 节点准入队列中等待执行的计划/任务数
+    private Long estimatedWaitMillis; // 新下发的计划/任务在节点上预计等待的时间
+    private Long reportedAt; // 平台收到心跳的时间（毫秒）
+}
@@ -0,0 +1,16 @@
+package com.testexecutionplatform.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.testexecutionplatform.model.ExecutionNode;
+import lombok.Data;
+
+/**
+ * 节点注册请求：节点信息与ExecutionNode字段相同，inFlight由支持核对的节点提供
+ */
+@Data
+public class NodeRegistrationRequest {
+    @JsonUnwrapped
+    private ExecutionNode node = new ExecutionNode();
+
+    private NodeInFlightReport inFlight;
+}
@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "test_execution_tasks")
+@Table(name = "test_execution_tasks", indexes = @Index(name = "idx_task_status_dispatch_order", columnList = "status, dispatch_order"))
 public class TestExecutionTask {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,7 +19,7 @@ public class TestExecutionTask {
     @Column(nullable = false)
     private String status;
     
-    private String priority;
+    private String priority; // HIGH、MEDIUM、LOW或数字（越大越优先），为空时按MEDIUM
     
     private String environment;
     
@@ -31,6 +31,14 @@ public class TestExecutionTask {
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
     
+    // 进入待执行队列的时间，用于排队老化
+    @Column(name = "queued_at")
+    private LocalDateTime queuedAt;
+    
+    // 下发顺序：入队时间（毫秒）减去优先级折算的老化时长，越小越先下发，入队时计算
+    @Column(name = "dispatch_order")
+    private Long dispatchOrder;
+    
     @Column(name = "start_time")
     private LocalDateTime startTime;
     
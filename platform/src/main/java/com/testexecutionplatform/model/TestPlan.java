@@ -41,6 +41,9 @@ public class TestPlan {
     
     @Column(name = "execution_endpoint_type", nullable = false)
     private String executionEndpointType; // MiniApp, Web, App, Api
+
+    @Column(name = "script_order")
+    private String scriptOrder; // DURATION（历史耗时长的先执行）, FAIL_FAST（历史不稳定的先执行）, PLAN（计划中的顺序），为空时使用平台默认
     
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -23,7 +23,7 @@ public class TestPlanExecution {
     private ExecutionNode executionNode;
     
     @Column(nullable = false)
-    private String status; // EXECUTING, SUCCESS, FAILURE
+    private String status; // EXECUTING, SUCCESS, FAILURE, CANCELLED
     
     @Column(name = "total_scripts")
     private Integer totalScripts;
@@ -46,6 +46,11 @@ public class TestPlanExecution {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
     
+    // 已成功、失败或取消的执行不再改变状态
+    public boolean isFinished() {
+        return "SUCCESS".equals(status) || "FAILURE".equals(status) || "CANCELLED".equals(status);
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
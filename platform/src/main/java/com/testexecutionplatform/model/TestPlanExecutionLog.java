@@ -6,7 +6,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "test_plan_execution_logs")
+@Table(name = "test_plan_execution_logs",
+       uniqueConstraints = @UniqueConstraint(name = "uk_log_client_key", columnNames = {"execution_id", "client_key"}),
+       indexes = @Index(name = "idx_log_script_created", columnList = "script_id, created_at"))
 public class TestPlanExecutionLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,6 +25,10 @@ public class TestPlanExecutionLog {
     @Column(nullable = false)
     private String status; // EXECUTING, SUCCESS, FAILURE
     
+    // 执行节点生成的日志标识，批量上报事件时用于关联和去重
+    @Column(name = "client_key", length = 64)
+    private String clientKey;
+    
     // 修改result字段为TEXT类型，支持更长的文本内容
     @Column(columnDefinition = "TEXT")
     private String result;
@@ -33,6 +39,9 @@ public class TestPlanExecutionLog {
     @Column(name = "execution_time")
     private Long executionTime; // in milliseconds
     
+    @Column(name = "attempts")
+    private Integer attempts; // 执行尝试次数（含重试）
+    
     @Column(columnDefinition = "TEXT")
     private String logContent;
     
@@ -0,0 +1,91 @@
+package com.testexecutionplatform.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import javax.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 计划执行分片
+ * 计划执行分配到多个节点时，每个节点执行其中一部分脚本，进度按分片上报后汇总到同一条执行记录
+ */
+@Data
+@Entity
+@Table(name = "test_plan_execution_shards")
+public class TestPlanExecutionShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "execution_id", nullable = false)
+    @JsonIgnore
+    private TestPlanExecution execution;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @ManyToOne
+    @JoinColumn(name = "node_id", nullable = false)
+    private ExecutionNode executionNode;
+
+    // 分配到该分片的脚本ID，逗号分隔
+    @Column(name = "script_ids", columnDefinition = "TEXT", nullable = false)
+    private String scriptIds;
+
+    // 按历史执行耗时估算的分片执行时间（毫秒）
+    @Column(name = "estimated_duration")
+    private Long estimatedDuration;
+
+    @Column(nullable = false)
+    private String status; // EXECUTING, SUCCESS, FAILURE, CANCELLED
+
+    @Column(name = "total_scripts")
+    private Integer totalScripts;
+
+    @Column(name = "success_scripts")
+    private Integer successScripts;
+
+    @Column(name = "failed_scripts")
+    private Integer failedScripts;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public List<Long> getScriptIdList() {
+        List<Long> ids = new ArrayList<>();
+        if (scriptIds != null && !scriptIds.isEmpty()) {
+            for (String id : scriptIds.split(",")) {
+                ids.add(Long.valueOf(id.trim()));
+            }
+        }
+        return ids;
+    }
+
+    public boolean isFinished() {
+        return !"EXECUTING".equals(status);
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        startTime = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,73 @@
+package com.testexecutionplatform.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 待执行节点领取的工作单元（拉取模式）
+ * 节点通过长轮询租用工作单元，执行期间定时续租，租约过期的单元重新回到队列
+ */
+@Data
+@Entity
+@Table(name = "work_units", indexes = @Index(name = "idx_work_unit_status", columnList = "status"))
+public class WorkUnit {
+    public static final String TYPE_PLAN = "PLAN";
+    public static final String TYPE_TASK = "TASK";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "unit_type", nullable = false, length = 16)
+    private String unitType; // PLAN, TASK
+
+    @Column(name = "execution_id")
+    private Long executionId;
+
+    @Column(name = "plan_id")
+    private Long planId;
+
+    // 计划执行分片ID，为空时执行计划的全部脚本
+    @Column(name = "shard_id")
+    private Long shardId;
+
+    @Column(name = "task_id")
+    private Long taskId;
+
+    // 指定执行节点时只允许该节点领取
+    @Column(name = "target_node_id")
+    private String targetNodeId;
+
+    @Column(nullable = false, length = 16)
+    private String status; // PENDING, LEASED, COMPLETED, FAILED, CANCELLED
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,6 +1,7 @@
 package com.testexecutionplatform.repository;
 
 import com.testexecutionplatform.model.TestExecutionTask;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,9 @@ import java.util.List;
 public interface TestExecutionTaskRepository extends JpaRepository<TestExecutionTask, Long> {
     // 根据测试计划ID查询任务
     List<TestExecutionTask> findByPlanId(Long planId);
+
+    List<TestExecutionTask> findByExecutionNodeIdAndStatus(String executionNodeId, String status);
+
+    // 按下发顺序取出（已按优先级和排队老化折算）
+    List<TestExecutionTask> findByStatusOrderByDispatchOrderAscIdAsc(String status, Pageable pageable);
 }
@@ -5,8 +5,12 @@ import com.testexecutionplatform.model.TestPlanExecutionLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +18,17 @@ public interface TestPlanExecutionLogRepository extends JpaRepository<TestPlanEx
     List<TestPlanExecutionLog> findByExecutionOrderByCreatedAtAsc(TestPlanExecution execution);
     List<TestPlanExecutionLog> findByExecutionIdOrderByCreatedAtAsc(Long executionId);
     Page<TestPlanExecutionLog> findByExecutionIdOrderByCreatedAtAsc(Long executionId, Pageable pageable);
+    List<TestPlanExecutionLog> findByExecutionIdAndClientKeyIn(Long executionId, Collection<String> clientKeys);
+
+    // 脚本自since以来的平均执行耗时，返回[脚本ID, 平均耗时]，被取消的执行不计入
+    @Query("SELECT l.testScript.id, AVG(l.executionTime) FROM TestPlanExecutionLog l WHERE l.testScript.id IN :scriptIds " +
+            "AND l.executionTime > 0 AND l.status <> 'CANCELLED' AND l.createdAt >= :since GROUP BY l.testScript.id")
+    List<Object[]> findAverageExecutionTimes(@Param("scriptIds") Collection<Long> scriptIds, @Param("since") LocalDateTime since);
+
+    // 脚本自since以来的执行次数和不稳定次数（失败或重试后才成功），返回[脚本ID, 执行次数, 不稳定次数]；
+    // 早期保存的日志中失败状态可能为节点上报的FAILED
+    @Query("SELECT l.testScript.id, COUNT(l), SUM(CASE WHEN l.status IN ('FAILURE', 'FAILED') OR l.attempts > 1 THEN 1 ELSE 0 END) " +
+            "FROM TestPlanExecutionLog l WHERE l.testScript.id IN :scriptIds AND l.status IN ('SUCCESS', 'FAILURE', 'FAILED') " +
+            "AND l.createdAt >= :since GROUP BY l.testScript.id")
+    List<Object[]> findFailureCounts(@Param("scriptIds") Collection<Long> scriptIds, @Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -3,11 +3,14 @@ package com.testexecutionplatform.repository;
 import com.testexecutionplatform.model.TestPlan;
 import com.testexecutionplatform.model.TestPlanExecution;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TestPlanExecutionRepository extends JpaRepository<TestPlanExecution, Long> {
@@ -15,4 +18,11 @@ public interface TestPlanExecutionRepository extends JpaRepository<TestPlanExecu
     
     @Query("SELECT e FROM TestPlanExecution e JOIN FETCH e.executionNode WHERE e.testPlan.id = :planId ORDER BY e.createdAt DESC")
     List<TestPlanExecution> findByTestPlanIdOrderByCreatedAtDesc(@Param("planId") Long planId);
+
+    List<TestPlanExecution> findByExecutionNode_NodeIdAndStatus(String nodeId, String status);
+
+    // 加行锁读取执行记录，汇总各分片进度时串行化
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM TestPlanExecution e WHERE e.id = :id")
+    Optional<TestPlanExecution> findByIdForUpdate(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.testexecutionplatform.repository;
+
+import com.testexecutionplatform.model.TestPlanExecutionShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TestPlanExecutionShardRepository extends JpaRepository<TestPlanExecutionShard, Long> {
+    List<TestPlanExecutionShard> findByExecutionIdOrderByShardIndexAsc(Long executionId);
+
+    List<TestPlanExecutionShard> findByExecutionNode_NodeIdAndStatus(String nodeId, String status);
+
+    boolean existsByExecutionId(Long executionId);
+}
@@ -0,0 +1,72 @@
+package com.testexecutionplatform.repository;
+
+import com.testexecutionplatform.model.WorkUnit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WorkUnitRepository extends JpaRepository<WorkUnit, Long> {
+    @Query("SELECT w FROM WorkUnit w WHERE w.status = 'PENDING' AND (w.targetNodeId IS NULL OR w.targetNodeId = :nodeId) ORDER BY w.id")
+    List<WorkUnit> findLeasable(@Param("nodeId") String nodeId, Pageable pageable);
+
+    // 只有仍处于PENDING的单元才能被租用，多个节点同时领取时只有一个成功
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkUnit w SET w.status = 'LEASED', w.leaseOwner = :nodeId, w.leaseExpiresAt = :expiresAt, " +
+            "w.attempts = w.attempts + 1, w.updatedAt = :now WHERE w.id = :id AND w.status = 'PENDING'")
+    int acquire(@Param("id") Long id, @Param("nodeId") String nodeId, @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkUnit w SET w.leaseExpiresAt = :expiresAt, w.updatedAt = :now " +
+            "WHERE w.id IN :ids AND w.status = 'LEASED' AND w.leaseOwner = :nodeId")
+    int renew(@Param("ids") Collection<Long> ids, @Param("nodeId") String nodeId, @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    // 将租约交还队列，领取次数不变
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkUnit w SET w.status = 'PENDING', w.leaseOwner = NULL, w.leaseExpiresAt = NULL, " +
+            "w.attempts = w.attempts - 1, w.updatedAt = :now WHERE w.id = :id AND w.status = 'LEASED' AND w.leaseOwner = :nodeId")
+    int release(@Param("id") Long id, @Param("nodeId") String nodeId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkUnit w SET w.status = :status, w.leaseExpiresAt = NULL, w.updatedAt = :now " +
+            "WHERE w.id = :id AND w.status = 'LEASED' AND w.leaseOwner = :nodeId")
+    int finish(@Param("id") Long id, @Param("nodeId") String nodeId, @Param("status") String status, @Param("now") LocalDateTime now);
+
+    // 租约过期时仍由原节点持有才回收，避免覆盖期间完成或续租的结果
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkUnit w SET w.status = :status, w.leaseOwner = NULL, w.leaseExpiresAt = NULL, w.updatedAt = :now " +
+            "WHERE w.id = :id AND w.status = 'LEASED' AND w.leaseExpiresAt < :now")
+    int expire(@Param("id") Long id, @Param("status") String status, @Param("now") LocalDateTime now);
+
+    // 撤回尚未被领取的单元
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkUnit w SET w.status = 'CANCELLED', w.updatedAt = :now WHERE w.executionId = :executionId AND w.status = 'PENDING'")
+    int cancelPendingExecution(@Param("executionId") Long executionId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkUnit w SET w.status = 'CANCELLED', w.updatedAt = :now WHERE w.taskId = :taskId AND w.status = 'PENDING'")
+    int cancelPendingTask(@Param("taskId") Long taskId, @Param("now") LocalDateTime now);
+
+    List<WorkUnit> findByIdInAndStatusAndLeaseOwner(Collection<Long> ids, String status, String leaseOwner);
+
+    List<WorkUnit> findByStatusAndLeaseExpiresAtBefore(String status, LocalDateTime time);
+
+    boolean existsByExecutionIdAndStatusIn(Long executionId, Collection<String> statuses);
+
+    boolean existsByTaskIdAndStatusIn(Long taskId, Collection<String> statuses);
+}
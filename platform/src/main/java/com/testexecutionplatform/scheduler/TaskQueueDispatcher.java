@@ -0,0 +1,22 @@
+package com.testexecutionplatform.scheduler;
+
+import com.testexecutionplatform.service.TaskQueueService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 待执行任务下发器
+ * 定期下发排队中的任务，平台重启后也由此继续处理重启前排队的任务
+ */
+@Component
+public class TaskQueueDispatcher {
+
+    @Autowired
+    private TaskQueueService taskQueueService;
+
+    @Scheduled(fixedDelayString = "${execution.task-queue.dispatch-interval-ms:5000}")
+    public void dispatchQueuedTasks() {
+        taskQueueService.dispatchQueued();
+    }
+}
@@ -0,0 +1,22 @@
+package com.testexecutionplatform.scheduler;
+
+import com.testexecutionplatform.service.WorkLeaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 工作单元租约检查器
+ * 定期回收节点未按时续租的工作单元，使其重新被其他节点领取
+ */
+@Component
+public class WorkLeaseExpiryChecker {
+
+    @Autowired
+    private WorkLeaseService workLeaseService;
+
+    @Scheduled(fixedDelayString = "${execution.lease.expiry-check-interval-ms:5000}")
+    public void checkExpiredLeases() {
+        workLeaseService.expireLeases();
+    }
+}
@@ -0,0 +1,19 @@
+package com.testexecutionplatform.service;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface DispatchPipeline {
+    boolean submit(String label, Attempt attempt, Consumer<Exception> onFailure); // 异步下发，失败按退避重试，重试用尽后回调onFailure；队列已满或正在关闭时拒绝并返回false
+    boolean isSaturated(); // 队列已满，新的下发会被拒绝
+    long getRetryAfterSeconds(); // 被拒绝时建议客户端等待的时间
+    Map<String, Object> getStats(); // 队列深度、执行中数量、下发耗时等统计
+
+    /**
+     * 一次下发尝试，抛出异常时按配置重试
+     */
+    @FunctionalInterface
+    interface Attempt {
+        void run() throws Exception;
+    }
+}
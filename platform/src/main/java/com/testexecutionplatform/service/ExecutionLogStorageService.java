@@ -0,0 +1,28 @@
+package com.testexecutionplatform.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface ExecutionLogStorageService {
+    // 获取脚本执行日志文件路径：logs/{planId}/{executionId}/{scriptId}.log（压缩保存时为同目录下的.log.gz）
+    Path getLogFilePath(String planId, String executionId, String scriptId);
+    
+    // 获取日志文件当前已写入的字节数，文件不存在时返回0
+    long getLogSize(String planId, String executionId, String scriptId) throws IOException;
+    
+    // 从指定偏移量追加日志分片，返回追加后已确认的字节数；偏移量超出当前大小时不写入
+    long appendLogChunk(String planId, String executionId, String scriptId, long offset, byte[] chunk) throws IOException;
+    
+    // 整体写入日志内容，覆盖已有文件
+    void writeLogContent(String planId, String executionId, String scriptId, InputStream... contents) throws IOException;
+    
+    // 整体写入已压缩的日志内容：members为依次相接的gzip数据，length为解压后的总字节数
+    void writeCompressedLogContent(String planId, String executionId, String scriptId, long length, InputStream... members) throws IOException;
+    
+    // 打开日志内容（解压后），日志不存在时返回null
+    InputStream openLogContent(String planId, String executionId, String scriptId) throws IOException;
+    
+    // 以压缩形式保存的日志返回其gzip内容，否则返回null
+    InputStream openCompressedLogContent(String planId, String executionId, String scriptId) throws IOException;
+}
@@ -1,5 +1,6 @@
 package com.testexecutionplatform.service;
 
+import com.testexecutionplatform.dto.NodeLoad;
 import com.testexecutionplatform.model.ExecutionNode;
 
 import java.util.List;
@@ -12,6 +13,7 @@ public interface ExecutionNodeService {
     ExecutionNode registerNode(ExecutionNode node);
     ExecutionNode updateNodeStatus(String nodeId, String status);
     ExecutionNode updateHeartbeat(String nodeId);
+    ExecutionNode updateHeartbeat(String nodeId, NodeLoad load); // load为空时只刷新心跳时间
     void removeNode(String nodeId);
     ExecutionNode getAvailableNode();
     List<ExecutionNode> getOnlineExecutionNodes();
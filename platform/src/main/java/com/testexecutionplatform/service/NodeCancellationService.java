@@ -0,0 +1,6 @@
+package com.testexecutionplatform.service;
+
+public interface NodeCancellationService {
+    boolean cancelPlanExecution(String nodeId, Long executionId); // 通知节点结束计划执行的进程并跳过剩余脚本，节点不可达时返回false
+    boolean cancelTask(String nodeId, Long taskId);
+}
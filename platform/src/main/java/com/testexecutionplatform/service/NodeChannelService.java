@@ -0,0 +1,19 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.dto.NodeChannelMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+
+public interface NodeChannelService {
+    WebSocketSession open(WebSocketSession session); // 包装为线程安全的会话，之后的发送都使用返回值
+    void bind(String nodeId, WebSocketSession session, int credits); // 节点握手后关联会话，同一节点的旧连接被关闭
+    void close(WebSocketSession session);
+    void addCredits(WebSocketSession session, int credits); // 节点归还的下发额度
+    boolean isConnected(String nodeId);
+    boolean dispatchPlan(String nodeId, Long planId, Long executionId, Long shardId); // 通过长连接下发，节点未连接或没有额度时返回false；shardId为空时执行全部脚本
+    boolean dispatchTask(String nodeId, Long taskId);
+    boolean cancelPlan(String nodeId, Long executionId); // 通知节点取消执行，不占用下发额度，节点未连接时返回false
+    boolean cancelTask(String nodeId, Long taskId);
+    void send(WebSocketSession session, NodeChannelMessage message) throws IOException;
+}
@@ -0,0 +1,7 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.model.ExecutionNode;
+
+public interface NodeDispatchService {
+    boolean post(ExecutionNode node, String path, Object body); // 调用节点接口，节点繁忙（503）时记录其负载并返回false，其他错误抛出异常
+}
@@ -0,0 +1,13 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.dto.NodeLoad;
+
+import java.util.Map;
+
+public interface NodeLoadRegistry {
+    void update(String nodeId, NodeLoad load);
+    NodeLoad getLoad(String nodeId); // 没有记录或已过期时返回null
+    Map<String, NodeLoad> getAllLoads(); // 所有未过期的节点负载
+    void reserve(String nodeId); // 下发后预占一个空闲执行位，直到下一次心跳刷新；没有负载信息时记为已饱和
+    void remove(String nodeId);
+}
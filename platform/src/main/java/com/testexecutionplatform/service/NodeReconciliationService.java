@@ -0,0 +1,7 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.dto.NodeInFlightReport;
+
+public interface NodeReconciliationService {
+    int reconcile(String nodeId, NodeInFlightReport report); // 将节点上已不存在的执行标记为失败，返回处理的数量
+}
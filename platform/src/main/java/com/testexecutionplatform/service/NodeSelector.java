@@ -0,0 +1,12 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.model.ExecutionNode;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface NodeSelector {
+    ExecutionNode select(String endpointType, Collection<String> excludedNodeIds); // 按配置的策略选择未饱和的节点并预占一个执行位，没有时返回null
+    ExecutionNode peek(String endpointType); // 按策略选择但不预占执行位，用于查询
+    List<ExecutionNode> getMatchingNodes(String endpointType); // 在线且执行端类型匹配的节点（不论是否饱和），endpointType为空时不过滤
+}
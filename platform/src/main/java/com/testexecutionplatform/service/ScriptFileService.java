@@ -0,0 +1,21 @@
+package com.testexecutionplatform.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+public interface ScriptFileService {
+    // 将脚本的filePath解析为scripts目录下的文件，兼容带scripts/前缀的路径
+    File resolveScriptFile(String filePath);
+    
+    // 获取脚本文件内容的SHA-256摘要（十六进制），文件未变化时复用上次计算结果
+    String getContentHash(File file) throws IOException;
+    
+    // 将多个脚本文件打包为zip写入输出流，条目名为filePath；knownHashes中摘要一致的脚本不打包，返回实际打包的数量
+    int writeBundle(Collection<String> filePaths, Map<String, String> knownHashes, OutputStream out) throws IOException;
+    
+    // 以gzip压缩脚本文件内容写入输出流
+    void writeCompressed(File file, OutputStream out) throws IOException;
+}
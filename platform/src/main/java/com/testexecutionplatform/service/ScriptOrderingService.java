@@ -0,0 +1,12 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.model.TestScript;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ScriptOrderingService {
+    Map<Long, Long> estimateScriptDurations(Collection<TestScript> scripts); // 按近期执行耗时估算每个脚本的执行时间（毫秒）
+    List<TestScript> orderScripts(List<TestScript> scripts, String mode); // 按执行顺序排列脚本，mode为DURATION、FAIL_FAST或PLAN，为空时使用平台默认
+}
@@ -0,0 +1,12 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.model.TestExecutionTask;
+
+import java.util.List;
+
+public interface TaskQueueService {
+    TestExecutionTask enqueue(TestExecutionTask task); // 放入待执行队列并在后台触发下发，返回保存后的任务
+    int dispatchQueued(); // 按有效优先级下发排队的任务，直到匹配的节点都已饱和，返回下发的任务数
+    void signal(); // 有执行位空出时在后台触发一次下发
+    List<TestExecutionTask> getQueuedTasks(); // 排队中的任务，按下发顺序排列
+}
@@ -1,21 +1,26 @@
 package com.testexecutionplatform.service;
 
+import com.testexecutionplatform.dto.ExecutionEvent;
 import com.testexecutionplatform.model.TestPlanExecution;
 import com.testexecutionplatform.model.TestPlanExecutionLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 
 public interface TestPlanExecutionService {
     TestPlanExecution executeTestPlan(Long planId, List<Long> nodeIdList);
     TestPlanExecution getExecutionById(Long executionId);
+    TestPlanExecution cancelExecution(Long executionId); // 取消执行中的计划执行，不存在或已结束时返回null
     List<TestPlanExecution> getExecutionsByPlanId(Long planId);
     Page<TestPlanExecutionLog> getExecutionLogsByExecutionId(Long executionId, Pageable pageable);
     List<TestPlanExecutionLog> getExecutionLogsByExecutionId(Long executionId);
     TestPlanExecutionLog getExecutionLogById(Long logId); // 添加根据logId获取日志的方法
     void updateExecutionStatus(Long executionId, String status);
-    void updateExecutionLogStatus(Long logId, String status, String result, String errorMessage, Long executionTime);
+    void updateExecutionLogStatus(Long logId, String status, String result, String errorMessage, Long executionTime, Integer attempts);
     TestPlanExecutionLog createExecutionLog(TestPlanExecutionLog log);
     TestPlanExecution updateExecution(TestPlanExecution execution);
+    TestPlanExecution applyExecutionProgress(Long executionId, String status, Integer totalScripts, Integer successScripts, Integer failedScripts); // 更新节点上报的状态和统计，已结束的执行只更新统计；不存在时返回null
+    Map<String, Long> applyExecutionEvents(Long executionId, List<ExecutionEvent> events); // 在一个事务中应用批量事件，返回clientKey到日志ID的映射
 }
\ No newline at end of file
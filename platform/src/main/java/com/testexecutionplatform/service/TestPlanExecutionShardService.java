@@ -0,0 +1,16 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.model.TestPlanExecution;
+import com.testexecutionplatform.model.TestPlanExecutionShard;
+import com.testexecutionplatform.model.TestScript;
+
+import java.util.List;
+
+public interface TestPlanExecutionShardService {
+    List<TestPlanExecutionShard> createShards(TestPlanExecution execution, List<TestScript> scripts, List<ExecutionNode> nodes); // 按估算耗时将脚本分配到各节点，每个节点一个分片
+    TestPlanExecutionShard getShard(Long shardId);
+    List<TestPlanExecutionShard> getShards(Long executionId);
+    TestPlanExecutionShard reassignShard(TestPlanExecutionShard shard, ExecutionNode node); // 节点繁忙时改派分片
+    TestPlanExecution applyShardProgress(Long shardId, String status, Integer totalScripts, Integer successScripts, Integer failedScripts); // 更新分片进度并汇总到执行记录，返回汇总后的执行记录
+}
@@ -3,6 +3,9 @@ package com.testexecutionplatform.service;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 public class TestResultWebSocketService {
 
@@ -17,6 +20,16 @@ public class TestResultWebSocketService {
         messagingTemplate.convertAndSend("/topic/testResults", message);
     }
 
+    public void sendLogChunk(String executionId, String scriptId, long offset, String content) {
+        // 推送脚本执行日志的增量内容，前端按偏移量拼接
+        Map<String, Object> message = new HashMap<>();
+        message.put("executionId", executionId);
+        message.put("scriptId", scriptId);
+        message.put("offset", offset);
+        message.put("content", content);
+        messagingTemplate.convertAndSend("/topic/logs/" + executionId + "/" + scriptId, message);
+    }
+
     public void sendTestResultUpdateToUser(String userId, String message) {
         // 发送测试结果更新到指定用户
         messagingTemplate.convertAndSendToUser(userId, "/queue/testResults", message);
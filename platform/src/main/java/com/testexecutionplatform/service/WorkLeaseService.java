@@ -0,0 +1,19 @@
+package com.testexecutionplatform.service;
+
+import com.testexecutionplatform.model.WorkUnit;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+public interface WorkLeaseService {
+    boolean isPullMode(); // execution.dispatch.mode=pull时由节点拉取工作
+    WorkUnit enqueuePlanExecution(Long executionId, Long planId, Long shardId, String targetNodeId); // shardId为空时执行全部脚本
+    WorkUnit enqueueTask(Long taskId, Long planId, String targetNodeId);
+    List<WorkUnit> lease(String nodeId, int maxUnits); // 立即租用最多maxUnits个工作单元
+    DeferredResult<List<WorkUnit>> pollLeases(String nodeId, int maxUnits, long waitMillis); // 没有可领取的工作时挂起等待
+    List<Long> renewLeases(String nodeId, List<Long> unitIds); // 返回续租成功（仍由该节点持有）的单元ID
+    boolean completeLease(String nodeId, Long unitId);
+    boolean cancelPlanExecution(Long executionId); // 撤回尚未被领取的计划执行，返回是否撤回
+    boolean cancelTask(Long taskId);
+    int expireLeases(); // 回收过期租约，返回处理的单元数
+}
@@ -0,0 +1,240 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.service.DispatchPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 平台向执行节点下发计划执行和任务的统一管道
+ * 固定数量的线程处理有界队列，队列已满时拒绝，由调用方返回503；调用节点出错时按指数退避重试，
+ * 节点返回4xx的请求不重试。关闭时不再接受新的下发，等待队列中和待重试的下发完成，超时后放弃剩余的下发
+ */
+@Service
+public class DispatchPipelineImpl implements DispatchPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(DispatchPipelineImpl.class);
+
+    // 同时调用节点的线程数
+    @Value("${execution.dispatch.pipeline.threads:10}")
+    private int threads;
+
+    // 等待下发的队列容量
+    @Value("${execution.dispatch.pipeline.queue-capacity:200}")
+    private int queueCapacity;
+
+    // 每次下发的最大尝试次数（含首次）
+    @Value("${execution.dispatch.pipeline.max-attempts:3}")
+    private int maxAttempts;
+
+    // 首次重试的等待时间，之后每次加倍
+    @Value("${execution.dispatch.pipeline.retry-backoff-ms:2000}")
+    private long retryBackoffMillis;
+
+    // 关闭时等待剩余下发完成的最长时间
+    @Value("${execution.dispatch.pipeline.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMillis;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean shuttingDown;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(threads, 1);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), new CustomizableThreadFactory("node-dispatch-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("node-dispatch-retry-"));
+        logger.info("Dispatch pipeline started with {} threads and a queue of {}", poolSize, Math.max(queueCapacity, 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        // 待重试的下发立即进行最后一次尝试
+        List<Runnable> retries = retryScheduler.shutdownNow();
+        for (Runnable retry : retries) {
+            try {
+                executor.execute(retry);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Dropping a pending retry during shutdown, dispatch queue is full");
+            }
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                List<Runnable> dropped = executor.shutdownNow();
+                logger.warn("Dispatch pipeline did not drain within {} ms, dropped {} queued dispatches", shutdownTimeoutMillis, dropped.size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Dispatch pipeline stopped: {}", getStats());
+    }
+
+    @Override
+    public boolean submit(String label, Attempt attempt, Consumer<Exception> onFailure) {
+        if (shuttingDown) {
+            rejected.incrementAndGet();
+            logger.warn("Rejecting dispatch of {}, platform is shutting down", label);
+            return false;
+        }
+        try {
+            executor.execute(new Job(label, attempt, onFailure));
+            submitted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            logger.warn("Dispatch queue is full, rejecting dispatch of {}", label);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isSaturated() {
+        return shuttingDown || executor.getQueue().remainingCapacity() == 0;
+    }
+
+    @Override
+    public long getRetryAfterSeconds() {
+        // 排在前面的下发按线程数分批完成
+        long averageLatency = completed.get() > 0 ? totalLatencyMillis.get() / completed.get() : 1000;
+        long waitMillis = (executor.getQueue().size() + 1) * averageLatency / executor.getMaximumPoolSize();
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.put("inFlight", inFlight.get());
+        stats.put("pendingRetries", pendingRetries.get());
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("submitted", submitted.get());
+        stats.put("succeeded", succeeded.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("retried", retried.get());
+        stats.put("averageLatencyMs", completed.get() > 0 ? totalLatencyMillis.get() / completed.get() : 0);
+        stats.put("maxLatencyMs", maxLatencyMillis.get());
+        stats.put("shuttingDown", shuttingDown);
+        return stats;
+    }
+
+    // 4xx说明请求本身有问题，重试没有意义
+    private boolean isRetryable(Exception e) {
+        return !(e instanceof HttpClientErrorException) && !(e instanceof IllegalArgumentException);
+    }
+
+    // 从提交到下发结束（成功或放弃）的耗时
+    private void recordLatency(long submittedAt) {
+        long latency = System.currentTimeMillis() - submittedAt;
+        completed.incrementAndGet();
+        totalLatencyMillis.addAndGet(latency);
+        maxLatencyMillis.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * 一次下发，失败时由重试线程延迟后重新放入队列
+     */
+    private class Job implements Runnable {
+        private final String label;
+        private final Attempt attempt;
+        private final Consumer<Exception> onFailure;
+        private final long submittedAt = System.currentTimeMillis();
+        private int attempts;
+
+        Job(String label, Attempt attempt, Consumer<Exception> onFailure) {
+            this.label = label;
+            this.attempt = attempt;
+            this.onFailure = onFailure;
+        }
+
+        @Override
+        public void run() {
+            attempts++;
+            inFlight.incrementAndGet();
+            try {
+                attempt.run();
+                succeeded.incrementAndGet();
+                recordLatency(submittedAt);
+            } catch (Exception e) {
+                if (attempts < maxAttempts && !shuttingDown && isRetryable(e)) {
+                    scheduleRetry(e);
+                } else {
+                    fail(e);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private void scheduleRetry(Exception cause) {
+            long delay = retryBackoffMillis << Math.min(attempts - 1, 10);
+            logger.warn("Dispatch of {} failed (attempt {}/{}), retrying in {} ms: {}", label, attempts, maxAttempts, delay, cause.getMessage());
+            retried.incrementAndGet();
+            pendingRetries.incrementAndGet();
+            try {
+                retryScheduler.schedule(() -> {
+                    pendingRetries.decrementAndGet();
+                    if (shuttingDown) {
+                        // 关闭时已被移到下发线程执行
+                        run();
+                        return;
+                    }
+                    try {
+                        executor.execute(this);
+                    } catch (RejectedExecutionException e) {
+                        fail(e);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                pendingRetries.decrementAndGet();
+                fail(cause);
+            }
+        }
+
+        private void fail(Exception e) {
+            failed.incrementAndGet();
+            recordLatency(submittedAt);
+            logger.error("Dispatch of {} failed after {} attempts: {}", label, attempts, e.getMessage());
+            try {
+                onFailure.accept(e);
+            } catch (Exception callbackError) {
+                logger.error("Error handling failed dispatch of {}: {}", label, callbackError.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.service.ExecutionLogStorageService;
+import com.testexecutionplatform.service.TestResultWebSocketService;
+import com.testexecutionplatform.util.GzipEncoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 脚本执行日志存储
+ * 启用压缩（log.storage.compress）时日志以gzip保存为{scriptId}.log.gz：每次追加的分片写成一个独立的gzip成员，
+ * 多个成员首尾相接仍是合法的gzip文件；旁边的{scriptId}.log.gz.idx记录原始长度和已确认的压缩文件长度，
+ * 用于按原始偏移量追加，并丢弃写入中断留下的不完整成员。读取时流式解压，客户端支持gzip时直接发送压缩内容；
+ * 未压缩的历史日志仍按原方式读写
+ */
+@Service
+public class ExecutionLogStorageServiceImpl implements ExecutionLogStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionLogStorageServiceImpl.class);
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    @Autowired
+    private TestResultWebSocketService testResultWebSocketService;
+
+    @Value("${project.root.dir}")
+    private String projectRootDir;
+
+    @Value("${log.storage.compress:true}")
+    private boolean compress;
+
+    @Value("${log.storage.compression-level:6}")
+    private int compressionLevel;
+
+    // 同一个日志文件的写入操作需要串行执行，按文件路径分段加锁，避免为每个文件常驻一个锁对象
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] fileLocks = new Object[LOCK_STRIPES];
+
+    public ExecutionLogStorageServiceImpl() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            fileLocks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(Path logFile) {
+        return fileLocks[(logFile.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    @Override
+    public Path getLogFilePath(String planId, String executionId, String scriptId) {
+        return Paths.get(projectRootDir, "logs", planId, executionId, scriptId + ".log");
+    }
+
+    @Override
+    public InputStream openCompressedLogContent(String planId, String executionId, String scriptId) throws IOException {
+        Path gzipFile = gzipFile(getLogFilePath(planId, executionId, scriptId));
+        if (!Files.exists(indexFile(gzipFile))) {
+            return null;
+        }
+        return openCommitted(gzipFile);
+    }
+
+    @Override
+    public long getLogSize(String planId, String executionId, String scriptId) throws IOException {
+        Path logFile = getLogFilePath(planId, executionId, scriptId);
+        Path gzipFile = gzipFile(logFile);
+        if (Files.exists(indexFile(gzipFile))) {
+            return readIndex(gzipFile)[0];
+        }
+        return Files.exists(logFile) ? Files.size(logFile) : 0;
+    }
+
+    @Override
+    public InputStream openLogContent(String planId, String executionId, String scriptId) throws IOException {
+        Path logFile = getLogFilePath(planId, executionId, scriptId);
+        Path gzipFile = gzipFile(logFile);
+        if (Files.exists(indexFile(gzipFile))) {
+            InputStream in = openCommitted(gzipFile);
+            return in != null ? new GZIPInputStream(in, 8192) : new ByteArrayInputStream(new byte[0]);
+        }
+        return Files.exists(logFile) ? Files.newInputStream(logFile) : null;
+    }
+
+    @Override
+    public long appendLogChunk(String planId, String executionId, String scriptId, long offset, byte[] chunk) throws IOException {
+        Path logFile = getLogFilePath(planId, executionId, scriptId);
+        Object lock = lockFor(logFile);
+        byte[] appended;
+        long committed;
+        synchronized (lock) {
+            Files.createDirectories(logFile.getParent());
+            boolean compressed = useCompressedFile(logFile);
+            Path targetFile = compressed ? gzipFile(logFile) : logFile;
+            try (FileChannel channel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long[] index = compressed ? readIndex(targetFile) : new long[] {channel.size(), channel.size()};
+                long size = index[0];
+                if (offset > size) {
+                    // 中间存在缺失的分片，由节点根据返回的偏移量重新发送
+                    return size;
+                }
+                // 重复发送的部分直接跳过，保证追加操作幂等
+                int skip = (int) Math.min(size - offset, chunk.length);
+                if (skip == chunk.length) {
+                    return size;
+                }
+                appended = skip == 0 ? chunk : Arrays.copyOfRange(chunk, skip, chunk.length);
+                ByteBuffer buffer = ByteBuffer.wrap(compressed ? GzipEncoding.compress(appended, compressionLevel) : appended);
+                if (compressed) {
+                    // 丢弃上次中断写入的部分
+                    channel.truncate(index[1]);
+                }
+                channel.position(index[1]);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                committed = size + appended.length;
+                if (compressed) {
+                    writeIndex(targetFile, committed, channel.position());
+                }
+            }
+        }
+
+        // 将新增内容推送给正在查看日志的前端
+        testResultWebSocketService.sendLogChunk(executionId, scriptId, committed - appended.length, new String(appended, StandardCharsets.UTF_8));
+        return committed;
+    }
+
+    @Override
+    public void writeLogContent(String planId, String executionId, String scriptId, InputStream... contents) throws IOException {
+        Path logFile = getLogFilePath(planId, executionId, scriptId);
+        Object lock = lockFor(logFile);
+        synchronized (lock) {
+            Files.createDirectories(logFile.getParent());
+            if (!compress) {
+                try (OutputStream out = Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    copyAll(out, contents);
+                }
+                deleteCompressed(logFile);
+            } else {
+                Path gzipFile = gzipFile(logFile);
+                CountingOutputStream counter;
+                try (OutputStream out = Files.newOutputStream(gzipFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    GZIPOutputStream gzip = GzipEncoding.newOutputStream(out, compressionLevel);
+                    counter = new CountingOutputStream(gzip);
+                    copyAll(counter, contents);
+                    gzip.finish();
+                }
+                writeIndex(gzipFile, counter.count, Files.size(gzipFile));
+                Files.deleteIfExists(logFile);
+            }
+        }
+        logger.info("Log content written to {}", logFile);
+    }
+
+    @Override
+    public void writeCompressedLogContent(String planId, String executionId, String scriptId, long length, InputStream... members) throws IOException {
+        Path logFile = getLogFilePath(planId, executionId, scriptId);
+        if (!compress) {
+            // 不压缩存储时解压后写入
+            InputStream[] contents = new InputStream[members.length];
+            for (int i = 0; i < members.length; i++) {
+                contents[i] = new GZIPInputStream(members[i], 8192);
+            }
+            writeLogContent(planId, executionId, scriptId, contents);
+            return;
+        }
+        Object lock = lockFor(logFile);
+        synchronized (lock) {
+            Files.createDirectories(logFile.getParent());
+            Path gzipFile = gzipFile(logFile);
+            // gzip成员首尾相接即为完整日志，直接写入，不在平台重新压缩
+            try (OutputStream out = Files.newOutputStream(gzipFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                copyAll(out, members);
+            }
+            writeIndex(gzipFile, length, Files.size(gzipFile));
+            Files.deleteIfExists(logFile);
+        }
+        logger.info("Compressed log content written to {}", logFile);
+    }
+
+    // 只读取索引中已确认的部分，忽略正在写入或中断留下的成员；没有已确认内容时返回null
+    private InputStream openCommitted(Path gzipFile) throws IOException {
+        long committed = readIndex(gzipFile)[1];
+        if (committed == 0) {
+            return null;
+        }
+        return new BoundedInputStream(Channels.newInputStream(FileChannel.open(gzipFile, StandardOpenOption.READ)), committed);
+    }
+
+    // 新日志在启用压缩时使用gzip文件，已存在的未压缩日志继续追加到原文件
+    private boolean useCompressedFile(Path logFile) {
+        if (Files.exists(indexFile(gzipFile(logFile)))) {
+            return true;
+        }
+        return compress && !Files.exists(logFile);
+    }
+
+    private void copyAll(OutputStream out, InputStream... contents) throws IOException {
+        for (InputStream content : contents) {
+            try (InputStream in = content) {
+                StreamUtils.copy(in, out);
+            }
+        }
+    }
+
+    private void deleteCompressed(Path logFile) throws IOException {
+        Path gzipFile = gzipFile(logFile);
+        Files.deleteIfExists(indexFile(gzipFile));
+        Files.deleteIfExists(gzipFile);
+    }
+
+    private Path gzipFile(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + GZIP_SUFFIX);
+    }
+
+    private Path indexFile(Path gzipFile) {
+        return gzipFile.resolveSibling(gzipFile.getFileName() + INDEX_SUFFIX);
+    }
+
+    // 索引内容为“原始长度 压缩文件长度”，不存在时均为0
+    private long[] readIndex(Path gzipFile) throws IOException {
+        Path indexFile = indexFile(gzipFile);
+        if (!Files.exists(indexFile)) {
+            return new long[] {0, 0};
+        }
+        String[] parts = new String(Files.readAllBytes(indexFile), StandardCharsets.US_ASCII).trim().split(" ");
+        return new long[] {Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+    }
+
+    // 先写临时文件再原子替换，中断时保留旧索引
+    private void writeIndex(Path gzipFile, long length, long compressedLength) throws IOException {
+        Path indexFile = indexFile(gzipFile);
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Files.write(tempFile, (length + " " + compressedLength).getBytes(StandardCharsets.US_ASCII));
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 统计写入的原始字节数
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * 最多读取指定字节数
+     */
+    private static class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        // GZIPInputStream据此判断后面是否还有下一个gzip成员
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(remaining, in.available());
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.testexecutionplatform.service.impl;
 
+import com.testexecutionplatform.dto.NodeLoad;
 import com.testexecutionplatform.model.ExecutionNode;
 import com.testexecutionplatform.repository.ExecutionNodeRepository;
 import com.testexecutionplatform.service.ExecutionNodeService;
+import com.testexecutionplatform.service.NodeLoadRegistry;
+import com.testexecutionplatform.service.NodeSelector;
+import com.testexecutionplatform.service.TaskQueueService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,6 +20,15 @@ public class ExecutionNodeServiceImpl implements ExecutionNodeService {
     
     @Autowired
     private ExecutionNodeRepository executionNodeRepository;
+
+    @Autowired
+    private NodeLoadRegistry nodeLoadRegistry;
+
+    @Autowired
+    private NodeSelector nodeSelector;
+
+    @Autowired
+    private TaskQueueService taskQueueService;
     
     @Override
     public List<ExecutionNode> getAllExecutionNodes() {
@@ -46,10 +59,15 @@ public class ExecutionNodeServiceImpl implements ExecutionNodeService {
             updatedNode.setMemoryInfo(node.getMemoryInfo());
             updatedNode.setEndpointType(node.getEndpointType());
             updatedNode.setLastHeartbeat(LocalDateTime.now());
-            return executionNodeRepository.save(updatedNode);
+            updatedNode = executionNodeRepository.save(updatedNode);
+            taskQueueService.signal();
+            return updatedNode;
         } else {
             node.setStatus("ONLINE");
-            return executionNodeRepository.save(node);
+            node = executionNodeRepository.save(node);
+            // 新节点上线，下发排队中的任务
+            taskQueueService.signal();
+            return node;
         }
     }
     
@@ -59,6 +77,9 @@ public class ExecutionNodeServiceImpl implements ExecutionNodeService {
         if (nodeOptional.isPresent()) {
             ExecutionNode node = nodeOptional.get();
             node.setStatus(status);
+            if ("OFFLINE".equals(status)) {
+                nodeLoadRegistry.remove(nodeId);
+            }
             return executionNodeRepository.save(node);
         }
         return null;
@@ -66,9 +87,21 @@ public class ExecutionNodeServiceImpl implements ExecutionNodeService {
     
     @Override
     public ExecutionNode updateHeartbeat(String nodeId) {
+        return updateHeartbeat(nodeId, null);
+    }
+
+    @Override
+    public ExecutionNode updateHeartbeat(String nodeId, NodeLoad load) {
         Optional<ExecutionNode> nodeOptional = executionNodeRepository.findByNodeId(nodeId);
         if (nodeOptional.isPresent()) {
             ExecutionNode node = nodeOptional.get();
+            if (load != null) {
+                nodeLoadRegistry.update(nodeId, load);
+                if (load.getFreeSlots() != null && load.getFreeSlots() > 0) {
+                    // 节点有空闲执行位，下发排队中的任务
+                    taskQueueService.signal();
+                }
+            }
             node.setLastHeartbeat(LocalDateTime.now());
             if (!"ONLINE".equals(node.getStatus()) && !"BUSY".equals(node.getStatus())) {
                 node.setStatus("ONLINE");
@@ -82,17 +115,12 @@ public class ExecutionNodeServiceImpl implements ExecutionNodeService {
     public void removeNode(String nodeId) {
         Optional<ExecutionNode> nodeOptional = executionNodeRepository.findByNodeId(nodeId);
         nodeOptional.ifPresent(executionNodeRepository::delete);
+        nodeLoadRegistry.remove(nodeId);
     }
     
     @Override
     public ExecutionNode getAvailableNode() {
-        // 简单实现：返回第一个在线节点
-        // 可以根据实际需求扩展为负载均衡算法
-        List<ExecutionNode> nodes = executionNodeRepository.findAll();
-        return nodes.stream()
-                .filter(node -> "ONLINE".equals(node.getStatus()))
-                .findFirst()
-                .orElse(null);
+        return nodeSelector.peek(null);
     }
 
     @Override
@@ -0,0 +1,77 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.service.ExecutionNodeService;
+import com.testexecutionplatform.service.NodeCancellationService;
+import com.testexecutionplatform.service.NodeChannelService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 向执行节点发送取消命令
+ * 节点保持长连接时通过长连接发送，否则调用节点的取消接口
+ */
+@Service
+public class NodeCancellationServiceImpl implements NodeCancellationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeCancellationServiceImpl.class);
+
+    @Autowired
+    private ExecutionNodeService executionNodeService;
+
+    @Autowired
+    private NodeChannelService nodeChannelService;
+
+    @Autowired
+    @Qualifier("nodeRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Value("${execution.node.cancel-path:/api/execution/cancel}")
+    private String cancelPath;
+
+    @Override
+    public boolean cancelPlanExecution(String nodeId, Long executionId) {
+        if (nodeChannelService.cancelPlan(nodeId, executionId)) {
+            return true;
+        }
+        return callNode(nodeId, Collections.singletonMap("executionId", executionId));
+    }
+
+    @Override
+    public boolean cancelTask(String nodeId, Long taskId) {
+        if (nodeChannelService.cancelTask(nodeId, taskId)) {
+            return true;
+        }
+        return callNode(nodeId, Collections.singletonMap("taskId", taskId));
+    }
+
+    private boolean callNode(String nodeId, Map<String, Long> params) {
+        Optional<ExecutionNode> node = nodeId != null ? executionNodeService.getExecutionNodeByNodeId(nodeId) : Optional.empty();
+        if (!node.isPresent()) {
+            logger.warn("Cannot send cancel request {} to unknown execution node {}", params, nodeId);
+            return false;
+        }
+        try {
+            String url = "http://" + node.get().getHost() + ":" + node.get().getPort() + cancelPath;
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            restTemplate.postForEntity(url, new HttpEntity<>(params, headers), String.class);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to send cancel request {} to execution node {}: {}", params, nodeId, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.testexecutionplatform.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testexecutionplatform.dto.NodeChannelMessage;
+import com.testexecutionplatform.service.NodeChannelService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 执行节点长连接会话管理
+ * 节点在握手时声明可接收的下发额度，平台每下发一次消耗一个，节点执行结束后归还；没有额度时不通过长连接下发
+ */
+@Service
+public class NodeChannelServiceImpl implements NodeChannelService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeChannelServiceImpl.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 单条消息发送的最长阻塞时间，超过后关闭连接
+    @Value("${node.channel.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+
+    // 节点接收缓慢时平台侧缓存的最大字节数，超过后关闭连接
+    @Value("${node.channel.send-buffer-bytes:4194304}")
+    private int sendBufferBytes;
+
+    // 原始会话ID -> 线程安全的会话
+    private final Map<String, WebSocketSession> openSessions = new ConcurrentHashMap<>();
+    // 节点ID -> 已握手的连接
+    private final Map<String, NodeConnection> connections = new ConcurrentHashMap<>();
+
+    @Override
+    public WebSocketSession open(WebSocketSession session) {
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, sendBufferBytes);
+        openSessions.put(session.getId(), concurrentSession);
+        return concurrentSession;
+    }
+
+    @Override
+    public void bind(String nodeId, WebSocketSession session, int credits) {
+        NodeConnection previous = connections.put(nodeId, new NodeConnection(session, credits));
+        if (previous != null && previous.session != session) {
+            logger.info("Node {} reconnected, closing previous channel {}", nodeId, previous.session.getId());
+            try {
+                previous.session.close(CloseStatus.NORMAL);
+            } catch (IOException e) {
+                logger.debug("Failed to close previous channel of node {}: {}", nodeId, e.getMessage());
+            }
+        }
+        session.getAttributes().put("nodeId", nodeId);
+        logger.info("Node {} connected over channel {} with {} dispatch credits", nodeId, session.getId(), credits);
+    }
+
+    @Override
+    public void close(WebSocketSession session) {
+        WebSocketSession concurrentSession = openSessions.remove(session.getId());
+        String nodeId = (String) session.getAttributes().get("nodeId");
+        if (nodeId != null && concurrentSession != null) {
+            connections.computeIfPresent(nodeId, (id, connection) -> connection.session == concurrentSession ? null : connection);
+            logger.info("Channel of node {} closed", nodeId);
+        }
+    }
+
+    @Override
+    public void addCredits(WebSocketSession session, int credits) {
+        String nodeId = (String) session.getAttributes().get("nodeId");
+        NodeConnection connection = nodeId != null ? connections.get(nodeId) : null;
+        if (connection != null && connection.session == session) {
+            connection.credits.addAndGet(credits);
+        }
+    }
+
+    @Override
+    public boolean isConnected(String nodeId) {
+        NodeConnection connection = connections.get(nodeId);
+        return connection != null && connection.session.isOpen();
+    }
+
+    @Override
+    public boolean dispatchPlan(String nodeId, Long planId, Long executionId, Long shardId) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("planId", planId);
+        payload.put("executionId", executionId);
+        if (shardId != null) {
+            payload.put("shardId", shardId);
+        }
+        return dispatch(nodeId, NodeChannelMessage.DISPATCH_PLAN, payload);
+    }
+
+    @Override
+    public boolean dispatchTask(String nodeId, Long taskId) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("taskId", taskId);
+        return dispatch(nodeId, NodeChannelMessage.DISPATCH_TASK, payload);
+    }
+
+    @Override
+    public boolean cancelPlan(String nodeId, Long executionId) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("executionId", executionId);
+        return command(nodeId, NodeChannelMessage.CANCEL_PLAN, payload);
+    }
+
+    @Override
+    public boolean cancelTask(String nodeId, Long taskId) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("taskId", taskId);
+        return command(nodeId, NodeChannelMessage.CANCEL_TASK, payload);
+    }
+
+    @Override
+    public void send(WebSocketSession session, NodeChannelMessage message) throws IOException {
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+
+    private boolean dispatch(String nodeId, String type, ObjectNode payload) {
+        NodeConnection connection = connections.get(nodeId);
+        if (connection == null || !connection.session.isOpen()) {
+            return false;
+        }
+        if (connection.credits.getAndUpdate(credits -> credits > 0 ? credits - 1 : credits) <= 0) {
+            logger.info("Node {} has no dispatch credits left on its channel", nodeId);
+            return false;
+        }
+        NodeChannelMessage message = new NodeChannelMessage();
+        message.setType(type);
+        message.setPayload(payload);
+        try {
+            send(connection.session, message);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to dispatch {} to node {} over channel: {}", type, nodeId, e.getMessage());
+            connection.credits.incrementAndGet();
+            return false;
+        }
+    }
+
+    // 发送不占用下发额度的控制命令
+    private boolean command(String nodeId, String type, ObjectNode payload) {
+        NodeConnection connection = connections.get(nodeId);
+        if (connection == null || !connection.session.isOpen()) {
+            return false;
+        }
+        NodeChannelMessage message = new NodeChannelMessage();
+        message.setType(type);
+        message.setPayload(payload);
+        try {
+            send(connection.session, message);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to send {} to node {} over channel: {}", type, nodeId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 一个节点的长连接及其剩余下发额度
+     */
+    private static class NodeConnection {
+        private final WebSocketSession session;
+        private final AtomicInteger credits;
+
+        NodeConnection(WebSocketSession session, int credits) {
+            this.session = session;
+            this.credits = new AtomicInteger(credits);
+        }
+    }
+}
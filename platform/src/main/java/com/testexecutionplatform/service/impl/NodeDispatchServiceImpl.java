@@ -0,0 +1,73 @@
+package com.testexecutionplatform.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testexecutionplatform.dto.NodeLoad;
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.service.NodeDispatchService;
+import com.testexecutionplatform.service.NodeLoadRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * 调用执行节点的下发接口
+ * 节点准入队列已满时返回503和当前负载，这里将其写入负载注册表，使该节点在下一次心跳前排在其他节点之后
+ */
+@Service
+public class NodeDispatchServiceImpl implements NodeDispatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeDispatchServiceImpl.class);
+
+    @Autowired
+    @Qualifier("nodeRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private NodeLoadRegistry nodeLoadRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean post(ExecutionNode node, String path, Object body) {
+        String url = "http://" + node.getHost() + ":" + node.getPort() + path;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        try {
+            restTemplate.postForEntity(url, new HttpEntity<>(body, headers), String.class);
+            return true;
+        } catch (HttpServerErrorException e) {
+            if (e.getStatusCode() != HttpStatus.SERVICE_UNAVAILABLE) {
+                throw e;
+            }
+            String retryAfter = e.getResponseHeaders() != null ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null;
+            logger.info("Execution node {} is busy (retry after {} s)", node.getNodeId(), retryAfter);
+            nodeLoadRegistry.update(node.getNodeId(), busyLoad(node, e.getResponseBodyAsString()));
+            return false;
+        }
+    }
+
+    // 节点返回的负载，无法解析时按没有空闲执行位处理
+    private NodeLoad busyLoad(ExecutionNode node, String body) {
+        try {
+            NodeLoad load = objectMapper.readValue(body, NodeLoad.class);
+            if (load.getFreeSlots() != null) {
+                return load;
+            }
+        } catch (Exception e) {
+            logger.debug("Unexpected busy response from node {}: {}", node.getNodeId(), body);
+        }
+        NodeLoad load = new NodeLoad();
+        load.setFreeSlots(0);
+        load.setAdmissionQueued(1);
+        return load;
+    }
+}
@@ -0,0 +1,73 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.dto.NodeLoad;
+import com.testexecutionplatform.service.NodeLoadRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 节点负载注册表
+ * 只保存在内存中，由心跳刷新，调度时直接读取而不查询数据库；平台重启后等待下一次心跳重新填充
+ */
+@Service
+public class NodeLoadRegistryImpl implements NodeLoadRegistry {
+
+    // 超过该时间未刷新的负载视为过期（节点可能已离线）
+    @Value("${node.load.stale-ms:90000}")
+    private long staleMillis;
+
+    private final Map<String, NodeLoad> loads = new ConcurrentHashMap<>();
+
+    @Override
+    public void update(String nodeId, NodeLoad load) {
+        load.setReportedAt(System.currentTimeMillis());
+        loads.put(nodeId, load);
+    }
+
+    @Override
+    public NodeLoad getLoad(String nodeId) {
+        NodeLoad load = loads.get(nodeId);
+        return load != null && !isStale(load, System.currentTimeMillis()) ? load : null;
+    }
+
+    @Override
+    public Map<String, NodeLoad> getAllLoads() {
+        long now = System.currentTimeMillis();
+        Map<String, NodeLoad> result = new HashMap<>();
+        loads.forEach((nodeId, load) -> {
+            if (!isStale(load, now)) {
+                result.put(nodeId, load);
+            }
+        });
+        return result;
+    }
+
+    // 没有负载信息（或已过期）的节点下发后记为没有空闲执行位，直到下一次心跳，避免所有下发都落到同一个节点
+    @Override
+    public void reserve(String nodeId) {
+        loads.compute(nodeId, (id, load) -> {
+            long now = System.currentTimeMillis();
+            if (load == null || load.getFreeSlots() == null || isStale(load, now)) {
+                NodeLoad reserved = new NodeLoad();
+                reserved.setFreeSlots(0);
+                reserved.setReportedAt(now);
+                return reserved;
+            }
+            load.setFreeSlots(load.getFreeSlots() - 1);
+            return load;
+        });
+    }
+
+    @Override
+    public void remove(String nodeId) {
+        loads.remove(nodeId);
+    }
+
+    private boolean isStale(NodeLoad load, long now) {
+        return now - load.getReportedAt() > staleMillis;
+    }
+}
@@ -0,0 +1,155 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.dto.NodeInFlightReport;
+import com.testexecutionplatform.model.TestExecutionTask;
+import com.testexecutionplatform.model.TestPlan;
+import com.testexecutionplatform.model.TestPlanExecution;
+import com.testexecutionplatform.model.TestPlanExecutionLog;
+import com.testexecutionplatform.model.TestPlanExecutionShard;
+import com.testexecutionplatform.repository.TestExecutionTaskRepository;
+import com.testexecutionplatform.repository.TestPlanExecutionLogRepository;
+import com.testexecutionplatform.repository.TestPlanExecutionRepository;
+import com.testexecutionplatform.repository.TestPlanExecutionShardRepository;
+import com.testexecutionplatform.repository.TestPlanRepository;
+import com.testexecutionplatform.repository.WorkUnitRepository;
+import com.testexecutionplatform.service.NodeReconciliationService;
+import com.testexecutionplatform.service.TestPlanExecutionShardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 节点重新注册时核对执行状态
+ * 分配给该节点、仍处于执行中的计划执行和任务，如果节点既没有在执行、也没有待送达的结果，
+ * 说明执行已随节点重启丢失，标记为失败；刚下发不久或仍在工作队列中的执行不处理。
+ * 分片执行按分片核对，只有该节点上的分片失败
+ */
+@Service
+public class NodeReconciliationServiceImpl implements NodeReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeReconciliationServiceImpl.class);
+    private static final List<String> ACTIVE_UNIT_STATUSES = Arrays.asList("PENDING", "LEASED");
+
+    @Autowired
+    private TestPlanExecutionRepository testPlanExecutionRepository;
+
+    @Autowired
+    private TestPlanExecutionLogRepository testPlanExecutionLogRepository;
+
+    @Autowired
+    private TestPlanRepository testPlanRepository;
+
+    @Autowired
+    private TestExecutionTaskRepository testExecutionTaskRepository;
+
+    @Autowired
+    private WorkUnitRepository workUnitRepository;
+
+    @Autowired
+    private TestPlanExecutionShardRepository testPlanExecutionShardRepository;
+
+    @Autowired
+    private TestPlanExecutionShardService testPlanExecutionShardService;
+
+    // 开始时间在该时间内的执行可能尚未到达节点，不做核对
+    @Value("${node.reconcile.grace-ms:30000}")
+    private long graceMillis;
+
+    @Override
+    @Transactional
+    public int reconcile(String nodeId, NodeInFlightReport report) {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(graceMillis * 1_000_000);
+        Set<Long> knownExecutionIds = new HashSet<>(report.getRunningExecutionIds());
+        knownExecutionIds.addAll(report.getUnacknowledgedExecutionIds());
+        Set<Long> knownTaskIds = new HashSet<>(report.getRunningTaskIds());
+        knownTaskIds.addAll(report.getUnacknowledgedTaskIds());
+        String errorMessage = "Execution node " + nodeId + " re-registered without this run in flight";
+
+        int reconciled = 0;
+        for (TestPlanExecution execution : testPlanExecutionRepository.findByExecutionNode_NodeIdAndStatus(nodeId, "EXECUTING")) {
+            if (knownExecutionIds.contains(execution.getId()) || isRecent(execution.getStartTime(), cutoff)
+                    || workUnitRepository.existsByExecutionIdAndStatusIn(execution.getId(), ACTIVE_UNIT_STATUSES)
+                    || testPlanExecutionShardRepository.existsByExecutionId(execution.getId())) {
+                continue;
+            }
+            failExecution(execution, errorMessage);
+            reconciled++;
+        }
+        for (TestPlanExecutionShard shard : testPlanExecutionShardRepository.findByExecutionNode_NodeIdAndStatus(nodeId, "EXECUTING")) {
+            Long executionId = shard.getExecution().getId();
+            if (knownExecutionIds.contains(executionId) || isRecent(shard.getStartTime(), cutoff)
+                    || workUnitRepository.existsByExecutionIdAndStatusIn(executionId, ACTIVE_UNIT_STATUSES)) {
+                continue;
+            }
+            failShard(shard, errorMessage);
+            reconciled++;
+        }
+        for (TestExecutionTask task : testExecutionTaskRepository.findByExecutionNodeIdAndStatus(nodeId, "RUNNING")) {
+            if (knownTaskIds.contains(task.getId()) || isRecent(task.getStartTime(), cutoff)
+                    || workUnitRepository.existsByTaskIdAndStatusIn(task.getId(), ACTIVE_UNIT_STATUSES)) {
+                continue;
+            }
+            task.setStatus("FAILED");
+            task.setErrorMessage(errorMessage);
+            task.setEndTime(LocalDateTime.now());
+            testExecutionTaskRepository.save(task);
+            logger.warn("Marked task {} as FAILED, node {} no longer runs it", task.getId(), nodeId);
+            reconciled++;
+        }
+        return reconciled;
+    }
+
+    private boolean isRecent(LocalDateTime startTime, LocalDateTime cutoff) {
+        return startTime != null && startTime.isAfter(cutoff);
+    }
+
+    // 分片和其中未结束的脚本日志一起标记为失败
+    private void failShard(TestPlanExecutionShard shard, String errorMessage) {
+        Long executionId = shard.getExecution().getId();
+        Set<Long> scriptIds = new HashSet<>(shard.getScriptIdList());
+        LocalDateTime now = LocalDateTime.now();
+        for (TestPlanExecutionLog log : testPlanExecutionLogRepository.findByExecutionIdOrderByCreatedAtAsc(executionId)) {
+            if ("EXECUTING".equals(log.getStatus()) && scriptIds.contains(log.getTestScript().getId())) {
+                log.setStatus("FAILURE");
+                log.setErrorMessage(errorMessage);
+                log.setEndTime(now);
+                testPlanExecutionLogRepository.save(log);
+            }
+        }
+        testPlanExecutionShardService.applyShardProgress(shard.getId(), "FAILURE", null, null, null);
+        logger.warn("Marked shard {} of execution {} as FAILURE, node {} no longer runs it", shard.getShardIndex(), executionId,
+                shard.getExecutionNode().getNodeId());
+    }
+
+    // 执行记录和其中未结束的脚本日志一起标记为失败
+    private void failExecution(TestPlanExecution execution, String errorMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        for (TestPlanExecutionLog log : testPlanExecutionLogRepository.findByExecutionIdOrderByCreatedAtAsc(execution.getId())) {
+            if ("EXECUTING".equals(log.getStatus())) {
+                log.setStatus("FAILURE");
+                log.setErrorMessage(errorMessage);
+                log.setEndTime(now);
+                testPlanExecutionLogRepository.save(log);
+            }
+        }
+        execution.setStatus("FAILURE");
+        execution.setEndTime(now);
+        testPlanExecutionRepository.save(execution);
+        TestPlan testPlan = execution.getTestPlan();
+        if (testPlan != null) {
+            testPlan.setLastExecutionStatus("FAILURE");
+            testPlan.setLastExecutionTime(now);
+            testPlanRepository.save(testPlan);
+        }
+        logger.warn("Marked execution {} as FAILURE, node {} no longer runs it", execution.getId(), execution.getExecutionNode().getNodeId());
+    }
+}
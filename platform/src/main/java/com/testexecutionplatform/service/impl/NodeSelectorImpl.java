@@ -0,0 +1,96 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.repository.ExecutionNodeRepository;
+import com.testexecutionplatform.service.NodeLoadRegistry;
+import com.testexecutionplatform.service.NodeSelector;
+import com.testexecutionplatform.service.placement.LeastLoadedPlacementPolicy;
+import com.testexecutionplatform.service.placement.NodeCandidate;
+import com.testexecutionplatform.service.placement.PlacementPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 执行节点选择
+ * 从在线且执行端类型匹配的节点中排除已饱和（心跳上报的可用执行位为0）的节点，再由配置的策略选择；
+ * 选中后在负载注册表中预占一个执行位，下一次心跳前连续调度不会都落到同一个节点
+ */
+@Service
+public class NodeSelectorImpl implements NodeSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeSelectorImpl.class);
+
+    @Autowired
+    private ExecutionNodeRepository executionNodeRepository;
+
+    @Autowired
+    private NodeLoadRegistry nodeLoadRegistry;
+
+    @Autowired
+    private List<PlacementPolicy> placementPolicies;
+
+    // least-loaded：可用执行位最多；weighted：按可用执行位加权随机；power-of-two：随机两个中选较空闲的
+    @Value("${node.placement.policy:" + LeastLoadedPlacementPolicy.NAME + "}")
+    private String policyName;
+
+    private PlacementPolicy policy;
+
+    @PostConstruct
+    public void init() {
+        for (PlacementPolicy placementPolicy : placementPolicies) {
+            if (placementPolicy.getName().equalsIgnoreCase(policyName)) {
+                policy = placementPolicy;
+            }
+        }
+        if (policy == null) {
+            throw new IllegalStateException("Unknown node placement policy: " + policyName);
+        }
+        logger.info("Selecting execution nodes with {} placement policy", policy.getName());
+    }
+
+    @Override
+    public ExecutionNode select(String endpointType, Collection<String> excludedNodeIds) {
+        ExecutionNode node = choose(endpointType, excludedNodeIds);
+        if (node != null) {
+            nodeLoadRegistry.reserve(node.getNodeId());
+        }
+        return node;
+    }
+
+    @Override
+    public ExecutionNode peek(String endpointType) {
+        return choose(endpointType, Collections.<String>emptySet());
+    }
+
+    @Override
+    public List<ExecutionNode> getMatchingNodes(String endpointType) {
+        return executionNodeRepository.findAll().stream()
+                .filter(node -> "ONLINE".equals(node.getStatus()))
+                .filter(node -> endpointType == null || endpointType.isEmpty() || endpointType.equalsIgnoreCase(node.getEndpointType()))
+                .collect(Collectors.toList());
+    }
+
+    private ExecutionNode choose(String endpointType, Collection<String> excludedNodeIds) {
+        List<NodeCandidate> candidates = new ArrayList<>();
+        for (ExecutionNode node : getMatchingNodes(endpointType)) {
+            if (excludedNodeIds.contains(node.getNodeId())) {
+                continue;
+            }
+            NodeCandidate candidate = new NodeCandidate(node, nodeLoadRegistry.getLoad(node.getNodeId()));
+            if (!candidate.isSaturated()) {
+                candidates.add(candidate);
+            }
+        }
+        return candidates.isEmpty() ? null : policy.select(candidates).getNode();
+    }
+}
@@ -0,0 +1,127 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.service.ScriptFileService;
+import com.testexecutionplatform.util.GzipEncoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class ScriptFileServiceImpl implements ScriptFileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScriptFileServiceImpl.class);
+
+    @Value("${project.root.dir}")
+    private String projectRootDir;
+
+    // 传输时的压缩级别（1最快），脚本下载和计划脚本包共用
+    @Value("${transfer.compression-level:1}")
+    private int transferCompressionLevel;
+
+    // 按文件路径缓存摘要，文件大小或修改时间变化后重新计算
+    private final Map<String, HashEntry> hashCache = new ConcurrentHashMap<>();
+
+    @Override
+    public File resolveScriptFile(String filePath) {
+        String scriptsDir = projectRootDir + File.separator + "scripts";
+        // 移除可能存在的scripts/前缀，避免路径重复
+        if (filePath.startsWith("scripts/")) {
+            filePath = filePath.substring("scripts/".length());
+        }
+        return new File(scriptsDir + File.separator + filePath);
+    }
+
+    @Override
+    public String getContentHash(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        HashEntry cached = hashCache.get(key);
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.hash;
+        }
+        String hash = sha256(file);
+        hashCache.put(key, new HashEntry(lastModified, length, hash));
+        return hash;
+    }
+
+    @Override
+    public int writeBundle(Collection<String> filePaths, Map<String, String> knownHashes, OutputStream out) throws IOException {
+        int count = 0;
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(transferCompressionLevel);
+        // 多个脚本可能引用同一文件，只打包一次
+        for (String filePath : new LinkedHashSet<>(filePaths)) {
+            File file = resolveScriptFile(filePath);
+            if (!file.isFile()) {
+                logger.warn("Script file not found while bundling: {}", filePath);
+                continue;
+            }
+            if (knownHashes != null && getContentHash(file).equals(knownHashes.get(filePath))) {
+                continue;
+            }
+            zip.putNextEntry(new ZipEntry(filePath));
+            Files.copy(file.toPath(), zip);
+            zip.closeEntry();
+            count++;
+        }
+        zip.finish();
+        return count;
+    }
+
+    @Override
+    public void writeCompressed(File file, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = GzipEncoding.newOutputStream(out, transferCompressionLevel);
+        Files.copy(file.toPath(), gzip);
+        gzip.finish();
+    }
+
+    private String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static class HashEntry {
+        private final long lastModified;
+        private final long length;
+        private final String hash;
+
+        HashEntry(long lastModified, long length, String hash) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.model.TestScript;
+import com.testexecutionplatform.repository.TestPlanExecutionLogRepository;
+import com.testexecutionplatform.service.ScriptOrderingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 计划内脚本的执行顺序
+ * 按近期执行日志估算各脚本的耗时和不稳定率（失败或重试后才成功的比例）。DURATION先执行耗时长的脚本，
+ * 避免长脚本最后才开始拖长并发和分片执行的总时长，耗时相同时不稳定的在前；FAIL_FAST先执行不稳定的脚本，
+ * 让有问题的构建尽早暴露，不稳定率相同时耗时长的在前；PLAN保持计划中的顺序
+ */
+@Service
+public class ScriptOrderingServiceImpl implements ScriptOrderingService {
+
+    private static final String DURATION = "DURATION";
+    private static final String FAIL_FAST = "FAIL_FAST";
+    private static final String PLAN = "PLAN";
+
+    @Autowired
+    private TestPlanExecutionLogRepository testPlanExecutionLogRepository;
+
+    // 未指定时的默认执行顺序
+    @Value("${execution.script-order.default-mode:DURATION}")
+    private String defaultMode;
+
+    // 估算时只使用最近若干天的执行日志
+    @Value("${execution.script-order.history-days:30}")
+    private int historyDays;
+
+    // 所有脚本都没有历史执行记录时使用的单个脚本估算耗时
+    @Value("${execution.sharding.default-script-duration-ms:60000}")
+    private long defaultScriptDurationMillis;
+
+    @Override
+    public Map<Long, Long> estimateScriptDurations(Collection<TestScript> scripts) {
+        Set<Long> scriptIds = scriptIds(scripts);
+        Map<Long, Long> durations = new HashMap<>();
+        if (scriptIds.isEmpty()) {
+            return durations;
+        }
+        long knownTotal = 0;
+        for (Object[] row : testPlanExecutionLogRepository.findAverageExecutionTimes(scriptIds, historySince())) {
+            long average = ((Number) row[1]).longValue();
+            durations.put((Long) row[0], average);
+            knownTotal += average;
+        }
+        // 没有历史记录的脚本按其他脚本的平均耗时估算
+        long fallback = durations.isEmpty() ? defaultScriptDurationMillis : knownTotal / durations.size();
+        for (Long scriptId : scriptIds) {
+            durations.putIfAbsent(scriptId, fallback);
+        }
+        return durations;
+    }
+
+    @Override
+    public List<TestScript> orderScripts(List<TestScript> scripts, String mode) {
+        List<TestScript> ordered = new ArrayList<>(scripts);
+        String resolvedMode = resolveMode(mode);
+        if (PLAN.equals(resolvedMode) || ordered.size() < 2) {
+            return ordered;
+        }
+        Map<Long, Long> durations = estimateScriptDurations(ordered);
+        Map<Long, Double> failureRates = estimateFailureRates(ordered);
+        Comparator<TestScript> byDuration = Comparator.comparingLong((TestScript script) -> durations.get(script.getId())).reversed();
+        Comparator<TestScript> byFailureRate = Comparator.comparingDouble((TestScript script) -> failureRates.getOrDefault(script.getId(), 0.0)).reversed();
+        // 排序稳定，其余相同时保持计划中的顺序
+        ordered.sort(FAIL_FAST.equals(resolvedMode) ? byFailureRate.thenComparing(byDuration) : byDuration.thenComparing(byFailureRate));
+        return ordered;
+    }
+
+    private Map<Long, Double> estimateFailureRates(Collection<TestScript> scripts) {
+        Map<Long, Double> failureRates = new HashMap<>();
+        for (Object[] row : testPlanExecutionLogRepository.findFailureCounts(scriptIds(scripts), historySince())) {
+            long runs = ((Number) row[1]).longValue();
+            long failures = row[2] != null ? ((Number) row[2]).longValue() : 0;
+            if (runs > 0) {
+                failureRates.put((Long) row[0], (double) failures / runs);
+            }
+        }
+        return failureRates;
+    }
+
+    // 无法识别的顺序按默认顺序处理
+    private String resolveMode(String mode) {
+        String resolved = mode != null && !mode.trim().isEmpty() ? mode.trim().toUpperCase() : defaultMode.trim().toUpperCase();
+        if (DURATION.equals(resolved) || FAIL_FAST.equals(resolved) || PLAN.equals(resolved)) {
+            return resolved;
+        }
+        return DURATION;
+    }
+
+    private LocalDateTime historySince() {
+        return LocalDateTime.now().minusDays(historyDays);
+    }
+
+    private Set<Long> scriptIds(Collection<TestScript> scripts) {
+        return scripts.stream().map(TestScript::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
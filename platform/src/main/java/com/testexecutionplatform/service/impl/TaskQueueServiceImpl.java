@@ -0,0 +1,240 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.model.TestExecutionTask;
+import com.testexecutionplatform.repository.TestExecutionTaskRepository;
+import com.testexecutionplatform.service.DispatchPipeline;
+import com.testexecutionplatform.service.NodeChannelService;
+import com.testexecutionplatform.service.NodeDispatchService;
+import com.testexecutionplatform.service.NodeSelector;
+import com.testexecutionplatform.service.TaskQueueService;
+import com.testexecutionplatform.service.WorkLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 测试任务待执行队列（推送模式）
+ * 没有空闲节点时任务以QUEUED状态保存在test_execution_tasks表中，平台重启后继续排队；
+ * 定时以及节点空出执行位时按有效优先级依次下发。有效优先级为任务优先级加上排队老化值（每等待一个老化周期加1），
+ * 低优先级任务等待足够久后也会排到前面。有效优先级的先后等价于“入队时间减去优先级×老化周期”的先后，
+ * 入队时写入dispatch_order列，由查询直接按该列排序，每轮检查的窗口与下发顺序一致。某个执行端类型的节点全部饱和后，本轮不再下发该类型的后续任务，
+ * 避免低优先级任务越过排在前面的任务。调用节点接口通过下发管道异步进行，节点繁忙时任务回到队列
+ */
+@Service
+public class TaskQueueServiceImpl implements TaskQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskQueueServiceImpl.class);
+    private static final int DEFAULT_PRIORITY = 1;
+    private static final int MAX_PRIORITY_RANK = 10000;
+    // 关闭老化时每级优先级折算一年，相当于只按优先级排序
+    private static final long NO_AGING_RANK_MILLIS = Duration.ofDays(365).toMillis();
+
+    @Autowired
+    private TestExecutionTaskRepository testExecutionTaskRepository;
+
+    @Autowired
+    private NodeSelector nodeSelector;
+
+    @Autowired
+    private NodeChannelService nodeChannelService;
+
+    @Autowired
+    private NodeDispatchService nodeDispatchService;
+
+    @Autowired
+    private WorkLeaseService workLeaseService;
+
+    @Autowired
+    private DispatchPipeline dispatchPipeline;
+
+    @Value("${execution.node.api.path:/api/execution/execute-task}")
+    private String executionNodeApiPath;
+
+    // 排队老化周期，每等待该时长有效优先级加1
+    @Value("${execution.task-queue.aging-interval-ms:300000}")
+    private long agingIntervalMillis;
+
+    // 每轮下发最多检查的排队任务数
+    @Value("${execution.task-queue.scan-limit:500}")
+    private int scanLimit;
+
+    private final AtomicBoolean signalled = new AtomicBoolean();
+
+    // 在单独线程中执行触发的下发，多次触发合并为一次
+    private final ExecutorService signalExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-queue-signal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        signalExecutor.shutdownNow();
+    }
+
+    @Override
+    public TestExecutionTask enqueue(TestExecutionTask task) {
+        LocalDateTime now = LocalDateTime.now();
+        task.setStatus("QUEUED");
+        task.setQueuedAt(now);
+        task.setDispatchOrder(dispatchOrder(task.getPriority(), now));
+        task.setExecutionNodeId(null);
+        task.setStartTime(null);
+        task.setErrorMessage(null);
+        task.setUpdatedAt(LocalDateTime.now());
+        task = testExecutionTaskRepository.save(task);
+        logger.info("Queued task {} with priority {}", task.getId(), task.getPriority());
+        // 在后台下发，不占用请求线程等待其他下发完成
+        signal();
+        return task;
+    }
+
+    @Override
+    public synchronized int dispatchQueued() {
+        if (workLeaseService.isPullMode()) {
+            // 拉取模式由节点从工作队列领取
+            return 0;
+        }
+        List<TestExecutionTask> tasks = getQueuedTasks();
+        Set<String> saturatedEndpointTypes = new HashSet<>();
+        int dispatched = 0;
+        for (TestExecutionTask task : tasks) {
+            String endpointType = task.getPlan() != null ? task.getPlan().getExecutionEndpointType() : null;
+            String endpointKey = endpointType != null ? endpointType.toLowerCase() : "";
+            if (saturatedEndpointTypes.contains(endpointKey) || saturatedEndpointTypes.contains("")) {
+                continue;
+            }
+            if (dispatch(task, endpointType)) {
+                dispatched++;
+            } else {
+                saturatedEndpointTypes.add(endpointKey);
+            }
+        }
+        if (dispatched > 0) {
+            logger.info("Dispatched {} of {} queued tasks", dispatched, tasks.size());
+        }
+        return dispatched;
+    }
+
+    @Override
+    public void signal() {
+        if (!signalled.compareAndSet(false, true)) {
+            return;
+        }
+        signalExecutor.execute(() -> {
+            signalled.set(false);
+            try {
+                dispatchQueued();
+            } catch (Exception e) {
+                logger.error("Error dispatching queued tasks: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public List<TestExecutionTask> getQueuedTasks() {
+        return testExecutionTaskRepository.findByStatusOrderByDispatchOrderAscIdAsc("QUEUED", PageRequest.of(0, scanLimit));
+    }
+
+    // 选择执行端类型匹配且未饱和的节点，通过长连接或下发管道下发；没有空闲节点或管道已满时任务留在队列中
+    private boolean dispatch(TestExecutionTask task, String endpointType) {
+        ExecutionNode availableNode = nodeSelector.select(endpointType, Collections.<String>emptySet());
+        if (availableNode == null) {
+            return false;
+        }
+        // 更新任务状态为执行中
+        task.setStatus("RUNNING");
+        task.setExecutionNodeId(availableNode.getNodeId());
+        task.setStartTime(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+        TestExecutionTask runningTask = testExecutionTaskRepository.save(task);
+
+        if (nodeChannelService.dispatchTask(availableNode.getNodeId(), runningTask.getId())) {
+            // 节点保持长连接时直接通过长连接下发
+            return true;
+        }
+
+        // 调用执行节点API，直接传递任务ID；节点繁忙时回到队列，由下一轮改派其他节点
+        String path = executionNodeApiPath + "?taskId=" + runningTask.getId();
+        boolean submitted = dispatchPipeline.submit("task " + runningTask.getId(), () -> {
+            if (!nodeDispatchService.post(availableNode, path, null)) {
+                requeue(runningTask.getId(), availableNode.getNodeId());
+                signal();
+            }
+        }, e -> failTask(runningTask.getId(), availableNode.getNodeId(), "Error submitting task: " + e.getMessage()));
+        if (!submitted) {
+            requeue(runningTask.getId(), availableNode.getNodeId());
+            return false;
+        }
+        return true;
+    }
+
+    // 任务仍由该节点执行时放回队列，保留原入队时间
+    private void requeue(Long taskId, String nodeId) {
+        TestExecutionTask task = testExecutionTaskRepository.findById(taskId).orElse(null);
+        if (task == null || !"RUNNING".equals(task.getStatus()) || !nodeId.equals(task.getExecutionNodeId())) {
+            return;
+        }
+        task.setStatus("QUEUED");
+        task.setExecutionNodeId(null);
+        task.setStartTime(null);
+        task.setUpdatedAt(LocalDateTime.now());
+        testExecutionTaskRepository.save(task);
+    }
+
+    private void failTask(Long taskId, String nodeId, String errorMessage) {
+        TestExecutionTask task = testExecutionTaskRepository.findById(taskId).orElse(null);
+        if (task == null || !"RUNNING".equals(task.getStatus()) || !nodeId.equals(task.getExecutionNodeId())) {
+            return;
+        }
+        task.setStatus("FAILED");
+        task.setErrorMessage(errorMessage);
+        task.setEndTime(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+        testExecutionTaskRepository.save(task);
+    }
+
+    // 优先级每高一级相当于提前一个老化周期入队；优先级限制在±10000以内，避免溢出
+    private long dispatchOrder(String priority, LocalDateTime queuedAt) {
+        int rank = Math.max(-MAX_PRIORITY_RANK, Math.min(priorityRank(priority), MAX_PRIORITY_RANK));
+        long rankMillis = agingIntervalMillis > 0 ? agingIntervalMillis : NO_AGING_RANK_MILLIS;
+        return queuedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - rank * rankMillis;
+    }
+
+    // HIGH为2、MEDIUM为1、LOW为0，数字按数值，无法识别时按MEDIUM
+    private int priorityRank(String priority) {
+        if (priority == null || priority.trim().isEmpty()) {
+            return DEFAULT_PRIORITY;
+        }
+        switch (priority.trim().toUpperCase()) {
+            case "HIGH":
+                return 2;
+            case "MEDIUM":
+                return 1;
+            case "LOW":
+                return 0;
+            default:
+                try {
+                    return Integer.parseInt(priority.trim());
+                } catch (NumberFormatException e) {
+                    return DEFAULT_PRIORITY;
+                }
+        }
+    }
+}
@@ -1,19 +1,17 @@
 package com.testexecutionplatform.service.impl;
 
-import com.testexecutionplatform.model.ExecutionNode;
 import com.testexecutionplatform.model.TestExecutionTask;
 import com.testexecutionplatform.repository.TestExecutionTaskRepository;
 import com.testexecutionplatform.service.ExecutionNodeService;
+import com.testexecutionplatform.service.NodeCancellationService;
+import com.testexecutionplatform.service.TaskQueueService;
 import com.testexecutionplatform.service.TestExecutionTaskService;
 import com.testexecutionplatform.service.TestPlanService;
+import com.testexecutionplatform.service.WorkLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,6 +20,8 @@ import java.util.Optional;
 @Service
 public class TestExecutionTaskServiceImpl implements TestExecutionTaskService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TestExecutionTaskServiceImpl.class);
+
     @Autowired
     private TestExecutionTaskRepository testExecutionTaskRepository;
 
@@ -32,10 +32,13 @@ public class TestExecutionTaskServiceImpl implements TestExecutionTaskService {
     private ExecutionNodeService executionNodeService;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private WorkLeaseService workLeaseService;
+
+    @Autowired
+    private NodeCancellationService nodeCancellationService;
 
-    @Value("${execution.node.api.path:/api/execution/execute-task}")
-    private String executionNodeApiPath;
+    @Autowired
+    private TaskQueueService taskQueueService;
 
     @Override
     public List<TestExecutionTask> getAllTestExecutionTasks() {
@@ -76,51 +79,16 @@ public class TestExecutionTaskServiceImpl implements TestExecutionTaskService {
     @Override
     public TestExecutionTask startTask(Long id) {
         TestExecutionTask task = getTestExecutionTaskById(id);
-        if (task != null && "PENDING".equals(task.getStatus())) {
-            // 选择可用的执行节点
-            ExecutionNode availableNode = executionNodeService.getAvailableNode();
-            
-            if (availableNode != null) {
-                // 构建节点URL
-                String nodeUrl = "http://" + availableNode.getHost() + ":" + availableNode.getPort();
-                
-                // 更新任务状态为执行中
-                task.setStatus("RUNNING");
-                task.setExecutionNodeId(availableNode.getNodeId());
-                task.setStartTime(LocalDateTime.now());
-                task.setUpdatedAt(LocalDateTime.now());
-                task = testExecutionTaskRepository.save(task);
-
-                try {
-                    // 调用执行节点API，直接传递任务ID
-                    String apiUrl = nodeUrl + executionNodeApiPath + "?taskId=" + task.getId();
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                    HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-                    ResponseEntity<Void> response = restTemplate.postForEntity(apiUrl, entity, Void.class);
-                    
-                    if (!response.getStatusCode().is2xxSuccessful()) {
-                        // 如果调用失败，更新任务状态为失败
-                        task.setStatus("FAILED");
-                        task.setErrorMessage("Failed to submit task to execution node");
-                        task.setUpdatedAt(LocalDateTime.now());
-                        task = testExecutionTaskRepository.save(task);
-                    }
-                } catch (Exception e) {
-                    // 处理异常情况
-                    task.setStatus("FAILED");
-                    task.setErrorMessage("Error submitting task: " + e.getMessage());
-                    task.setUpdatedAt(LocalDateTime.now());
-                    task = testExecutionTaskRepository.save(task);
-                }
-            } else {
-                // 没有可用节点，更新任务状态为失败
-                task.setStatus("FAILED");
-                task.setErrorMessage("No available execution nodes");
-                task.setUpdatedAt(LocalDateTime.now());
-                task = testExecutionTaskRepository.save(task);
-            }
+        if (task != null && "PENDING".equals(task.getStatus()) && workLeaseService.isPullMode()) {
+            // 拉取模式：放入工作队列，由有空闲容量的节点领取后更新为RUNNING
+            task.setStatus("QUEUED");
+            task.setQueuedAt(LocalDateTime.now());
+            task.setUpdatedAt(LocalDateTime.now());
+            task = testExecutionTaskRepository.save(task);
+            workLeaseService.enqueueTask(task.getId(), task.getPlan() != null ? task.getPlan().getId() : null, null);
+        } else if (task != null && "PENDING".equals(task.getStatus())) {
+            // 推送模式：放入待执行队列，按优先级下发到执行端类型匹配且未饱和的节点，没有空闲节点时继续排队
+            task = taskQueueService.enqueue(task);
         }
         return task;
     }
@@ -128,14 +96,24 @@ public class TestExecutionTaskServiceImpl implements TestExecutionTaskService {
     @Override
     public TestExecutionTask stopTask(Long id) {
         TestExecutionTask task = getTestExecutionTaskById(id);
-        if (task != null && "RUNNING".equals(task.getStatus())) {
-            // 这里可以添加向执行节点发送停止请求的逻辑
-            task.setStatus("COMPLETED"); // 或者可以设置为STOPPED
-            task.setEndTime(LocalDateTime.now());
-            task.setUpdatedAt(LocalDateTime.now());
-            return testExecutionTaskRepository.save(task);
+        if (task == null || !("RUNNING".equals(task.getStatus()) || "QUEUED".equals(task.getStatus()))) {
+            return null;
         }
-        return null;
+        // 尚未被节点领取时直接从工作队列撤回，否则通知执行节点结束进程
+        if (!workLeaseService.cancelTask(id) && task.getExecutionNodeId() != null
+                && !nodeCancellationService.cancelTask(task.getExecutionNodeId(), id)) {
+            logger.warn("Execution node {} did not acknowledge cancellation of task {}", task.getExecutionNodeId(), id);
+        }
+        boolean running = "RUNNING".equals(task.getStatus());
+        task.setStatus("CANCELLED");
+        task.setEndTime(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+        task = testExecutionTaskRepository.save(task);
+        if (running) {
+            // 节点空出执行位，下发排队中的任务
+            taskQueueService.signal();
+        }
+        return task;
     }
 
     @Override
@@ -146,7 +124,9 @@ public class TestExecutionTaskServiceImpl implements TestExecutionTaskService {
             task.setStatus("COMPLETED");
             task.setEndTime(LocalDateTime.now());
             task.setUpdatedAt(LocalDateTime.now());
-            return testExecutionTaskRepository.save(task);
+            task = testExecutionTaskRepository.save(task);
+            taskQueueService.signal();
+            return task;
         }
         return null;
     }
@@ -1,9 +1,11 @@
 package com.testexecutionplatform.service.impl;
 
+import com.testexecutionplatform.dto.ExecutionEvent;
 import com.testexecutionplatform.model.*;
 import com.testexecutionplatform.repository.TestPlanExecutionLogRepository;
 import com.testexecutionplatform.repository.TestPlanExecutionRepository;
 import com.testexecutionplatform.repository.TestPlanRepository;
+import com.testexecutionplatform.repository.TestScriptRepository;
 import com.testexecutionplatform.service.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,20 +13,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class TestPlanExecutionServiceImpl implements TestPlanExecutionService {
@@ -50,12 +57,41 @@ public class TestPlanExecutionServiceImpl implements TestPlanExecutionService {
     private TestScriptService testScriptService;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private TestScriptRepository testScriptRepository;
+
+    @Autowired
+    private WorkLeaseService workLeaseService;
+
+    @Autowired
+    private NodeChannelService nodeChannelService;
+
+    @Autowired
+    private NodeCancellationService nodeCancellationService;
+
+    @Autowired
+    private NodeDispatchService nodeDispatchService;
+
+    @Autowired
+    private NodeSelector nodeSelector;
+
+    @Autowired
+    private TestPlanExecutionShardService testPlanExecutionShardService;
 
     @Value("${execution.node.api.path:/api/execution/execute-plan}")
     private String executionNodeApiPath;
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    // 未指定节点时计划执行最多分片到的节点数
+    @Value("${execution.sharding.max-nodes:4}")
+    private int shardingMaxNodes;
+
+    @Autowired
+    private DispatchPipeline dispatchPipeline;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
      * 执行测试计划
@@ -72,79 +108,221 @@ public class TestPlanExecutionServiceImpl implements TestPlanExecutionService {
             throw new IllegalArgumentException("Test plan not found with ID: " + planId);
         }
         
-        // 确定要使用的执行节点
-        ExecutionNode executionNode;
-        if (nodeIdList != null && !nodeIdList.isEmpty()) {
-            // 使用指定的第一个节点
-            Long nodeId = nodeIdList.get(0);
-            Optional<ExecutionNode> optionalNode = executionNodeService.getExecutionNodeById(nodeId);
-            if (!optionalNode.isPresent()) {
-                throw new IllegalArgumentException("Execution node not found with ID: " + nodeId);
+        // 下发队列已满时直接拒绝，不创建执行记录
+        if (!workLeaseService.isPullMode() && dispatchPipeline.isSaturated()) {
+            throw new RejectedExecutionException("Dispatch queue is full, retry later");
+        }
+
+        // 确定要使用的执行节点，多个节点时计划的脚本分片到各节点执行
+        String endpointType = testPlan.getExecutionEndpointType();
+        int scriptCount = testPlan.getScripts() != null ? testPlan.getScripts().size() : 0;
+        List<ExecutionNode> executionNodes = new ArrayList<>();
+        boolean nodeSpecified = nodeIdList != null && !nodeIdList.isEmpty();
+        if (nodeSpecified) {
+            for (Long nodeId : new LinkedHashSet<>(nodeIdList)) {
+                Optional<ExecutionNode> optionalNode = executionNodeService.getExecutionNodeById(nodeId);
+                if (!optionalNode.isPresent()) {
+                    throw new IllegalArgumentException("Execution node not found with ID: " + nodeId);
+                }
+                // 检查节点状态
+                if (!"ONLINE".equals(optionalNode.get().getStatus())) {
+                    throw new IllegalArgumentException("Execution node is not online: " + nodeId);
+                }
+                executionNodes.add(optionalNode.get());
             }
-            executionNode = optionalNode.get();
         } else {
-            // 自动选择一个在线的执行节点
-            List<ExecutionNode> onlineNodes = executionNodeService.getOnlineExecutionNodes();
-            if (onlineNodes.isEmpty()) {
-                throw new IllegalArgumentException("No online execution nodes available");
+            // 按节点选择策略依次选择执行端类型匹配且未饱和的在线节点，每个节点执行一个分片
+            List<ExecutionNode> matchingNodes = nodeSelector.getMatchingNodes(endpointType);
+            if (matchingNodes.isEmpty()) {
+                throw new IllegalArgumentException("No online execution nodes available for endpoint type " + endpointType);
+            }
+            int maxNodes = Math.max(Math.min(shardingMaxNodes, scriptCount), 1);
+            Set<String> selectedNodeIds = new HashSet<>();
+            while (executionNodes.size() < maxNodes) {
+                ExecutionNode node = nodeSelector.select(endpointType, selectedNodeIds);
+                if (node == null) {
+                    break;
+                }
+                executionNodes.add(node);
+                selectedNodeIds.add(node.getNodeId());
+            }
+            if (executionNodes.isEmpty()) {
+                if (!workLeaseService.isPullMode()) {
+                    // 节点都已饱和是暂时状态，按繁忙拒绝（503，带Retry-After）
+                    throw new RejectedExecutionException("All execution nodes for endpoint type " + endpointType + " are busy, retry later");
+                }
+                // 拉取模式由有空闲容量的节点领取，这里只记录一个匹配的节点
+                executionNodes.add(matchingNodes.get(0));
             }
-            // 简单地选择第一个在线节点
-            executionNode = onlineNodes.get(0);
-        }
-        
-        // 检查节点状态
-        if (!"ONLINE".equals(executionNode.getStatus())) {
-            throw new IllegalArgumentException("Execution node is not online: " + executionNode.getId());
         }
         
         // 创建执行记录
         TestPlanExecution execution = new TestPlanExecution();
         execution.setTestPlan(testPlan);
-        execution.setExecutionNode(executionNode); // 设置执行节点
+        execution.setExecutionNode(executionNodes.get(0)); // 设置执行节点，分片执行时为第一个分片的节点
         execution.setStatus("EXECUTING");
         // 修复：设置正确的脚本总数，而不是固定值0
-        execution.setTotalScripts(testPlan.getScripts().size());
+        execution.setTotalScripts(scriptCount);
         execution.setSuccessScripts(0);
         execution.setFailedScripts(0);
         execution.setStartTime(LocalDateTime.now());
         
         // 保存执行记录
         execution = testPlanExecutionRepository.save(execution);
-        
-        // 创建最终变量副本用于lambda表达式
-        final TestPlanExecution finalExecution = execution;
-        final Long finalNodeId = executionNode.getId();
-        
-        // 异步调用执行节点API
-        executorService.submit(() -> {
-            try {
-                String url = "http://" + executionNode.getHost() + ":" + executionNode.getPort() + executionNodeApiPath;
-                
-                // 构建请求参数
-                Map<String, Object> params = new HashMap<>();
-                params.put("executionId", finalExecution.getId());
-                params.put("planId", planId);
-                
-                // 设置请求头为JSON格式
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(params, headers);
-                
-                // 调用执行节点API
-                restTemplate.postForEntity(url, requestEntity, String.class);
-            } catch (Exception e) {
-                logger.error("Failed to execute test plan on node {}", finalNodeId, e);
-            }
-        });
-        
+
+        if (executionNodes.size() == 1 || scriptCount <= 1) {
+            dispatch(execution, planId, executionNodes.get(0), null, nodeSpecified);
+            return execution;
+        }
+        List<TestPlanExecutionShard> shards = testPlanExecutionShardService.createShards(execution, testPlan.getScripts(), executionNodes);
+        for (TestPlanExecutionShard shard : shards) {
+            dispatch(execution, planId, shard.getExecutionNode(), shard, true);
+        }
         return execution;
     }
 
+    // 下发计划执行或其中一个分片
+    private void dispatch(TestPlanExecution execution, Long planId, ExecutionNode executionNode, TestPlanExecutionShard shard, boolean nodeSpecified) {
+        Long shardId = shard != null ? shard.getId() : null;
+        if (workLeaseService.isPullMode()) {
+            // 拉取模式：放入工作队列由节点领取，未指定节点时由先领取的节点执行
+            workLeaseService.enqueuePlanExecution(execution.getId(), planId, shardId, nodeSpecified ? executionNode.getNodeId() : null);
+            return;
+        }
+
+        // 节点保持长连接时直接通过长连接下发
+        if (nodeChannelService.dispatchPlan(executionNode.getNodeId(), planId, execution.getId(), shardId)) {
+            return;
+        }
+
+        // 通过下发管道异步调用执行节点API，重试时使用改派后的节点；重试用尽或被拒绝时标记为失败
+        String label = "execution " + execution.getId() + (shard != null ? " shard " + shard.getShardIndex() : "");
+        if (!dispatchPipeline.submit(label,
+                () -> dispatchToNode(execution, planId, shard != null ? shard.getExecutionNode() : execution.getExecutionNode(), shard, nodeSpecified),
+                e -> failDispatch(execution, shard))) {
+            failDispatch(execution, shard);
+        }
+    }
+
+    // 下发失败：分片执行时只有该分片失败，其他分片结束后汇总为失败
+    private void failDispatch(TestPlanExecution execution, TestPlanExecutionShard shard) {
+        if (shard != null) {
+            testPlanExecutionShardService.applyShardProgress(shard.getId(), "FAILURE", null, null, null);
+            return;
+        }
+        // 在下发线程中调用，不经过代理，需要自行开启事务
+        transactionTemplate.execute(transaction -> applyExecutionProgress(execution.getId(), "FAILURE", null, null, null));
+    }
+
+    // 调用执行节点API下发计划执行；节点繁忙时，未指定节点的执行改派给其他节点，全部繁忙时标记为失败。
+    // 分片改派给没有执行该计划执行其他分片的节点，找不到时只有该分片失败。调用出错时抛出异常，由下发管道重试
+    private void dispatchToNode(TestPlanExecution execution, Long planId, ExecutionNode executionNode, TestPlanExecutionShard shard, boolean nodeSpecified) {
+        Set<String> busyNodeIds = new HashSet<>();
+        ExecutionNode node = executionNode;
+        while (node != null) {
+            // 构建请求参数
+            Map<String, Object> params = new HashMap<>();
+            params.put("executionId", execution.getId());
+            params.put("planId", planId);
+            if (shard != null) {
+                params.put("shardId", shard.getId());
+            }
+            if (nodeDispatchService.post(node, executionNodeApiPath, params)) {
+                return;
+            }
+            busyNodeIds.add(node.getNodeId());
+            node = shard != null ? selectShardNode(execution, shard, busyNodeIds)
+                    : nodeSpecified ? null : nodeSelector.select(execution.getTestPlan().getExecutionEndpointType(), busyNodeIds);
+            if (node != null) {
+                logger.info("Rerouting execution {} to execution node {}", execution.getId(), node.getNodeId());
+                if (shard != null) {
+                    testPlanExecutionShardService.reassignShard(shard, node);
+                } else {
+                    execution.setExecutionNode(node);
+                    testPlanExecutionRepository.save(execution);
+                }
+                if (nodeChannelService.dispatchPlan(node.getNodeId(), planId, execution.getId(), shard != null ? shard.getId() : null)) {
+                    return;
+                }
+            }
+        }
+        if (shard != null) {
+            logger.warn("Execution nodes {} are busy, failing shard {} of execution {}", busyNodeIds, shard.getShardIndex(), execution.getId());
+        } else {
+            logger.warn("Execution nodes {} are busy, failing execution {}", busyNodeIds, execution.getId());
+        }
+        failDispatch(execution, shard);
+    }
+
+    // 为繁忙节点上的分片另选节点，排除已经执行其他分片的节点
+    private ExecutionNode selectShardNode(TestPlanExecution execution, TestPlanExecutionShard shard, Set<String> busyNodeIds) {
+        Set<String> excludedNodeIds = new HashSet<>(busyNodeIds);
+        for (TestPlanExecutionShard other : testPlanExecutionShardService.getShards(execution.getId())) {
+            if (!other.getId().equals(shard.getId())) {
+                excludedNodeIds.add(other.getExecutionNode().getNodeId());
+            }
+        }
+        return nodeSelector.select(execution.getTestPlan().getExecutionEndpointType(), excludedNodeIds);
+    }
+
     @Override
     public TestPlanExecution getExecutionById(Long executionId) {
         return testPlanExecutionRepository.findById(executionId).orElse(null);
     }
 
+    @Override
+    public TestPlanExecution cancelExecution(Long executionId) {
+        TestPlanExecution execution = testPlanExecutionRepository.findById(executionId).orElse(null);
+        if (execution == null || !"EXECUTING".equals(execution.getStatus())) {
+            return null;
+        }
+        // 尚未被节点领取时直接从工作队列撤回，否则通知执行节点结束进程并跳过剩余脚本
+        boolean withdrawn = workLeaseService.cancelPlanExecution(executionId);
+        List<TestPlanExecutionShard> shards = testPlanExecutionShardService.getShards(executionId);
+        if (shards.isEmpty()) {
+            String nodeId = execution.getExecutionNode() != null ? execution.getExecutionNode().getNodeId() : null;
+            if (!withdrawn && nodeId != null && !nodeCancellationService.cancelPlanExecution(nodeId, executionId)) {
+                logger.warn("Execution node {} did not acknowledge cancellation of execution {}", nodeId, executionId);
+            }
+        } else {
+            // 分片执行时通知每个仍在执行的分片所在节点
+            for (TestPlanExecutionShard shard : shards) {
+                if (shard.isFinished()) {
+                    continue;
+                }
+                String nodeId = shard.getExecutionNode().getNodeId();
+                if (!nodeCancellationService.cancelPlanExecution(nodeId, executionId) && !withdrawn) {
+                    logger.warn("Execution node {} did not acknowledge cancellation of shard {} of execution {}", nodeId, shard.getShardIndex(), executionId);
+                }
+                testPlanExecutionShardService.applyShardProgress(shard.getId(), "CANCELLED", null, null, null);
+            }
+        }
+
+        // 通知节点期间执行可能已结束或更新了统计，加锁重新读取后再标记取消，不保存通知前读取的记录
+        TestPlanExecution cancelled = transactionTemplate.execute(transaction -> {
+            TestPlanExecution current = testPlanExecutionRepository.findByIdForUpdate(executionId).orElse(null);
+            if (current == null) {
+                return null;
+            }
+            // 请求内可能已缓存该执行记录，加锁刷新为最新提交的数据
+            entityManager.refresh(current, LockModeType.PESSIMISTIC_WRITE);
+            LocalDateTime now = LocalDateTime.now();
+            for (TestPlanExecutionLog log : testPlanExecutionLogRepository.findByExecutionIdOrderByCreatedAtAsc(executionId)) {
+                if ("EXECUTING".equals(log.getStatus())) {
+                    log.setStatus("CANCELLED");
+                    log.setEndTime(now);
+                    testPlanExecutionLogRepository.save(log);
+                }
+            }
+            applyProgress(current, "CANCELLED", null, null, null);
+            return updateExecution(current);
+        });
+        if (cancelled != null) {
+            logger.info("Cancelled execution {} of test plan {}, now {}", executionId, cancelled.getTestPlan().getId(), cancelled.getStatus());
+        }
+        return cancelled;
+    }
+
     @Override
     public List<TestPlanExecution> getExecutionsByPlanId(Long planId) {
         return testPlanExecutionRepository.findByTestPlanIdOrderByCreatedAtDesc(planId);
@@ -166,54 +344,61 @@ public class TestPlanExecutionServiceImpl implements TestPlanExecutionService {
 
     @Override
     public void updateExecutionStatus(Long executionId, String status) {
-        TestPlanExecution execution = testPlanExecutionRepository.findById(executionId).orElse(null);
-        if (execution != null) {
+        transactionTemplate.execute(transaction -> applyExecutionProgress(executionId, status, null, null, null));
+    }
+
+    @Override
+    @Transactional
+    public TestPlanExecution applyExecutionProgress(Long executionId, String status, Integer totalScripts, Integer successScripts, Integer failedScripts) {
+        // 加锁读取，避免与取消交错时把已取消的执行改回执行中
+        TestPlanExecution execution = testPlanExecutionRepository.findByIdForUpdate(executionId).orElse(null);
+        if (execution == null) {
+            return null;
+        }
+        applyProgress(execution, status, totalScripts, successScripts, failedScripts);
+        return updateExecution(execution);
+    }
+
+    // 状态只能从执行中变为结束：已结束的执行（如已被取消）忽略之后上报的状态，只更新统计
+    private void applyProgress(TestPlanExecution execution, String status, Integer totalScripts, Integer successScripts, Integer failedScripts) {
+        if (status != null && !execution.isFinished()) {
             execution.setStatus(status);
-            if ("SUCCESS".equals(status) || "FAILURE".equals(status)) {
+            if (execution.isFinished()) {
                 execution.setEndTime(LocalDateTime.now());
             }
-            final TestPlanExecution updatedExecution = testPlanExecutionRepository.save(execution);
-
-            // 更新测试计划最后执行状态
-            TestPlan testPlan = testPlanRepository.findById(execution.getTestPlan().getId()).orElse(null);
-            if (testPlan != null) {
-                testPlan.setLastExecutionStatus(status);
-                if ("SUCCESS".equals(status) || "FAILURE".equals(status)) {
-                    testPlan.setLastExecutionTime(updatedExecution.getEndTime());
-                }
-                testPlanRepository.save(testPlan);
-            }
+        } else if (status != null && !status.equals(execution.getStatus())) {
+            logger.info("Ignoring status {} for execution {}, already {}", status, execution.getId(), execution.getStatus());
         }
+        if (totalScripts != null) execution.setTotalScripts(totalScripts);
+        if (successScripts != null) execution.setSuccessScripts(successScripts);
+        if (failedScripts != null) execution.setFailedScripts(failedScripts);
     }
 
     @Override
-    public void updateExecutionLogStatus(Long logId, String status, String result, String errorMessage, Long executionTime) {
+    public void updateExecutionLogStatus(Long logId, String status, String result, String errorMessage, Long executionTime, Integer attempts) {
         TestPlanExecutionLog log = testPlanExecutionLogRepository.findById(logId).orElse(null);
         if (log != null) {
-            log.setStatus(status);
-            // 将result字段只保留前30个字符
-            if (result != null && !result.isEmpty()) {
-                if (result.length() > 30) {
-                    result = result.substring(0, 30) + "...";
-                }
-            }
-            log.setResult(result);
+            log.setStatus(normalizeLogStatus(status));
+            log.setResult(truncateResult(result));
             log.setErrorMessage(errorMessage);
             log.setExecutionTime(executionTime);
+            if (attempts != null) {
+                log.setAttempts(attempts);
+            }
             log.setEndTime(LocalDateTime.now());
             testPlanExecutionLogRepository.save(log);
 
             // 更新执行记录的统计信息
             TestPlanExecution execution = testPlanExecutionRepository.findById(log.getExecution().getId()).orElse(null);
             if (execution != null) {
-                if ("SUCCESS".equals(status)) {
+                if ("SUCCESS".equals(log.getStatus())) {
                     execution.setSuccessScripts(execution.getSuccessScripts() + 1);
-                } else if ("FAILURE".equals(status)) {
+                } else if ("FAILURE".equals(log.getStatus())) {
                     execution.setFailedScripts(execution.getFailedScripts() + 1);
                 }
 
-                // 检查是否所有脚本都已执行完成
-                if (execution.getSuccessScripts() + execution.getFailedScripts() == execution.getTotalScripts()) {
+                // 检查是否所有脚本都已执行完成，已结束（如已取消）的执行保持原状态
+                if (!execution.isFinished() && execution.getSuccessScripts() + execution.getFailedScripts() == execution.getTotalScripts()) {
                     execution.setStatus(execution.getFailedScripts() > 0 ? "FAILURE" : "SUCCESS");
                     execution.setEndTime(LocalDateTime.now());
                 }
@@ -281,4 +466,123 @@ public class TestPlanExecutionServiceImpl implements TestPlanExecutionService {
         return testPlanExecutionLogRepository.findById(logId).orElse(null);
     }
 
+    /**
+     * 在一个事务中应用执行节点批量上报的事件
+     * 执行记录和测试计划各只读写一次；日志按clientKey去重，重复上报的LOG_CREATED和已结束日志的LOG_FINISHED会被忽略，
+     * 执行统计以批次中最后一个PROGRESS事件为准，分片执行时为该分片的统计，与其他分片汇总
+     */
+    @Override
+    @Transactional
+    public Map<String, Long> applyExecutionEvents(Long executionId, List<ExecutionEvent> events) {
+        // 加锁读取，同一执行的批次与取消、分片汇总依次进行
+        TestPlanExecution execution = testPlanExecutionRepository.findByIdForUpdate(executionId)
+                .orElseThrow(() -> new NoSuchElementException("Execution not found: " + executionId));
+
+        // 一次查出批次涉及的已有日志和脚本
+        Set<String> clientKeys = new LinkedHashSet<>();
+        Set<Long> scriptIds = new LinkedHashSet<>();
+        ExecutionEvent lastProgress = null;
+        for (ExecutionEvent event : events) {
+            if (ExecutionEvent.PROGRESS.equals(event.getType())) {
+                lastProgress = event;
+                continue;
+            }
+            if (!ExecutionEvent.LOG_CREATED.equals(event.getType()) && !ExecutionEvent.LOG_FINISHED.equals(event.getType())) {
+                throw new IllegalArgumentException("Unknown event type: " + event.getType());
+            }
+            if (event.getClientKey() == null) {
+                throw new IllegalArgumentException("Missing clientKey in " + event.getType() + " event");
+            }
+            clientKeys.add(event.getClientKey());
+            if (ExecutionEvent.LOG_CREATED.equals(event.getType())) {
+                if (event.getScriptId() == null) {
+                    throw new IllegalArgumentException("Missing scriptId in LOG_CREATED event");
+                }
+                scriptIds.add(event.getScriptId());
+            }
+        }
+        Map<String, TestPlanExecutionLog> logs = new HashMap<>();
+        if (!clientKeys.isEmpty()) {
+            for (TestPlanExecutionLog log : testPlanExecutionLogRepository.findByExecutionIdAndClientKeyIn(executionId, clientKeys)) {
+                logs.put(log.getClientKey(), log);
+            }
+        }
+        Map<Long, TestScript> scripts = new HashMap<>();
+        if (!scriptIds.isEmpty()) {
+            for (TestScript testScript : testScriptRepository.findAllById(scriptIds)) {
+                scripts.put(testScript.getId(), testScript);
+            }
+        }
+
+        // 按上报顺序应用日志事件
+        Map<String, TestPlanExecutionLog> changedLogs = new LinkedHashMap<>();
+        for (ExecutionEvent event : events) {
+            if (ExecutionEvent.LOG_CREATED.equals(event.getType())) {
+                if (logs.containsKey(event.getClientKey())) {
+                    continue;
+                }
+                TestScript testScript = scripts.get(event.getScriptId());
+                if (testScript == null) {
+                    throw new IllegalArgumentException("Test script not found: " + event.getScriptId());
+                }
+                TestPlanExecutionLog log = new TestPlanExecutionLog();
+                log.setExecution(execution);
+                log.setTestScript(testScript);
+                log.setClientKey(event.getClientKey());
+                log.setStatus("EXECUTING");
+                logs.put(event.getClientKey(), log);
+                changedLogs.put(event.getClientKey(), log);
+            } else if (ExecutionEvent.LOG_FINISHED.equals(event.getType())) {
+                TestPlanExecutionLog log = logs.get(event.getClientKey());
+                if (log == null) {
+                    logger.warn("Ignoring LOG_FINISHED event for unknown log {} in execution {}", event.getClientKey(), executionId);
+                    continue;
+                }
+                if (!"EXECUTING".equals(log.getStatus())) {
+                    continue;
+                }
+                log.setStatus(normalizeLogStatus(event.getStatus()));
+                log.setResult(truncateResult(event.getResult()));
+                log.setErrorMessage(event.getErrorMessage());
+                log.setExecutionTime(event.getExecutionTime());
+                if (event.getAttempts() != null) {
+                    log.setAttempts(event.getAttempts());
+                }
+                log.setEndTime(LocalDateTime.now());
+                changedLogs.put(event.getClientKey(), log);
+            }
+        }
+        testPlanExecutionLogRepository.saveAll(changedLogs.values());
+
+        if (lastProgress != null && lastProgress.getShardId() != null) {
+            // 分片进度汇总到执行记录
+            testPlanExecutionShardService.applyShardProgress(lastProgress.getShardId(), lastProgress.getStatus(),
+                    lastProgress.getTotalScripts(), lastProgress.getSuccessScripts(), lastProgress.getFailedScripts());
+        } else if (lastProgress != null) {
+            applyProgress(execution, lastProgress.getStatus(), lastProgress.getTotalScripts(),
+                    lastProgress.getSuccessScripts(), lastProgress.getFailedScripts());
+            updateExecution(execution);
+        }
+
+        Map<String, Long> logIds = new HashMap<>();
+        for (Map.Entry<String, TestPlanExecutionLog> entry : logs.entrySet()) {
+            logIds.put(entry.getKey(), entry.getValue().getId());
+        }
+        logger.info("Applied {} events to execution {} ({} logs changed)", events.size(), executionId, changedLogs.size());
+        return logIds;
+    }
+
+    // 执行节点以FAILED上报脚本失败，统一保存为FAILURE
+    private String normalizeLogStatus(String status) {
+        return "FAILED".equals(status) ? "FAILURE" : status;
+    }
+
+    // 将result字段只保留前30个字符
+    private String truncateResult(String result) {
+        if (result != null && result.length() > 30) {
+            return result.substring(0, 30) + "...";
+        }
+        return result;
+    }
+
 }
\ No newline at end of file
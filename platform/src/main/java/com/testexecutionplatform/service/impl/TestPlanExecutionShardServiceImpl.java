@@ -0,0 +1,214 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.model.TestPlan;
+import com.testexecutionplatform.model.TestPlanExecution;
+import com.testexecutionplatform.model.TestPlanExecutionShard;
+import com.testexecutionplatform.model.TestScript;
+import com.testexecutionplatform.repository.TestPlanExecutionRepository;
+import com.testexecutionplatform.repository.TestPlanExecutionShardRepository;
+import com.testexecutionplatform.repository.TestPlanRepository;
+import com.testexecutionplatform.service.ScriptOrderingService;
+import com.testexecutionplatform.service.TestPlanExecutionShardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * 计划执行分片
+ * 脚本按历史平均执行耗时从长到短依次放入当前估算总耗时最短的分片（LPT），使各节点大致同时结束；
+ * 分片内的脚本按计划的执行顺序排列。各分片上报的进度累加为执行记录的统计，全部分片结束后确定最终状态
+ */
+@Service
+public class TestPlanExecutionShardServiceImpl implements TestPlanExecutionShardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestPlanExecutionShardServiceImpl.class);
+
+    @Autowired
+    private TestPlanExecutionShardRepository testPlanExecutionShardRepository;
+
+    @Autowired
+    private TestPlanExecutionRepository testPlanExecutionRepository;
+
+    @Autowired
+    private TestPlanRepository testPlanRepository;
+
+    @Autowired
+    private ScriptOrderingService scriptOrderingService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public List<TestPlanExecutionShard> createShards(TestPlanExecution execution, List<TestScript> scripts, List<ExecutionNode> nodes) {
+        Map<Long, Long> durations = scriptOrderingService.estimateScriptDurations(scripts);
+        List<TestScript> sorted = new ArrayList<>(scripts);
+        sorted.sort((a, b) -> Long.compare(durations.get(b.getId()), durations.get(a.getId())));
+
+        // 每次取估算总耗时最短的分片，相同时取序号小的
+        List<ShardBin> bins = new ArrayList<>();
+        PriorityQueue<ShardBin> queue = new PriorityQueue<>((a, b) -> a.duration != b.duration
+                ? Long.compare(a.duration, b.duration) : Integer.compare(a.index, b.index));
+        for (int i = 0; i < nodes.size(); i++) {
+            ShardBin bin = new ShardBin(i);
+            bins.add(bin);
+            queue.add(bin);
+        }
+        for (TestScript script : sorted) {
+            ShardBin bin = queue.poll();
+            bin.scriptIds.add(script.getId());
+            bin.duration += durations.get(script.getId());
+            queue.add(bin);
+        }
+
+        // 分片内按计划的执行顺序排列，节点按该顺序执行
+        Map<Long, Integer> positions = new HashMap<>();
+        for (TestScript script : scriptOrderingService.orderScripts(scripts, execution.getTestPlan().getScriptOrder())) {
+            positions.put(script.getId(), positions.size());
+        }
+        List<TestPlanExecutionShard> shards = new ArrayList<>();
+        for (ShardBin bin : bins) {
+            if (bin.scriptIds.isEmpty()) {
+                continue;
+            }
+            bin.scriptIds.sort(Comparator.comparing(positions::get));
+            TestPlanExecutionShard shard = new TestPlanExecutionShard();
+            shard.setExecution(execution);
+            shard.setShardIndex(shards.size());
+            shard.setExecutionNode(nodes.get(bin.index));
+            shard.setScriptIds(bin.scriptIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            shard.setEstimatedDuration(bin.duration);
+            shard.setStatus("EXECUTING");
+            shard.setTotalScripts(bin.scriptIds.size());
+            shard.setSuccessScripts(0);
+            shard.setFailedScripts(0);
+            shards.add(shard);
+        }
+        shards = testPlanExecutionShardRepository.saveAll(shards);
+        logger.info("Split execution {} into {} shards, estimated durations {} ms", execution.getId(), shards.size(),
+                shards.stream().map(TestPlanExecutionShard::getEstimatedDuration).collect(Collectors.toList()));
+        return shards;
+    }
+
+    @Override
+    public TestPlanExecutionShard getShard(Long shardId) {
+        return testPlanExecutionShardRepository.findById(shardId).orElse(null);
+    }
+
+    @Override
+    public List<TestPlanExecutionShard> getShards(Long executionId) {
+        return testPlanExecutionShardRepository.findByExecutionIdOrderByShardIndexAsc(executionId);
+    }
+
+    @Override
+    public TestPlanExecutionShard reassignShard(TestPlanExecutionShard shard, ExecutionNode node) {
+        shard.setExecutionNode(node);
+        shard.setStartTime(LocalDateTime.now());
+        return testPlanExecutionShardRepository.save(shard);
+    }
+
+    @Override
+    @Transactional
+    public TestPlanExecution applyShardProgress(Long shardId, String status, Integer totalScripts, Integer successScripts, Integer failedScripts) {
+        TestPlanExecutionShard shard = testPlanExecutionShardRepository.findById(shardId).orElse(null);
+        if (shard == null) {
+            return null;
+        }
+        // 先锁住执行记录再更新分片并读取其他分片，多个分片同时结束时依次汇总，最后结束的分片能看到其他分片都已结束
+        TestPlanExecution execution = testPlanExecutionRepository.findByIdForUpdate(shard.getExecution().getId()).orElse(null);
+        if (execution == null) {
+            return null;
+        }
+        // 调用方的事务中可能已经读取过执行记录和分片（一致性读和一级缓存都是旧数据），加锁重新读取最新提交的数据
+        entityManager.refresh(execution, LockModeType.PESSIMISTIC_WRITE);
+        List<TestPlanExecutionShard> shards = getShards(execution.getId());
+        for (TestPlanExecutionShard executionShard : shards) {
+            entityManager.refresh(executionShard, LockModeType.PESSIMISTIC_WRITE);
+        }
+        // 已结束的分片（如已被取消）不再回到执行中，只更新统计
+        if (status != null && !shard.isFinished()) {
+            shard.setStatus(status);
+            if (shard.isFinished()) {
+                shard.setEndTime(LocalDateTime.now());
+            }
+        }
+        // 节点获取计划失败或执行异常时上报FAILURE且脚本数为0，此时保留分片已有的统计，避免汇总的总数变小
+        boolean failedWithoutCounts = "FAILURE".equals(status) && totalScripts != null && totalScripts == 0;
+        if (!failedWithoutCounts) {
+            if (totalScripts != null) shard.setTotalScripts(totalScripts);
+            if (successScripts != null) shard.setSuccessScripts(successScripts);
+            if (failedScripts != null) shard.setFailedScripts(failedScripts);
+        }
+        testPlanExecutionShardRepository.save(shard);
+
+        aggregate(execution, shards);
+        execution = testPlanExecutionRepository.save(execution);
+
+        TestPlan testPlan = testPlanRepository.findById(execution.getTestPlan().getId()).orElse(null);
+        if (testPlan != null) {
+            testPlan.setLastExecutionStatus(execution.getStatus());
+            if (execution.getEndTime() != null) {
+                testPlan.setLastExecutionTime(execution.getEndTime());
+            }
+            testPlanRepository.save(testPlan);
+        }
+        return execution;
+    }
+
+    // 统计为各分片之和；有分片在执行时仍为执行中，全部结束后有取消的为已取消，有失败的为失败
+    private void aggregate(TestPlanExecution execution, List<TestPlanExecutionShard> shards) {
+        int total = 0;
+        int success = 0;
+        int failed = 0;
+        boolean running = false;
+        boolean cancelled = false;
+        boolean failure = false;
+        for (TestPlanExecutionShard shard : shards) {
+            total += shard.getTotalScripts() != null ? shard.getTotalScripts() : 0;
+            success += shard.getSuccessScripts() != null ? shard.getSuccessScripts() : 0;
+            failed += shard.getFailedScripts() != null ? shard.getFailedScripts() : 0;
+            running |= !shard.isFinished();
+            cancelled |= "CANCELLED".equals(shard.getStatus());
+            failure |= !"SUCCESS".equals(shard.getStatus());
+        }
+        execution.setTotalScripts(total);
+        execution.setSuccessScripts(success);
+        execution.setFailedScripts(failed);
+        if (running || "CANCELLED".equals(execution.getStatus())) {
+            return;
+        }
+        execution.setStatus(cancelled ? "CANCELLED" : failure || failed > 0 ? "FAILURE" : "SUCCESS");
+        if (execution.getEndTime() == null) {
+            execution.setEndTime(LocalDateTime.now());
+        }
+        logger.info("All {} shards of execution {} finished with status {}", shards.size(), execution.getId(), execution.getStatus());
+    }
+
+    /**
+     * 分配过程中的分片
+     */
+    private static class ShardBin {
+        private final int index;
+        private final List<Long> scriptIds = new ArrayList<>();
+        private long duration;
+
+        ShardBin(int index) {
+            this.index = index;
+        }
+    }
+}
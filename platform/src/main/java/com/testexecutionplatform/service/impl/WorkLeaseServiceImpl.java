@@ -0,0 +1,350 @@
+package com.testexecutionplatform.service.impl;
+
+import com.testexecutionplatform.model.ExecutionNode;
+import com.testexecutionplatform.model.TestExecutionTask;
+import com.testexecutionplatform.model.TestPlan;
+import com.testexecutionplatform.model.TestPlanExecution;
+import com.testexecutionplatform.model.WorkUnit;
+import com.testexecutionplatform.repository.ExecutionNodeRepository;
+import com.testexecutionplatform.repository.TestExecutionTaskRepository;
+import com.testexecutionplatform.repository.TestPlanExecutionRepository;
+import com.testexecutionplatform.repository.TestPlanRepository;
+import com.testexecutionplatform.repository.WorkUnitRepository;
+import com.testexecutionplatform.service.TestPlanExecutionShardService;
+import com.testexecutionplatform.service.WorkLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * 工作单元租用服务
+ * 平台不再主动调用节点，而是把计划执行和任务放入work_units表，由节点按空闲容量长轮询领取。
+ * 租约需要节点定时续租，过期后单元回到队列由其他节点领取，超过最大领取次数则标记为失败
+ */
+@Service
+public class WorkLeaseServiceImpl implements WorkLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkLeaseServiceImpl.class);
+
+    @Autowired
+    private WorkUnitRepository workUnitRepository;
+
+    @Autowired
+    private ExecutionNodeRepository executionNodeRepository;
+
+    @Autowired
+    private TestPlanExecutionRepository testPlanExecutionRepository;
+
+    @Autowired
+    private TestPlanRepository testPlanRepository;
+
+    @Autowired
+    private TestExecutionTaskRepository testExecutionTaskRepository;
+
+    @Autowired
+    private TestPlanExecutionShardService testPlanExecutionShardService;
+
+    // push：平台调用节点接口下发；pull：节点从平台领取
+    @Value("${execution.dispatch.mode:push}")
+    private String dispatchMode;
+
+    // 租约时长，节点需在此时间内续租
+    @Value("${execution.lease.duration-ms:60000}")
+    private long leaseDurationMillis;
+
+    // 单元被领取的最大次数，租约多次过期（节点反复失联）后不再重新排队
+    @Value("${execution.lease.max-attempts:3}")
+    private int maxAttempts;
+
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    // 新单元入队后在单独线程中唤醒等待的节点，按等待顺序分配
+    private final ExecutorService signalExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "work-lease-signal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        signalExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean isPullMode() {
+        return "pull".equalsIgnoreCase(dispatchMode);
+    }
+
+    @Override
+    public WorkUnit enqueuePlanExecution(Long executionId, Long planId, Long shardId, String targetNodeId) {
+        WorkUnit unit = new WorkUnit();
+        unit.setUnitType(WorkUnit.TYPE_PLAN);
+        unit.setExecutionId(executionId);
+        unit.setPlanId(planId);
+        unit.setShardId(shardId);
+        return enqueue(unit, targetNodeId);
+    }
+
+    @Override
+    public WorkUnit enqueueTask(Long taskId, Long planId, String targetNodeId) {
+        WorkUnit unit = new WorkUnit();
+        unit.setUnitType(WorkUnit.TYPE_TASK);
+        unit.setTaskId(taskId);
+        unit.setPlanId(planId);
+        return enqueue(unit, targetNodeId);
+    }
+
+    private WorkUnit enqueue(WorkUnit unit, String targetNodeId) {
+        unit.setTargetNodeId(targetNodeId);
+        unit.setStatus("PENDING");
+        unit.setAttempts(0);
+        WorkUnit saved = workUnitRepository.save(unit);
+        logger.info("Enqueued {} work unit {} (target node: {})", saved.getUnitType(), saved.getId(), targetNodeId);
+        signalWaitersAfterCommit();
+        return saved;
+    }
+
+    @Override
+    public List<WorkUnit> lease(String nodeId, int maxUnits) {
+        List<WorkUnit> leased = new ArrayList<>();
+        if (maxUnits <= 0) {
+            return leased;
+        }
+        // 多取一些候选，其他节点抢先领取的单元直接跳过
+        List<WorkUnit> candidates = workUnitRepository.findLeasable(nodeId, PageRequest.of(0, maxUnits * 2));
+        for (WorkUnit candidate : candidates) {
+            if (leased.size() >= maxUnits) {
+                break;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (workUnitRepository.acquire(candidate.getId(), nodeId, now.plusNanos(leaseDurationMillis * 1_000_000), now) == 0) {
+                continue;
+            }
+            WorkUnit unit = workUnitRepository.findById(candidate.getId()).orElse(null);
+            if (unit != null) {
+                onLeased(unit, nodeId);
+                leased.add(unit);
+            }
+        }
+        if (!leased.isEmpty()) {
+            logger.info("Node {} leased work units {}", nodeId, leased.stream().map(WorkUnit::getId).collect(Collectors.toList()));
+        }
+        return leased;
+    }
+
+    @Override
+    public DeferredResult<List<WorkUnit>> pollLeases(String nodeId, int maxUnits, long waitMillis) {
+        DeferredResult<List<WorkUnit>> result = new DeferredResult<>(waitMillis, Collections.<WorkUnit>emptyList());
+        List<WorkUnit> leased = lease(nodeId, maxUnits);
+        if (!leased.isEmpty() || waitMillis <= 0) {
+            result.setResult(leased);
+            return result;
+        }
+        Waiter waiter = new Waiter(nodeId, maxUnits, result);
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        // 注册等待前可能已有单元入队，再检查一次
+        signalWaiters();
+        return result;
+    }
+
+    @Override
+    public List<Long> renewLeases(String nodeId, List<Long> unitIds) {
+        if (unitIds == null || unitIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        workUnitRepository.renew(unitIds, nodeId, now.plusNanos(leaseDurationMillis * 1_000_000), now);
+        return workUnitRepository.findByIdInAndStatusAndLeaseOwner(unitIds, "LEASED", nodeId).stream()
+                .map(WorkUnit::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean completeLease(String nodeId, Long unitId) {
+        boolean completed = workUnitRepository.finish(unitId, nodeId, "COMPLETED", LocalDateTime.now()) > 0;
+        if (completed) {
+            logger.info("Node {} completed work unit {}", nodeId, unitId);
+        } else {
+            logger.warn("Node {} tried to complete work unit {} which it does not hold", nodeId, unitId);
+        }
+        return completed;
+    }
+
+    @Override
+    public boolean cancelPlanExecution(Long executionId) {
+        boolean cancelled = workUnitRepository.cancelPendingExecution(executionId, LocalDateTime.now()) > 0;
+        if (cancelled) {
+            logger.info("Withdrew queued plan execution {} from the work queue", executionId);
+        }
+        return cancelled;
+    }
+
+    @Override
+    public boolean cancelTask(Long taskId) {
+        boolean cancelled = workUnitRepository.cancelPendingTask(taskId, LocalDateTime.now()) > 0;
+        if (cancelled) {
+            logger.info("Withdrew queued task {} from the work queue", taskId);
+        }
+        return cancelled;
+    }
+
+    @Override
+    public int expireLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = 0;
+        int processed = 0;
+        for (WorkUnit unit : workUnitRepository.findByStatusAndLeaseExpiresAtBefore("LEASED", now)) {
+            boolean exhausted = unit.getAttempts() >= maxAttempts;
+            if (workUnitRepository.expire(unit.getId(), exhausted ? "FAILED" : "PENDING", now) == 0) {
+                continue;
+            }
+            processed++;
+            if (exhausted) {
+                logger.error("Lease of work unit {} held by node {} expired after {} attempts, marking as failed",
+                        unit.getId(), unit.getLeaseOwner(), unit.getAttempts());
+                failWork(unit, "Execution node " + unit.getLeaseOwner() + " stopped renewing the lease after " + unit.getAttempts() + " attempts");
+            } else {
+                logger.warn("Lease of work unit {} held by node {} expired, returning it to the queue", unit.getId(), unit.getLeaseOwner());
+                requeued++;
+            }
+        }
+        if (requeued > 0) {
+            signalWaiters();
+        }
+        return processed;
+    }
+
+    // 领取后将计划执行或任务关联到实际执行的节点，分片只能由分配的节点领取，不需要关联
+    private void onLeased(WorkUnit unit, String nodeId) {
+        if (WorkUnit.TYPE_PLAN.equals(unit.getUnitType())) {
+            if (unit.getShardId() != null) {
+                return;
+            }
+            Optional<ExecutionNode> node = executionNodeRepository.findByNodeId(nodeId);
+            TestPlanExecution execution = testPlanExecutionRepository.findById(unit.getExecutionId()).orElse(null);
+            if (execution != null && node.isPresent()) {
+                execution.setExecutionNode(node.get());
+                execution.setStartTime(LocalDateTime.now());
+                testPlanExecutionRepository.save(execution);
+            }
+        } else {
+            TestExecutionTask task = testExecutionTaskRepository.findById(unit.getTaskId()).orElse(null);
+            if (task != null) {
+                task.setStatus("RUNNING");
+                task.setExecutionNodeId(nodeId);
+                task.setStartTime(LocalDateTime.now());
+                testExecutionTaskRepository.save(task);
+            }
+        }
+    }
+
+    private void failWork(WorkUnit unit, String errorMessage) {
+        if (WorkUnit.TYPE_PLAN.equals(unit.getUnitType())) {
+            if (unit.getShardId() != null) {
+                // 只有该分片失败，其他分片结束后汇总为失败
+                testPlanExecutionShardService.applyShardProgress(unit.getShardId(), "FAILURE", null, null, null);
+                return;
+            }
+            TestPlanExecution execution = testPlanExecutionRepository.findById(unit.getExecutionId()).orElse(null);
+            if (execution == null || execution.isFinished()) {
+                return;
+            }
+            execution.setStatus("FAILURE");
+            execution.setEndTime(LocalDateTime.now());
+            testPlanExecutionRepository.save(execution);
+            TestPlan testPlan = testPlanRepository.findById(unit.getPlanId()).orElse(null);
+            if (testPlan != null) {
+                testPlan.setLastExecutionStatus("FAILURE");
+                testPlan.setLastExecutionTime(execution.getEndTime());
+                testPlanRepository.save(testPlan);
+            }
+        } else {
+            TestExecutionTask task = testExecutionTaskRepository.findById(unit.getTaskId()).orElse(null);
+            if (task == null) {
+                return;
+            }
+            task.setStatus("FAILED");
+            task.setErrorMessage(errorMessage);
+            task.setEndTime(LocalDateTime.now());
+            testExecutionTaskRepository.save(task);
+        }
+    }
+
+    private void signalWaitersAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    signalWaiters();
+                }
+            });
+        } else {
+            signalWaiters();
+        }
+    }
+
+    private void signalWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        signalExecutor.execute(() -> {
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                if (waiter.result.isSetOrExpired()) {
+                    iterator.remove();
+                    continue;
+                }
+                try {
+                    List<WorkUnit> leased = lease(waiter.nodeId, waiter.maxUnits);
+                    if (leased.isEmpty()) {
+                        continue;
+                    }
+                    iterator.remove();
+                    if (!waiter.result.setResult(leased)) {
+                        // 等待恰好超时，交还租约
+                        for (WorkUnit unit : leased) {
+                            workUnitRepository.release(unit.getId(), waiter.nodeId, LocalDateTime.now());
+                        }
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to lease work for waiting node {}", waiter.nodeId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 一个挂起的长轮询请求
+     */
+    private static class Waiter {
+        private final String nodeId;
+        private final int maxUnits;
+        private final DeferredResult<List<WorkUnit>> result;
+
+        Waiter(String nodeId, int maxUnits, DeferredResult<List<WorkUnit>> result) {
+            this.nodeId = nodeId;
+            this.maxUnits = maxUnits;
+            this.result = result;
+        }
+    }
+}
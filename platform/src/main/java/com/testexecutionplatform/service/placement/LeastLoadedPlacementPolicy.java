@@ -0,0 +1,33 @@
+package com.testexecutionplatform.service.placement;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 选择可用执行位最多的节点，相同时优先已有负载信息、执行中计划/任务较少的节点
+ */
+@Component
+public class LeastLoadedPlacementPolicy implements PlacementPolicy {
+
+    public static final String NAME = "least-loaded";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public NodeCandidate select(List<NodeCandidate> candidates) {
+        return candidates.stream()
+                .max(Comparator.comparingInt(NodeCandidate::getFreeSlots)
+                        .thenComparing(NodeCandidate::isLoadKnown)
+                        .thenComparing(Comparator.comparingInt(LeastLoadedPlacementPolicy::activeUnits).reversed()))
+                .orElse(null);
+    }
+
+    private static int activeUnits(NodeCandidate candidate) {
+        return candidate.isLoadKnown() && candidate.getLoad().getActiveUnits() != null ? candidate.getLoad().getActiveUnits() : 0;
+    }
+}
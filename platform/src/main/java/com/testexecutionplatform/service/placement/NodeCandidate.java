@@ -0,0 +1,50 @@
+package com.testexecutionplatform.service.placement;
+
+import com.testexecutionplatform.dto.NodeLoad;
+import com.testexecutionplatform.model.ExecutionNode;
+
+/**
+ * 参与选择的节点及其心跳上报的负载
+ */
+public class NodeCandidate {
+    private final ExecutionNode node;
+    private final NodeLoad load;
+
+    public NodeCandidate(ExecutionNode node, NodeLoad load) {
+        this.node = node;
+        this.load = load;
+    }
+
+    public ExecutionNode getNode() {
+        return node;
+    }
+
+    public NodeLoad getLoad() {
+        return load;
+    }
+
+    /**
+     * 是否已有未过期的负载信息
+     */
+    public boolean isLoadKnown() {
+        return load != null && load.getFreeSlots() != null;
+    }
+
+    /**
+     * 可用执行位：空闲执行位扣除准入队列中排队的数量；还没有负载信息的节点按1个处理，
+     * 下发一次后由预占记为0，直到下一次心跳
+     */
+    public int getFreeSlots() {
+        if (!isLoadKnown()) {
+            return 1;
+        }
+        return load.getFreeSlots() - (load.getAdmissionQueued() != null ? load.getAdmissionQueued() : 0);
+    }
+
+    /**
+     * 已知负载且没有可用执行位
+     */
+    public boolean isSaturated() {
+        return isLoadKnown() && getFreeSlots() <= 0;
+    }
+}
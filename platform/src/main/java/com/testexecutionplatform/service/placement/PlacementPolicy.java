@@ -0,0 +1,16 @@
+package com.testexecutionplatform.service.placement;
+
+import java.util.List;
+
+/**
+ * 节点选择策略，通过node.placement.policy按名称选用
+ */
+public interface PlacementPolicy {
+    String getName();
+
+    /**
+     * 从候选节点中选择一个
+     * @param candidates 在线、执行端类型匹配且未饱和的节点，不为空
+     */
+    NodeCandidate select(List<NodeCandidate> candidates);
+}
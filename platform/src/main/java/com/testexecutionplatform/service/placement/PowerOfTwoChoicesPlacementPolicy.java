@@ -0,0 +1,36 @@
+package com.testexecutionplatform.service.placement;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机取两个节点，选择可用执行位较多的一个；负载信息有延迟时比总是选择最空闲的节点更不容易集中到同一节点
+ */
+@Component
+public class PowerOfTwoChoicesPlacementPolicy implements PlacementPolicy {
+
+    public static final String NAME = "power-of-two";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public NodeCandidate select(List<NodeCandidate> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        NodeCandidate a = candidates.get(first);
+        NodeCandidate b = candidates.get(second);
+        return b.getFreeSlots() > a.getFreeSlots() ? b : a;
+    }
+}
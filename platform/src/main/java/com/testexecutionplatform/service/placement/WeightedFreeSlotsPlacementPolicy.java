@@ -0,0 +1,36 @@
+package com.testexecutionplatform.service.placement;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按可用执行位加权随机选择，多个平台实例同时调度时不会都选中同一个节点
+ */
+@Component
+public class WeightedFreeSlotsPlacementPolicy implements PlacementPolicy {
+
+    public static final String NAME = "weighted";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public NodeCandidate select(List<NodeCandidate> candidates) {
+        long totalWeight = 0;
+        for (NodeCandidate candidate : candidates) {
+            totalWeight += candidate.getFreeSlots();
+        }
+        long target = ThreadLocalRandom.current().nextLong(totalWeight);
+        for (NodeCandidate candidate : candidates) {
+            target -= candidate.getFreeSlots();
+            if (target < 0) {
+                return candidate;
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+}
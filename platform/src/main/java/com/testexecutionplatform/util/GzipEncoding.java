@@ -0,0 +1,66 @@
+package com.testexecutionplatform.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip传输编码的协商与压缩
+ */
+public final class GzipEncoding {
+
+    public static final String GZIP = "gzip";
+
+    private GzipEncoding() {
+    }
+
+    /**
+     * 客户端的Accept-Encoding是否接受gzip（gzip;q=0表示拒绝）
+     */
+    public static boolean accepts(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!GZIP.equals(name) && !"*".equals(name)) {
+                continue;
+            }
+            boolean rejected = parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以指定压缩级别（1最快，9压缩率最高）写出gzip
+     */
+    public static GZIPOutputStream newOutputStream(OutputStream out, int level) throws IOException {
+        return new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    /**
+     * 将数据压缩为一个完整的gzip成员
+     */
+    public static byte[] compress(byte[] data, int level) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+            GZIPOutputStream gzip = newOutputStream(buffer, level);
+            gzip.write(data);
+            gzip.finish();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -47,6 +47,7 @@ CREATE TABLE IF NOT EXISTS `test_plans` (
   `last_execution_status` VARCHAR(50) COMMENT '最后执行状态',
   `last_execution_time` DATETIME COMMENT '最后执行时间',
   `last_execution_node_id` BIGINT COMMENT '最后执行节点ID',
+  `script_order` VARCHAR(20) COMMENT '脚本执行顺序：DURATION、FAIL_FAST、PLAN，为空时使用平台默认',
   `created_at` DATETIME NOT NULL COMMENT '创建时间',
   `updated_at` DATETIME NOT NULL COMMENT '更新时间',
   PRIMARY KEY (`id`),
@@ -70,17 +71,20 @@ CREATE TABLE IF NOT EXISTS `test_execution_tasks` (
   `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '测试执行任务ID',
   `plan_id` BIGINT NOT NULL COMMENT '测试计划ID',
   `status` VARCHAR(255) NOT NULL COMMENT '任务状态',
-  `priority` VARCHAR(100) COMMENT '任务优先级',
+  `priority` VARCHAR(100) COMMENT '任务优先级：HIGH、MEDIUM、LOW或数字，越大越优先',
   `environment` VARCHAR(255) COMMENT '执行环境',
   `executor` VARCHAR(255) COMMENT '执行者',
   `execution_node_id` VARCHAR(255) COMMENT '执行节点ID',
   `error_message` TEXT COMMENT '错误信息',
+  `queued_at` DATETIME COMMENT '进入待执行队列的时间',
+  `dispatch_order` BIGINT COMMENT '下发顺序：入队时间毫秒数减去优先级折算的老化时长，越小越先下发',
   `start_time` DATETIME COMMENT '开始时间',
   `end_time` DATETIME COMMENT '结束时间',
   `created_at` DATETIME NOT NULL COMMENT '创建时间',
   `updated_at` DATETIME NOT NULL COMMENT '更新时间',
   PRIMARY KEY (`id`),
   KEY `fk_task_plan` (`plan_id`),
+  KEY `idx_task_status_dispatch_order` (`status`, `dispatch_order`),
   CONSTRAINT `fk_task_plan` FOREIGN KEY (`plan_id`) REFERENCES `test_plans` (`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -110,21 +114,67 @@ CREATE TABLE IF NOT EXISTS `test_plan_execution_logs` (
   `execution_id` BIGINT NOT NULL COMMENT '测试计划执行ID',
   `script_id` BIGINT NOT NULL COMMENT '测试脚本ID',
   `status` VARCHAR(255) NOT NULL COMMENT '执行状态',
+  `client_key` VARCHAR(64) COMMENT '执行节点生成的日志标识',
   `result` TEXT COMMENT '执行结果',
   `error_message` TEXT COMMENT '错误信息',
   `execution_time` BIGINT COMMENT '执行时间（毫秒）',
+  `attempts` INT COMMENT '执行尝试次数（含重试）',
   `log_content` TEXT COMMENT '日志内容',
   `start_time` DATETIME COMMENT '开始时间',
   `end_time` DATETIME COMMENT '结束时间',
   `created_at` DATETIME NOT NULL COMMENT '创建时间',
   `updated_at` DATETIME NOT NULL COMMENT '更新时间',
   PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_log_client_key` (`execution_id`, `client_key`),
   KEY `fk_log_execution` (`execution_id`),
   KEY `fk_log_script` (`script_id`),
+  KEY `idx_log_script_created` (`script_id`, `created_at`),
   CONSTRAINT `fk_log_execution` FOREIGN KEY (`execution_id`) REFERENCES `test_plan_executions` (`id`) ON DELETE CASCADE,
   CONSTRAINT `fk_log_script` FOREIGN KEY (`script_id`) REFERENCES `test_scripts` (`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- 创建计划执行分片表（计划执行分配到多个节点时每个节点一个分片）
+CREATE TABLE IF NOT EXISTS `test_plan_execution_shards` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '分片ID',
+  `execution_id` BIGINT NOT NULL COMMENT '测试计划执行ID',
+  `shard_index` INT NOT NULL COMMENT '分片序号',
+  `node_id` BIGINT NOT NULL COMMENT '执行节点ID',
+  `script_ids` TEXT NOT NULL COMMENT '分配的脚本ID，逗号分隔',
+  `estimated_duration` BIGINT COMMENT '按历史执行耗时估算的执行时间（毫秒）',
+  `status` VARCHAR(255) NOT NULL COMMENT '执行状态',
+  `total_scripts` INT COMMENT '总脚本数',
+  `success_scripts` INT COMMENT '成功脚本数',
+  `failed_scripts` INT COMMENT '失败脚本数',
+  `start_time` DATETIME COMMENT '开始时间',
+  `end_time` DATETIME COMMENT '结束时间',
+  `created_at` DATETIME NOT NULL COMMENT '创建时间',
+  `updated_at` DATETIME NOT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `fk_shard_execution` (`execution_id`),
+  KEY `fk_shard_node` (`node_id`),
+  CONSTRAINT `fk_shard_execution` FOREIGN KEY (`execution_id`) REFERENCES `test_plan_executions` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `fk_shard_node` FOREIGN KEY (`node_id`) REFERENCES `execution_nodes` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 创建工作单元表（拉取模式下由执行节点租用）
+CREATE TABLE IF NOT EXISTS `work_units` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '工作单元ID',
+  `unit_type` VARCHAR(16) NOT NULL COMMENT '类型：PLAN、TASK',
+  `execution_id` BIGINT COMMENT '测试计划执行ID',
+  `plan_id` BIGINT COMMENT '测试计划ID',
+  `shard_id` BIGINT COMMENT '计划执行分片ID，为空时执行全部脚本',
+  `task_id` BIGINT COMMENT '测试执行任务ID',
+  `target_node_id` VARCHAR(255) COMMENT '指定的执行节点ID',
+  `status` VARCHAR(16) NOT NULL COMMENT '状态：PENDING、LEASED、COMPLETED、FAILED、CANCELLED',
+  `lease_owner` VARCHAR(255) COMMENT '持有租约的执行节点ID',
+  `lease_expires_at` DATETIME COMMENT '租约到期时间',
+  `attempts` INT NOT NULL DEFAULT 0 COMMENT '被领取次数',
+  `created_at` DATETIME NOT NULL COMMENT '创建时间',
+  `updated_at` DATETIME NOT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_work_unit_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- 创建测试结果表
 CREATE TABLE IF NOT EXISTS `test_results` (
   `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '测试结果ID',